@@ -0,0 +1,69 @@
+package com.pg85.otg.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.pg85.otg.constants.Constants;
+import com.pg85.otg.interfaces.IBiome;
+import com.pg85.otg.util.ChunkCoordinate;
+
+/**
+ * Biome lookups, per chunk. getBiomesForChunk is measured both for
+ * new chunks (cache misses) and for a chunk that was just requested 
+ * (cache hits, the case for carvers/decoration after base terrain).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BiomeBenchmark
+{
+	@Benchmark
+	public IBiome[] getBiomesForChunkMiss(PresetState state, ChunkCursor cursor)
+	{
+		return state.chunkGenerator.getCachedBiomeProvider().getBiomesForChunk(cursor.next());
+	}
+
+	@Benchmark
+	public IBiome[] getBiomesForChunkHit(PresetState state)
+	{
+		return state.chunkGenerator.getCachedBiomeProvider().getBiomesForChunk(ChunkCoordinate.fromChunkCoords(0, 0));
+	}
+
+	/**
+	 * Samples the layer stack for a 16x16 area of noise (1:4) coordinates,
+	 * roughly the area CachedBiomeProvider requests for smoothing one chunk.
+	 */
+	@Benchmark
+	public void biomeLayers(PresetState state, ChunkCursor cursor, Blackhole blackhole)
+	{
+		ChunkCoordinate chunkCoord = cursor.next();
+		int noiseStartX = chunkCoord.getBlockX() >> 2;
+		int noiseStartZ = chunkCoord.getBlockZ() >> 2;
+		int noiseSize = Constants.CHUNK_SIZE;
+		for(int x = 0; x < noiseSize; x++)
+		{
+			for(int z = 0; z < noiseSize; z++)
+			{
+				blackhole.consume(state.layerSampler.sample(noiseStartX + x, noiseStartZ + z));
+			}
+		}
+	}
+
+	/**
+	 * Samples the same area as biomeLayers in one sampleArea call, which
+	 * evaluates the layer stack area by area instead of point by point.
+	 */
+	@Benchmark
+	public int[] biomeLayersArea(PresetState state, ChunkCursor cursor)
+	{
+		ChunkCoordinate chunkCoord = cursor.next();
+		int noiseSize = Constants.CHUNK_SIZE;
+		int[] area = new int[noiseSize * noiseSize];
+		state.layerSampler.sampleArea(area, chunkCoord.getBlockX() >> 2, chunkCoord.getBlockZ() >> 2, noiseSize, noiseSize);
+		return area;
+	}
+}
@@ -0,0 +1,36 @@
+package com.pg85.otg.bench;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.pg85.otg.util.ChunkCoordinate;
+
+/**
+ * Hands out chunk coordinates per benchmark thread, walking rows of
+ * chunks so neighbouring chunks are generated in sequence like they 
+ * would be around a player. Each thread starts on its own row block
+ * so threads don't share cache entries by accident.
+ */
+@State(Scope.Thread)
+public class ChunkCursor
+{
+	private static final int ROW_LENGTH = 64;
+	private static int threads = 0;
+
+	private final int startZ;
+	private int index = 0;
+
+	public ChunkCursor()
+	{
+		synchronized(ChunkCursor.class)
+		{
+			this.startZ = (threads++) * 4096;
+		}
+	}
+
+	public ChunkCoordinate next()
+	{
+		int i = this.index++;
+		return ChunkCoordinate.fromChunkCoords(i % ROW_LENGTH, this.startZ + (i / ROW_LENGTH));
+	}
+}
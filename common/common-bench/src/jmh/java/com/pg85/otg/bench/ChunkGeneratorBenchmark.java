@@ -0,0 +1,50 @@
+package com.pg85.otg.bench;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import com.pg85.otg.bench.headless.HeadlessChunkBuffer;
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.gen.ChunkBuffer;
+import com.pg85.otg.util.gen.JigsawStructureData;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectList;
+
+/**
+ * Base terrain and carvers, per chunk. Chunks are generated in rows, 
+ * so the noise cache sees the same hit rate as during normal world 
+ * generation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChunkGeneratorBenchmark
+{
+	private static final ObjectList<JigsawStructureData> NO_STRUCTURES = new ObjectArrayList<>();
+
+	@Benchmark
+	public ChunkBuffer populateNoise(PresetState state, ChunkCursor cursor)
+	{
+		ChunkCoordinate chunkCoord = cursor.next();
+		ChunkBuffer buffer = new HeadlessChunkBuffer(chunkCoord);
+		Random random = new Random(state.seed ^ chunkCoord.hashCode());
+		state.chunkGenerator.populateNoise(state.preset.getWorldConfig().getWorldHeightCap(), random, buffer, chunkCoord, NO_STRUCTURES, NO_STRUCTURES);
+		return buffer;
+	}
+
+	@Benchmark
+	public BitSet carve(PresetState state, ChunkCursor cursor)
+	{
+		ChunkCoordinate chunkCoord = cursor.next();
+		ChunkBuffer buffer = new HeadlessChunkBuffer(chunkCoord);
+		BitSet carvingMask = new BitSet(65536);
+		state.chunkGenerator.carve(buffer, state.seed, chunkCoord.getChunkX(), chunkCoord.getChunkZ(), carvingMask, true, true);
+		return carvingMask;
+	}
+}
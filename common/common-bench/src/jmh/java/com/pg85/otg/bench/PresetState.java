@@ -0,0 +1,51 @@
+package com.pg85.otg.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.pg85.otg.bench.headless.HeadlessEngine;
+import com.pg85.otg.bench.headless.HeadlessLayerSource;
+import com.pg85.otg.bench.headless.HeadlessPresetLoader;
+import com.pg85.otg.gen.OTGChunkGenerator;
+import com.pg85.otg.gen.biome.layers.BiomeLayers;
+import com.pg85.otg.gen.biome.layers.util.CachingLayerSampler;
+import com.pg85.otg.interfaces.IBiome;
+import com.pg85.otg.presets.Preset;
+
+/**
+ * Loads a bundled preset and creates the biome layers and chunk generator
+ * for it, shared by all benchmark threads. Every trial gets a fresh 
+ * generator, so caches don't carry over between trials.
+ */
+@State(Scope.Benchmark)
+public class PresetState
+{
+	@Param({"Default"})
+	public String presetFolderName;
+
+	@Param({"-4075232427004428540"})
+	public long seed;
+
+	public Preset preset;
+	public IBiome[] biomesById;
+	public CachingLayerSampler layerSampler;
+	public OTGChunkGenerator chunkGenerator;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		HeadlessEngine engine = HeadlessEngine.startOrGet();
+		HeadlessPresetLoader presetLoader = engine.getHeadlessPresetLoader();
+		this.preset = presetLoader.getPresetByFolderName(this.presetFolderName);
+		if(this.preset == null)
+		{
+			throw new IllegalStateException("Could not find preset " + this.presetFolderName + ", available: " + presetLoader.getAllPresetFolderNames());
+		}
+		this.biomesById = presetLoader.getGlobalIdMapping(this.presetFolderName);
+		this.layerSampler = BiomeLayers.create(this.seed, presetLoader.getPresetGenerationData(this.presetFolderName), engine.getLogger());
+		this.chunkGenerator = new OTGChunkGenerator(this.preset, this.seed, new HeadlessLayerSource(this.layerSampler), this.biomesById, engine.getLogger());
+	}
+}
@@ -0,0 +1,15 @@
+package com.pg85.otg.bench.headless;
+
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.gen.ArrayChunkBuffer;
+
+/**
+ * Array-backed ChunkBuffer, used instead of ForgeChunkBuffer/SpigotChunkBuffer.
+ */
+public class HeadlessChunkBuffer extends ArrayChunkBuffer
+{
+	public HeadlessChunkBuffer(ChunkCoordinate chunkCoord)
+	{
+		super(chunkCoord, HeadlessMaterialData.of("air"));
+	}
+}
@@ -0,0 +1,88 @@
+package com.pg85.otg.bench.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.Stream;
+
+import com.pg85.otg.OTG;
+import com.pg85.otg.OTGEngine;
+import com.pg85.otg.constants.Constants;
+
+/**
+ * OTGEngine without a platform. The bundled presets are copied to a 
+ * temporary OTG root folder first, since loading a preset re-writes 
+ * its configs to disk.
+ */
+public class HeadlessEngine extends OTGEngine
+{
+	private static final String PRESETS_DIR_PROPERTY = "otg.bench.presetsDir";
+
+	private HeadlessEngine(Path otgRootFolder)
+	{
+		super(new HeadlessLogger(), otgRootFolder, modId -> false, new HeadlessPresetLoader(otgRootFolder));
+	}
+
+	/**
+	 * Starts a headless engine once per JVM, or returns the one already running.
+	 */
+	public static synchronized HeadlessEngine startOrGet()
+	{
+		if(OTG.getEngine() != null)
+		{
+			return (HeadlessEngine)OTG.getEngine();
+		}
+		HeadlessMaterialData.init();
+		Path otgRootFolder;
+		try
+		{
+			otgRootFolder = Files.createTempDirectory("otg-bench");
+			copyRecursive(Paths.get(System.getProperty(PRESETS_DIR_PROPERTY, "resources/Presets")), otgRootFolder.resolve(Constants.PRESETS_FOLDER));
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		HeadlessEngine engine = new HeadlessEngine(otgRootFolder);
+		OTG.startEngine(engine);
+		engine.getPresetLoader().registerBiomes();
+		return engine;
+	}
+
+	public HeadlessPresetLoader getHeadlessPresetLoader()
+	{
+		return (HeadlessPresetLoader)this.presetLoader;
+	}
+
+	@Override
+	public File getJarFile()
+	{
+		// Presets are copied from the resources folder instead.
+		return null;
+	}
+
+	private static void copyRecursive(Path source, Path target) throws IOException
+	{
+		if(!Files.isDirectory(source))
+		{
+			throw new IOException("Could not find presets folder " + source.toAbsolutePath() + ", set -D" + PRESETS_DIR_PROPERTY);
+		}
+		try(Stream<Path> paths = Files.walk(source))
+		{
+			for(Path path : (Iterable<Path>)paths::iterator)
+			{
+				Path destination = target.resolve(source.relativize(path).toString());
+				if(Files.isDirectory(path))
+				{
+					Files.createDirectories(destination);
+				} else {
+					Files.copy(path, destination, StandardCopyOption.REPLACE_EXISTING);
+				}
+			}
+		}
+	}
+}
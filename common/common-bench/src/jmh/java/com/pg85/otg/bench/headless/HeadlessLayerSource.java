@@ -0,0 +1,24 @@
+package com.pg85.otg.bench.headless;
+
+import com.pg85.otg.interfaces.ILayerSampler;
+import com.pg85.otg.interfaces.ILayerSource;
+
+/**
+ * Wraps a biome layer sampler, the same way OTGBiomeProvider does
+ * on Forge/Spigot. The sampler is shared by all benchmark threads.
+ */
+public class HeadlessLayerSource implements ILayerSource
+{
+	private final ILayerSampler sampler;
+
+	public HeadlessLayerSource(ILayerSampler sampler)
+	{
+		this.sampler = sampler;
+	}
+
+	@Override
+	public ILayerSampler getSampler()
+	{
+		return this.sampler;
+	}
+}
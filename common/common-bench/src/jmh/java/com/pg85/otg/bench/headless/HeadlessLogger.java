@@ -0,0 +1,22 @@
+package com.pg85.otg.bench.headless;
+
+import com.pg85.otg.util.logging.LogCategory;
+import com.pg85.otg.util.logging.LogLevel;
+import com.pg85.otg.util.logging.Logger;
+
+/**
+ * Logger used by the benchmarks, writes to stdout so messages
+ * end up in the JMH fork output.
+ */
+public final class HeadlessLogger extends Logger
+{
+	@Override
+	public void log(LogLevel level, LogCategory category, String message)
+	{
+		if (this.minimumLevel.compareTo(level) < 0)
+		{
+			return;
+		}
+		System.out.println("[OTG] [" + level + "] " + category.getLogTag() + " " + message);
+	}
+}
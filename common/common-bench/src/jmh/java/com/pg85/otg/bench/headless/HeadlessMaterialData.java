@@ -0,0 +1,170 @@
+package com.pg85.otg.bench.headless;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.pg85.otg.util.materials.LocalMaterialData;
+import com.pg85.otg.util.materials.LocalMaterialTag;
+import com.pg85.otg.util.materials.LocalMaterials;
+import com.pg85.otg.util.materials.MaterialProperty;
+
+/**
+ * Platform-less material, only knows its name. Materials are
+ * interned so they can be compared by reference, like the 
+ * Forge/Spigot materials.
+ */
+public class HeadlessMaterialData extends LocalMaterialData
+{
+	private static final ConcurrentHashMap<String, HeadlessMaterialData> materialsByName = new ConcurrentHashMap<>();
+
+	private final String name;
+	private final String registryName;
+
+	private HeadlessMaterialData(String name)
+	{
+		this.name = name;
+		int stateStart = name.indexOf('[');
+		this.registryName = stateStart == -1 ? name : name.substring(0, stateStart);
+		this.rawEntry = name;
+	}
+
+	public static HeadlessMaterialData of(String name)
+	{
+		String normalizedName = name.trim().toLowerCase(Locale.ROOT);
+		if(!normalizedName.contains(":"))
+		{
+			normalizedName = "minecraft:" + normalizedName;
+		}
+		return materialsByName.computeIfAbsent(normalizedName, HeadlessMaterialData::new);
+	}
+
+	/**
+	 * Fills in the static materials in LocalMaterials, normally done by
+	 * ForgeMaterials/SpigotMaterials. Field names are used as block names.
+	 */
+	public static void init()
+	{
+		for(Field field : LocalMaterials.class.getFields())
+		{
+			if(
+				Modifier.isStatic(field.getModifiers()) && 
+				!Modifier.isFinal(field.getModifiers()) &&
+				field.getType() == LocalMaterialData.class
+			)
+			{
+				try
+				{
+					field.set(null, of(field.getName()));
+				}
+				catch (IllegalAccessException e)
+				{
+					throw new RuntimeException(e);
+				}
+			}
+		}
+	}
+
+	@Override
+	public <T extends Comparable<T>> LocalMaterialData withProperty(MaterialProperty<T> state, T value)
+	{
+		return this;
+	}
+
+	@Override
+	public String getName()
+	{
+		return this.name;
+	}
+
+	@Override
+	public String getRegistryName()
+	{
+		return this.registryName;
+	}
+
+	@Override
+	public boolean canSnowFallOn()
+	{
+		return isSolid();
+	}
+
+	@Override
+	public boolean canFall()
+	{
+		return this.registryName.endsWith("sand") || this.registryName.endsWith("gravel");
+	}
+
+	@Override
+	public boolean isMaterial(LocalMaterialData material)
+	{
+		return material != null && this.registryName.equals(material.getRegistryName());
+	}
+
+	@Override
+	public boolean isBlockTag(LocalMaterialTag tag)
+	{
+		return false;
+	}
+
+	@Override
+	public boolean isLiquid()
+	{
+		return this.registryName.endsWith("water") || this.registryName.endsWith("lava");
+	}
+
+	@Override
+	public boolean isSolid()
+	{
+		return !isEmptyOrAir() && !isLiquid();
+	}
+
+	@Override
+	public boolean isEmptyOrAir()
+	{
+		return isAir() || isEmpty();
+	}
+
+	@Override
+	public boolean isNonCaveAir()
+	{
+		return this.registryName.equals("minecraft:air");
+	}
+
+	@Override
+	public boolean isAir()
+	{
+		return this.registryName.endsWith("air");
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return false;
+	}
+
+	@Override
+	public LocalMaterialData rotate(int rotateTimes)
+	{
+		return this;
+	}
+
+	@Override
+	public LocalMaterialData legalOrPersistentLeaves(boolean leaveIllegalLeaves)
+	{
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		return this == other;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return this.name.hashCode();
+	}
+}
@@ -0,0 +1,27 @@
+package com.pg85.otg.bench.headless;
+
+import com.pg85.otg.exceptions.InvalidConfigException;
+import com.pg85.otg.interfaces.IMaterialReader;
+import com.pg85.otg.util.materials.LocalMaterialData;
+import com.pg85.otg.util.materials.LocalMaterialTag;
+
+public class HeadlessMaterialReader implements IMaterialReader
+{
+	@Override
+	public LocalMaterialData readMaterial(String material) throws InvalidConfigException
+	{
+		// Some settings default to an empty material, the platform readers return null for those too.
+		if(material == null || material.trim().isEmpty())
+		{
+			return null;
+		}
+		return HeadlessMaterialData.of(material);
+	}
+
+	@Override
+	public LocalMaterialTag readTag(String tag) throws InvalidConfigException
+	{
+		// Tags are resolved by the platform's tag registry, which doesn't exist here.
+		return null;
+	}
+}
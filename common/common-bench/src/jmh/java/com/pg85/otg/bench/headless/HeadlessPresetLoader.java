@@ -0,0 +1,192 @@
+package com.pg85.otg.bench.headless;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.pg85.otg.config.biome.BiomeConfigFinder.BiomeConfigStub;
+import com.pg85.otg.config.biome.BiomeGroup;
+import com.pg85.otg.config.world.WorldConfig;
+import com.pg85.otg.gen.biome.BiomeData;
+import com.pg85.otg.gen.biome.layers.BiomeLayerData;
+import com.pg85.otg.gen.biome.layers.NewBiomeGroup;
+import com.pg85.otg.interfaces.IBiome;
+import com.pg85.otg.interfaces.IBiomeConfig;
+import com.pg85.otg.interfaces.IMaterialReader;
+import com.pg85.otg.interfaces.IWorldConfig;
+import com.pg85.otg.presets.LocalPresetLoader;
+import com.pg85.otg.presets.Preset;
+
+/**
+ * Registers biomes without a platform biome registry. Only OTG biomes are
+ * registered, template biomes and biome group entries using tags/categories 
+ * need the platform's registry and are skipped. This is close enough to 
+ * ForgePresetLoader/SpigotPresetLoader for performance measurements.
+ */
+public class HeadlessPresetLoader extends LocalPresetLoader
+{
+	private final Map<String, IBiome[]> globalIdMapping = new HashMap<>();
+	private final Map<String, BiomeLayerData> presetGenerationData = new HashMap<>();
+
+	public HeadlessPresetLoader(Path otgRootFolder)
+	{
+		super(otgRootFolder);
+	}
+
+	@Override
+	protected IMaterialReader createMaterialReader()
+	{
+		return new HeadlessMaterialReader();
+	}
+
+	@Override
+	protected void mergeVanillaBiomeMobSpawnSettings(BiomeConfigStub biomeConfigStub, String inheritMobsBiomeName) { }
+
+	public IBiome[] getGlobalIdMapping(String presetFolderName)
+	{
+		return this.globalIdMapping.get(presetFolderName);
+	}
+
+	public BiomeLayerData getPresetGenerationData(String presetFolderName)
+	{
+		// BiomeLayerData is modified during generation, see BiomeLayerData(BiomeLayerData).
+		return new BiomeLayerData(this.presetGenerationData.get(presetFolderName));
+	}
+
+	@Override
+	public void registerBiomes()
+	{
+		for(Preset preset : this.presets.values())
+		{
+			registerBiomesForPreset(preset);
+		}
+	}
+
+	private void registerBiomesForPreset(Preset preset)
+	{
+		IWorldConfig worldConfig = preset.getWorldConfig();
+		Map<String, IBiomeConfig> biomeConfigsByName = new LinkedHashMap<>();
+		for(IBiomeConfig biomeConfig : preset.getAllBiomeConfigs())
+		{
+			if(!biomeConfig.getIsTemplateForBiome())
+			{
+				biomeConfigsByName.put(biomeConfig.getName(), biomeConfig);
+			}
+		}
+
+		// Id 0 is reserved for the default ocean biome.
+		IBiomeConfig oceanBiomeConfig = biomeConfigsByName.get(worldConfig.getDefaultOceanBiome());
+		IBiome[] presetIdMapping = new IBiome[biomeConfigsByName.size() + (oceanBiomeConfig == null ? 1 : 0)];
+		int[] oceanTemperatures = new int[]{0, 0, 0, 0};
+		Map<String, List<Integer>> worldBiomes = new HashMap<>();
+		HashMap<Integer, Integer> biomeColorMap = new HashMap<>();
+		int currentId = 1;
+		for(IBiomeConfig biomeConfig : biomeConfigsByName.values())
+		{
+			int otgBiomeId = biomeConfig == oceanBiomeConfig ? 0 : currentId++;
+			biomeConfig.setOTGBiomeId(otgBiomeId);
+			presetIdMapping[otgBiomeId] = new HeadlessBiome(biomeConfig);
+			List<Integer> idsForBiome = new ArrayList<>();
+			idsForBiome.add(otgBiomeId);
+			worldBiomes.put(biomeConfig.getName(), idsForBiome);
+			biomeColorMap.put(biomeConfig.getBiomeColor(), otgBiomeId);
+			
+			if (biomeConfig.getName().equals(worldConfig.getDefaultWarmOceanBiome()))
+			{
+				oceanTemperatures[0] = otgBiomeId;
+			}
+			if (biomeConfig.getName().equals(worldConfig.getDefaultLukewarmOceanBiome()))
+			{
+				oceanTemperatures[1] = otgBiomeId;
+			}
+			if (biomeConfig.getName().equals(worldConfig.getDefaultColdOceanBiome()))
+			{
+				oceanTemperatures[2] = otgBiomeId;
+			}
+			if (biomeConfig.getName().equals(worldConfig.getDefaultFrozenOceanBiome()))
+			{
+				oceanTemperatures[3] = otgBiomeId;
+			}
+		}
+		if(oceanBiomeConfig == null)
+		{
+			// Mirrors the platform loaders, which shift the mapping down to fill id 0.
+			System.arraycopy(presetIdMapping, 1, presetIdMapping, 0, presetIdMapping.length - 1);
+		}
+		this.globalIdMapping.put(preset.getFolderName(), presetIdMapping);
+
+		BiomeLayerData data = new BiomeLayerData(preset.getPresetFolder(), worldConfig, oceanBiomeConfig, oceanTemperatures);
+		Set<Integer> biomeDepths = new HashSet<>();
+		Map<Integer, List<NewBiomeGroup>> groupDepths = new HashMap<>();
+		int genDepth = worldConfig.getGenerationDepth();
+		for (BiomeGroup group : ((WorldConfig)worldConfig).getBiomeGroupManager().getGroups())
+		{
+			NewBiomeGroup bg = new NewBiomeGroup();
+			bg.id = group.getGroupId();
+			bg.rarity = group.getGroupRarity();
+			bg.totalDepthRarity = new int[genDepth + 1];
+			bg.maxRarityPerDepth = new int[genDepth + 1];
+			float totalTemp = 0;
+			for(String biomeName : group.getBiomes())
+			{
+				IBiomeConfig config = biomeConfigsByName.get(biomeName.trim());
+				if(config == null)
+				{
+					continue;
+				}
+				bg.biomes.add(
+					new BiomeData(
+						config.getOTGBiomeId(),
+						config.getBiomeRarity(),
+						config.getBiomeSize(),
+						config.getBiomeTemperature(),
+						config.getIsleInBiomes(),
+						config.getBorderInBiomes(),
+						config.getOnlyBorderNearBiomes(),
+						config.getNotBorderNearBiomes()
+					)
+				);
+				biomeDepths.add(config.getBiomeSize());
+				totalTemp += config.getBiomeTemperature();
+				bg.totalGroupRarity += config.getBiomeRarity();
+				bg.totalDepthRarity[config.getBiomeSize()] += config.getBiomeRarity();
+			}
+			for (int depth = 0; depth < bg.totalDepthRarity.length; depth++)
+			{
+				for (int j = depth; j < bg.totalDepthRarity.length; j++)
+				{
+					bg.maxRarityPerDepth[depth] += bg.totalDepthRarity[j];
+				}
+			}
+			bg.avgTemp = group.getBiomes().size() == 0 ? 0 : totalTemp / group.getBiomes().size();
+			groupDepths.computeIfAbsent(group.getGenerationDepth(), depth -> new ArrayList<>()).add(bg);
+			data.groupRegistry.put(bg.id, bg);
+		}
+
+		Map<Integer, List<BiomeData>> isleBiomesAtDepth = new HashMap<>();
+		Map<Integer, List<BiomeData>> borderBiomesAtDepth = new HashMap<>();
+		for(IBiomeConfig config : biomeConfigsByName.values())
+		{
+			if(config.isIsleBiome())
+			{
+				isleBiomesAtDepth.computeIfAbsent(config.getBiomeSizeWhenIsle(), depth -> new ArrayList<>()).add(
+					new BiomeData(config.getOTGBiomeId(), config.getBiomeRarityWhenIsle(), config.getBiomeSizeWhenIsle(), config.getBiomeTemperature(), config.getIsleInBiomes(), config.getBorderInBiomes(), config.getOnlyBorderNearBiomes(), config.getNotBorderNearBiomes())
+				);
+			}
+			if(config.isBorderBiome())
+			{
+				borderBiomesAtDepth.computeIfAbsent(config.getBiomeSizeWhenBorder(), depth -> new ArrayList<>()).add(
+					new BiomeData(config.getOTGBiomeId(), config.getBiomeRarity(), config.getBiomeSizeWhenBorder(), config.getBiomeTemperature(), config.getIsleInBiomes(), config.getBorderInBiomes(), config.getOnlyBorderNearBiomes(), config.getNotBorderNearBiomes())
+				);
+			}
+		}
+
+		data.init(biomeDepths, groupDepths, isleBiomesAtDepth, borderBiomesAtDepth, worldBiomes, biomeColorMap, presetIdMapping);
+		this.presetGenerationData.put(preset.getFolderName(), data);
+	}
+}
@@ -20,4 +20,7 @@ public class PluginConfigStandardValues extends Settings
 	public static final Setting<Boolean> LOG_PERFORMANCE = booleanSetting("LogPerformance", false);
 	public static final Setting<Boolean> DEVELOPER_MODE = booleanSetting("DeveloperMode", false);
 	public static final Setting<Integer> WORKER_THREADS = intSetting("WorkerThreads", 0, 0, 10);
+	public static final Setting<Integer> NOISE_COLUMN_CACHE_SIZE = intSetting("NoiseColumnCacheSize", 4096, 256, 1048576);
+	public static final Setting<Integer> BO4DATA_CACHE_SIZE = intSetting("BO4DataCacheSize", 256, 0, 65536);
+	public static final Setting<Integer> STARTUP_WARM_UP_THREADS = intSetting("StartupWarmUpThreads", 0, 0, 64);
 }
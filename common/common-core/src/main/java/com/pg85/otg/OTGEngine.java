@@ -11,19 +11,27 @@ import com.pg85.otg.config.world.WorldConfig;
 import com.pg85.otg.constants.Constants;
 import com.pg85.otg.customobject.CustomObjectManager;
 import com.pg85.otg.customobject.config.CustomObjectResourcesManager;
+import com.pg85.otg.customobject.resource.CustomStructureResource;
+import com.pg85.otg.customobject.resource.ICustomObjectResource;
 import com.pg85.otg.customobject.structures.CustomStructureCache;
+import com.pg85.otg.interfaces.IBiomeConfig;
 import com.pg85.otg.interfaces.ILogger;
+import com.pg85.otg.interfaces.IMaterialReader;
 import com.pg85.otg.interfaces.IModLoadedChecker;
 import com.pg85.otg.interfaces.IPluginConfig;
 import com.pg85.otg.presets.LocalPresetLoader;
+import com.pg85.otg.presets.Preset;
 import com.pg85.otg.util.logging.LogCategory;
 import com.pg85.otg.util.logging.LogLevel;
 
 import java.io.*;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -119,6 +127,7 @@ public abstract class OTGEngine
 		this.customObjectResourcesManager = new CustomObjectResourcesManager();
 		this.customObjectManager = new CustomObjectManager(
 			getPluginConfig().getDeveloperModeEnabled(), 
+			getPluginConfig().getBO4DataCacheSize() * 1024L * 1024L,
 			this.logger, 
 			this.otgRootFolder, 
 			getPresetsDirectory(), 
@@ -134,7 +143,51 @@ public abstract class OTGEngine
 
 		// Load presets
 
-		this.presetLoader.loadPresetsFromDisk(this.biomeResourcesManager, this.logger);
+		int warmUpThreads = getPluginConfig().getStartupWarmUpThreads();
+		if(warmUpThreads > 0)
+		{
+			// Load presets and all objects used by their biomes on a bounded pool.
+			long startTime = System.currentTimeMillis();
+			ForkJoinPool pool = new ForkJoinPool(warmUpThreads);
+			try
+			{
+				this.presetLoader.loadPresetsFromDisk(this.biomeResourcesManager, this.logger, pool);
+				preloadCustomObjects(pool);
+			} finally {
+				pool.shutdown();
+			}
+			this.logger.log(LogLevel.INFO, LogCategory.MAIN, "Loaded presets and custom objects on " + warmUpThreads + " threads in " + (System.currentTimeMillis() - startTime) + "ms");
+		} else {
+			this.presetLoader.loadPresetsFromDisk(this.biomeResourcesManager, this.logger);
+		}
+	}
+
+	// Loads all BO2/BO3/BO4's used by biome resources. Objects that can't be
+	// loaded are logged when loading, same as during decoration.
+	private void preloadCustomObjects(ForkJoinPool pool)
+	{
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for(Preset preset : this.presetLoader.getAllPresets())
+		{
+			String presetFolderName = preset.getFolderName();
+			IMaterialReader materialReader = this.presetLoader.getMaterialReader(presetFolderName);
+			for(IBiomeConfig biomeConfig : preset.getAllBiomeConfigs())
+			{
+				for(ConfigFunction<IBiomeConfig> res : ((BiomeConfig)biomeConfig).getResourceQueue())
+				{
+					// Each resource is loaded by a single task, resources cache their objects without locking.
+					if(res instanceof ICustomObjectResource)
+					{
+						tasks.add(() -> ((ICustomObjectResource)res).preloadObjects(presetFolderName, this.otgRootFolder, this.logger, this.customObjectManager, materialReader, this.customObjectResourcesManager, this.modLoadedChecker));
+					}
+					else if(res instanceof CustomStructureResource)
+					{
+						tasks.add(() -> ((CustomStructureResource)res).getObjects(presetFolderName, this.otgRootFolder, this.logger, this.customObjectManager, materialReader, this.customObjectResourcesManager, this.modLoadedChecker));
+					}
+				}
+			}
+		}
+		pool.submit(() -> tasks.parallelStream().forEach(Runnable::run)).join();
 	}
 
 	private void unpackDefaultPresetAndExamples(File presetsDir)
@@ -49,6 +49,9 @@ public final class PluginConfig extends PluginConfigBase
 		this.decorationEnabled = reader.getSetting(PluginConfigStandardValues.DECORATION_ENABLED, logger);
 		this.developerMode = reader.getSetting(PluginConfigStandardValues.DEVELOPER_MODE, logger);
 		this.workerThreads = reader.getSetting(PluginConfigStandardValues.WORKER_THREADS, logger);
+		this.noiseColumnCacheSize = reader.getSetting(PluginConfigStandardValues.NOISE_COLUMN_CACHE_SIZE, logger);
+		this.bo4DataCacheSize = reader.getSetting(PluginConfigStandardValues.BO4DATA_CACHE_SIZE, logger);
+		this.startupWarmUpThreads = reader.getSetting(PluginConfigStandardValues.STARTUP_WARM_UP_THREADS, logger);
 	}
 
 	@Override
@@ -70,6 +73,28 @@ public final class PluginConfig extends PluginConfigBase
 			"base terrain and BO4 generation. Higher values may not result in better ",
 			"performance, experiment to see what works best for your cpu."
 		);
+
+		writer.putSetting(PluginConfigStandardValues.NOISE_COLUMN_CACHE_SIZE, this.noiseColumnCacheSize,
+			"The amount of base terrain noise columns cached per world, shared by all ",
+			"worldgen threads. Each column is 4x4 blocks, higher values use more memory ",
+			"but may avoid re-generating noise for neighbouring chunks.",
+			"Defaults to: 4096"
+		);
+
+		writer.putSetting(PluginConfigStandardValues.BO4DATA_CACHE_SIZE, this.bo4DataCacheSize,
+			"The amount of memory in MB used to cache blocks of BO4's loaded from .BO4Data files, ",
+			"shared by all worlds. Higher values avoid re-reading the same branches from disk, ",
+			"least recently used branches are removed first. Set to 0 to disable the cache.",
+			"Defaults to: 256"
+		);
+
+		writer.putSetting(PluginConfigStandardValues.STARTUP_WARM_UP_THREADS, this.startupWarmUpThreads,
+			"The amount of threads used to load presets and the BO2/BO3/BO4's used by their ",
+			"biomes' resources when the server starts. Makes startup faster and avoids lag ",
+			"when players first explore, at the cost of memory for objects that may not be used.",
+			"Set to 0 to load presets on a single thread and load objects when they're first used.",
+			"Defaults to: 0"
+		);
 		
 		writer.header2("Logging");
 
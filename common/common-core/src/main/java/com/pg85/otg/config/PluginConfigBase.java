@@ -19,6 +19,9 @@ public abstract class PluginConfigBase extends ConfigFile implements IPluginConf
 	protected LogLevels logLevel;
 	protected ConfigMode settingsMode;
 	protected int workerThreads;
+	protected int noiseColumnCacheSize;
+	protected int bo4DataCacheSize;
+	protected int startupWarmUpThreads;
 	protected boolean developerMode;
 	protected boolean logCustomObjects;
 	protected boolean logStructurePlotting;
@@ -47,6 +50,24 @@ public abstract class PluginConfigBase extends ConfigFile implements IPluginConf
 		return this.workerThreads;
 	}
 
+	@Override
+	public int getNoiseColumnCacheSize()
+	{
+		return this.noiseColumnCacheSize;
+	}
+
+	@Override
+	public int getBO4DataCacheSize()
+	{
+		return this.bo4DataCacheSize;
+	}
+
+	@Override
+	public int getStartupWarmUpThreads()
+	{
+		return this.startupWarmUpThreads;
+	}
+
 	@Override
 	public boolean getDeveloperModeEnabled()
 	{
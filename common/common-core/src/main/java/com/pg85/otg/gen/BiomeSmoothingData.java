@@ -0,0 +1,267 @@
+package com.pg85.otg.gen;
+
+import java.util.Arrays;
+
+import com.pg85.otg.interfaces.IBiome;
+import com.pg85.otg.interfaces.IBiomeConfig;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+/**
+ * Biome terrain settings used when smoothing noise columns, copied from
+ * the biome configs into primitive arrays indexed by biome id, so
+ * OTGChunkGenerator doesn't need to go through IBiomeConfig for every
+ * biome in the smoothing area.
+ *
+ * Smoothing weights depend only on a biome's height and the offset from
+ * the center column, so weight tables are precomputed per unique height.
+ * Areas that contain only a single biome always smooth to the same
+ * values, so those are precomputed per biome. All sums are done in the
+ * same order and with the same types as before, so results are identical.
+ */
+final class BiomeSmoothingData
+{
+	final int maxRadius;
+	private final int weightTableSize;
+	private final int chcSize;
+
+	final int[] smoothRadius;
+	final int[] chcSmoothRadius;
+	final boolean[] disableBiomeHeight;
+	private final float[] height;
+	private final float[] volatility;
+	private final double[] volatility1;
+	private final double[] volatility2;
+	private final double[] fractureHorizontal;
+	private final double[] fractureVertical;
+	private final double[] volatilityWeight1;
+	private final double[] volatilityWeight2;
+	private final double[] maxAverageDepth;
+	private final double[] maxAverageHeight;
+	// Indexed by biomeId * chcSize + y
+	private final double[] chc;
+	// Per biome id, shared by biomes with the same height.
+	private final float[][] weights;
+	// Per biome id, smoothed settings for an area containing only that biome.
+	private final SmoothedSettings[] uniform;
+
+	BiomeSmoothingData(IBiome[] biomesById, float[] biomeWeightTable, int chcSize)
+	{
+		int biomeCount = biomesById.length;
+		this.chcSize = chcSize;
+		this.smoothRadius = new int[biomeCount];
+		this.chcSmoothRadius = new int[biomeCount];
+		this.disableBiomeHeight = new boolean[biomeCount];
+		this.height = new float[biomeCount];
+		this.volatility = new float[biomeCount];
+		this.volatility1 = new double[biomeCount];
+		this.volatility2 = new double[biomeCount];
+		this.fractureHorizontal = new double[biomeCount];
+		this.fractureVertical = new double[biomeCount];
+		this.volatilityWeight1 = new double[biomeCount];
+		this.volatilityWeight2 = new double[biomeCount];
+		this.maxAverageDepth = new double[biomeCount];
+		this.maxAverageHeight = new double[biomeCount];
+		this.chc = new double[biomeCount * chcSize];
+
+		int maxRadius = 0;
+		IBiomeConfig biomeConfig;
+		for(int id = 0; id < biomeCount; id++)
+		{
+			if(biomesById[id] == null)
+			{
+				continue;
+			}
+			biomeConfig = biomesById[id].getBiomeConfig();
+			this.smoothRadius[id] = biomeConfig.getSmoothRadius();
+			this.chcSmoothRadius[id] = biomeConfig.getCHCSmoothRadius();
+			this.disableBiomeHeight[id] = biomeConfig.disableBiomeHeight();
+			this.height[id] = biomeConfig.getBiomeHeight();
+			this.volatility[id] = biomeConfig.getBiomeVolatility();
+			this.volatility1[id] = biomeConfig.getVolatility1();
+			this.volatility2[id] = biomeConfig.getVolatility2();
+			this.fractureHorizontal[id] = biomeConfig.getFractureHorizontal();
+			this.fractureVertical[id] = biomeConfig.getFractureVertical();
+			this.volatilityWeight1[id] = biomeConfig.getVolatilityWeight1();
+			this.volatilityWeight2[id] = biomeConfig.getVolatilityWeight2();
+			this.maxAverageDepth[id] = biomeConfig.getMaxAverageDepth();
+			this.maxAverageHeight[id] = biomeConfig.getMaxAverageHeight();
+			for(int y = 0; y < chcSize; y++)
+			{
+				this.chc[id * chcSize + y] = biomeConfig.getCHCData(y);
+			}
+			maxRadius = Math.max(maxRadius, Math.max(this.smoothRadius[id], this.chcSmoothRadius[id]));
+		}
+		this.maxRadius = maxRadius;
+		this.weightTableSize = maxRadius * 2 + 1;
+
+		// Weight for each offset from the center, for each unique biome height.
+		this.weights = new float[biomeCount][];
+		Int2ObjectOpenHashMap<float[]> weightsByHeight = new Int2ObjectOpenHashMap<>();
+		float[] weightTable;
+		float weightAt;
+		for(int id = 0; id < biomeCount; id++)
+		{
+			if(biomesById[id] == null)
+			{
+				continue;
+			}
+			weightTable = weightsByHeight.get(Float.floatToIntBits(this.height[id]));
+			if(weightTable == null)
+			{
+				weightTable = new float[this.weightTableSize * this.weightTableSize];
+				for (int x1 = -maxRadius; x1 <= maxRadius; ++x1)
+				{
+					for (int z1 = -maxRadius; z1 <= maxRadius; ++z1)
+					{
+						// TODO: vanilla reduces the weight by half when the depth here is greater than the center depth, but OTG doesn't do that?
+						weightAt = biomeWeightTable[x1 + 32 + (z1 + 32) * 65] / (this.height[id] + 2.0F);
+						weightAt = Math.abs(weightAt); // This is required to prevent seams when height goes below -2
+						weightTable[(x1 + maxRadius) * this.weightTableSize + (z1 + maxRadius)] = weightAt;
+					}
+				}
+				weightsByHeight.put(Float.floatToIntBits(this.height[id]), weightTable);
+			}
+			this.weights[id] = weightTable;
+		}
+
+		this.uniform = new SmoothedSettings[biomeCount];
+		int[] area = new int[this.weightTableSize * this.weightTableSize];
+		int radius;
+		for(int id = 0; id < biomeCount; id++)
+		{
+			if(biomesById[id] == null)
+			{
+				continue;
+			}
+			radius = Math.max(this.smoothRadius[id], this.chcSmoothRadius[id]);
+			Arrays.fill(area, id);
+			this.uniform[id] = new SmoothedSettings(chcSize);
+			smooth(area, radius * 2 + 1, radius, id, this.uniform[id]);
+		}
+	}
+
+	/**
+	 * Smooths biome settings for the area around a noise column.
+	 *
+	 * @param biomeIds Noise biome ids for the area, indexed as [x * areaSize + z], centered on the column.
+	 * @param radius   The larger of the center biome's smooth radius and CHC smooth radius.
+	 * @param centerId Biome id at the center of the area.
+	 * @param scratch  Used to store the result if the area contains multiple biomes.
+	 * @return The smoothed settings, either scratch or a shared instance that must not be modified.
+	 */
+	SmoothedSettings getSmoothedSettings(int[] biomeIds, int areaSize, int radius, int centerId, SmoothedSettings scratch)
+	{
+		int length = areaSize * areaSize;
+		for(int i = 0; i < length; i++)
+		{
+			if(biomeIds[i] != centerId)
+			{
+				smooth(biomeIds, areaSize, radius, centerId, scratch);
+				return scratch;
+			}
+		}
+		return this.uniform[centerId];
+	}
+
+	private void smooth(int[] biomeIds, int areaSize, int radius, int centerId, SmoothedSettings result)
+	{
+		float height = 0; // depth
+		float volatility = 0; // scale
+		double volatility1 = 0;
+		double volatility2 = 0;
+		double horizontalFracture = 0;
+		double verticalFracture = 0;
+		double volatilityWeight1 = 0;
+		double volatilityWeight2 = 0;
+		double maxAverageDepth = 0;
+		double maxAverageHeight = 0;
+		float weight = 0;
+		double[] chc = result.chc;
+		Arrays.fill(chc, 0);
+
+		int smoothRadius = this.smoothRadius[centerId];
+		int chcSmoothRadius = this.chcSmoothRadius[centerId];
+		int biome;
+		float weightAt;
+		for (int x1 = -smoothRadius; x1 <= smoothRadius; ++x1)
+		{
+			for (int z1 = -smoothRadius; z1 <= smoothRadius; ++z1)
+			{
+				biome = biomeIds[(x1 + radius) * areaSize + (z1 + radius)];
+				weightAt = this.weights[biome][(x1 + this.maxRadius) * this.weightTableSize + (z1 + this.maxRadius)];
+
+				weight += weightAt;
+
+				height += this.height[biome] * weightAt;
+				volatility += this.volatility[biome] * weightAt;
+				volatility1 += this.volatility1[biome] * weightAt;
+				volatility2 += this.volatility2[biome] * weightAt;
+				horizontalFracture += this.fractureHorizontal[biome] * weightAt;
+				verticalFracture += this.fractureVertical[biome] * weightAt;
+				volatilityWeight1 += this.volatilityWeight1[biome] * weightAt;
+				volatilityWeight2 += this.volatilityWeight2[biome] * weightAt;
+				maxAverageDepth += this.maxAverageDepth[biome] * weightAt;
+				maxAverageHeight += this.maxAverageHeight[biome] * weightAt;
+			}
+		}
+
+		// CHC Smoothing
+		double chcWeight = 0;
+		int chcOffset;
+		for (int x1 = -chcSmoothRadius; x1 <= chcSmoothRadius; ++x1)
+		{
+			for (int z1 = -chcSmoothRadius; z1 <= chcSmoothRadius; ++z1)
+			{
+				biome = biomeIds[(x1 + radius) * areaSize + (z1 + radius)];
+				weightAt = this.weights[biome][(x1 + this.maxRadius) * this.weightTableSize + (z1 + this.maxRadius)];
+
+				chcWeight += weightAt;
+
+				chcOffset = biome * this.chcSize;
+				for (int y = 0; y < this.chcSize; y++)
+				{
+					chc[y] += this.chc[chcOffset + y] * weightAt;
+				}
+			}
+		}
+
+		// Normalize biome data
+		result.height = height / weight;
+		result.volatility = volatility / weight;
+		result.volatility1 = volatility1 / weight;
+		result.volatility2 = volatility2 / weight;
+		result.horizontalFracture = horizontalFracture / weight;
+		result.verticalFracture = verticalFracture / weight;
+		result.volatilityWeight1 = volatilityWeight1 / weight;
+		result.volatilityWeight2 = volatilityWeight2 / weight;
+		result.maxAverageDepth = maxAverageDepth / weight;
+		result.maxAverageHeight = maxAverageHeight / weight;
+
+		// Normalize CHC
+		for (int y = 0; y < this.chcSize; y++)
+		{
+			chc[y] /= chcWeight;
+		}
+	}
+
+	static final class SmoothedSettings
+	{
+		float height;
+		float volatility;
+		double volatility1;
+		double volatility2;
+		double horizontalFracture;
+		double verticalFracture;
+		double volatilityWeight1;
+		double volatilityWeight2;
+		double maxAverageDepth;
+		double maxAverageHeight;
+		final double[] chc;
+
+		SmoothedSettings(int chcSize)
+		{
+			this.chc = new double[chcSize];
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package com.pg85.otg.gen;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.pg85.otg.util.helpers.MathHelper;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+/**
+ * Caches base terrain noise columns, keyed by noise x/z, shared by all
+ * worldgen threads so neighbouring chunks generated on different threads
+ * can reuse each other's columns.
+ *
+ * The cache is split into lock-striped sets of entries, each stripe uses
+ * CLOCK (second chance) eviction: entries that have been hit since the
+ * stripe's clock hand last passed them are skipped once before evicting.
+ * Columns are generated outside of the lock, if two threads miss on the
+ * same column at the same time both generate it, the result is the same.
+ */
+public class NoiseColumnCache
+{
+	// Entries per stripe, stripes are scanned linearly.
+	private static final int STRIPE_SIZE = 16;
+	private static final long EMPTY_KEY = Long.MIN_VALUE;
+
+	private final Stripe[] stripes;
+	private final int stripeMask;
+	private final int columnSize;
+	private final NoiseColumnGenerator generator;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param capacity   Minimum amount of columns to cache, rounded up to fill whole stripes.
+	 * @param columnSize Amount of noise values per column.
+	 * @param generator  Generates a column on a cache miss.
+	 */
+	public NoiseColumnCache(int capacity, int columnSize, NoiseColumnGenerator generator)
+	{
+		int stripeCount = MathHelper.smallestEncompassingPowerOfTwo(Math.max(1, (capacity + STRIPE_SIZE - 1) / STRIPE_SIZE));
+		this.stripeMask = stripeCount - 1;
+		this.columnSize = columnSize;
+		this.generator = generator;
+		this.stripes = new Stripe[stripeCount];
+		for(int i = 0; i < stripeCount; i++)
+		{
+			this.stripes[i] = new Stripe(columnSize);
+		}
+	}
+
+	/**
+	 * Copies the noise column at noiseX/noiseZ into buffer, starting at offset.
+	 */
+	public void get(double[] buffer, int offset, int noiseX, int noiseZ)
+	{
+		long key = MathHelper.toLong(noiseX, noiseZ);
+		Stripe stripe = this.stripes[(int)HashCommon.mix(key) & this.stripeMask];
+		int slot;
+		synchronized(stripe)
+		{
+			slot = stripe.indexOf(key);
+			if(slot != -1)
+			{
+				stripe.referenced[slot] = true;
+				System.arraycopy(stripe.values, slot * this.columnSize, buffer, offset, this.columnSize);
+			}
+		}
+		if(slot != -1)
+		{
+			this.hits.increment();
+			return;
+		}
+
+		this.misses.increment();
+		this.generator.generateNoiseColumn(buffer, offset, noiseX, noiseZ);
+
+		synchronized(stripe)
+		{
+			// Another thread may have cached this column while we were generating it.
+			if(stripe.indexOf(key) == -1)
+			{
+				slot = stripe.nextVictim();
+				if(stripe.keys[slot] != EMPTY_KEY)
+				{
+					this.evictions.increment();
+				}
+				stripe.keys[slot] = key;
+				stripe.referenced[slot] = false;
+				System.arraycopy(buffer, offset, stripe.values, slot * this.columnSize, this.columnSize);
+			}
+		}
+	}
+
+	public int getCapacity()
+	{
+		return this.stripes.length * STRIPE_SIZE;
+	}
+
+	public long getHits()
+	{
+		return this.hits.sum();
+	}
+
+	public long getMisses()
+	{
+		return this.misses.sum();
+	}
+
+	public long getEvictions()
+	{
+		return this.evictions.sum();
+	}
+
+	public interface NoiseColumnGenerator
+	{
+		void generateNoiseColumn(double[] noiseColumn, int offset, int noiseX, int noiseZ);
+	}
+
+	private static final class Stripe
+	{
+		private final long[] keys = new long[STRIPE_SIZE];
+		private final boolean[] referenced = new boolean[STRIPE_SIZE];
+		private final double[] values;
+		private int clockHand;
+
+		private Stripe(int columnSize)
+		{
+			Arrays.fill(this.keys, EMPTY_KEY);
+			this.values = new double[STRIPE_SIZE * columnSize];
+		}
+
+		private int indexOf(long key)
+		{
+			for(int i = 0; i < STRIPE_SIZE; i++)
+			{
+				if(this.keys[i] == key)
+				{
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		// Advances the clock hand to the first entry that hasn't been
+		// referenced since the last pass, clearing reference bits on the way.
+		private int nextVictim()
+		{
+			int slot;
+			while(true)
+			{
+				slot = this.clockHand;
+				this.clockHand = (this.clockHand + 1) & (STRIPE_SIZE - 1);
+				if(!this.referenced[slot])
+				{
+					return slot;
+				}
+				this.referenced[slot] = false;
+			}
+		}
+	}
+}
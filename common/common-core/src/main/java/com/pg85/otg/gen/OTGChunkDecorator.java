@@ -37,7 +37,8 @@ import java.util.Random;
  */
 public class OTGChunkDecorator implements IChunkDecorator
 {
-	private final Random rand;
+	// Decoration may run on multiple threads, each seeds its own Random per chunk.
+	private final ThreadLocal<Random> rand;
 
 	// Locking objects / checks to prevent decorate running on multiple threads,
 	// or when the world is waiting for an opportunity to save.
@@ -46,11 +47,10 @@ public class OTGChunkDecorator implements IChunkDecorator
 	private int decorating = 0;
 	private boolean saving;
 	private boolean saveRequired;
-	private Object asynChunkDecorationLock = new Object();
 
 	public OTGChunkDecorator()
 	{
-		this.rand = new Random();
+		this.rand = ThreadLocal.withInitial(Random::new);
 	}
 	
 	@Override
@@ -76,6 +76,8 @@ public class OTGChunkDecorator implements IChunkDecorator
 	{
 		this.saveRequired = false;
 		this.saving = false;
+		// Wake up any threads waiting to decorate.
+		this.lockingObject.notifyAll();
 	}
 
 	@Override
@@ -89,24 +91,28 @@ public class OTGChunkDecorator implements IChunkDecorator
 		ILogger logger = OTG.getEngine().getLogger();
 		
 		// Wait for another thread running SaveToDisk, then place a lock.
-		boolean firstLog = false;
-		while(true)
+		// SaveToDisk only holds up decoration while copying structure data,
+		// files are written in the background.
+		synchronized(this.lockingObject)
 		{
-			synchronized(this.lockingObject)
+			boolean interrupted = false;
+			while(this.saving)
 			{
-				if(!this.saving)
+				try
 				{
-					this.decorating++;
-					this.saveRequired = true;
-					break;
-				} else {
-					if(firstLog)
-					{
-						logger.log(LogLevel.WARN, LogCategory.MAIN, "Decorate waiting on SaveToDisk. Although other mods could be causing this and there may not be any problem, this can potentially cause an endless loop!");
-						firstLog = false;
-					}
+					this.lockingObject.wait();
+				} catch (InterruptedException e) {
+					// Keep waiting, decorating while saving would change
+					// regions that are being serialized or unloaded.
+					interrupted = true;
 				}
 			}
+			if(interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+			this.decorating++;
+			this.saveRequired = true;
 		}
 
 		Path otgRootFolder = OTG.getEngine().getOTGRootFolder();
@@ -121,6 +127,11 @@ public class OTGChunkDecorator implements IChunkDecorator
 		synchronized(this.lockingObject)
 		{
 			this.decorating--;
+			if(this.decorating == 0)
+			{
+				// Wake up SaveToDisk if it's waiting.
+				this.lockingObject.notifyAll();
+			}
 		}
 	}
 
@@ -146,22 +157,19 @@ public class OTGChunkDecorator implements IChunkDecorator
 		}
 
 		// Get the random generator
+		Random rand = this.rand.get();
 		long resourcesSeed = worldGenRegion.getSeed();
-		this.rand.setSeed(resourcesSeed);
-		long l1 = this.rand.nextLong() / 2L * 2L + 1L;
-		long l2 = this.rand.nextLong() / 2L * 2L + 1L;
-		this.rand.setSeed(chunkCoord.getChunkX() * l1 + chunkCoord.getChunkZ() * l2 ^ resourcesSeed);
+		rand.setSeed(resourcesSeed);
+		long l1 = rand.nextLong() / 2L * 2L + 1L;
+		long l2 = rand.nextLong() / 2L * 2L + 1L;
+		rand.setSeed(chunkCoord.getChunkX() * l1 + chunkCoord.getChunkZ() * l2 ^ resourcesSeed);
 
 		// Use BO4 logic for BO4 worlds
 		if(worldGenRegion.getWorldConfig().getCustomStructureType() == CustomStructureType.BO4)
 		{
-			// BO4 Plotting cannot currently be done in a thread-safe/non-blocking way,
-			// Paper may try to do async chunkgen, so lock here. This will ofcourse 
-			// slow down any multithreaded chunk decoration implementation.
-			synchronized(asynChunkDecorationLock)
-			{
-				plotAndSpawnBO4s(structureCache, worldGenRegion, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX(), chunkCoord.getChunkZ()), chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
-			}
+			// BO4 plotting locks the regions around the chunk, so chunks in regions far
+			// enough apart can be plotted in parallel (Paper may do async chunkgen).
+			plotAndSpawnBO4s(structureCache, worldGenRegion, rand, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
 		}
 
 		if(
@@ -180,7 +188,7 @@ public class OTGChunkDecorator implements IChunkDecorator
 			long startTime = System.currentTimeMillis();
 			if (res instanceof ICustomObjectResource)
 			{
-				((ICustomObjectResource)res).processForChunkDecoration(structureCache, worldGenRegion, this.rand, otgRootFolder, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
+				((ICustomObjectResource)res).processForChunkDecoration(structureCache, worldGenRegion, rand, otgRootFolder, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
 				if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTime) > 50)
 				{
 					logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Processing resource " + res.toString() + " in biome " + biomeConfig.getName() + " took " + (System.currentTimeMillis() - startTime) + " Ms.");
@@ -188,7 +196,7 @@ public class OTGChunkDecorator implements IChunkDecorator
 			}
 			else if (res instanceof ICustomStructureResource)
 			{
-				((ICustomStructureResource)res).processForChunkDecoration(structureCache, worldGenRegion, this.rand, otgRootFolder, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
+				((ICustomStructureResource)res).processForChunkDecoration(structureCache, worldGenRegion, rand, otgRootFolder, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
 				if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTime) > 50)
 				{
 					logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Processing resource " + res.toString() + " in biome " + biomeConfig.getName() + " took " + (System.currentTimeMillis() - startTime) + " Ms.");
@@ -196,7 +204,7 @@ public class OTGChunkDecorator implements IChunkDecorator
 			}
 			else if (res instanceof IBasicResource)
 			{
-				((IBasicResource)res).processForChunkDecoration(worldGenRegion, this.rand, logger, materialReader);
+				((IBasicResource)res).processForChunkDecoration(worldGenRegion, rand, logger, materialReader);
 				if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTime) > 50)
 				{
 					logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Processing resource " + res.toString() + " in biome " + biomeConfig.getName() + " took " + (System.currentTimeMillis() - startTime) + " Ms.");
@@ -232,25 +240,11 @@ public class OTGChunkDecorator implements IChunkDecorator
 		FrozenSurfaceHelper.freezeChunk(worldGenRegion, chunkCoord);
 	}
 
-	private void plotAndSpawnBO4s(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, ChunkCoordinate chunkCoord, ChunkCoordinate chunkBeingDecorated, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager customObjectResourcesManager, IModLoadedChecker modLoadedChecker)
+	private void plotAndSpawnBO4s(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager customObjectResourcesManager, IModLoadedChecker modLoadedChecker)
 	{
 		// Plot and spawn BO4's for all chunks that may have blocks spawned on them while decorating this chunk, 
 		// so we can be sure those chunks have had a chance to plot+spawn bo4's before other resources.
-
-		structureCache.plotBo4Structures(worldGenRegion, this.rand, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);		
-		structureCache.plotBo4Structures(worldGenRegion, this.rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ()), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);		
-		structureCache.plotBo4Structures(worldGenRegion, this.rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() , chunkCoord.getChunkZ() + 1), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);			
-		structureCache.plotBo4Structures(worldGenRegion, this.rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ() + 1), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);	
-
-		spawnBO4(structureCache, worldGenRegion, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
-		spawnBO4(structureCache, worldGenRegion, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ()), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);	
-		spawnBO4(structureCache, worldGenRegion, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX(), chunkCoord.getChunkZ() + 1), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
-		spawnBO4(structureCache, worldGenRegion, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ() + 1), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);		
-	}
-
-	private void spawnBO4(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
-	{
-		structureCache.spawnBo4Chunk(worldGenRegion, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+		structureCache.plotAndSpawnBo4Structures(worldGenRegion, rand, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
 	}
 	
 	private void handleBO3AtSpawn(IWorldGenRegion worldGenRegion, ChunkCoordinate targetChunk, String bo3AtSpawn, String presetFolderName, Path otgRootFolder, CustomStructureCache structureCache, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager customObjectResourcesManager, IModLoadedChecker modLoadedChecker)
@@ -289,7 +283,7 @@ public class OTGChunkDecorator implements IChunkDecorator
 				((BO3)customObject).spawnForced(
 					structureCache,
 					worldGenRegion,
-					this.rand,
+					this.rand.get(),
 					Rotation.NORTH,
 					targetChunk.getBlockX() + 16 + ((BO3)customObject).getXOffset(Rotation.NORTH),
 					y,
@@ -1,6 +1,5 @@
 package com.pg85.otg.gen;
 
-import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Random;
 import java.util.function.Consumer;
@@ -30,9 +29,8 @@ import com.pg85.otg.util.gen.JigsawStructureData;
 import com.pg85.otg.util.helpers.MathHelper;
 import com.pg85.otg.util.logging.LogCategory;
 import com.pg85.otg.util.logging.LogLevel;
-import it.unimi.dsi.fastutil.HashCommon;
+import com.pg85.otg.util.materials.LocalMaterialData;
 import it.unimi.dsi.fastutil.objects.ObjectList;
-import it.unimi.dsi.fastutil.objects.ObjectListIterator;
 
 /**
  * Generates the base terrain, sets stone/ground/surface blocks and does SurfaceAndGroundControl, generates caves and canyons.
@@ -87,7 +85,9 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 	private final int noiseSizeY;
 	private final int noiseSizeZ = 4;
 
-	private final ThreadLocal<NoiseCache> noiseCache;
+	private final NoiseColumnCache noiseCache;
+	private final BiomeSmoothingData smoothingData;
+	private final ThreadLocal<NoiseBuffers> noiseBuffers;
 	private final NoiseGeneratorPerlinMesaBlocks biomeBlocksNoiseGen;
 	// Carvers
 	private final Carver caves;
@@ -115,7 +115,9 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		this.upperInterpolatedNoise = new OctavePerlinNoiseSampler(random, IntStream.rangeClosed(-15, 0));
 		this.depthNoise = new OctavePerlinNoiseSampler(random, IntStream.rangeClosed(-15, 0));
 
-		this.noiseCache = ThreadLocal.withInitial(() -> new NoiseCache(128, this.noiseSizeY + 1));
+		this.noiseCache = new NoiseColumnCache(OTG.getEngine().getPluginConfig().getNoiseColumnCacheSize(), this.noiseSizeY + 1, this::generateNoiseColumn);
+		this.smoothingData = new BiomeSmoothingData(biomesById, BIOME_WEIGHT_TABLE, this.noiseSizeY + 1);
+		this.noiseBuffers = ThreadLocal.withInitial(() -> new NoiseBuffers(this.noiseSizeY, this.noiseSizeZ, this.smoothingData.maxRadius));
 
 		this.biomeBlocksNoiseGen = new NoiseGeneratorPerlinMesaBlocks(random, 4);
 
@@ -128,6 +130,11 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		return this.cachedBiomeProvider;
 	}
 
+	public NoiseColumnCache getNoiseColumnCache()
+	{
+		return this.noiseCache;
+	}
+
 	private static <T> T make(T object, Consumer<T> consumer)
 	{
 		consumer.accept(object);
@@ -278,102 +285,33 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 	public void getNoiseColumn(double[] buffer, int x, int z)
 	{
 		// TODO: check only for edges
-		this.noiseCache.get().get(buffer, x, z);
+		this.noiseCache.get(buffer, 0, x, z);
 	}
 
-	private void generateNoiseColumn(double[] noiseColumn, int noiseX, int noiseZ)
+	private void generateNoiseColumn(double[] noiseColumn, int offset, int noiseX, int noiseZ)
 	{
-		IBiomeConfig center = this.cachedBiomeProvider.getNoiseBiomeConfig(noiseX, noiseZ, true);
+		int center = this.cachedBiomeProvider.getNoiseBiomeId(noiseX, noiseZ);
 
 		final int usedYSections = this.preset.getWorldConfig().getWorldHeightScale() / 8 + 1;
-		float height = 0; // depth
-		float volatility = 0; // scale
-		double volatility1 = 0;
-		double volatility2 = 0;
-		double horizontalFracture = 0;
-		double verticalFracture = 0;
-		double volatilityWeight1 = 0;
-		double volatilityWeight2 = 0;
-		double maxAverageDepth = 0;
-		double maxAverageHeight = 0;
-		double[] chc = new double[this.noiseSizeY + 1];
-		float weight = 0;
-		
-		int radius = Math.max(center.getSmoothRadius(), center.getCHCSmoothRadius());
-		int areaSize = radius * 2 + 1;
-		IBiomeConfig biomes[] = this.cachedBiomeProvider.getNoiseBiomeConfigsForRegion(noiseX - radius, noiseZ - radius, areaSize);
-		IBiomeConfig biome;
-		float heightAt;
-		float weightAt;
-		int cacheX;
-		int cacheZ;
-		for (int x1 = -center.getSmoothRadius(); x1 <= center.getSmoothRadius(); ++x1)
-		{
-			cacheX = x1 + radius;
-			for (int z1 = -center.getSmoothRadius(); z1 <= center.getSmoothRadius(); ++z1)
-			{
-				cacheZ = z1 + radius;
-				biome = biomes[cacheX * areaSize + cacheZ];
-				heightAt = biome.getBiomeHeight();
-				// TODO: vanilla reduces the weight by half when the depth here is greater than the center depth, but OTG doesn't do that?
-				weightAt = BIOME_WEIGHT_TABLE[x1 + 32 + (z1 + 32) * 65] / (heightAt + 2.0F);
-				weightAt = Math.abs(weightAt); // This is required to prevent seams when height goes below -2
-
-				weight += weightAt;
-
-				height += heightAt * weightAt;
-				volatility += biome.getBiomeVolatility() * weightAt;
-				volatility1 += biome.getVolatility1() * weightAt;
-				volatility2 += biome.getVolatility2() * weightAt;
-				horizontalFracture += biome.getFractureHorizontal() * weightAt;
-				verticalFracture += biome.getFractureVertical() * weightAt;
-				volatilityWeight1 += biome.getVolatilityWeight1() * weightAt;
-				volatilityWeight2 += biome.getVolatilityWeight2() * weightAt;
-				maxAverageDepth += biome.getMaxAverageDepth() * weightAt;
-				maxAverageHeight += biome.getMaxAverageHeight() * weightAt;
-			}
-		}
 
-		// CHC Smoothing
-		double chcWeight = 0;
-		for (int x1 = -center.getCHCSmoothRadius(); x1 <= center.getCHCSmoothRadius(); ++x1)
-		{
-			cacheX = x1 + radius;
-			for (int z1 = -center.getCHCSmoothRadius(); z1 <= center.getCHCSmoothRadius(); ++z1)
-			{
-				cacheZ = z1 + radius;
-				biome = biomes[cacheX * areaSize + cacheZ];
-
-				heightAt = biome.getBiomeHeight();
-				weightAt = BIOME_WEIGHT_TABLE[x1 + 32 + (z1 + 32) * 65] / (heightAt + 2.0F);
-				weightAt = Math.abs(weightAt);
-
-				chcWeight += weightAt;
-
-				for (int y = 0; y < this.noiseSizeY + 1; y++)
-				{
-					chc[y] += biome.getCHCData(y) * weightAt;
-				}
-			}
-		}
-
-		// Normalize biome data
-		height /= weight;
-		volatility /= weight;
-		volatility1 /= weight;
-		volatility2 /= weight;
-		horizontalFracture /= weight;
-		verticalFracture /= weight;
-		volatilityWeight1 /= weight;
-		volatilityWeight2 /= weight;
-		maxAverageDepth /= weight;
-		maxAverageHeight /= weight;
-
-		// Normalize CHC
-		for (int y = 0; y < this.noiseSizeY + 1; y++)
-		{
-			chc[y] /= chcWeight;
-		}
+		// Smooth biome settings over the surrounding area, see BiomeSmoothingData.
+		NoiseBuffers noiseBuffers = this.noiseBuffers.get();
+		int radius = Math.max(this.smoothingData.smoothRadius[center], this.smoothingData.chcSmoothRadius[center]);
+		int areaSize = radius * 2 + 1;
+		this.cachedBiomeProvider.getNoiseBiomeIdsForRegion(noiseBuffers.smoothingBiomeIds, noiseX - radius, noiseZ - radius, areaSize);
+		BiomeSmoothingData.SmoothedSettings smoothed = this.smoothingData.getSmoothedSettings(noiseBuffers.smoothingBiomeIds, areaSize, radius, center, noiseBuffers.smoothedSettings);
+
+		float height = smoothed.height;
+		float volatility = smoothed.volatility;
+		double volatility1 = smoothed.volatility1;
+		double volatility2 = smoothed.volatility2;
+		double horizontalFracture = smoothed.horizontalFracture;
+		double verticalFracture = smoothed.verticalFracture;
+		double volatilityWeight1 = smoothed.volatilityWeight1;
+		double volatilityWeight2 = smoothed.volatilityWeight2;
+		double maxAverageDepth = smoothed.maxAverageDepth;
+		double maxAverageHeight = smoothed.maxAverageHeight;
+		double[] chc = smoothed.chc;
 
 		// Vary the height with more noise
 		float extraHeight = (float) (getExtraHeightAt(noiseX, noiseZ, maxAverageDepth, maxAverageHeight) * 0.2);
@@ -402,7 +340,7 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 			verticalScale = WORLD_GEN_CONSTANT * verticalFracture;
 			noise = sampleNoise(noiseX, y, noiseZ, horizontalScale, verticalScale, horizontalScale / 80, verticalScale / 160, volatility1, volatility2, volatilityWeight1, volatilityWeight2);
 
-			if (!center.disableBiomeHeight())
+			if (!this.smoothingData.disableBiomeHeight[center])
 			{
 				// Add the falloff at this height
 				noise += falloff;
@@ -418,7 +356,7 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 			noise += chc[y];
 
 			// Store value
-			noiseColumn[y] = noise;
+			noiseColumn[offset + y] = noise;
 		}
 	}
 
@@ -428,9 +366,6 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 	{
 		ILogger logger = OTG.getEngine().getLogger();
 
-		ObjectListIterator<JigsawStructureData> structureIterator = structures.iterator();
-		ObjectListIterator<JigsawStructureData> junctionsIterator = junctions.iterator();
-
 		long startTime = System.currentTimeMillis();
 		
 		// Fill waterLevel array, used when placing stone/ground/surface blocks.
@@ -449,65 +384,76 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 			}
 		}
 
-		// TODO: this double[][][] is probably really bad for performance
-		double[][][] noiseData = new double[2][this.noiseSizeZ + 1][this.noiseSizeY + 1];
+		NoiseBuffers noiseBuffers = this.noiseBuffers.get();
+		// Flat noise slabs for the x0 and x1 columns of noise cells, each holding 
+		// noiseSizeZ + 1 columns of noiseSizeY + 1 samples. Swapped by offset.
+		double[] noiseData = noiseBuffers.noiseData;
+		int columnSize = this.noiseSizeY + 1;
+		int slabSize = (this.noiseSizeZ + 1) * columnSize;
+		int x0Slab = 0;
+		int x1Slab = slabSize;
+		int swap;
 		// Max smoothing radius is 32, so area covered is 32+5+32=69 (noise/biome coords, so *4)
-	
+
 		// Initialize noise data on the x0 column.
 		for (int noiseZ = 0; noiseZ < this.noiseSizeZ + 1; ++noiseZ)
 		{
-			noiseData[0][noiseZ] = new double[this.noiseSizeY + 1];
-			this.getNoiseColumn(
-				noiseData[0][noiseZ], 
+			this.noiseCache.get(
+				noiseData,
+				x0Slab + noiseZ * columnSize,
 				chunkCoord.getChunkX() * this.noiseSizeX, 
 				chunkCoord.getChunkZ() * this.noiseSizeZ + noiseZ 
 			);
-			noiseData[1][noiseZ] = new double[this.noiseSizeY + 1];
 		}
 
+		// Structure and junction offsets only depend on x or z for a given 
+		// structure, so calculate them once per chunk. Structures further than 
+		// 12 blocks from a column always have a noise weight of 0 and are skipped.
+		boolean hasStructures = structures.size() > 0 || junctions.size() > 0;
+		if(hasStructures)
+		{
+			noiseBuffers.prepareStructures(structures, junctions, blockX, blockZ);
+		}
+
+		int heightInBlocks = this.noiseSizeY * 8;
+		double[] x0z0 = noiseBuffers.x0z0;
+		double[] x1z0 = noiseBuffers.x1z0;
+		double[] x0z1 = noiseBuffers.x0z1;
+		double[] x1z1 = noiseBuffers.x1z1;
+		double[] z0 = noiseBuffers.z0;
+		double[] z1 = noiseBuffers.z1;
+		int[] activeStructures = noiseBuffers.activeStructures;
+		int[] activeJunctions = noiseBuffers.activeJunctions;
+		int activeStructureCount;
+		int activeJunctionCount;
+
 		IBiomeConfig biomeConfig;
-		// [0, 4] -> x noise chunks
 		int noiseZ;
-		double x0z0y0;
-		double x0z1y0;
-		double x1z0y0;
-		double x1z1y0;
-		double x0z0y1;
-		double x0z1y1;
-		double x1z0y1;
-		double x1z1y1;
+		int x0Column;
+		int x1Column;
 		int realY;
 		double yLerp;
-		double x0z0;
-		double x1z0;
-		double x0z1;
-		double x1z1;
-		int realX;
 		int localX;
 		double xLerp;
-		double z0;
-		double z1;
-		int realZ;
 		int localZ;
 		double zLerp;
-		double rawNoise;
 		double density;
-		int structureX;
-		int structureY;
-		int structureZ;
-		JigsawStructureData structure;
-		JigsawStructureData junction;
-		int sourceX;
-		int sourceY;
-		int sourceZ;
-		double[][] xColumn;
+		int structure;
+		int junction;
+		int highestBlock;
+		LocalMaterialData material;
+		LocalMaterialData runMaterial;
+		int runTop;
+		int columnWaterLevel;
+		int columnWaterLevelMin;
 		for (int noiseX = 0; noiseX < this.noiseSizeX; ++noiseX)
 		{
 			// Initialize noise data on the x1 column
 			for (noiseZ = 0; noiseZ < this.noiseSizeZ + 1; ++noiseZ)
 			{
-				this.getNoiseColumn(
-					noiseData[1][noiseZ], 
+				this.noiseCache.get(
+					noiseData,
+					x1Slab + noiseZ * columnSize,
 					chunkCoord.getChunkX() * this.noiseSizeX + noiseX + 1, 
 					chunkCoord.getChunkZ() * this.noiseSizeZ + noiseZ 
 				);
@@ -516,102 +462,117 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 			// [0, 4] -> z noise chunks
 			for (noiseZ = 0; noiseZ < this.noiseSizeZ; ++noiseZ)
 			{
-				// [0, 32] -> y noise chunks
-				for (int noiseY = this.noiseSizeY - 1; noiseY >= 0; --noiseY)
+				x0Column = x0Slab + noiseZ * columnSize;
+				x1Column = x1Slab + noiseZ * columnSize;
+
+				// Interpolate the 4 corner columns of this cell over y for every block height.
+				for (int noiseY = 0; noiseY < this.noiseSizeY; ++noiseY)
 				{
-					// Lower samples
-					x0z0y0 = noiseData[0][noiseZ][noiseY];
-					x0z1y0 = noiseData[0][noiseZ + 1][noiseY];
-					x1z0y0 = noiseData[1][noiseZ][noiseY];
-					x1z1y0 = noiseData[1][noiseZ + 1][noiseY];
-					// Upper samples
-					x0z0y1 = noiseData[0][noiseZ][noiseY + 1];
-					x0z1y1 = noiseData[0][noiseZ + 1][noiseY + 1];
-					x1z0y1 = noiseData[1][noiseZ][noiseY + 1];
-					x1z1y1 = noiseData[1][noiseZ + 1][noiseY + 1];
-
-					// [0, 8] -> y noise pieces
-					for (int pieceY = 8 - 1; pieceY >= 0; --pieceY)
+					for (int pieceY = 0; pieceY < 8; ++pieceY)
 					{
 						realY = noiseY * 8 + pieceY;
-
-						// progress within loop
 						yLerp = (double) pieceY / 8.0;
+						x0z0[realY] = MathHelper.lerp(yLerp, noiseData[x0Column + noiseY], noiseData[x0Column + noiseY + 1]);
+						x1z0[realY] = MathHelper.lerp(yLerp, noiseData[x1Column + noiseY], noiseData[x1Column + noiseY + 1]);
+						x0z1[realY] = MathHelper.lerp(yLerp, noiseData[x0Column + columnSize + noiseY], noiseData[x0Column + columnSize + noiseY + 1]);
+						x1z1[realY] = MathHelper.lerp(yLerp, noiseData[x1Column + columnSize + noiseY], noiseData[x1Column + columnSize + noiseY + 1]);
+					}
+				}
 
-						// Interpolate noise data based on y progress
-						x0z0 = MathHelper.lerp(yLerp, x0z0y0, x0z0y1);
-						x1z0 = MathHelper.lerp(yLerp, x1z0y0, x1z0y1);
-						x0z1 = MathHelper.lerp(yLerp, x0z1y0, x0z1y1);
-						x1z1 = MathHelper.lerp(yLerp, x1z1y0, x1z1y1);
+				// [0, 4] -> x noise pieces
+				for (int pieceX = 0; pieceX < 4; ++pieceX)
+				{
+					localX = noiseX * 4 + pieceX;
+					xLerp = (double) pieceX / 4.0;
+					// Interpolate noise based on x progress
+					for (realY = 0; realY < heightInBlocks; ++realY)
+					{
+						z0[realY] = MathHelper.lerp(xLerp, x0z0[realY], x1z0[realY]);
+						z1[realY] = MathHelper.lerp(xLerp, x0z1[realY], x1z1[realY]);
+					}
 
-						// [0, 4] -> x noise pieces
-						for (int pieceX = 0; pieceX < 4; ++pieceX)
+					// [0, 4) -> z noise pieces, each column is written top to bottom.
+					for (int pieceZ = 0; pieceZ < 4; ++pieceZ)
+					{
+						localZ = noiseZ * 4 + pieceZ;
+						zLerp = (double) pieceZ / 4.0;
+						biomeConfig = biomes[localX * 16 + localZ].getBiomeConfig();
+						columnWaterLevel = waterLevel[localX * 16 + localZ];
+						columnWaterLevelMin = biomeConfig.getWaterLevelMin();
+
+						activeStructureCount = 0;
+						activeJunctionCount = 0;
+						if(hasStructures)
 						{
-							realX = blockX + noiseX * 4 + pieceX;
-							localX = realX & 15;
-							xLerp = (double) pieceX / 4.0;
-							// Interpolate noise based on x progress
-							z0 = MathHelper.lerp(xLerp, x0z0, x1z0);
-							z1 = MathHelper.lerp(xLerp, x0z1, x1z1);
-
-							// [0, 4) -> z noise pieces
-							for (int pieceZ = 0; pieceZ < 4; ++pieceZ)
+							activeStructureCount = noiseBuffers.getActiveStructures(localX, localZ, activeStructures);
+							activeJunctionCount = noiseBuffers.getActiveJunctions(localX, localZ, activeJunctions);
+						}
+
+						highestBlock = -1;
+						runMaterial = null;
+						runTop = heightInBlocks;
+						for (realY = heightInBlocks - 1; realY >= 0; --realY)
+						{
+							// Get the real noise here by interpolating the last 2 noises together, 
+							// then normalize the noise from (-256, 256) to [-1, 1]
+							density = MathHelper.clamp(MathHelper.lerp(zLerp, z0[realY], z1[realY]) / 200.0D, -1.0D, 1.0D);
+							density = density / 2.0D - density * density * density / 24.0D;
+
+							// TODO: make this bigger and look better
+							// Add density for structures and jigsaw junctions, in list order.
+							for(int i = 0; i < activeStructureCount; i++)
 							{
-								realZ = blockZ + noiseZ * 4 + pieceZ;
-								localZ = realZ & 15;
-								zLerp = (double) pieceZ / 4.0;
-								// Get the real noise here by interpolating the last 2 noises together
-								rawNoise = MathHelper.lerp(zLerp, z0, z1);
-								// Normalize the noise from (-256, 256) to [-1, 1]
-								density = MathHelper.clamp(rawNoise / 200.0D, -1.0D, 1.0D);
-
-								biomeConfig = biomes[localX * 16 + localZ].getBiomeConfig();
-
-								// TODO: make this bigger and look better
-								// Iterate through structures to add density
-								structureX = 0;
-								structureY = 0;
-								structureZ = 0;
-								for(density = density / 2.0D - density * density * density / 24.0D; structureIterator.hasNext(); density += getNoiseWeight(structureX, structureY, structureZ) * 0.8D)
-								{
-									structure = structureIterator.next();
-									structureX = Math.max(0, Math.max(structure.minX - realX, realX - structure.maxX));
-									structureY = realY - (structure.minY + (structure.useDelta ? structure.delta : 0));
-									structureZ = Math.max(0, Math.max(structure.minZ - realZ, realZ - structure.maxZ));
-								}
-								structureIterator.back(structures.size());
+								structure = activeStructures[i];
+								density += getNoiseWeight(noiseBuffers.structureX[structure * Constants.CHUNK_SIZE + localX], realY - noiseBuffers.structureY[structure], noiseBuffers.structureZ[structure * Constants.CHUNK_SIZE + localZ]) * 0.8D;
+							}
+							for(int i = 0; i < activeJunctionCount; i++)
+							{
+								junction = activeJunctions[i];
+								density += getNoiseWeight(noiseBuffers.junctionX[junction * Constants.CHUNK_SIZE + localX], realY - noiseBuffers.junctionY[junction], noiseBuffers.junctionZ[junction * Constants.CHUNK_SIZE + localZ]) * 0.4D;
+							}
 
-								// Iterate through jigsawws to add density
-								while(junctionsIterator.hasNext())
-								{
-									junction = junctionsIterator.next();
-									sourceX = realX - junction.sourceX;
-									sourceY = realY - junction.groundY;
-									sourceZ = realZ - junction.sourceZ;
-									density += getNoiseWeight(sourceX, sourceY, sourceZ) * 0.4D;
-								}
-								junctionsIterator.back(junctions.size());
+							if (density > 0.0)
+							{
+								material = biomeConfig.getStoneBlockReplaced(realY);
+							}
+							else if (realY < columnWaterLevel && realY > columnWaterLevelMin)
+							{
+								material = biomeConfig.getWaterBlockReplaced(realY);
+							} else {
+								material = null;
+							}
 
-								if (density > 0.0)
-								{
-									buffer.setBlock(localX, realY, localZ, biomeConfig.getStoneBlockReplaced(realY));
-									buffer.setHighestBlockForColumn(pieceX + noiseX * 4, noiseZ * 4 + pieceZ, realY);
-								}
-								else if (realY < waterLevel[localX * 16 + localZ] && realY > biomeConfig.getWaterLevelMin())
+							// Write runs of the same material in one go.
+							if(material != runMaterial)
+							{
+								if(runMaterial != null)
 								{
-									buffer.setBlock(localX, realY, localZ, biomeConfig.getWaterBlockReplaced(realY));
-									buffer.setHighestBlockForColumn(pieceX + noiseX * 4, noiseZ * 4 + pieceZ, realY);
+									buffer.fillColumn(localX, localZ, realY + 1, runTop, runMaterial);
 								}
+								runMaterial = material;
+								runTop = realY + 1;
 							}
+							if(material != null && highestBlock == -1)
+							{
+								highestBlock = realY;
+							}
+						}
+						if(runMaterial != null)
+						{
+							buffer.fillColumn(localX, localZ, 0, runTop, runMaterial);
+						}
+						if(highestBlock != -1)
+						{
+							buffer.setHighestBlockForColumn(localX, localZ, highestBlock);
 						}
 					}
 				}
 			}
 
 			// Reuse noise data from the previous column for speed
-			xColumn = noiseData[0];
-			noiseData[0] = noiseData[1];
-			noiseData[1] = xColumn;
+			swap = x0Slab;
+			x0Slab = x1Slab;
+			x1Slab = swap;
 		}
 
 		doSurfaceAndGroundControl(biomes, random, worldHeightCap, this.seed, buffer, waterLevel);
@@ -622,44 +583,130 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		}
 	}
 
+	// Heightmap-only terrain queries
+
+	// These only look for the zero-crossing of the terrain density in the cached
+	// noise columns, without filling a chunk. Surface/ground blocks, SAGC, carvers
+	// and terrain adapting to jigsaw structures are not included, so they're only
+	// used for /otg map. Spawn height checks for objects need the shadowgenned chunk.
+
+	/**
+	 * Fills heights with the y of the highest terrain block of each column in the
+	 * chunk, or -1 for none, and waterLevels with the WaterLevelMax of each
+	 * column's biome. Both are indexed as [x * 16 + z]. Much cheaper than
+	 * populateNoise, used for terrain previews.
+	 */
+	public void getHeightmap(ChunkCoordinate chunkCoord, int[] heights, int[] waterLevels)
+	{
+		IBiome[] biomes = this.cachedBiomeProvider.getBiomesForChunk(chunkCoord);
+		double[] noiseData = this.noiseBuffers.get().noiseData;
+		int columnSize = this.noiseSizeY + 1;
+		int slabSize = (this.noiseSizeZ + 1) * columnSize;
+		int x0Slab = 0;
+		int x1Slab = slabSize;
+		int swap;
+		int maxY = this.noiseSizeY * 8 - 1;
+
+		for (int noiseZ = 0; noiseZ < this.noiseSizeZ + 1; ++noiseZ)
+		{
+			this.noiseCache.get(noiseData, x0Slab + noiseZ * columnSize, chunkCoord.getChunkX() * this.noiseSizeX, chunkCoord.getChunkZ() * this.noiseSizeZ + noiseZ);
+		}
+
+		int noiseZ;
+		int x0Column;
+		int x1Column;
+		int index;
+		for (int noiseX = 0; noiseX < this.noiseSizeX; ++noiseX)
+		{
+			for (noiseZ = 0; noiseZ < this.noiseSizeZ + 1; ++noiseZ)
+			{
+				this.noiseCache.get(noiseData, x1Slab + noiseZ * columnSize, chunkCoord.getChunkX() * this.noiseSizeX + noiseX + 1, chunkCoord.getChunkZ() * this.noiseSizeZ + noiseZ);
+			}
+			for (noiseZ = 0; noiseZ < this.noiseSizeZ; ++noiseZ)
+			{
+				x0Column = x0Slab + noiseZ * columnSize;
+				x1Column = x1Slab + noiseZ * columnSize;
+				for (int pieceX = 0; pieceX < 4; ++pieceX)
+				{
+					for (int pieceZ = 0; pieceZ < 4; ++pieceZ)
+					{
+						index = (noiseX * 4 + pieceX) * Constants.CHUNK_SIZE + noiseZ * 4 + pieceZ;
+						heights[index] = getHighestTerrainY(noiseData, x0Column, x1Column, columnSize, (double) pieceX / 4.0, (double) pieceZ / 4.0, maxY);
+						waterLevels[index] = biomes[index].getBiomeConfig().getWaterLevelMax();
+					}
+				}
+			}
+
+			swap = x0Slab;
+			x0Slab = x1Slab;
+			x1Slab = swap;
+		}
+	}
+
+	// Returns the highest y at or below maxY with a positive density, or -1.
+	// Interpolates in the same order as populateNoise so results match exactly.
+	// Noise cells with no positive corner can't contain terrain and are skipped.
+	private int getHighestTerrainY(double[] noiseData, int x0Column, int x1Column, int columnSize, double xLerp, double zLerp, int maxY)
+	{
+		int x0z1Column = x0Column + columnSize;
+		int x1z1Column = x1Column + columnSize;
+		double x0z0;
+		double x1z0;
+		double x0z1;
+		double x1z1;
+		double yLerp;
+		for (int noiseY = maxY >> 3; noiseY >= 0; noiseY--)
+		{
+			if (
+				noiseData[x0Column + noiseY] <= 0 && noiseData[x0Column + noiseY + 1] <= 0 &&
+				noiseData[x1Column + noiseY] <= 0 && noiseData[x1Column + noiseY + 1] <= 0 &&
+				noiseData[x0z1Column + noiseY] <= 0 && noiseData[x0z1Column + noiseY + 1] <= 0 &&
+				noiseData[x1z1Column + noiseY] <= 0 && noiseData[x1z1Column + noiseY + 1] <= 0
+			)
+			{
+				continue;
+			}
+			for (int pieceY = noiseY == maxY >> 3 ? maxY & 7 : 7; pieceY >= 0; pieceY--)
+			{
+				yLerp = (double) pieceY / 8.0;
+				x0z0 = MathHelper.lerp(yLerp, noiseData[x0Column + noiseY], noiseData[x0Column + noiseY + 1]);
+				x1z0 = MathHelper.lerp(yLerp, noiseData[x1Column + noiseY], noiseData[x1Column + noiseY + 1]);
+				x0z1 = MathHelper.lerp(yLerp, noiseData[x0z1Column + noiseY], noiseData[x0z1Column + noiseY + 1]);
+				x1z1 = MathHelper.lerp(yLerp, noiseData[x1z1Column + noiseY], noiseData[x1z1Column + noiseY + 1]);
+				// Clamping and the density curve used by populateNoise keep the sign,
+				// so the raw noise can be tested directly.
+				if (MathHelper.lerp(zLerp, MathHelper.lerp(xLerp, x0z0, x1z0), MathHelper.lerp(xLerp, x0z1, x1z1)) > 0.0)
+				{
+					return noiseY * 8 + pieceY;
+				}
+			}
+		}
+		return -1;
+	}
+
 	public void carve(ChunkBuffer chunk, long seed, int chunkX, int chunkZ, BitSet carvingMask, boolean cavesEnabled, boolean ravinesEnabled)
 	{
-		// TODO: it should be possible to cache these carver graphs to make larger carvers more efficient and easier to use
 		if(cavesEnabled || ravinesEnabled)
 		{
-			Random random = new Random();
+			// Biomes for the chunk being carved, fetched once for all carver start chunks.
+			IBiomeConfig[] biomeConfigs = this.cachedBiomeProvider.getBiomeConfigsForChunk(chunk.getChunkCoordinate());
 			for (int localChunkX = chunkX - 8; localChunkX <= chunkX + 8; ++localChunkX)
 			{
 				for (int localChunkZ = chunkZ - 8; localChunkZ <= chunkZ + 8; ++localChunkZ)
 				{
-					setCarverSeed(random, seed, localChunkX, localChunkZ);
-					
-					if(cavesEnabled && this.caves.isStartChunk(random, localChunkX, localChunkZ))
+					if(cavesEnabled)
 					{
-						this.caves.carve(this, chunk, random, localChunkX, localChunkZ, chunkX, chunkZ, carvingMask, this.cachedBiomeProvider);
+						this.caves.carve(this, chunk, seed, localChunkX, localChunkZ, chunkX, chunkZ, carvingMask, biomeConfigs);
 					}
-					
-					setCarverSeed(random, seed, localChunkX, localChunkZ);
-					
-					if(ravinesEnabled && this.ravines.isStartChunk(random, localChunkX, localChunkZ))
+					if(ravinesEnabled)
 					{
-						this.ravines.carve(this, chunk, random, localChunkX, localChunkZ, chunkX, chunkZ, carvingMask, this.cachedBiomeProvider);
+						this.ravines.carve(this, chunk, seed, localChunkX, localChunkZ, chunkX, chunkZ, carvingMask, biomeConfigs);
 					}
 				}
 			}
 		}
 	}
 
-	private long setCarverSeed(Random random, long seed, int x, int z)
-	{
-		random.setSeed(seed);
-		long i = random.nextLong();
-		long j = random.nextLong();
-		long k = (long) x * i ^ (long) z * j ^ seed;
-		random.setSeed(k);
-		return k;
-	}
-
 	public int getNoiseSizeY()
 	{
 		return noiseSizeY;
@@ -699,55 +746,131 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		return noise;
 	}
 
-	private class NoiseCache
+	/**
+	 * Reusable per-thread buffers for populateNoise and generateNoiseColumn,
+	 * so filling a chunk doesn't allocate. Also holds per-chunk 
+	 * structure/junction offsets.
+	 */
+	private static class NoiseBuffers
 	{
-		private final long[] keys;
-		private final double[] values;
-		private final int mask;
-
-		private NoiseCache(int size, int noiseSize)
+		// Noise samples must be within 12 blocks of a structure to have any weight, see getNoiseWeight.
+		private static final int MIN_WEIGHT_OFFSET = -12;
+		private static final int MAX_WEIGHT_OFFSET = 11;
+
+		private final double[] noiseData;
+		private final double[] x0z0;
+		private final double[] x1z0;
+		private final double[] x0z1;
+		private final double[] x1z1;
+		private final double[] z0;
+		private final double[] z1;
+
+		// Noise biome ids around a column being smoothed, and the smoothed settings.
+		private final int[] smoothingBiomeIds;
+		private final BiomeSmoothingData.SmoothedSettings smoothedSettings;
+
+		// Per structure/junction, x and z offsets for each local x/z in the chunk, and the y base.
+		private int[] structureX = new int[0];
+		private int[] structureY = new int[0];
+		private int[] structureZ = new int[0];
+		private int[] junctionX = new int[0];
+		private int[] junctionY = new int[0];
+		private int[] junctionZ = new int[0];
+		private int[] activeStructures = new int[0];
+		private int[] activeJunctions = new int[0];
+		private int structureCount;
+		private int junctionCount;
+
+		private NoiseBuffers(int noiseSizeY, int noiseSizeZ, int maxSmoothRadius)
 		{
-			size = MathHelper.smallestEncompassingPowerOfTwo(size);
-			this.mask = size - 1;
-
-			this.keys = new long[size];
-			Arrays.fill(this.keys, Long.MIN_VALUE);
-			this.values = new double[size * noiseSize];
+			this.noiseData = new double[2 * (noiseSizeZ + 1) * (noiseSizeY + 1)];
+			int heightInBlocks = noiseSizeY * 8;
+			this.x0z0 = new double[heightInBlocks];
+			this.x1z0 = new double[heightInBlocks];
+			this.x0z1 = new double[heightInBlocks];
+			this.x1z1 = new double[heightInBlocks];
+			this.z0 = new double[heightInBlocks];
+			this.z1 = new double[heightInBlocks];
+			this.smoothingBiomeIds = new int[(maxSmoothRadius * 2 + 1) * (maxSmoothRadius * 2 + 1)];
+			this.smoothedSettings = new BiomeSmoothingData.SmoothedSettings(noiseSizeY + 1);
 		}
 
-		public double[] get(double[] buffer, int noiseX, int noiseZ)
+		private void prepareStructures(ObjectList<JigsawStructureData> structures, ObjectList<JigsawStructureData> junctions, int blockX, int blockZ)
 		{
-			long key = key(noiseX, noiseZ);
-			int idx = hash(key) & this.mask;
-
-			// if the entry here has a key that matches ours, we have a cache hit
-			if (this.keys[idx] == key)
+			this.structureCount = structures.size();
+			this.junctionCount = junctions.size();
+			if(this.structureX.length < this.structureCount * Constants.CHUNK_SIZE)
 			{
-				// Copy values into buffer
-				System.arraycopy(this.values, idx * buffer.length, buffer, 0, buffer.length);
-			} else {
-				// cache miss: sample and put the result into our cache entry
-
-				// Sample the noise column to store the new values
-				generateNoiseColumn(buffer, noiseX, noiseZ);
-
-				// Create copy of the array
-				System.arraycopy(buffer, 0, this.values, idx * buffer.length, buffer.length);
+				this.structureX = new int[this.structureCount * Constants.CHUNK_SIZE];
+				this.structureY = new int[this.structureCount];
+				this.structureZ = new int[this.structureCount * Constants.CHUNK_SIZE];
+				this.activeStructures = new int[this.structureCount];
+			}
+			if(this.junctionX.length < this.junctionCount * Constants.CHUNK_SIZE)
+			{
+				this.junctionX = new int[this.junctionCount * Constants.CHUNK_SIZE];
+				this.junctionY = new int[this.junctionCount];
+				this.junctionZ = new int[this.junctionCount * Constants.CHUNK_SIZE];
+				this.activeJunctions = new int[this.junctionCount];
+			}
 
-				this.keys[idx] = key;
+			JigsawStructureData structure;
+			int realX;
+			int realZ;
+			for(int i = 0; i < this.structureCount; i++)
+			{
+				structure = structures.get(i);
+				this.structureY[i] = structure.minY + (structure.useDelta ? structure.delta : 0);
+				for(int local = 0; local < Constants.CHUNK_SIZE; local++)
+				{
+					realX = blockX + local;
+					realZ = blockZ + local;
+					this.structureX[i * Constants.CHUNK_SIZE + local] = Math.max(0, Math.max(structure.minX - realX, realX - structure.maxX));
+					this.structureZ[i * Constants.CHUNK_SIZE + local] = Math.max(0, Math.max(structure.minZ - realZ, realZ - structure.maxZ));
+				}
+			}
+			for(int i = 0; i < this.junctionCount; i++)
+			{
+				structure = junctions.get(i);
+				this.junctionY[i] = structure.groundY;
+				for(int local = 0; local < Constants.CHUNK_SIZE; local++)
+				{
+					this.junctionX[i * Constants.CHUNK_SIZE + local] = blockX + local - structure.sourceX;
+					this.junctionZ[i * Constants.CHUNK_SIZE + local] = blockZ + local - structure.sourceZ;
+				}
 			}
+		}
 
-			return buffer;
+		// Fills active with the indices of structures that can add density to 
+		// the given column, in list order, and returns how many there are.
+		private int getActiveStructures(int localX, int localZ, int[] active)
+		{
+			return getActive(this.structureX, this.structureZ, this.structureCount, localX, localZ, active);
 		}
 
-		private int hash(long key)
+		private int getActiveJunctions(int localX, int localZ, int[] active)
 		{
-			return (int) HashCommon.mix(key);
+			return getActive(this.junctionX, this.junctionZ, this.junctionCount, localX, localZ, active);
 		}
 
-		private long key(int x, int z)
+		private static int getActive(int[] offsetsX, int[] offsetsZ, int count, int localX, int localZ, int[] active)
 		{
-			return MathHelper.toLong(x, z);
+			int activeCount = 0;
+			int offsetX;
+			int offsetZ;
+			for(int i = 0; i < count; i++)
+			{
+				offsetX = offsetsX[i * Constants.CHUNK_SIZE + localX];
+				offsetZ = offsetsZ[i * Constants.CHUNK_SIZE + localZ];
+				if(
+					offsetX >= MIN_WEIGHT_OFFSET && offsetX <= MAX_WEIGHT_OFFSET &&
+					offsetZ >= MIN_WEIGHT_OFFSET && offsetZ <= MAX_WEIGHT_OFFSET
+				)
+				{
+					active[activeCount++] = i;
+				}
+			}
+			return activeCount;
 		}
 	}
 }
@@ -0,0 +1,340 @@
+package com.pg85.otg.gen;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.StripedLongCache;
+import com.pg85.otg.util.gen.ChunkBuffer;
+import com.pg85.otg.util.helpers.MathHelper;
+
+/**
+ * Generates base terrain for chunks ahead of worldgen (shadowgen) on a
+ * bounded pool of worker threads, see the platform ShadowChunkGenerator.
+ *
+ * Each chunk is generated at most once at a time: requests for a chunk that
+ * is queued or being generated share its future, and threads that need the
+ * chunk wait on that future instead of polling. A chunk that is still queued
+ * when it's needed is generated on the calling thread instead. Generated
+ * chunks are kept in a size-bounded cache until worldgen takes them, and
+ * are cancelled or dropped once worldgen has generated the real chunk.
+ *
+ * Generators return null for chunks that can't be shadowgenned, those are
+ * left to worldgen. All methods can be called from any thread.
+ */
+public class ShadowChunkService<T extends ChunkBuffer>
+{
+	private final ThreadPoolExecutor executor;
+	private final Map<ChunkCoordinate, ShadowChunkTask> chunksInProgress = new ConcurrentHashMap<ChunkCoordinate, ShadowChunkTask>();
+	// Chunks that worldgen is generating itself, shouldn't be queued again.
+	private final Set<ChunkCoordinate> chunksBeingGenerated = ConcurrentHashMap.newKeySet();
+	private final StripedLongCache<T> generatedChunks;
+
+	/**
+	 * @param threads Amount of worker threads, 0 disables queueing chunks.
+	 * @param maxQueuedChunks Maximum amount of chunks waiting for a worker thread.
+	 * @param maxCachedChunks Maximum amount of generated chunks kept in memory.
+	 */
+	public ShadowChunkService(int threads, int maxQueuedChunks, int maxCachedChunks)
+	{
+		if(threads > 0)
+		{
+			// Idle workers stop after a while, instead of waking up to check for work.
+			this.executor = new ThreadPoolExecutor(
+				threads, threads, 30, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(maxQueuedChunks),
+				runnable ->
+				{
+					Thread thread = new Thread(runnable, "OTG Shadowgen Worker");
+					thread.setDaemon(true);
+					return thread;
+				}
+			);
+			this.executor.allowCoreThreadTimeOut(true);
+		} else {
+			this.executor = null;
+		}
+		this.generatedChunks = new StripedLongCache<T>(maxCachedChunks);
+	}
+
+	/**
+	 * Called on world unload, stops the worker threads. Anything still
+	 * waiting for a queued chunk is completed with null.
+	 */
+	public void shutdown()
+	{
+		if(this.executor != null)
+		{
+			this.executor.shutdownNow();
+		}
+		for(ShadowChunkTask task : this.chunksInProgress.values())
+		{
+			cancel(task);
+		}
+		this.chunksInProgress.clear();
+		this.generatedChunks.clear();
+	}
+
+	/**
+	 * Returns true if the worker threads can take more chunks,
+	 * so callers can stop looking for chunks to queue.
+	 */
+	public boolean canQueueChunks()
+	{
+		return this.executor != null && !this.executor.isShutdown() && this.executor.getQueue().remainingCapacity() > 0;
+	}
+
+	/**
+	 * Queues the chunk to be generated on a worker thread, unless it's already
+	 * generated, queued or being generated by worldgen. The future completes with
+	 * the generated chunk, or with null if the chunk wasn't generated because it
+	 * was cancelled, the generator returned null or the queue was full.
+	 */
+	public CompletableFuture<T> queueChunk(ChunkCoordinate chunkCoord, Function<ChunkCoordinate, T> generator)
+	{
+		T chunk = this.generatedChunks.get(toKey(chunkCoord));
+		if(chunk != null)
+		{
+			return CompletableFuture.completedFuture(chunk);
+		}
+		if(this.executor == null || this.chunksBeingGenerated.contains(chunkCoord))
+		{
+			return CompletableFuture.completedFuture(null);
+		}
+		ShadowChunkTask newTask = new ShadowChunkTask(chunkCoord, generator);
+		ShadowChunkTask task = this.chunksInProgress.putIfAbsent(chunkCoord, newTask);
+		if(task != null)
+		{
+			return task.future;
+		}
+		try
+		{
+			this.executor.execute(newTask);
+		}
+		catch(RejectedExecutionException e)
+		{
+			this.chunksInProgress.remove(chunkCoord, newTask);
+			cancel(newTask);
+		}
+		return newTask.future;
+	}
+
+	/**
+	 * Called by worldgen before generating a chunk. Returns the shadowgenned
+	 * chunk, waiting for a worker thread if one is generating it. Returns null
+	 * if worldgen should generate the chunk itself, setChunkGenerated should
+	 * be called once it has.
+	 */
+	public T takeChunk(ChunkCoordinate chunkCoord)
+	{
+		long key = toKey(chunkCoord);
+		T chunk = this.generatedChunks.get(key);
+		if(chunk == null)
+		{
+			ShadowChunkTask task = this.chunksInProgress.get(chunkCoord);
+			if(task != null)
+			{
+				if(task.claim())
+				{
+					// Still queued, generating it here is quicker than waiting.
+					this.chunksInProgress.remove(chunkCoord, task);
+					task.future.complete(null);
+				} else {
+					chunk = getResult(task.future);
+				}
+			}
+			if(chunk == null)
+			{
+				// The task may have finished between the cache and task lookups.
+				chunk = this.generatedChunks.get(key);
+			}
+		}
+		if(chunk != null)
+		{
+			this.generatedChunks.remove(key);
+			return chunk;
+		}
+		this.chunksBeingGenerated.add(chunkCoord);
+		return null;
+	}
+
+	/**
+	 * Called by worldgen after generating a chunk itself, cancels any
+	 * shadowgen that was queued for the chunk in the meantime.
+	 */
+	public void setChunkGenerated(ChunkCoordinate chunkCoord)
+	{
+		this.chunksBeingGenerated.remove(chunkCoord);
+		ShadowChunkTask task = this.chunksInProgress.remove(chunkCoord);
+		if(task != null)
+		{
+			cancel(task);
+		}
+		// Cancel before clearing the cache, see ShadowChunkTask.generate.
+		this.generatedChunks.remove(toKey(chunkCoord));
+	}
+
+	/**
+	 * Returns the shadowgenned chunk for decoration-time checks (BO4's, smoothing
+	 * areas), waiting for a worker thread if one is generating it. If the chunk
+	 * isn't generated or queued, or the queued generation returns null, the chunk
+	 * is generated on the calling thread and cached for worldgen. Only returns
+	 * null if the generator does.
+	 */
+	public T getChunk(ChunkCoordinate chunkCoord, Function<ChunkCoordinate, T> generator)
+	{
+		long key = toKey(chunkCoord);
+		T chunk = this.generatedChunks.get(key);
+		if(chunk != null)
+		{
+			return chunk;
+		}
+
+		ShadowChunkTask newTask = new ShadowChunkTask(chunkCoord, generator);
+		ShadowChunkTask task = this.chunksInProgress.putIfAbsent(chunkCoord, newTask);
+		if(task == null)
+		{
+			// Generate it here, other threads asking for the chunk wait for this task.
+			task = newTask;
+			task.claim();
+			chunk = task.generate();
+		}
+		else if(task.claim())
+		{
+			// Still queued, generate it here instead of waiting for a worker thread.
+			chunk = task.generate();
+		} else {
+			chunk = getResult(task.future);
+		}
+		if(chunk == null)
+		{
+			// The queued generator skipped the chunk, or it was cancelled.
+			chunk = generator.apply(chunkCoord);
+			if(chunk != null)
+			{
+				task.cacheChunk(chunk);
+			}
+		}
+		return chunk;
+	}
+
+	private void cancel(ShadowChunkTask task)
+	{
+		task.cancelled = true;
+		if(task.claim())
+		{
+			// Never started, complete it so nothing waits for it.
+			task.future.complete(null);
+		}
+	}
+
+	private T getResult(CompletableFuture<T> future)
+	{
+		try
+		{
+			return future.join();
+		}
+		catch(CompletionException | CancellationException e)
+		{
+			// The caller generates the chunk itself, so any exception is thrown again there.
+			// Exceptions on worker threads are also reported by the thread's exception handler.
+			return null;
+		}
+	}
+
+	private static long toKey(ChunkCoordinate chunkCoord)
+	{
+		return MathHelper.toLong(chunkCoord.getChunkX(), chunkCoord.getChunkZ());
+	}
+
+	private class ShadowChunkTask implements Runnable
+	{
+		private final ChunkCoordinate chunkCoord;
+		private final Function<ChunkCoordinate, T> generator;
+		private final CompletableFuture<T> future = new CompletableFuture<T>();
+		// Set by whichever thread generates or cancels the chunk first.
+		private final AtomicBoolean claimed = new AtomicBoolean();
+		private volatile boolean cancelled = false;
+
+		private ShadowChunkTask(ChunkCoordinate chunkCoord, Function<ChunkCoordinate, T> generator)
+		{
+			this.chunkCoord = chunkCoord;
+			this.generator = generator;
+		}
+
+		private boolean claim()
+		{
+			return this.claimed.compareAndSet(false, true);
+		}
+
+		@Override
+		public void run()
+		{
+			if(claim())
+			{
+				generate();
+			}
+		}
+
+		/**
+		 * Generates the chunk and completes the future, only call after claiming
+		 * the task. Returns the chunk even if the task was cancelled meanwhile.
+		 */
+		private T generate()
+		{
+			T chunk = null;
+			try
+			{
+				if(!this.cancelled)
+				{
+					chunk = this.generator.apply(this.chunkCoord);
+					// Cache the chunk before removing the task, so it can always be found.
+					if(chunk != null)
+					{
+						cacheChunk(chunk);
+					}
+				}
+			}
+			catch(Throwable e)
+			{
+				ShadowChunkService.this.chunksInProgress.remove(this.chunkCoord, this);
+				this.future.completeExceptionally(e);
+				throw e;
+			}
+			ShadowChunkService.this.chunksInProgress.remove(this.chunkCoord, this);
+			// Threads waiting for a cancelled task don't use its chunk, but
+			// the thread that generated it can, see getChunk.
+			this.future.complete(this.cancelled ? null : chunk);
+			return chunk;
+		}
+
+		/**
+		 * Caches the chunk for worldgen, unless the task has been cancelled
+		 * because worldgen has generated the chunk itself.
+		 */
+		private void cacheChunk(T chunk)
+		{
+			if(!this.cancelled)
+			{
+				long key = toKey(this.chunkCoord);
+				ShadowChunkService.this.generatedChunks.put(key, chunk);
+				// setChunkGenerated sets cancelled before clearing the cache, so if
+				// it ran after the check above, either it or this removes the chunk.
+				if(this.cancelled)
+				{
+					ShadowChunkService.this.generatedChunks.remove(key);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.pg85.otg.gen.map;
+
+import com.pg85.otg.interfaces.IBiomeConfig;
+import com.pg85.otg.interfaces.ICachedBiomeProvider;
+
+/**
+ * Renders the biome colour of each biome in noise coordinates, so 1 pixel
+ * for every 4x4 blocks. Biomes are fetched for a whole tile at once.
+ */
+public class BiomeMapRenderer implements MapRenderer.TileRenderer
+{
+	private final ICachedBiomeProvider biomeProvider;
+
+	public BiomeMapRenderer(ICachedBiomeProvider biomeProvider)
+	{
+		this.biomeProvider = biomeProvider;
+	}
+
+	@Override
+	public void render(int[] pixels, int startX, int startZ, int width, int depth)
+	{
+		// Regions are square and indexed as [x * size + z].
+		int size = Math.max(width, depth);
+		IBiomeConfig[] biomeConfigs = this.biomeProvider.getNoiseBiomeConfigsForRegion(startX, startZ, size);
+		for(int x = 0; x < width; x++)
+		{
+			for(int z = 0; z < depth; z++)
+			{
+				pixels[z * width + x] = biomeConfigs[x * size + z].getBiomeColor();
+			}
+		}
+	}
+}
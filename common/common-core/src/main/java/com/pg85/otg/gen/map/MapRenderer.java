@@ -0,0 +1,106 @@
+package com.pg85.otg.gen.map;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Renders biome or terrain maps to a png file, used by /otg map.
+ *
+ * The image is rendered in strips of TILE_SIZE rows, each strip is split
+ * into tiles that are rendered in parallel, each into its own pixel array.
+ * Rows are written to the png as soon as their strip is done, while the
+ * next strip is rendered, so only two strips are in memory at a time.
+ */
+public class MapRenderer
+{
+	public static final int TILE_SIZE = 256;
+
+	private final int threads;
+
+	/**
+	 * @param threads Amount of threads used to render tiles.
+	 */
+	public MapRenderer(int threads)
+	{
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Renders a width * depth map starting at startX/startZ in the
+	 * renderer's coordinates, and writes it to file as a png.
+	 */
+	public void render(TileRenderer renderer, int startX, int startZ, int width, int depth, File file, ProgressListener progressListener) throws IOException
+	{
+		int strips = (depth + TILE_SIZE - 1) / TILE_SIZE;
+		ForkJoinPool pool = new ForkJoinPool(this.threads);
+		try(PngWriter writer = new PngWriter(file, width, depth))
+		{
+			ForkJoinTask<int[]> nextStrip = strips > 0 ? renderStrip(pool, renderer, startX, startZ, width, Math.min(TILE_SIZE, depth)) : null;
+			for(int strip = 0; strip < strips; strip++)
+			{
+				int[] pixels = nextStrip.join();
+				int stripDepth = Math.min(TILE_SIZE, depth - strip * TILE_SIZE);
+				if(strip + 1 < strips)
+				{
+					int nextStripStart = (strip + 1) * TILE_SIZE;
+					nextStrip = renderStrip(pool, renderer, startX, startZ + nextStripStart, width, Math.min(TILE_SIZE, depth - nextStripStart));
+				}
+				for(int z = 0; z < stripDepth; z++)
+				{
+					writer.writeRow(pixels, z * width);
+				}
+				if(progressListener != null)
+				{
+					progressListener.onProgress((int)((strip + 1) * 100L / strips));
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static ForkJoinTask<int[]> renderStrip(ForkJoinPool pool, TileRenderer renderer, int startX, int startZ, int width, int depth)
+	{
+		int tiles = (width + TILE_SIZE - 1) / TILE_SIZE;
+		return pool.submit(() ->
+		{
+			int[] strip = new int[width * depth];
+			IntStream.range(0, tiles).parallel().forEach(tile ->
+			{
+				int tileStart = tile * TILE_SIZE;
+				int tileWidth = Math.min(TILE_SIZE, width - tileStart);
+				int[] pixels = new int[tileWidth * depth];
+				renderer.render(pixels, startX + tileStart, startZ, tileWidth, depth);
+				// Tiles are copied into separate parts of the strip, so no locking is needed.
+				for(int z = 0; z < depth; z++)
+				{
+					System.arraycopy(pixels, z * tileWidth, strip, z * width + tileStart, tileWidth);
+				}
+			});
+			return strip;
+		});
+	}
+
+	@FunctionalInterface
+	public interface TileRenderer
+	{
+		/**
+		 * Fills pixels with rgb colours for a width * depth area starting at
+		 * startX/startZ, indexed as [z * width + x]. Called from multiple
+		 * threads at the same time for different tiles.
+		 */
+		void render(int[] pixels, int startX, int startZ, int width, int depth);
+	}
+
+	@FunctionalInterface
+	public interface ProgressListener
+	{
+		/**
+		 * Called on the thread that called render, after each strip is written.
+		 */
+		void onProgress(int percentDone);
+	}
+}
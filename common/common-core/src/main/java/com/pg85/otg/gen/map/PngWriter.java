@@ -0,0 +1,166 @@
+package com.pg85.otg.gen.map;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an 8-bit RGB png a row at a time, so the whole image never
+ * has to be in memory. ImageIO can only write complete images.
+ */
+class PngWriter implements Closeable
+{
+	private static final byte[] SIGNATURE = { (byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+	private static final int MAX_CHUNK_SIZE = 64 * 1024;
+	// Each byte is stored as the difference with the same byte of the pixel to
+	// its left, which compresses the long runs of the same colour in maps well.
+	private static final byte FILTER_SUB = 1;
+
+	private final DataOutputStream out;
+	private final Deflater deflater;
+	private final DeflaterOutputStream imageData;
+	private final int width;
+	private final int height;
+	private final byte[] row;
+	private int rowsWritten = 0;
+
+	PngWriter(File file, int width, int height) throws IOException
+	{
+		this.width = width;
+		this.height = height;
+		this.row = new byte[1 + width * 3];
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), MAX_CHUNK_SIZE));
+		this.out.write(SIGNATURE);
+
+		byte[] header = new byte[13];
+		writeInt(header, 0, width);
+		writeInt(header, 4, height);
+		header[8] = 8; // Bit depth
+		header[9] = 2; // Colour type RGB
+		// Compression, filter and interlace methods are 0
+		writeChunk("IHDR", header, header.length);
+
+		this.deflater = new Deflater();
+		this.imageData = new DeflaterOutputStream(new ImageDataOutputStream(), this.deflater, MAX_CHUNK_SIZE);
+	}
+
+	/**
+	 * Writes the next row of the image, width rgb pixels starting at offset.
+	 */
+	void writeRow(int[] pixels, int offset) throws IOException
+	{
+		if(this.rowsWritten == this.height)
+		{
+			throw new IllegalStateException("All rows have already been written.");
+		}
+		this.row[0] = FILTER_SUB;
+		int previous = 0;
+		int rgb;
+		for(int x = 0; x < this.width; x++)
+		{
+			rgb = pixels[offset + x];
+			this.row[1 + x * 3] = (byte)((rgb >> 16) - (previous >> 16));
+			this.row[2 + x * 3] = (byte)((rgb >> 8) - (previous >> 8));
+			this.row[3 + x * 3] = (byte)(rgb - previous);
+			previous = rgb;
+		}
+		this.imageData.write(this.row);
+		this.rowsWritten++;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			// Only finish the file when complete, an incomplete png is left
+			// without an end chunk so it isn't mistaken for a valid image.
+			if(this.rowsWritten == this.height)
+			{
+				this.imageData.close();
+				writeChunk("IEND", new byte[0], 0);
+			}
+		} finally {
+			this.deflater.end();
+			this.out.close();
+		}
+	}
+
+	private void writeChunk(String type, byte[] data, int length) throws IOException
+	{
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+		this.out.writeInt(length);
+		this.out.write(typeBytes);
+		this.out.write(data, 0, length);
+		this.out.writeInt((int)crc.getValue());
+	}
+
+	private static void writeInt(byte[] buffer, int offset, int value)
+	{
+		buffer[offset] = (byte)(value >> 24);
+		buffer[offset + 1] = (byte)(value >> 16);
+		buffer[offset + 2] = (byte)(value >> 8);
+		buffer[offset + 3] = (byte)value;
+	}
+
+	// Splits the compressed image data into IDAT chunks.
+	private class ImageDataOutputStream extends OutputStream
+	{
+		private final byte[] buffer = new byte[MAX_CHUNK_SIZE];
+		private int size = 0;
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			if(this.size == this.buffer.length)
+			{
+				flush();
+			}
+			this.buffer[this.size++] = (byte)b;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException
+		{
+			while(length > 0)
+			{
+				if(this.size == this.buffer.length)
+				{
+					flush();
+				}
+				int toCopy = Math.min(length, this.buffer.length - this.size);
+				System.arraycopy(bytes, offset, this.buffer, this.size, toCopy);
+				this.size += toCopy;
+				offset += toCopy;
+				length -= toCopy;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			if(this.size > 0)
+			{
+				writeChunk("IDAT", this.buffer, this.size);
+				this.size = 0;
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			flush();
+		}
+	}
+}
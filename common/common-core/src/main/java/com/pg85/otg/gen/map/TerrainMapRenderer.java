@@ -0,0 +1,119 @@
+package com.pg85.otg.gen.map;
+
+import com.pg85.otg.constants.Constants;
+import com.pg85.otg.interfaces.IBiomeConfig;
+import com.pg85.otg.interfaces.ICachedBiomeProvider;
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.materials.LocalMaterialData;
+
+/**
+ * Renders the colour of the highest block of each column, shaded to show
+ * the altitude of the terrain. Only the heightmap of each chunk is
+ * calculated, the top block is the biome's surface or water block, so
+ * surface and ground control, carvers and objects aren't shown.
+ *
+ * Implemented by the platform-specific layer, which provides heightmaps
+ * and the colours of blocks.
+ */
+public abstract class TerrainMapRenderer implements MapRenderer.TileRenderer
+{
+	// Color depth relative to 0-255
+	private static final int MIN_HEIGHT = 0;
+	private static final int MAX_HEIGHT = 255;
+
+	private final ICachedBiomeProvider biomeProvider;
+
+	public TerrainMapRenderer(ICachedBiomeProvider biomeProvider)
+	{
+		this.biomeProvider = biomeProvider;
+	}
+
+	/**
+	 * Fills heights and waterLevels for a chunk, indexed as [x * 16 + z],
+	 * see OTGChunkGenerator.getHeightmap. Called from multiple threads.
+	 */
+	protected abstract void getHeightmap(ChunkCoordinate chunkCoordinate, int[] heights, int[] waterLevels);
+
+	protected abstract int getColor(LocalMaterialData material);
+
+	@Override
+	public void render(int[] pixels, int startX, int startZ, int width, int depth)
+	{
+		int[] heights = new int[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+		int[] waterLevels = new int[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+		int startChunkX = startX >> 4;
+		int startChunkZ = startZ >> 4;
+		int endChunkX = (startX + width - 1) >> 4;
+		int endChunkZ = (startZ + depth - 1) >> 4;
+		for(int chunkX = startChunkX; chunkX <= endChunkX; chunkX++)
+		{
+			for(int chunkZ = startChunkZ; chunkZ <= endChunkZ; chunkZ++)
+			{
+				ChunkCoordinate chunkCoord = ChunkCoordinate.fromChunkCoords(chunkX, chunkZ);
+				getHeightmap(chunkCoord, heights, waterLevels);
+				IBiomeConfig[] biomeConfigs = this.biomeProvider.getBiomeConfigsForChunk(chunkCoord);
+				for(int internalX = 0; internalX < Constants.CHUNK_SIZE; internalX++)
+				{
+					int x = chunkX * Constants.CHUNK_SIZE + internalX - startX;
+					if(x < 0 || x >= width)
+					{
+						continue;
+					}
+					for(int internalZ = 0; internalZ < Constants.CHUNK_SIZE; internalZ++)
+					{
+						int z = chunkZ * Constants.CHUNK_SIZE + internalZ - startZ;
+						if(z >= 0 && z < depth)
+						{
+							int index = internalX * Constants.CHUNK_SIZE + internalZ;
+							pixels[z * width + x] = getColumnColor(biomeConfigs[index], heights[index], waterLevels[index]);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private int getColumnColor(IBiomeConfig biomeConfig, int height, int waterLevel)
+	{
+		// Water fills the air between the terrain and the water level, same as populateNoise.
+		int waterTop = waterLevel - 1;
+		LocalMaterialData material;
+		int y;
+		if(waterTop > height && waterTop > biomeConfig.getWaterLevelMin())
+		{
+			y = waterTop;
+			material = biomeConfig.getWaterBlockReplaced(y);
+		}
+		else if(height >= 0)
+		{
+			y = height;
+			material = biomeConfig.getSurfaceBlockReplaced(y);
+		} else {
+			// Air has no colour
+			return 0;
+		}
+		if(material == null || material.isEmptyOrAir())
+		{
+			return 0;
+		}
+		float relativeDistance = (float)(y - MIN_HEIGHT) / (float)(MAX_HEIGHT - MIN_HEIGHT);
+		int shadePercentage = (int)Math.floor(relativeDistance * 2 * 100);
+		return shadeColor(getColor(material), shadePercentage);
+	}
+
+	private static int shadeColor(int rgbColor, int percent)
+	{
+		int red = (rgbColor >> 16) & 0xFF;
+		int green = (rgbColor >> 8) & 0xFF;
+		int blue = rgbColor & 0xFF;
+
+		red = red * percent / 100;
+		red = red > 255 ? 255 : red;
+		green = green * percent / 100;
+		green = green > 255 ? 255 : green;
+		blue = blue * percent / 100;
+		blue = blue > 255 ? 255 : blue;
+
+		return 65536 * red + 256 * green + blue;
+	}
+}
@@ -5,6 +5,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.pg85.otg.config.biome.BiomeConfig;
@@ -98,9 +100,19 @@ public abstract class LocalPresetLoader
 	}
 		
 	public void loadPresetsFromDisk(IConfigFunctionProvider biomeResourcesManager, ILogger logger)
+	{
+		loadPresetsFromDisk(biomeResourcesManager, logger, null);
+	}
+
+	/**
+	 * Loads all presets, using pool to load presets and their biome configs
+	 * in parallel. If pool is null, everything is loaded on the calling thread.
+	 */
+	public void loadPresetsFromDisk(IConfigFunctionProvider biomeResourcesManager, ILogger logger, ForkJoinPool pool)
 	{
 		if(this.presetsDir.exists() && this.presetsDir.isDirectory())
 		{
+			List<File> presetDirs = new ArrayList<File>();
 			for(File presetDir : this.presetsDir.listFiles())
 			{
 				if(presetDir.isDirectory())
@@ -109,18 +121,36 @@ public abstract class LocalPresetLoader
 					{
 						if(file.getName().equals(Constants.WORLD_CONFIG_FILE))
 						{
-							Preset preset = loadPreset(presetDir.toPath(), biomeResourcesManager, logger);
-							this.presets.put(preset.getFolderName(), preset);
-							this.aliasMap.put(preset.getShortPresetName(), preset.getFolderName());
+							presetDirs.add(presetDir);
 							break;
 						}
 					}
 				}
 			}
+
+			List<Preset> presets;
+			if(pool == null)
+			{
+				presets = presetDirs.stream().map(presetDir -> loadPreset(presetDir.toPath(), biomeResourcesManager, logger, null)).collect(Collectors.toList());
+			} else {
+				presets = pool.submit(() -> presetDirs.parallelStream().map(presetDir -> loadPreset(presetDir.toPath(), biomeResourcesManager, logger, pool)).collect(Collectors.toList())).join();
+			}
+
+			// Register in directory order, so the default preset is the same as when loading on a single thread.
+			for(Preset preset : presets)
+			{
+				this.presets.put(preset.getFolderName(), preset);
+				this.aliasMap.put(preset.getShortPresetName(), preset.getFolderName());
+			}
 		}
 	}
 	
 	protected Preset loadPreset(Path presetDir, IConfigFunctionProvider biomeResourcesManager, ILogger logger)
+	{
+		return loadPreset(presetDir, biomeResourcesManager, logger, null);
+	}
+
+	private Preset loadPreset(Path presetDir, IConfigFunctionProvider biomeResourcesManager, ILogger logger, ForkJoinPool pool)
 	{
 		File worldConfigFile = new File(presetDir.toString(), Constants.WORLD_CONFIG_FILE);
 		File biomesDirectory = new File(presetDir.toString(), Constants.WORLD_BIOMES_FOLDER);
@@ -135,7 +165,7 @@ public abstract class LocalPresetLoader
 		FileSettingsWriter.writeToFile(worldConfig.getSettingsAsMap(), worldConfigFile, worldConfig.getSettingsMode(), logger);
 
 		// use shortPresetName to register the biomes, instead of presetName
-		ArrayList<BiomeConfig> biomeConfigs = loadBiomeConfigs(worldConfig.getShortPresetName(), worldConfig.getMajorVersion(), presetDir, biomesDirectory.toPath(), worldConfig, biomeResourcesManager, logger, getMaterialReader(presetFolderName));
+		ArrayList<BiomeConfig> biomeConfigs = loadBiomeConfigs(worldConfig.getShortPresetName(), worldConfig.getMajorVersion(), presetDir, biomesDirectory.toPath(), worldConfig, biomeResourcesManager, logger, getMaterialReader(presetFolderName), pool);
 
 		return new Preset(presetDir, worldConfig.getShortPresetName(), worldConfig, biomeConfigs);
 	}
@@ -160,7 +190,7 @@ public abstract class LocalPresetLoader
 		return biomes;
 	}
 
-	private ArrayList<BiomeConfig> loadBiomeConfigs(String presetShortName, int presetMajorVersion, Path presetDir, Path presetBiomesDir, IWorldConfig worldConfig, IConfigFunctionProvider biomeResourcesManager, ILogger logger, IMaterialReader materialReader)
+	private ArrayList<BiomeConfig> loadBiomeConfigs(String presetShortName, int presetMajorVersion, Path presetDir, Path presetBiomesDir, IWorldConfig worldConfig, IConfigFunctionProvider biomeResourcesManager, ILogger logger, IMaterialReader materialReader, ForkJoinPool pool)
 	{
 		// Establish folders
 		List<Path> biomeDirs = new ArrayList<Path>(2);
@@ -171,7 +201,7 @@ public abstract class LocalPresetLoader
 		Map<String, BiomeConfigStub> biomeConfigStubs = biomeConfigFinder.findBiomes(worldConfig.getWorldBiomes(), worldConfig.getWorldHeightScale(), biomeDirs, logger, materialReader);
 
 		// Read all settings
-		ArrayList<BiomeConfig> biomeConfigs = readAndWriteSettings(worldConfig, biomeConfigStubs, presetDir, presetShortName, presetMajorVersion, true, biomeResourcesManager, logger, materialReader);
+		ArrayList<BiomeConfig> biomeConfigs = readAndWriteSettings(worldConfig, biomeConfigStubs, presetDir, presetShortName, presetMajorVersion, true, biomeResourcesManager, logger, materialReader, pool);
 
 		// Update settings dynamically, these changes don't get written back to the file
 		processSettings(worldConfig, biomeConfigs);
@@ -199,18 +229,19 @@ public abstract class LocalPresetLoader
 		return biomeConfigs;
 	}
 
-	private ArrayList<BiomeConfig> readAndWriteSettings(IWorldConfig worldConfig, Map<String, BiomeConfigStub> biomeConfigStubs, Path presetDir, String presetShortName, int presetMajorVersion, boolean write, IConfigFunctionProvider biomeResourcesManager, ILogger logger, IMaterialReader materialReader)
+	private ArrayList<BiomeConfig> readAndWriteSettings(IWorldConfig worldConfig, Map<String, BiomeConfigStub> biomeConfigStubs, Path presetDir, String presetShortName, int presetMajorVersion, boolean write, IConfigFunctionProvider biomeResourcesManager, ILogger logger, IMaterialReader materialReader, ForkJoinPool pool)
 	{
-		ArrayList<BiomeConfig> biomeConfigs = new ArrayList<BiomeConfig>();
-
+		// Inheritance, stubs inherit from each other so this is done for all stubs first.
 		for (BiomeConfigStub biomeConfigStub : biomeConfigStubs.values())
 		{
-			// Inheritance
 			processMobInheritance(biomeConfigStubs, biomeConfigStub, 0, logger);
+		}
 
+		// Each biome config only reads its own stub, so they can be read and written in parallel.
+		Function<BiomeConfigStub, BiomeConfig> readAndWrite = biomeConfigStub ->
+		{
 			// Settings reading
 			BiomeConfig biomeConfig = new BiomeConfig(biomeConfigStub.getBiomeName(), biomeConfigStub, presetDir, biomeConfigStub.getSettings(), worldConfig, presetShortName, presetMajorVersion, biomeResourcesManager, logger, materialReader);
-			biomeConfigs.add(biomeConfig);
 
 			// Settings writing
 			if(write)
@@ -218,9 +249,14 @@ public abstract class LocalPresetLoader
 				Path writeFile = biomeConfigStub.getPath();
 				FileSettingsWriter.writeToFile(biomeConfig.getSettingsAsMap(), writeFile.toFile(), worldConfig.getSettingsMode(), logger);
 			}
-		}
+			return biomeConfig;
+		};
 
-		return biomeConfigs;
+		if(pool == null)
+		{
+			return biomeConfigStubs.values().stream().map(readAndWrite).collect(Collectors.toCollection(ArrayList::new));
+		}
+		return pool.submit(() -> biomeConfigStubs.values().parallelStream().map(readAndWrite).collect(Collectors.toCollection(ArrayList::new))).join();
 	}
 
 	private void processSettings(IWorldConfig worldConfig, ArrayList<BiomeConfig> biomeConfigs)
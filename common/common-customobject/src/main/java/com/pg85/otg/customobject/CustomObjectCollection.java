@@ -12,130 +12,137 @@ import com.pg85.otg.util.minecraft.TreeType;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * Represents a collection of custom objects. Those objects can be loaded from a
  * directory, or can be loaded manually and then added to this collection.
  *
+ * Objects that have already been loaded, or names that could not be found,
+ * are looked up without locking. Other lookups are single-flight per name:
+ * one thread indexes the object folders and loads the object, other threads
+ * looking up the same name wait for it. Threads looking up different names
+ * don't wait for each other, except while a folder is being indexed.
  */
 public class CustomObjectCollection
 {
-	private Object indexingFilesLock = new Object();
+	// Guards indexing and the objectsGlobalObjects/objectsPerPreset lists.
+	private final Object indexingFilesLock = new Object();
 	
-	private ArrayList<CustomObject> objectsGlobalObjects = new ArrayList<CustomObject>();
-	private HashMap<String, CustomObject> objectsByNameGlobalObjects = new HashMap<String, CustomObject>();
-	private ArrayList<String> objectsNotFoundGlobalObjects = new ArrayList<String>();
+	private final ArrayList<CustomObject> objectsGlobalObjects = new ArrayList<CustomObject>();
+	private final Map<String, CustomObject> objectsByNameGlobalObjects = new ConcurrentHashMap<String, CustomObject>();
+	private final Set<String> objectsNotFoundGlobalObjects = ConcurrentHashMap.newKeySet();
 
-	private HashMap<String, ArrayList<CustomObject>> objectsPerPreset = new HashMap<String, ArrayList<CustomObject>>();
-	private HashMap<String, HashMap<String, CustomObject>> objectsByNamePerPreset = new HashMap<String, HashMap<String, CustomObject>>();
-	private HashMap<String, ArrayList<String>> objectsNotFoundPerPreset = new HashMap<String, ArrayList<String>>();
+	private final HashMap<String, ArrayList<CustomObject>> objectsPerPreset = new HashMap<String, ArrayList<CustomObject>>();
+	private final Map<String, Map<String, CustomObject>> objectsByNamePerPreset = new ConcurrentHashMap<String, Map<String, CustomObject>>();
+	private final Map<String, Set<String>> objectsNotFoundPerPreset = new ConcurrentHashMap<String, Set<String>>();
 
-	private HashMap<String, File> customObjectFilesGlobalObjects = null;
-	private HashMap<String, File> globalTemplates = null;
-	private HashMap<String, HashMap<String, File>> customObjectFilesPerPreset = new HashMap<String, HashMap<String, File>>();
-	private HashMap<String, HashMap<String, File>> boTemplateFilesPerPreset = new HashMap<>();
+	// Lookups by getObjectByName that are loading an object, per preset and name.
+	private final Map<String, ObjectLookup> objectLookups = new ConcurrentHashMap<String, ObjectLookup>();
+
+	private volatile Map<String, File> customObjectFilesGlobalObjects = null;
+	private volatile Map<String, File> globalTemplates = null;
+	private final Map<String, Map<String, File>> customObjectFilesPerPreset = new ConcurrentHashMap<String, Map<String, File>>();
+	private final Map<String, Map<String, File>> boTemplateFilesPerPreset = new ConcurrentHashMap<String, Map<String, File>>();
 
 	public CustomObject loadObject(File file, String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
-		synchronized(this.indexingFilesLock)
+		CustomObject object = null;
+		// Try to load single file
+		if (file.isFile())
 		{
-			CustomObject object = null;
-			// Try to load single file
-			if (file.isFile())
+			// Get name and extension
+			String fileName = file.getName();
+			int index = fileName.lastIndexOf('.');
+			// If we come across a directory descend into it without enabling
+			// the objects
+			if (index != -1)
 			{
-				// Get name and extension
-				String fileName = file.getName();
-				int index = fileName.lastIndexOf('.');
-				// If we come across a directory descend into it without enabling
-				// the objects
-				if (index != -1)
+				String objectType = fileName.substring(index + 1, fileName.length());
+				String objectName = fileName.substring(0, index);
+
+				// Get the object
+				CustomObjectLoader loader = customObjectManager.getObjectLoaders().get(objectType.toLowerCase());
+				if (loader != null)
 				{
-					String objectType = fileName.substring(index + 1, fileName.length());
-					String objectName = fileName.substring(0, index);
-	
-					// Get the object
-					CustomObjectLoader loader = customObjectManager.getObjectLoaders().get(objectType.toLowerCase());
-					if (loader != null)
+					object = loader.loadFromFile(objectName, file, logger);
+					addLoadedObject(presetFolderName, object);
+
+					if (!object.onEnable(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker) || !object.loadChecks(modLoadedChecker))
 					{
-						object = loader.loadFromFile(objectName, file, logger);
-	
-						if (presetFolderName != null)
+						// Remove the object
+						removeLoadedObject(presetFolderName, object);
+						
+						// Try bo4
+						loader = customObjectManager.getObjectLoaders().get("bo4");
+						if (loader != null)
 						{
-							ArrayList<CustomObject> presetObjects = this.objectsPerPreset.get(presetFolderName);
-							if (presetObjects == null)
-							{
-								presetObjects = new ArrayList<CustomObject>();
-								this.objectsPerPreset.put(presetFolderName, presetObjects);
-							}
-							presetObjects.add(object);
-						} else {
-							this.objectsGlobalObjects.add(object);
-						}
-	
-						if (!object.onEnable(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker) || !object.loadChecks(modLoadedChecker))
-						{
-							// Remove the object
-							removeLoadedObject(presetFolderName, object);
-							
-							// Try bo4
-							loader = customObjectManager.getObjectLoaders().get("bo4");
-							if (loader != null)
-							{
-								object = loader.loadFromFile(objectName, file, logger);
-								if (presetFolderName != null)
-								{
-									ArrayList<CustomObject> presetObjects = this.objectsPerPreset.get(presetFolderName);
-									if (presetObjects == null)
-									{
-										presetObjects = new ArrayList<CustomObject>();
-										this.objectsPerPreset.put(presetFolderName, presetObjects);
-									}
-									presetObjects.add(object);
-								} else {
-									this.objectsGlobalObjects.add(object);
-								}
+							object = loader.loadFromFile(objectName, file, logger);
+							addLoadedObject(presetFolderName, object);
 
-								if (!object.onEnable(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker) || !object.loadChecks(modLoadedChecker))
-								{
-									// Remove the object
-									removeLoadedObject(presetFolderName, object);
-									return null;
-								}
+							if (!object.onEnable(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker) || !object.loadChecks(modLoadedChecker))
+							{
+								// Remove the object
+								removeLoadedObject(presetFolderName, object);
+								return null;
 							}
 						}
 					}
 				}
-			} else {
-				logger.log(LogLevel.FATAL, LogCategory.CUSTOM_OBJECTS, "Given path does not exist: " + file.getAbsolutePath());
-				throw new RuntimeException("Given path does not exist: " + file.getAbsolutePath());
 			}
-			return object;
+		} else {
+			logger.log(LogLevel.FATAL, LogCategory.CUSTOM_OBJECTS, "Given path does not exist: " + file.getAbsolutePath());
+			throw new RuntimeException("Given path does not exist: " + file.getAbsolutePath());
 		}
+		return object;
 	}
 
-	private void removeLoadedObject(String presetFolderName, CustomObject object)
+	private void addLoadedObject(String presetFolderName, CustomObject object)
 	{
-		if (presetFolderName != null)
+		synchronized(this.indexingFilesLock)
 		{
-			HashMap<String, CustomObject> presetObjectsByName = this.objectsByNamePerPreset.get(presetFolderName);
-			if(presetObjectsByName != null)
+			if (presetFolderName != null)
 			{
-				presetObjectsByName.remove(object.getName());
-				if (presetObjectsByName.size() == 0)
+				ArrayList<CustomObject> presetObjects = this.objectsPerPreset.get(presetFolderName);
+				if (presetObjects == null)
 				{
-					this.objectsByNamePerPreset.remove(presetFolderName, presetObjectsByName);
+					presetObjects = new ArrayList<CustomObject>();
+					this.objectsPerPreset.put(presetFolderName, presetObjects);
 				}
+				presetObjects.add(object);
+			} else {
+				this.objectsGlobalObjects.add(object);
 			}
-			
-			ArrayList<CustomObject> worldObjects = this.objectsPerPreset.get(presetFolderName);
-			worldObjects.remove(object);
-			if (worldObjects.size() == 0)
+		}
+	}
+
+	private void removeLoadedObject(String presetFolderName, CustomObject object)
+	{
+		synchronized(this.indexingFilesLock)
+		{
+			if (presetFolderName != null)
 			{
-				this.objectsPerPreset.remove(presetFolderName, worldObjects);
+				Map<String, CustomObject> presetObjectsByName = this.objectsByNamePerPreset.get(presetFolderName);
+				if(presetObjectsByName != null)
+				{
+					presetObjectsByName.remove(object.getName());
+					if (presetObjectsByName.size() == 0)
+					{
+						this.objectsByNamePerPreset.remove(presetFolderName, presetObjectsByName);
+					}
+				}
+				
+				ArrayList<CustomObject> worldObjects = this.objectsPerPreset.get(presetFolderName);
+				worldObjects.remove(object);
+				if (worldObjects.size() == 0)
+				{
+					this.objectsPerPreset.remove(presetFolderName, worldObjects);
+				}
+			} else {
+				this.objectsGlobalObjects.remove(object);
 			}
-		} else {
-			this.objectsGlobalObjects.remove(object);
 		}
 	}
 
@@ -162,9 +169,10 @@ public class CustomObjectCollection
 	{
 		synchronized(this.indexingFilesLock)
 		{
-			if (this.customObjectFilesGlobalObjects != null && !this.customObjectFilesGlobalObjects.containsKey(name.toLowerCase()))
+			Map<String, File> globalObjectFiles = this.customObjectFilesGlobalObjects;
+			if (globalObjectFiles != null && !globalObjectFiles.containsKey(name.toLowerCase()))
 			{
-				this.customObjectFilesGlobalObjects.put(name.toLowerCase(), file);
+				globalObjectFiles.put(name.toLowerCase(), file);
 			}
 		}
 	}
@@ -204,7 +212,7 @@ public class CustomObjectCollection
 
 	public ArrayList<String> getAllBONamesForPreset(String presetFolderName, ILogger logger, Path otgRootPath)
 	{
-		HashMap<String, File> files = this.customObjectFilesPerPreset.get(presetFolderName);
+		Map<String, File> files = this.customObjectFilesPerPreset.get(presetFolderName);
 		if (files == null)
 		{
 			indexPresetObjectsFolder(presetFolderName, logger, otgRootPath);
@@ -215,7 +223,7 @@ public class CustomObjectCollection
 
 	public ArrayList<String> getTemplatesForPreset(String presetFolderName, ILogger logger, Path otgRootPath)
 	{
-		HashMap<String, File> files = this.boTemplateFilesPerPreset.get(presetFolderName);
+		Map<String, File> files = this.boTemplateFilesPerPreset.get(presetFolderName);
 		if (files == null)
 		{
 			indexPresetObjectsFolder(presetFolderName, logger, otgRootPath);
@@ -226,7 +234,7 @@ public class CustomObjectCollection
 
 	public File getTemplateFileForPreset(String presetFolderName, String templateName, ILogger logger, Path otgRootPath)
 	{
-		HashMap<String, File> files = this.boTemplateFilesPerPreset.get(presetFolderName);
+		Map<String, File> files = this.boTemplateFilesPerPreset.get(presetFolderName);
 		if (files == null)
 		{
 			indexPresetObjectsFolder(presetFolderName, logger, otgRootPath);
@@ -241,9 +249,10 @@ public class CustomObjectCollection
 		{
 			indexGlobalObjectsFolder(logger, otgRootPath);
 		}
-		return this.customObjectFilesGlobalObjects == null
+		Map<String, File> files = this.customObjectFilesGlobalObjects;
+		return files == null
 				? null
-				: new ArrayList<>(this.customObjectFilesGlobalObjects.keySet());
+				: new ArrayList<>(files.keySet());
 	}
 
 	public ArrayList<String> getGlobalTemplates(ILogger logger, Path otgRootPath)
@@ -252,31 +261,103 @@ public class CustomObjectCollection
 		{
 			indexGlobalObjectsFolder(logger, otgRootPath);
 		}
-		return this.globalTemplates == null
+		Map<String, File> templates = this.globalTemplates;
+		return templates == null
 				? null
-				: new ArrayList<>(this.globalTemplates.keySet());
+				: new ArrayList<>(templates.keySet());
 	}
 
 	// Adds an object to a preset, if it has been loaded
 	// Does not add the object if the preset's BO's have not yet been indexed
 	public void addObjectToPreset(String presetFolderName, String objectName, File boFile, CustomObject object)
 	{
-		HashMap<String, CustomObject> objectsByName = this.objectsByNamePerPreset.get(presetFolderName);
+		Map<String, CustomObject> objectsByName = this.objectsByNamePerPreset.get(presetFolderName);
 		if (objectsByName != null) objectsByName.put(objectName.toLowerCase(), object);
-		HashMap<String, File> customObjectFiles = this.customObjectFilesPerPreset.get(presetFolderName);
+		Map<String, File> customObjectFiles = this.customObjectFilesPerPreset.get(presetFolderName);
 		if (customObjectFiles != null) customObjectFiles.put(objectName.toLowerCase(), boFile);
 	}
 	
 	public CustomObject getObjectByName(String name, String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
-		synchronized(this.indexingFilesLock)
+		// Fast path, no locking for objects that were loaded or searched for before.
+		CustomObject object = getLoadedObjectByName(name, presetFolderName);
+		if (object != null || isObjectNotFound(name, presetFolderName))
+		{
+			return object;
+		}
+
+		// Single-flight per preset and name, threads looking up the same
+		// object wait for the thread loading it.
+		String lookupKey = (presetFolderName != null ? presetFolderName : "") + "/" + name.toLowerCase();
+		ObjectLookup lookup = new ObjectLookup();
+		ObjectLookup existingLookup = this.objectLookups.putIfAbsent(lookupKey, lookup);
+		if (existingLookup != null)
+		{
+			if (existingLookup.thread == Thread.currentThread())
+			{
+				// The object is being loaded further up the stack, it references itself via inheritance.
+				if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+				{
+					logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "BO2/BO3 " + name + " references itself while loading, skipping.");
+				}
+				return null;
+			}
+			return existingLookup.object.join();
+		}
+
+		try
+		{
+			object = getObjectByName(name, presetFolderName, true, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+		} finally {
+			// Always complete, so waiting threads never get stuck.
+			lookup.object.complete(object);
+			this.objectLookups.remove(lookupKey, lookup);
+		}
+		return object;
+	}
+
+	// Looks up an already loaded object, same order as getObjectByName.
+	private CustomObject getLoadedObjectByName(String name, String presetFolderName)
+	{
+		String lowerCaseName = name.toLowerCase();
+		if (presetFolderName != null)
+		{
+			Map<String, CustomObject> presetObjectsByName = this.objectsByNamePerPreset.get(presetFolderName);
+			CustomObject object = presetObjectsByName != null ? presetObjectsByName.get(lowerCaseName) : null;
+			if (object != null)
+			{
+				return object;
+			}
+			// Only check the GlobalObjects if the preset's Objects directory has already been searched
+			Set<String> presetObjectsNotFound = this.objectsNotFoundPerPreset.get(presetFolderName);
+			if (presetObjectsNotFound == null || !presetObjectsNotFound.contains(name))
+			{
+				return null;
+			}
+		}
+		return this.objectsByNameGlobalObjects.get(lowerCaseName);
+	}
+
+	private boolean isObjectNotFound(String name, String presetFolderName)
+	{
+		if (!this.objectsNotFoundGlobalObjects.contains(name))
 		{
-			return getObjectByName(name, presetFolderName, true, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+			return false;
 		}
+		if (presetFolderName == null)
+		{
+			return true;
+		}
+		Set<String> presetObjectsNotFound = this.objectsNotFoundPerPreset.get(presetFolderName);
+		return presetObjectsNotFound != null && presetObjectsNotFound.contains(name);
 	}
 	
 	void indexGlobalObjectsFolder(ILogger logger, Path otgRootFolder)
 	{
+		if (this.customObjectFilesGlobalObjects != null)
+		{
+			return;
+		}
 		synchronized(this.indexingFilesLock)
 		{
 			if (this.customObjectFilesGlobalObjects == null)
@@ -285,18 +366,22 @@ public class CustomObjectCollection
 				{
 					logger.log(LogLevel.INFO, LogCategory.CUSTOM_OBJECTS, "Indexing GlobalObjects folder.");
 				}
-				this.customObjectFilesGlobalObjects = new HashMap<String, File>();
-				this.globalTemplates = new HashMap<>();
+				// Fill the maps before publishing them, they're read without locking.
+				Map<String, File> customObjectFiles = new ConcurrentHashMap<String, File>();
+				Map<String, File> templateFiles = new ConcurrentHashMap<String, File>();
 				if (new File(otgRootFolder + File.separator + Constants.GLOBAL_OBJECTS_FOLDER).exists())
 				{
-					indexAllCustomObjectFilesInDir(new File(otgRootFolder + File.separator + Constants.GLOBAL_OBJECTS_FOLDER), this.customObjectFilesGlobalObjects, this.globalTemplates, logger);
+					indexAllCustomObjectFilesInDir(new File(otgRootFolder + File.separator + Constants.GLOBAL_OBJECTS_FOLDER), customObjectFiles, templateFiles, logger);
 				}
-	
+
 				// Add vanilla custom objects
 				for (TreeType type : TreeType.values())
 				{
 					addLoadedGlobalObject(new TreeObject(type));
 				}
+
+				this.globalTemplates = templateFiles;
+				this.customObjectFilesGlobalObjects = customObjectFiles;
 				if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
 				{
 					logger.log(LogLevel.INFO, LogCategory.CUSTOM_OBJECTS, "GlobalObjects folder indexed.");
@@ -307,6 +392,10 @@ public class CustomObjectCollection
 	
 	void indexPresetObjectsFolder(String presetFolderName, ILogger logger, Path otgRootFolder)
 	{
+		if (presetFolderName == null || this.customObjectFilesPerPreset.containsKey(presetFolderName))
+		{
+			return;
+		}
 		synchronized(this.indexingFilesLock)
 		{
 			if (presetFolderName != null && !this.customObjectFilesPerPreset.containsKey(presetFolderName))
@@ -315,10 +404,9 @@ public class CustomObjectCollection
 				{
 					logger.log(LogLevel.INFO, LogCategory.CUSTOM_OBJECTS, "Indexing Objects folder for preset " + presetFolderName);
 				}
-				HashMap<String, File> presetCustomObjectFiles = new HashMap<String, File>();
-				this.customObjectFilesPerPreset.put(presetFolderName, presetCustomObjectFiles);
-				HashMap<String, File> templateFiles = new HashMap<String, File>();
-				this.boTemplateFilesPerPreset.put(presetFolderName, templateFiles);
+				// Fill the maps before publishing them, they're read without locking.
+				Map<String, File> presetCustomObjectFiles = new ConcurrentHashMap<String, File>();
+				Map<String, File> templateFiles = new ConcurrentHashMap<String, File>();
 				if (presetFolderName != null)
 				{
 					// TODO: Rename folders
@@ -333,6 +421,8 @@ public class CustomObjectCollection
 						presetCustomObjectFiles, templateFiles, logger);
 					}
 				}
+				this.boTemplateFilesPerPreset.put(presetFolderName, templateFiles);
+				this.customObjectFilesPerPreset.put(presetFolderName, presetCustomObjectFiles);
 				if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
 				{
 					logger.log(LogLevel.INFO, LogCategory.CUSTOM_OBJECTS, "Objects folder for preset " + presetFolderName + " indexed.");
@@ -349,151 +439,137 @@ public class CustomObjectCollection
 	 */
 	private CustomObject getObjectByName(String name, String presetFolderName, boolean searchGlobalObjects, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
-		synchronized(this.indexingFilesLock)
+		// OTG.log(LogMarker.INFO, "getObjectByName " + presetFolderName != null ? presetFolderName : "");
+
+		CustomObject object = null;
+
+		// Check if the object has been cached
+
+		if (presetFolderName != null)
 		{
-			// OTG.log(LogMarker.INFO, "getObjectByName " + presetFolderName != null ? presetFolderName : "");
-	
-			CustomObject object = null;
-	
-			// Check if the object has been cached
-	
-			if (presetFolderName != null)
+			Map<String, CustomObject> presetObjectsByName = this.objectsByNamePerPreset.get(presetFolderName);
+			if (presetObjectsByName != null)
 			{
-				HashMap<String, CustomObject> presetObjectsByName = this.objectsByNamePerPreset.get(presetFolderName);
-				if (presetObjectsByName != null)
-				{
-					object = presetObjectsByName.get(name.toLowerCase());
-				}
+				object = presetObjectsByName.get(name.toLowerCase());
 			}
-	
-			boolean bSearchedPresetObjects = false;
-	
-			if (object == null && presetFolderName != null)
-			{
-				ArrayList<String> presetObjectsNotFoundByName = this.objectsNotFoundPerPreset.get(presetFolderName);
-				if (presetObjectsNotFoundByName != null && presetObjectsNotFoundByName.contains(name))
-				{
-					// TODO: If a user adds a new object while the game is running, it won't be picked up, even when developermode:true.
-					bSearchedPresetObjects = true;
-				}
-			}
-	
-			// Only check the GlobalObjects if the preset's Objects directory has already been searched
-			if (object == null && searchGlobalObjects && (presetFolderName == null || bSearchedPresetObjects))
-			{
-				object = this.objectsByNameGlobalObjects.get(name.toLowerCase());
-			}
-	
-			if (object != null)
-			{
-				return object;
-			}
-	
-			// Check if the object has been queried before but could not be found
-	
-			boolean bSearchedGlobalObjects = false;
-	
-			if (this.objectsNotFoundGlobalObjects != null && this.objectsNotFoundGlobalObjects.contains(name))
+		}
+
+		boolean bSearchedPresetObjects = false;
+
+		if (object == null && presetFolderName != null)
+		{
+			Set<String> presetObjectsNotFoundByName = this.objectsNotFoundPerPreset.get(presetFolderName);
+			if (presetObjectsNotFoundByName != null && presetObjectsNotFoundByName.contains(name))
 			{
 				// TODO: If a user adds a new object while the game is running, it won't be picked up, even when developermode:true.
-				bSearchedGlobalObjects = true;
-			}
-	
-			if ((!searchGlobalObjects || bSearchedGlobalObjects) && (presetFolderName == null || bSearchedPresetObjects))
-			{
-				return null;
-			}
-	
-			// Index GlobalObjects and preset's Objects directories
-	
-			indexGlobalObjectsFolder(logger, otgRootFolder);
-			indexPresetObjectsFolder(presetFolderName, logger, otgRootFolder);
-	
-			// Search preset Objects
-	
-			if (presetFolderName != null && !bSearchedPresetObjects)
-			{
-				HashMap<String, File> presetCustomObjectFiles = this.customObjectFilesPerPreset.get(presetFolderName);
-				if (presetCustomObjectFiles != null)
-				{
-					File searchForFile = presetCustomObjectFiles.get(name.toLowerCase());
-					if (searchForFile != null)
-					{
-						object = loadObject(searchForFile, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-						if (object != null)
-						{
-							HashMap<String, CustomObject> presetObjectsByName = this.objectsByNamePerPreset.get(presetFolderName);
-							if (presetObjectsByName == null)
-							{
-								presetObjectsByName = new HashMap<String, CustomObject>();
-								this.objectsByNamePerPreset.put(presetFolderName, presetObjectsByName);
-							}
-							presetObjectsByName.put(name.toLowerCase(), object);
-							return object;
-						} else {
-							if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
-							{
-								logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not load BO2/BO3, it likely contains errors: " + searchForFile);
-							}
-							return null;
-						}
-					}
-				}
-	
-				// Not found
-				ArrayList<String> presetObjectsNotFound = this.objectsNotFoundPerPreset.get(presetFolderName);
-				if (presetObjectsNotFound == null)
-				{
-					presetObjectsNotFound = new ArrayList<String>();
-					this.objectsNotFoundPerPreset.put(presetFolderName, presetObjectsNotFound);
-				}
-				presetObjectsNotFound.add(name);
+				bSearchedPresetObjects = true;
 			}
-	
-			// Search GlobalObjects
-	
-			if (searchGlobalObjects && !bSearchedGlobalObjects)
+		}
+
+		// Only check the GlobalObjects if the preset's Objects directory has already been searched
+		if (object == null && searchGlobalObjects && (presetFolderName == null || bSearchedPresetObjects))
+		{
+			object = this.objectsByNameGlobalObjects.get(name.toLowerCase());
+		}
+
+		if (object != null)
+		{
+			return object;
+		}
+
+		// Check if the object has been queried before but could not be found
+
+		boolean bSearchedGlobalObjects = false;
+
+		if (this.objectsNotFoundGlobalObjects != null && this.objectsNotFoundGlobalObjects.contains(name))
+		{
+			// TODO: If a user adds a new object while the game is running, it won't be picked up, even when developermode:true.
+			bSearchedGlobalObjects = true;
+		}
+
+		if ((!searchGlobalObjects || bSearchedGlobalObjects) && (presetFolderName == null || bSearchedPresetObjects))
+		{
+			return null;
+		}
+
+		// Index GlobalObjects and preset's Objects directories
+
+		indexGlobalObjectsFolder(logger, otgRootFolder);
+		indexPresetObjectsFolder(presetFolderName, logger, otgRootFolder);
+
+		// Search preset Objects
+
+		if (presetFolderName != null && !bSearchedPresetObjects)
+		{
+			Map<String, File> presetCustomObjectFiles = this.customObjectFilesPerPreset.get(presetFolderName);
+			if (presetCustomObjectFiles != null)
 			{
-				object = this.objectsByNameGlobalObjects.get(name.toLowerCase());
-	
-				if (object != null)
-				{
-					return object;
-				}
-	
-				File searchForFile = this.customObjectFilesGlobalObjects.get(name.toLowerCase());
-	
+				File searchForFile = presetCustomObjectFiles.get(name.toLowerCase());
 				if (searchForFile != null)
 				{
 					object = loadObject(searchForFile, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-	
 					if (object != null)
 					{
-						this.objectsByNameGlobalObjects.put(name.toLowerCase(), object);
+						this.objectsByNamePerPreset.computeIfAbsent(presetFolderName, key -> new ConcurrentHashMap<String, CustomObject>()).put(name.toLowerCase(), object);
 						return object;
 					} else {
 						if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
 						{
-							logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not load BO2/BO3, it probably contains errors: " + searchForFile);
+							logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not load BO2/BO3, it likely contains errors: " + searchForFile);
 						}
 						return null;
 					}
 				}
-	
-				// Not Found
-				this.objectsNotFoundGlobalObjects.add(name);
 			}
-	
-			if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+
+			// Not found
+			this.objectsNotFoundPerPreset.computeIfAbsent(presetFolderName, key -> ConcurrentHashMap.newKeySet()).add(name);
+		}
+
+		// Search GlobalObjects
+
+		if (searchGlobalObjects && !bSearchedGlobalObjects)
+		{
+			object = this.objectsByNameGlobalObjects.get(name.toLowerCase());
+
+			if (object != null)
 			{
-				logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not find BO2/BO3 " + name + " in GlobalObjects " + (presetFolderName != null ? "and Objects" : "") + " directory " + (presetFolderName != null ? "for preset " + presetFolderName : "") + ".");
+				return object;
 			}
-	
-			return null;
+
+			Map<String, File> globalObjectFiles = this.customObjectFilesGlobalObjects;
+			File searchForFile = globalObjectFiles != null ? globalObjectFiles.get(name.toLowerCase()) : null;
+
+			if (searchForFile != null)
+			{
+				object = loadObject(searchForFile, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+
+				if (object != null)
+				{
+					this.objectsByNameGlobalObjects.put(name.toLowerCase(), object);
+					return object;
+				} else {
+					if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+					{
+						logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not load BO2/BO3, it probably contains errors: " + searchForFile);
+					}
+					return null;
+				}
+			}
+
+			// Not Found
+			this.objectsNotFoundGlobalObjects.add(name);
+		}
+
+		if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+		{
+			logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not find BO2/BO3 " + name + " in GlobalObjects " + (presetFolderName != null ? "and Objects" : "") + " directory " + (presetFolderName != null ? "for preset " + presetFolderName : "") + ".");
 		}
+
+		return null;
 	}
 
-	private void indexAllCustomObjectFilesInDir(File searchDir, HashMap<String, File> customObjectFiles, HashMap<String, File> templateFiles, ILogger logger)
+	private void indexAllCustomObjectFilesInDir(File searchDir, Map<String, File> customObjectFiles, Map<String, File> templateFiles, ILogger logger)
 	{
 		if (searchDir.exists())
 		{
@@ -567,4 +643,10 @@ public class CustomObjectCollection
 			}
 		}
 	}
+
+	private static final class ObjectLookup
+	{
+		private final Thread thread = Thread.currentThread();
+		private final CompletableFuture<CustomObject> object = new CompletableFuture<CustomObject>();
+	}
 }
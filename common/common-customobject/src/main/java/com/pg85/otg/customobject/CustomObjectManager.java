@@ -2,6 +2,7 @@ package com.pg85.otg.customobject;
 
 import com.pg85.otg.customobject.bo2.BO2Loader;
 import com.pg85.otg.customobject.bo3.BO3Loader;
+import com.pg85.otg.customobject.bo4.BO4DataCache;
 import com.pg85.otg.customobject.bo4.BO4Loader;
 import com.pg85.otg.customobject.config.CustomObjectResourcesManager;
 import com.pg85.otg.interfaces.ICustomObjectManager;
@@ -47,8 +48,9 @@ public class CustomObjectManager implements ICustomObjectManager
 {
 	private final Map<String, CustomObjectLoader> loaders;	
 	private final CustomObjectCollection globalCustomObjects;
+	private final BO4DataCache bo4DataCache;
 
-	public CustomObjectManager(boolean developerMode, ILogger logger, Path otgRootFolder, Path otgPresetsFolder, CustomObjectResourcesManager manager)
+	public CustomObjectManager(boolean developerMode, long bo4DataCacheSize, ILogger logger, Path otgRootFolder, Path otgPresetsFolder, CustomObjectResourcesManager manager)
 	{
 		// These are the actual lists, not just a copy.
 		this.loaders = new HashMap<String, CustomObjectLoader>();
@@ -60,6 +62,7 @@ public class CustomObjectManager implements ICustomObjectManager
 		registerCustomObjectLoader("bo4data", new BO4Loader(manager));
 
 		this.globalCustomObjects = new CustomObjectCollection();
+		this.bo4DataCache = new BO4DataCache(bo4DataCacheSize);
 
 		// TODO: Move this to completeable futures. Run a preliminary search for all folders, and then create a completeable future for them.
 		// This would allow it to run concurrently and then block until all of the futures are done. This will allow us to concurrently index and
@@ -91,6 +94,7 @@ public class CustomObjectManager implements ICustomObjectManager
 	public void reloadCustomObjectFiles()
 	{
 		this.globalCustomObjects.reloadCustomObjectFiles();
+		this.bo4DataCache.clear();
 	}
 
 	/**
@@ -134,6 +138,15 @@ public class CustomObjectManager implements ICustomObjectManager
 		return this.globalCustomObjects;
 	}
 
+	/**
+	 * Gets the cache for blocks of BO4's loaded from .BO4Data files.
+	 * @return The cache.
+	 */
+	public BO4DataCache getBO4DataCache()
+	{
+		return this.bo4DataCache;
+	}
+
 	/**
 	 * Gets an unmodifiable view of all object loaders, indexed by the
 	 * lowercase extension without the dot (for example "bo3").
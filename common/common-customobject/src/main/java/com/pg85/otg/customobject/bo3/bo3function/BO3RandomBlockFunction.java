@@ -12,7 +12,6 @@ import com.pg85.otg.interfaces.IWorldGenRegion;
 import com.pg85.otg.util.biome.ReplaceBlockMatrix;
 import com.pg85.otg.util.nbt.NamedBinaryTag;
 import com.pg85.otg.util.materials.LocalMaterialData;
-import com.pg85.otg.util.minecraft.BlockNames;
 
 public class BO3RandomBlockFunction extends BO3BlockFunction
 {
@@ -115,20 +114,6 @@ public class BO3RandomBlockFunction extends BO3BlockFunction
 				NamedBinaryTag metaData = NBTHelper.loadMetadata(args.get(i), this.getHolder().getFile(), logger);
 				if (metaData != null)
 				{
-					if (metaData.getTag("Items") != null) {
-						for (NamedBinaryTag item : (NamedBinaryTag[]) metaData.getTag("Items").getValue()) {
-							if (item.getTag("id").getType() == NamedBinaryTag.Type.TAG_Short) {
-								short val = (short)item.getTag("id").getValue();
-								item.removeSubTag(item.getTag("id"));
-								NamedBinaryTag[] newItemValue = new NamedBinaryTag[((NamedBinaryTag[])item.getValue()).length + 1];
-								System.arraycopy(item.getValue(), 0, newItemValue, 0, newItemValue.length - 1);
-								String strVal = "minecraft:" + BlockNames.blockNameFromLegacyBlockId(val);
-								newItemValue[newItemValue.length-2] = new NamedBinaryTag(NamedBinaryTag.Type.TAG_String, "id", strVal);
-								newItemValue[newItemValue.length-1] = new NamedBinaryTag(NamedBinaryTag.Type.TAG_End, "", null);
-								item.setValue(newItemValue);
-							}
-						}
-					}
 					if (metaData.getTag("SkullType") != null) {
 						byte val = (byte)metaData.getTag("SkullType").getValue();
 						switch ((int)val) {
@@ -26,6 +26,7 @@ import com.pg85.otg.interfaces.ICustomObjectManager;
 import com.pg85.otg.interfaces.ILogger;
 import com.pg85.otg.interfaces.IMaterialReader;
 import com.pg85.otg.interfaces.IModLoadedChecker;
+import com.pg85.otg.util.nbt.NBTHelper;
 import com.pg85.otg.util.nbt.NamedBinaryTag;
 import com.pg85.otg.util.bo3.Rotation;
 import com.pg85.otg.util.helpers.StreamHelper;
@@ -34,7 +35,9 @@ import com.pg85.otg.util.logging.LogLevel;
 import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.minecraft.DefaultStructurePart;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -67,6 +70,8 @@ public class BO4Config extends CustomObjectConfigFile
 	public SpawnHeightEnum spawnHeight;
 	public boolean useCenterForHighestBlock;
 	public BoundingBox[] boundingBoxes = new BoundingBox[4];
+	// Collision bounds per rotation id, relative to the branch's coordinates, see getCollisionBounds.
+	private volatile int[][] collisionBounds;
 
 	private BO4BlockFunction[][] heightMap;
 	
@@ -229,6 +234,8 @@ public class BO4Config extends CustomObjectConfigFile
 			//OTG.log(LogMarker.INFO, ".BO4Data loaded in: " + timeTaken + " " + this.getName()  + ".BO4Data");
 		}
 
+		initCollisionBounds();
+
 		// When writing, we'll need to read some raw data from the file,
 		// so can't flush the cache yet. Flush after writing.
 		if(this.settingsMode == ConfigMode.WriteDisable)
@@ -237,6 +244,42 @@ public class BO4Config extends CustomObjectConfigFile
 		}
 	}
 
+	// Rotates the min/max coords once per rotation, so branch collision
+	// checks during plotting don't have to.
+	private void initCollisionBounds()
+	{
+		int[][] collisionBounds = new int[4][];
+		for(Rotation rotation : Rotation.values())
+		{
+			BO4CustomStructureCoordinate minRotated = BO4CustomStructureCoordinate.getRotatedBO3CoordsJustified(getminX(), getminY(), getminZ(), rotation);
+			BO4CustomStructureCoordinate maxRotated = BO4CustomStructureCoordinate.getRotatedBO3CoordsJustified(getmaxX(), getmaxY(), getmaxZ(), rotation);
+			collisionBounds[rotation.getRotationId()] = new int[] {
+				Math.min(minRotated.getX(), maxRotated.getX()),
+				Math.max(minRotated.getX(), maxRotated.getX()),
+				Math.min(minRotated.getY(), maxRotated.getY()),
+				Math.max(minRotated.getY(), maxRotated.getY()),
+				Math.min(minRotated.getZ(), maxRotated.getZ()),
+				Math.max(minRotated.getZ(), maxRotated.getZ())
+			};
+		}
+		this.collisionBounds = collisionBounds;
+	}
+
+	/**
+	 * Bounding box used for branch collision checks when spawned with the
+	 * given rotation, relative to the branch's coordinates: 
+	 * { minX, maxX, minY, maxY, minZ, maxZ }. Don't modify the returned array.
+	 */
+	public int[] getCollisionBounds(Rotation rotation)
+	{
+		// Configs created without init (BO4Data export) compute them on first use.
+		if(this.collisionBounds == null)
+		{
+			initCollisionBounds();
+		}
+		return this.collisionBounds[rotation.getRotationId()];
+	}
+
 	public int getXOffset()
 	{
 		return minX < -8 ? -minX : maxX > 7 ? -minX : 8;
@@ -295,116 +338,104 @@ public class BO4Config extends CustomObjectConfigFile
 		{
 			if(this.isBO4Data && fromFile)
 			{
-				BO4Config bo4Config = null;
-				try
-				{
-					bo4Config = new BO4Config(this.reader, false, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-				}
-				catch (InvalidConfigException e)
-				{
-					if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
-					{
-						logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Error fetching smoothing heightmap for BO4 " + start.getName() + ": " + e.getMessage());
-					}
-				}
-				if(bo4Config != null)
+				BO4Config bo4Config = getBO4DataWithBlocks(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+				if(bo4Config == null)
 				{
-					try {
-						bo4Config.readFromBO4DataFile(true, logger, materialReader);
-					} catch (InvalidConfigException e) {
-						if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
-						{
-							logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Error fetching smoothing heightmap for BO4Data " + start.getName() + ": " + e.getMessage());
-						}
-						this.heightMap = new BO4BlockFunction[16][16];
-						return this.heightMap;
-					}
-					this.heightMap = bo4Config.getSmoothingHeightMap(start, false, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+					this.heightMap = new BO4BlockFunction[16][16];
 					return this.heightMap;
 				}
+				// The cached config is shared, so don't cache the heightmap on it, it depends on start.
+				this.heightMap = bo4Config.createSmoothingHeightMap(start);
+				return this.heightMap;
 			}
 			
-			this.heightMap = new BO4BlockFunction[16][16];
-
-			// make heightmap containing the highest or lowest blocks in this chunk
-			int blockIndex = 0;
-			LocalMaterialData material;
-			boolean isSmoothAreaAnchor;
-			boolean isRandomBlock;
-			int y;
-			for(int x = 0; x < xSize; x++)
+			this.heightMap = createSmoothingHeightMap(start);
+		}
+		return this.heightMap;
+	}
+
+	private BO4BlockFunction[][] createSmoothingHeightMap(BO4 start)
+	{
+		BO4BlockFunction[][] heightMap = new BO4BlockFunction[16][16];
+
+		// make heightmap containing the highest or lowest blocks in this chunk
+		int blockIndex = 0;
+		LocalMaterialData material;
+		boolean isSmoothAreaAnchor;
+		boolean isRandomBlock;
+		int y;
+		for(int x = 0; x < xSize; x++)
+		{
+			for(int z = 0; z < zSize; z++)
 			{
-				for(int z = 0; z < zSize; z++)
+				if(blocks[x][z] != null)
 				{
-					if(blocks[x][z] != null)
+					for(int i = 0; i < blocks[x][z].length; i++)
 					{
-						for(int i = 0; i < blocks[x][z].length; i++)
+						isSmoothAreaAnchor = false;
+						isRandomBlock = this.randomBlocksBlocks[blockIndex] != null;
+						y = blocks[x][z][i];
+						
+						if(isRandomBlock)
 						{
-							isSmoothAreaAnchor = false;
-							isRandomBlock = this.randomBlocksBlocks[blockIndex] != null;
-							y = blocks[x][z][i];
-							
-							if(isRandomBlock)
+							for(LocalMaterialData randomMaterial : this.randomBlocksBlocks[blockIndex])
 							{
-								for(LocalMaterialData randomMaterial : this.randomBlocksBlocks[blockIndex])
+								// TODO: Material should never be null, fix the code in RandomBlockFunction.load() that causes this.
+								if(randomMaterial == null)
+								{
+									continue;
+								}
+								if(randomMaterial.isSmoothAreaAnchor(start.getConfig().overrideChildSettings && this.overrideChildSettings ? start.getConfig().smoothStartWood : this.smoothStartWood, start.getConfig().spawnUnderWater))
 								{
-									// TODO: Material should never be null, fix the code in RandomBlockFunction.load() that causes this.
-									if(randomMaterial == null)
-									{
-										continue;
-									}
-									if(randomMaterial.isSmoothAreaAnchor(start.getConfig().overrideChildSettings && this.overrideChildSettings ? start.getConfig().smoothStartWood : this.smoothStartWood, start.getConfig().spawnUnderWater))
-									{
-										isSmoothAreaAnchor = true;
-										break;
-									}
+									isSmoothAreaAnchor = true;
+									break;
 								}
 							}
+						}
 
-							material = this.blocksMaterial[blockIndex];
+						material = this.blocksMaterial[blockIndex];
+						if(
+							isSmoothAreaAnchor ||
+							(
+								!isRandomBlock &&
+								material.isSmoothAreaAnchor(start.getConfig().overrideChildSettings && this.overrideChildSettings ? start.getConfig().smoothStartWood : this.smoothStartWood, start.getConfig().spawnUnderWater)
+							)
+						)
+						{
 							if(
-								isSmoothAreaAnchor ||
-								(
-									!isRandomBlock &&
-									material.isSmoothAreaAnchor(start.getConfig().overrideChildSettings && this.overrideChildSettings ? start.getConfig().smoothStartWood : this.smoothStartWood, start.getConfig().spawnUnderWater)
-								)
+								(!(start.getConfig().overrideChildSettings && this.overrideChildSettings ? start.getConfig().smoothStartTop : this.smoothStartTop) && y == getminY()) ||
+								((start.getConfig().overrideChildSettings && this.overrideChildSettings ? start.getConfig().smoothStartTop : this.smoothStartTop) && (heightMap[x][z] == null || y > heightMap[x][z].y))
 							)
 							{
-								if(
-									(!(start.getConfig().overrideChildSettings && this.overrideChildSettings ? start.getConfig().smoothStartTop : this.smoothStartTop) && y == getminY()) ||
-									((start.getConfig().overrideChildSettings && this.overrideChildSettings ? start.getConfig().smoothStartTop : this.smoothStartTop) && (this.heightMap[x][z] == null || y > this.heightMap[x][z].y))
-								)
+								BO4BlockFunction blockFunction = null;
+								if(isRandomBlock)
 								{
-									BO4BlockFunction blockFunction = null;
-									if(isRandomBlock)
-									{
-										blockFunction = new BO4RandomBlockFunction();
-										((BO4RandomBlockFunction)blockFunction).blocks = this.randomBlocksBlocks[blockIndex];
-										((BO4RandomBlockFunction)blockFunction).blockChances = this.randomBlocksBlockChances[blockIndex];
-										((BO4RandomBlockFunction)blockFunction).metaDataNames = this.randomBlocksMetaDataNames[blockIndex];
-										((BO4RandomBlockFunction)blockFunction).metaDataTags = this.randomBlocksMetaDataTags[blockIndex];
-										((BO4RandomBlockFunction)blockFunction).blockCount = this.randomBlocksBlockCount[blockIndex];
-									} else {
-										blockFunction = new BO4BlockFunction();
-									}
-									blockFunction.material = material;
-									blockFunction.x = x;
-									blockFunction.y = (short) y;
-									blockFunction.z = z;										
-									blockFunction.nbtName = this.blocksMetaDataName[blockIndex];
-									blockFunction.nbt = this.blocksMetaDataTag[blockIndex];
-									
-									this.heightMap[x][z] = blockFunction;
+									blockFunction = new BO4RandomBlockFunction();
+									((BO4RandomBlockFunction)blockFunction).blocks = this.randomBlocksBlocks[blockIndex];
+									((BO4RandomBlockFunction)blockFunction).blockChances = this.randomBlocksBlockChances[blockIndex];
+									((BO4RandomBlockFunction)blockFunction).metaDataNames = this.randomBlocksMetaDataNames[blockIndex];
+									((BO4RandomBlockFunction)blockFunction).metaDataTags = this.randomBlocksMetaDataTags[blockIndex];
+									((BO4RandomBlockFunction)blockFunction).blockCount = this.randomBlocksBlockCount[blockIndex];
+								} else {
+									blockFunction = new BO4BlockFunction();
 								}
+								blockFunction.material = material;
+								blockFunction.x = x;
+								blockFunction.y = (short) y;
+								blockFunction.z = z;										
+								blockFunction.nbtName = this.blocksMetaDataName[blockIndex];
+								blockFunction.nbt = this.blocksMetaDataTag[blockIndex];
+								
+								heightMap[x][z] = blockFunction;
 							}
-							
-							blockIndex++;
 						}
+						
+						blockIndex++;
 					}
 				}
 			}
 		}
-		return this.heightMap;
+		return heightMap;
 	}
 
 	BO4BlockFunction[] getBlocks(String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
@@ -416,31 +447,12 @@ public class BO4Config extends CustomObjectConfigFile
 	{
 		if(fromFile && this.isBO4Data)
 		{
-			BO4Config bo4Config = null;
-			try
-			{
-				bo4Config = new BO4Config(this.reader, false, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-			}
-			catch (InvalidConfigException e)
-			{
-				if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
-				{
-					logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, " Error fetching blocks for BO4 " + this.getName() + ": " + e.getMessage());
-				}
-			}
-			if(bo4Config != null)
+			BO4Config bo4Config = getBO4DataWithBlocks(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+			if(bo4Config == null)
 			{
-				try {
-					bo4Config.readFromBO4DataFile(true, logger, materialReader);
-				} catch (InvalidConfigException e) {
-					if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
-					{
-						logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, " Error fetching blocks for BO4Data " + this.getName() + ": " + e.getMessage());
-					}
-					return null;
-				}
-				return bo4Config.getBlocks(false, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+				return null;
 			}
+			return bo4Config.getBlocks(false, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
 		}
 		
 		BO4BlockFunction[] blocksOTGPlus = new BO4BlockFunction[this.blocksMaterial.length];
@@ -484,6 +496,54 @@ public class BO4Config extends CustomObjectConfigFile
 		return blocksOTGPlus;
 	}
 
+	// BO4's loaded from .BO4Data files don't keep their blocks in memory, blocks are
+	// decoded on demand and shared via the CustomObjectManager's BO4DataCache.
+	private BO4Config getBO4DataWithBlocks(String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		return customObjectManager.getBO4DataCache().get(this.reader.getFile(), materialReader, () ->
+		{
+			BO4Config bo4Config = null;
+			try
+			{
+				bo4Config = new BO4Config(this.reader, false, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+				bo4Config.readFromBO4DataFile(true, logger, materialReader);
+			}
+			catch (InvalidConfigException e)
+			{
+				if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+				{
+					logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Error fetching blocks for BO4Data " + this.getName() + ": " + e.getMessage());
+				}
+				return null;
+			}
+			return bo4Config;
+		});
+	}
+
+	/**
+	 * Rough estimate of the heap used by this config's block arrays in bytes,
+	 * used as the weight for BO4DataCache. Materials and NBT are shared, so
+	 * only references to them are counted.
+	 */
+	long estimateBlockDataSize()
+	{
+		if(this.blocksMaterial == null)
+		{
+			return 0;
+		}
+		// Column arrays, then per block: y, material, nbt name/tag and 5 random block slots.
+		long size = 16L * 16L * 16L + this.blocksMaterial.length * 34L;
+		for(int i = 0; i < this.randomBlocksBlocks.length; i++)
+		{
+			if(this.randomBlocksBlocks[i] != null)
+			{
+				// 4 arrays with their own headers, 13 bytes per random block entry.
+				size += 64 + this.randomBlocksBlocks[i].length * 13L;
+			}
+		}
+		return size;
+	}
+
 	public BO4BranchFunction[] getbranches()
 	{
 		return this.branchesBO4;
@@ -1364,87 +1424,8 @@ public class BO4Config extends CustomObjectConfigFile
 	void writeToStream(DataOutput stream, String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker) throws IOException
 	{		
 		stream.writeInt(this.bo4DataVersion);
-		// Version 3 added fixedRotation		
-		StreamHelper.writeStringToStream(stream, this.fixedRotation == null ? null : this.fixedRotation.toString());
-		stream.writeInt(this.minimumSizeTop);
-		stream.writeInt(this.minimumSizeBottom);
-		stream.writeInt(this.minimumSizeLeft);
-		stream.writeInt(this.minimumSizeRight);		
-		stream.writeInt(this.minX);
-		stream.writeInt(this.maxX);
-		stream.writeInt(this.minY);
-		stream.writeInt(this.maxY);
-		stream.writeInt(this.minZ);
-		stream.writeInt(this.maxZ);		
-		StreamHelper.writeStringToStream(stream, this.author);
-		StreamHelper.writeStringToStream(stream, this.description);
-		StreamHelper.writeStringToStream(stream, this.settingsMode.name());
-		stream.writeInt(this.frequency);
-		StreamHelper.writeStringToStream(stream, this.spawnHeight.name());
-		stream.writeInt(this.minHeight);
-		stream.writeInt(this.maxHeight);
-		stream.writeShort(this.inheritedBO3s.size());
-		for(String inheritedBO3 : this.inheritedBO3s) {
-			StreamHelper.writeStringToStream(stream, inheritedBO3);
-		}
-		StreamHelper.writeStringToStream(stream, this.inheritBO3);
-		StreamHelper.writeStringToStream(stream, this.inheritBO3Rotation.name());
-		stream.writeBoolean(this.overrideChildSettings);
-		stream.writeBoolean(this.overrideParentHeight);
-		stream.writeBoolean(this.canOverride);
-		stream.writeInt(this.branchFrequency);
-		StreamHelper.writeStringToStream(stream, this.branchFrequencyGroup);
-		stream.writeBoolean(this.mustBeBelowOther);
-		stream.writeBoolean(this.mustBeInsideWorldBorders);
-		StreamHelper.writeStringToStream(stream, this.mustBeInside);
-		StreamHelper.writeStringToStream(stream, this.cannotBeInside);
-		StreamHelper.writeStringToStream(stream, this.replacesBO3);
-		stream.writeBoolean(this.canSpawnOnWater);
-		stream.writeBoolean(this.spawnOnWaterOnly);
-		stream.writeBoolean(this.spawnUnderWater);
-		stream.writeBoolean(this.spawnAtWaterLevel);
-		stream.writeBoolean(this.doReplaceBlocks);
-		stream.writeInt(this.heightOffset);
-		stream.writeBoolean(this.removeAir);
-		StreamHelper.writeStringToStream(stream, this.replaceAbove);
-		StreamHelper.writeStringToStream(stream, this.replaceBelow);
-		stream.writeBoolean(this.replaceWithBiomeBlocks);
-		StreamHelper.writeStringToStream(stream, this.replaceWithSurfaceBlock);
-		StreamHelper.writeStringToStream(stream, this.replaceWithGroundBlock);
-		StreamHelper.writeStringToStream(stream, this.replaceWithStoneBlock);
-		stream.writeInt(this.smoothRadius);
-		stream.writeInt(this.smoothHeightOffset);
-		stream.writeBoolean(this.smoothStartTop);
-		stream.writeBoolean(this.smoothStartWood);
-		StreamHelper.writeStringToStream(stream, this.smoothingSurfaceBlock);
-		StreamHelper.writeStringToStream(stream, this.smoothingGroundBlock);
-		StreamHelper.writeStringToStream(stream, this.bo3Group);
-		stream.writeBoolean(this.isSpawnPoint);		
-		stream.writeBoolean(this.isCollidable);
-		stream.writeBoolean(this.useCenterForHighestBlock);
+		writeSettingsToStream(stream);
 
-		stream.writeInt(this.branchesBO4.length);
-		for(BO4BranchFunction func : Arrays.asList(this.branchesBO4))
-		{
-			if(func instanceof BO4WeightedBranchFunction)
-			{
-				stream.writeBoolean(true); // false For BO4BranchFunction, true for BO4WeightedBranchFunction
-			} else {
-				stream.writeBoolean(false); // false For BO4BranchFunction, true for BO4WeightedBranchFunction
-			}
-			func.writeToStream(stream);
-		}
-		
-		stream.writeInt(this.entityDataBO4.length);
-		for(BO4EntityFunction func : Arrays.asList(this.entityDataBO4))
-		{
-			func.writeToStream(stream);
-		}
-		
-		stream.writeInt(0); // Used to be particledata length
-		stream.writeInt(0); // Used to be spawnerdata length
-		stream.writeInt(0); // Used to be moddata length
-		
 		ArrayList<LocalMaterialData> materials = new ArrayList<LocalMaterialData>();
 		ArrayList<String> metaDataNames = new ArrayList<String>();
 		int randomBlockCount = 0;
@@ -1575,484 +1556,793 @@ public class BO4Config extends CustomObjectConfigFile
 		}
 	}
 
-	private BO4Config readFromBO4DataFile(boolean getBlocks, ILogger logger, IMaterialReader materialReader) throws InvalidConfigException
+	// Writes everything but the blocks, shared by all .BO4Data versions.
+	private void writeSettingsToStream(DataOutput stream) throws IOException
 	{
-		FileInputStream fis;
-		ByteBuffer bufferCompressed = null;
-		ByteBuffer bufferDecompressed = null;
-		try
+		// Version 3 added fixedRotation		
+		StreamHelper.writeStringToStream(stream, this.fixedRotation == null ? null : this.fixedRotation.toString());
+		stream.writeInt(this.minimumSizeTop);
+		stream.writeInt(this.minimumSizeBottom);
+		stream.writeInt(this.minimumSizeLeft);
+		stream.writeInt(this.minimumSizeRight);		
+		stream.writeInt(this.minX);
+		stream.writeInt(this.maxX);
+		stream.writeInt(this.minY);
+		stream.writeInt(this.maxY);
+		stream.writeInt(this.minZ);
+		stream.writeInt(this.maxZ);		
+		StreamHelper.writeStringToStream(stream, this.author);
+		StreamHelper.writeStringToStream(stream, this.description);
+		StreamHelper.writeStringToStream(stream, this.settingsMode.name());
+		stream.writeInt(this.frequency);
+		StreamHelper.writeStringToStream(stream, this.spawnHeight.name());
+		stream.writeInt(this.minHeight);
+		stream.writeInt(this.maxHeight);
+		stream.writeShort(this.inheritedBO3s.size());
+		for(String inheritedBO3 : this.inheritedBO3s) {
+			StreamHelper.writeStringToStream(stream, inheritedBO3);
+		}
+		StreamHelper.writeStringToStream(stream, this.inheritBO3);
+		StreamHelper.writeStringToStream(stream, this.inheritBO3Rotation.name());
+		stream.writeBoolean(this.overrideChildSettings);
+		stream.writeBoolean(this.overrideParentHeight);
+		stream.writeBoolean(this.canOverride);
+		stream.writeInt(this.branchFrequency);
+		StreamHelper.writeStringToStream(stream, this.branchFrequencyGroup);
+		stream.writeBoolean(this.mustBeBelowOther);
+		stream.writeBoolean(this.mustBeInsideWorldBorders);
+		StreamHelper.writeStringToStream(stream, this.mustBeInside);
+		StreamHelper.writeStringToStream(stream, this.cannotBeInside);
+		StreamHelper.writeStringToStream(stream, this.replacesBO3);
+		stream.writeBoolean(this.canSpawnOnWater);
+		stream.writeBoolean(this.spawnOnWaterOnly);
+		stream.writeBoolean(this.spawnUnderWater);
+		stream.writeBoolean(this.spawnAtWaterLevel);
+		stream.writeBoolean(this.doReplaceBlocks);
+		stream.writeInt(this.heightOffset);
+		stream.writeBoolean(this.removeAir);
+		StreamHelper.writeStringToStream(stream, this.replaceAbove);
+		StreamHelper.writeStringToStream(stream, this.replaceBelow);
+		stream.writeBoolean(this.replaceWithBiomeBlocks);
+		StreamHelper.writeStringToStream(stream, this.replaceWithSurfaceBlock);
+		StreamHelper.writeStringToStream(stream, this.replaceWithGroundBlock);
+		StreamHelper.writeStringToStream(stream, this.replaceWithStoneBlock);
+		stream.writeInt(this.smoothRadius);
+		stream.writeInt(this.smoothHeightOffset);
+		stream.writeBoolean(this.smoothStartTop);
+		stream.writeBoolean(this.smoothStartWood);
+		StreamHelper.writeStringToStream(stream, this.smoothingSurfaceBlock);
+		StreamHelper.writeStringToStream(stream, this.smoothingGroundBlock);
+		StreamHelper.writeStringToStream(stream, this.bo3Group);
+		stream.writeBoolean(this.isSpawnPoint);		
+		stream.writeBoolean(this.isCollidable);
+		stream.writeBoolean(this.useCenterForHighestBlock);
+
+		stream.writeInt(this.branchesBO4.length);
+		for(BO4BranchFunction func : Arrays.asList(this.branchesBO4))
 		{
-			fis = new FileInputStream(this.reader.getFile());
-			try
+			if(func instanceof BO4WeightedBranchFunction)
 			{
-				bufferCompressed = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());
-				byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-				bufferCompressed.get(compressedBytes);
-				try {
-					byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-					bufferDecompressed = ByteBuffer.wrap(decompressedBytes);
-				} catch (DataFormatException e1) {
-					e1.printStackTrace();
-				}
-
-				//buffer.get(data, 0, remaining);
-				// do something with data
+				stream.writeBoolean(true); // false For BO4BranchFunction, true for BO4WeightedBranchFunction
+			} else {
+				stream.writeBoolean(false); // false For BO4BranchFunction, true for BO4WeightedBranchFunction
+			}
+			func.writeToStream(stream);
+		}
+		
+		stream.writeInt(this.entityDataBO4.length);
+		for(BO4EntityFunction func : Arrays.asList(this.entityDataBO4))
+		{
+			func.writeToStream(stream);
+		}
+		
+		stream.writeInt(0); // Used to be particledata length
+		stream.writeInt(0); // Used to be spawnerdata length
+		stream.writeInt(0); // Used to be moddata length
+	}
 
-				boolean isBO4Data = true;
-				boolean inheritedBO3Loaded = true;
-				int bo4DataVersion = bufferDecompressed.getInt();
-				// Version 2 made breaking changes
-				if(bo4DataVersion < 2)
-				{
-					// TODO: Should only need to close the reader?
-					if(bufferCompressed != null)
-					{
-						bufferCompressed.clear();
-					}
-					if(bufferDecompressed != null)
-					{
-						bufferDecompressed.clear();
-					}				
-					try {
-						fis.getChannel().close();
-					}
-					catch (IOException e)
-					{
-						e.printStackTrace();
-					}
-					try {
-						fis.close();
-					}
-					catch (IOException e)
-					{
-						e.printStackTrace();
-					}
-					throw new InvalidConfigException("Could not read BO4Data file " + this.reader.getName() + ", it is outdated. Delete and re-export BO4Data files to fix this, or delete and reinstall your OTG preset.");
+	// Version 4 isn't compressed, so it can be read in place, see BO4DataV4 for the layout.
+	void writeToStreamV4(DataOutput stream, String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker) throws IOException
+	{
+		// getBlocks returns blocks ordered per column, which is the order they're stored in.
+		BO4BlockFunction[] blocks = getBlocks(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+		ArrayList<LocalMaterialData> materials = new ArrayList<LocalMaterialData>();
+		ArrayList<String> metaDataNames = new ArrayList<String>();
+		short[] columnSizes = new short[BO4DataV4.COLUMNS];
+		int randomEntryCount = 0;
+		BO4RandomBlockFunction randomBlock;
+		for(BO4BlockFunction block : blocks)
+		{
+			columnSizes[block.x * this.zSize + block.z]++;
+			addToPalette(materials, block.material);
+			addToPalette(metaDataNames, block.nbtName);
+			if(block instanceof BO4RandomBlockFunction)
+			{
+				randomBlock = (BO4RandomBlockFunction)block;
+				randomEntryCount += randomBlock.blocks.length;
+				for(int i = 0; i < randomBlock.blocks.length; i++)
+				{
+					addToPalette(materials, randomBlock.blocks[i]);
+					addToPalette(metaDataNames, randomBlock.metaDataNames[i]);
+				}
+			}
+		}
+
+		ByteArrayOutputStream settingsBytes = new ByteArrayOutputStream();
+		writeSettingsToStream(new DataOutputStream(settingsBytes));
+
+		ByteArrayOutputStream paletteBytes = new ByteArrayOutputStream();
+		DataOutputStream paletteStream = new DataOutputStream(paletteBytes);
+		paletteStream.writeShort(metaDataNames.size());
+		for(String metaDataName : metaDataNames)
+		{
+			StreamHelper.writeStringToStream(paletteStream, metaDataName);
+		}
+		paletteStream.writeShort(materials.size());
+		for(LocalMaterialData material : materials)
+		{
+			StreamHelper.writeStringToStream(paletteStream, material.getName());
+		}
+
+		int settingsOffset = BO4DataV4.HEADER_SIZE;
+		int paletteOffset = settingsOffset + settingsBytes.size();
+		int blocksOffset = paletteOffset + paletteBytes.size();
+		int randomBlocksOffset = blocksOffset + BO4DataV4.getBlocksSize(blocks.length);
+
+		stream.writeInt(BO4DataV4.MAGIC);
+		stream.writeInt(BO4DataV4.VERSION);
+		stream.writeInt(settingsOffset);
+		stream.writeInt(paletteOffset);
+		stream.writeInt(blocksOffset);
+		stream.writeInt(randomBlocksOffset);
+		stream.writeInt(blocks.length);
+		stream.writeInt(randomEntryCount);
+		stream.write(settingsBytes.toByteArray());
+		stream.write(paletteBytes.toByteArray());
+
+		for(short columnSize : columnSizes)
+		{
+			stream.writeShort(columnSize);
+		}
+		for(BO4BlockFunction block : blocks)
+		{
+			stream.writeShort(block.y);
+		}
+		for(BO4BlockFunction block : blocks)
+		{
+			stream.writeShort(block.material == null ? -1 : materials.indexOf(block.material));
+		}
+		for(BO4BlockFunction block : blocks)
+		{
+			stream.writeShort(block.nbtName == null ? -1 : metaDataNames.indexOf(block.nbtName));
+		}
+		for(BO4BlockFunction block : blocks)
+		{
+			stream.writeByte(block instanceof BO4RandomBlockFunction ? ((BO4RandomBlockFunction)block).blocks.length : 0);
+		}
+
+		for(BO4BlockFunction block : blocks)
+		{
+			if(block instanceof BO4RandomBlockFunction)
+			{
+				for(byte blockChance : ((BO4RandomBlockFunction)block).blockChances)
+				{
+					stream.writeByte(blockChance);
 				}
-				// Version 3 added fixedRotation
-				if(bo4DataVersion > 2)
+			}
+		}
+		for(BO4BlockFunction block : blocks)
+		{
+			if(block instanceof BO4RandomBlockFunction)
+			{
+				for(LocalMaterialData material : ((BO4RandomBlockFunction)block).blocks)
 				{
-					String rotationString = StreamHelper.readStringFromBuffer(bufferDecompressed);
-					this.fixedRotation = Rotation.getRotation(rotationString);
+					stream.writeShort(material == null ? -1 : materials.indexOf(material));
 				}
-				
-				int minimumSizeTop = bufferDecompressed.getInt();
-				int minimumSizeBottom = bufferDecompressed.getInt();
-				int minimumSizeLeft = bufferDecompressed.getInt();
-				int minimumSizeRight = bufferDecompressed.getInt();
-
-				int minX = bufferDecompressed.getInt();
-				int maxX = bufferDecompressed.getInt();
-				int minY = bufferDecompressed.getInt();
-				int maxY = bufferDecompressed.getInt();
-				int minZ = bufferDecompressed.getInt();
-				int maxZ = bufferDecompressed.getInt();
-
-				String author = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				String description = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				ConfigMode settingsMode = ConfigMode.valueOf(StreamHelper.readStringFromBuffer(bufferDecompressed));
-				int frequency = bufferDecompressed.getInt();
-				SpawnHeightEnum spawnHeight = SpawnHeightEnum.valueOf(StreamHelper.readStringFromBuffer(bufferDecompressed));
-				int minHeight = bufferDecompressed.getInt();
-				int maxHeight = bufferDecompressed.getInt();
-				short inheritedBO3sSize = bufferDecompressed.getShort();
-				ArrayList<String> inheritedBO3s = new ArrayList<String>();
-				for(int i = 0; i < inheritedBO3sSize; i++)
+			}
+		}
+		for(BO4BlockFunction block : blocks)
+		{
+			if(block instanceof BO4RandomBlockFunction)
+			{
+				for(String metaDataName : ((BO4RandomBlockFunction)block).metaDataNames)
 				{
-					inheritedBO3s.add(StreamHelper.readStringFromBuffer(bufferDecompressed));
+					stream.writeShort(metaDataName == null ? -1 : metaDataNames.indexOf(metaDataName));
 				}
+			}
+		}
+	}
 
-				String inheritBO3 = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				Rotation inheritBO3Rotation = Rotation.valueOf(StreamHelper.readStringFromBuffer(bufferDecompressed));
-				boolean overrideChildSettings = bufferDecompressed.get() != 0;
-				boolean overrideParentHeight = bufferDecompressed.get() != 0;
-				boolean canOverride = bufferDecompressed.get() != 0;
-				int branchFrequency = bufferDecompressed.getInt();
-				String branchFrequencyGroup = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				boolean mustBeBelowOther = bufferDecompressed.get() != 0;
-				boolean mustBeInsideWorldBorders = bufferDecompressed.get() != 0;
-				String mustBeInside = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				String cannotBeInside = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				String replacesBO3 = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				boolean canSpawnOnWater = bufferDecompressed.get() != 0;
-				boolean spawnOnWaterOnly = bufferDecompressed.get() != 0;
-				boolean spawnUnderWater = bufferDecompressed.get() != 0;
-				boolean spawnAtWaterLevel = bufferDecompressed.get() != 0;
-				boolean doReplaceBlocks = bufferDecompressed.get() != 0;
-				int heightOffset = bufferDecompressed.getInt();
-				boolean removeAir = bufferDecompressed.get() != 0;
-				String replaceAbove = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				String replaceBelow = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				boolean replaceWithBiomeBlocks = bufferDecompressed.get() != 0;
-				String replaceWithSurfaceBlock = StreamHelper.readStringFromBuffer(bufferDecompressed);				
-				String replaceWithGroundBlock = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				String replaceWithStoneBlock = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				int smoothRadius = bufferDecompressed.getInt();
-				int smoothHeightOffset = bufferDecompressed.getInt();
-				boolean smoothStartTop = bufferDecompressed.get() != 0;
-				boolean smoothStartWood = bufferDecompressed.get() != 0;
-				String smoothingSurfaceBlock = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				String smoothingGroundBlock = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				String bo3Group = StreamHelper.readStringFromBuffer(bufferDecompressed);
-				boolean isSpawnPoint = bufferDecompressed.get() != 0;		
-				boolean isCollidable = bufferDecompressed.get() != 0;
-				boolean useCenterForHighestBlock = bufferDecompressed.get() != 0;				
-			
-				HashMap<String, Integer> branchFrequencyGroups = new HashMap<String, Integer>();
-				if(branchFrequencyGroup != null && branchFrequencyGroup.trim().length() > 0)
+	private static <T> void addToPalette(ArrayList<T> palette, T value)
+	{
+		if(value != null && !palette.contains(value))
+		{
+			palette.add(value);
+		}
+	}
+
+	private BO4Config readFromBO4DataFile(boolean getBlocks, ILogger logger, IMaterialReader materialReader) throws InvalidConfigException
+	{
+		FileInputStream fis;
+		ByteBuffer bufferMapped = null;
+		try
+		{
+			fis = new FileInputStream(this.reader.getFile());
+			try
+			{
+				bufferMapped = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());
+				if(BO4DataV4.isBO4DataV4(bufferMapped))
 				{
-					String[] groupStrings = branchFrequencyGroup.split(",");
-					if(groupStrings != null && groupStrings.length > 0)
-					{
-						for(int i = 0; i < groupStrings.length; i++)
-						{
-							String[] groupString = groupStrings[i].trim().length() > 0 ? groupStrings[i].split(":") : null;
-							if(groupString != null && groupString.length == 2)
-							{
-								branchFrequencyGroups.put(groupString[0].trim(), Integer.parseInt(groupString[1].trim()));
-							}
-						}
-					}
+					readFromBO4DataV4(bufferMapped, getBlocks, logger, materialReader);
+				} else {
+					readFromBO4DataLegacy(bufferMapped, getBlocks, logger, materialReader);
 				}
-				
-				HashMap<String, Integer> bo4Groups = new HashMap<String, Integer>();
-				if(bo3Group != null && bo3Group.trim().length() > 0)
+			}
+			catch (Exception | Error e1)
+			{
+				// TODO: Should only need to close the reader?
+				if(bufferMapped != null)
+				{
+					bufferMapped.clear();
+				}
+				try {
+					fis.getChannel().close();
+				}
+				catch (IOException e)
 				{
-					String[] groupStrings = bo3Group.split(",");
-					if(groupStrings != null && groupStrings.length > 0)
+					e.printStackTrace();
+				}
+				try {
+					fis.close();
+				}
+				catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+				
+				e1.printStackTrace();
+				throw new InvalidConfigException("Could not read BO4Data file " + this.reader.getName() + ", it may be outdated or corrupted. Delete and re-export BO4Data files to fix this, or delete and reinstall your OTG preset.");
+			}
+
+			// When finished
+			
+			// TODO: Should only need to close the reader?
+			if(bufferMapped != null)
+			{
+				bufferMapped.clear();
+			}
+			try {
+				fis.getChannel().close();
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+			}
+			try {
+				fis.close();
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+			}
+		}
+		catch (FileNotFoundException e2)
+		{
+			e2.printStackTrace();
+			return null;
+		}
+
+		return this;
+	}
+
+	// Versions 2 and 3 are a single deflated blob, blocks are stored per column as
+	// separate block functions.
+	private void readFromBO4DataLegacy(ByteBuffer bufferMapped, boolean getBlocks, ILogger logger, IMaterialReader materialReader) throws IOException, InvalidConfigException, DataFormatException
+	{
+		byte[] compressedBytes = new byte[bufferMapped.remaining()];
+		bufferMapped.get(compressedBytes);
+		byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
+		ByteBuffer buffer = ByteBuffer.wrap(decompressedBytes);
+
+		int bo4DataVersion = buffer.getInt();
+		// Version 2 made breaking changes
+		if(bo4DataVersion < 2)
+		{
+			throw new InvalidConfigException("Could not read BO4Data file " + this.reader.getName() + ", it is outdated. Delete and re-export BO4Data files to fix this, or delete and reinstall your OTG preset.");
+		}
+		readSettingsFromBuffer(buffer, bo4DataVersion, logger, materialReader);
+
+		// Reconstruct blocks
+		if(getBlocks)
+		{
+			short metaDataNamesArrLength = buffer.getShort();
+			String[] metaDataNames = new String[metaDataNamesArrLength];
+			for(int i = 0; i < metaDataNamesArrLength; i++)
+			{
+				metaDataNames[i] = StreamHelper.readStringFromBuffer(buffer);
+			}
+			
+			short blocksArrArrLength = buffer.getShort();
+			LocalMaterialData[] blocksArr = new LocalMaterialData[blocksArrArrLength];
+			for(int i = 0; i < blocksArrArrLength; i++)
+			{
+				String materialName = StreamHelper.readStringFromBuffer(buffer);
+				try {
+					blocksArr[i] = materialReader.readMaterial(materialName);
+				} catch (InvalidConfigException e) {
+					if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
 					{
-						for(int i = 0; i < groupStrings.length; i++)
-						{
-							String[] groupString = groupStrings[i].trim().length() > 0 ? groupStrings[i].split(":") : null;
-							if(groupString != null && groupString.length == 2)
-							{
-								bo4Groups.put(groupString[0].trim(), Integer.parseInt(groupString[1].trim()));
-							}
-						}
+						logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not read material \"" + materialName + "\" for BO4 \"" + this.getName() + "\"");
+						e.printStackTrace();
 					}
-				}			
+				}
+			}
 							
-				ArrayList<String> mustBeInsideBranches = new ArrayList<String>();
-				if(mustBeInside != null && mustBeInside.trim().length() > 0)
+			short[][] columnSizes = new short[this.xSize][this.zSize];
+					
+			// TODO: This assumes that loading blocks in a different order won't matter, which may not be true?
+			// Anything that spawns on top, entities/spawners etc, should be spawned last tho, so shouldn't be a problem?
+			int nonRandomBlockCount = buffer.getInt();
+			int nonRandomBlockIndex = 0;
+			ArrayList<BO4BlockFunction> nonRandomBlocks = new ArrayList<BO4BlockFunction>();
+			if(nonRandomBlockCount > 0)
+			{
+				for(int x = this.getminX(); x < this.xSize; x++)
 				{
-					String[] mustBeInsideStrings = mustBeInside.split(",");
-					if(mustBeInsideStrings != null && mustBeInsideStrings.length > 0)
+					for(int z = this.getminZ(); z < this.zSize; z++)
 					{
-						for(int i = 0; i < mustBeInsideStrings.length; i++)
+						short blocksInColumnSize = buffer.getShort();
+						for(int j = 0; j < blocksInColumnSize; j++)
 						{
-							String mustBeInsideString = mustBeInsideStrings[i].trim();
-							if(mustBeInsideString.length() > 0)
+							columnSizes[x][z]++;
+							nonRandomBlocks.add(BO4BlockFunction.fromStream(x, z, metaDataNames, blocksArr, this, buffer, logger));
+							nonRandomBlockIndex++;
+							if(nonRandomBlockCount == nonRandomBlockIndex)
 							{
-								mustBeInsideBranches.add(mustBeInsideString);
+								break;
 							}
 						}
-					}
-				}
-				
-				ArrayList<String> cannotBeInsideBranches = new ArrayList<String>();
-				if(cannotBeInside != null && cannotBeInside.trim().length() > 0)
-				{
-					String[] cannotBeInsideStrings = cannotBeInside.split(",");
-					if(cannotBeInsideStrings != null && cannotBeInsideStrings.length > 0)
-					{
-						for(int i = 0; i < cannotBeInsideStrings.length; i++)
+						if(nonRandomBlockCount == nonRandomBlockIndex)
 						{
-							String cannotBeInsideString = cannotBeInsideStrings[i].trim();
-							if(cannotBeInsideString.length() > 0)
-							{
-								cannotBeInsideBranches.add(cannotBeInsideString);
-							}
+							break;
 						}
 					}
+					if(nonRandomBlockCount == nonRandomBlockIndex)
+					{
+						break;
+					}
 				}
-				
-				ArrayList<String> replacesBO3Branches = new ArrayList<String>();
-				if(replacesBO3 != null && replacesBO3.trim().length() > 0)
+			}				
+							
+			int randomBlockCount = buffer.getInt();
+			int randomBlockIndex = 0;
+			ArrayList<BO4RandomBlockFunction> randomBlocks = new ArrayList<BO4RandomBlockFunction>();
+			if(randomBlockCount > 0)
+			{
+				for(int x = this.getminX(); x < this.xSize; x++)
 				{
-					String[] replacesBO3Strings = replacesBO3.split(",");
-					if(replacesBO3Strings != null && replacesBO3Strings.length > 0)
+					for(int z = this.getminZ(); z < this.zSize; z++)
 					{
-						for(int i = 0; i < replacesBO3Strings.length; i++)
+						short blocksInColumnSize = buffer.getShort();
+						for(int j = 0; j < blocksInColumnSize; j++)
 						{
-							String replacesBO3String = replacesBO3Strings[i].trim();
-							if(replacesBO3String.length() > 0)
+							columnSizes[x][z]++;
+							randomBlocks.add(BO4RandomBlockFunction.fromStream(x, z, metaDataNames, blocksArr, this, buffer, logger));
+							randomBlockIndex++;
+							if(randomBlockCount == randomBlockIndex)
 							{
-								replacesBO3Branches.add(replacesBO3String);
+								break;
 							}
 						}
+						if(randomBlockCount == randomBlockIndex)
+						{
+							break;
+						}
 					}
-				}
-			
-				int branchesOTGPlusLength = bufferDecompressed.getInt();
-				boolean branchType;
-				BO4BranchFunction branch;
-				BO4BranchFunction[] branchesBO4 = new BO4BranchFunction[branchesOTGPlusLength];
-				for(int i = 0; i < branchesOTGPlusLength; i++)
-				{
-					branchType = bufferDecompressed.get() != 0;
-					if(branchType)
+					if(randomBlockCount == randomBlockIndex)
 					{
-						branch = BO4WeightedBranchFunction.fromStream(this, bufferDecompressed, logger, materialReader);
-					} else {
-						branch = BO4BranchFunction.fromStream(this, bufferDecompressed, logger, materialReader);
+						break;
 					}
-					branchesBO4[i] = branch;
 				}
-				
-				int entityDataOTGPlusLength = bufferDecompressed.getInt();
-				BO4EntityFunction[] entityDataBO4 = new BO4EntityFunction[entityDataOTGPlusLength];
-				for(int i = 0; i < entityDataOTGPlusLength; i++)
+			}
+							
+			ArrayList<BlockFunction<?>> newBlocks = new ArrayList<>();
+			newBlocks.addAll(nonRandomBlocks);
+			newBlocks.addAll(randomBlocks);
+			loadBlockArrays(newBlocks, columnSizes);
+		}
+	}
+
+	// Version 4 is read in place from the mapped file, see BO4DataV4 for the layout.
+	// Blocks are copied straight into the block arrays, without creating block functions.
+	private void readFromBO4DataV4(ByteBuffer bufferMapped, boolean getBlocks, ILogger logger, IMaterialReader materialReader) throws IOException, InvalidConfigException
+	{
+		BO4DataV4 header = BO4DataV4.readHeader(bufferMapped, this.reader.getName());
+		ByteBuffer buffer = bufferMapped.duplicate();
+		buffer.position(header.settingsOffset);
+		readSettingsFromBuffer(buffer, BO4DataV4.VERSION, logger, materialReader);
+		if(!getBlocks)
+		{
+			return;
+		}
+
+		buffer.position(header.paletteOffset);
+		short metaDataNamesLength = buffer.getShort();
+		String[] metaDataNames = new String[metaDataNamesLength];
+		NamedBinaryTag[] metaDataTags = new NamedBinaryTag[metaDataNamesLength];
+		for(int i = 0; i < metaDataNamesLength; i++)
+		{
+			metaDataNames[i] = StreamHelper.readStringFromBuffer(buffer);
+			metaDataTags[i] = NBTHelper.loadMetadata(metaDataNames[i], this.getFile(), logger);
+			if(metaDataTags[i] == null)
+			{
+				metaDataNames[i] = null;
+			}
+		}
+
+		short materialsLength = buffer.getShort();
+		LocalMaterialData[] materials = new LocalMaterialData[materialsLength];
+		for(int i = 0; i < materialsLength; i++)
+		{
+			String materialName = StreamHelper.readStringFromBuffer(buffer);
+			try {
+				materials[i] = materialReader.readMaterial(materialName);
+			} catch (InvalidConfigException e) {
+				if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
 				{
-					entityDataBO4[i] = BO4EntityFunction.fromStream(this, bufferDecompressed, logger);
+					logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not read material \"" + materialName + "\" for BO4 \"" + this.getName() + "\"");
+					e.printStackTrace();
 				}
+			}
+		}
 
-				// Legacy settings, hoping they were always 0 and noone actually used them :/.
-				bufferDecompressed.getInt(); // Used to be particles
-				bufferDecompressed.getInt(); // Used to be spawners
-				bufferDecompressed.getInt(); // Used to be moddata
-				//
-					
-				ArrayList<BlockFunction<?>> newBlocks = new ArrayList<>();
-				short[][] columnSizes = null;
-				
-				this.minX = minX;
-				this.maxX = maxX;
-				this.minY = minY;
-				this.maxY = maxY;
-				this.minZ = minZ;
-				this.maxZ = maxZ;
-				
-				// Reconstruct blocks
-				if(getBlocks)
+		int columnSizesOffset = header.getColumnSizesOffset();
+		int totalColumnSizes = 0;
+		for(int i = 0; i < BO4DataV4.COLUMNS; i++)
+		{
+			totalColumnSizes += bufferMapped.getShort(columnSizesOffset + i * 2);
+		}
+		if(totalColumnSizes != header.blockCount)
+		{
+			throw new InvalidConfigException("Could not read BO4Data file " + this.reader.getName() + ", it may be corrupted. Delete and re-export BO4Data files to fix this, or delete and reinstall your OTG preset.");
+		}
+
+		int blockCount = header.blockCount;
+		this.blocks = new short[this.xSize][this.zSize][];
+		this.blocksMaterial = new LocalMaterialData[blockCount];
+		this.blocksMetaDataName = new String[blockCount];
+		this.blocksMetaDataTag = new NamedBinaryTag[blockCount];
+		this.randomBlocksBlocks = new LocalMaterialData[blockCount][];
+		this.randomBlocksBlockChances = new byte[blockCount][];
+		this.randomBlocksMetaDataNames = new String[blockCount][];
+		this.randomBlocksMetaDataTags = new NamedBinaryTag[blockCount][];
+		this.randomBlocksBlockCount = new byte[blockCount];
+
+		int yOffset = header.getYOffset();
+		int materialOffset = header.getMaterialOffset();
+		int metaDataNameOffset = header.getMetaDataNameOffset();
+		int randomEntriesOffset = header.getRandomEntriesOffset();
+		int randomChanceOffset = header.getRandomChanceOffset();
+		int randomMaterialOffset = header.getRandomMaterialOffset();
+		int randomMetaDataNameOffset = header.getRandomMetaDataNameOffset();
+
+		int blockIndex = 0;
+		int randomEntryIndex = 0;
+		short columnSize;
+		short materialIndex;
+		short metaDataNameIndex;
+		byte randomEntries;
+		for(int x = 0; x < this.xSize; x++)
+		{
+			for(int z = 0; z < this.zSize; z++)
+			{
+				columnSize = bufferMapped.getShort(columnSizesOffset + (x * this.zSize + z) * 2);
+				this.blocks[x][z] = new short[columnSize];
+				for(int i = 0; i < columnSize; i++)
 				{
-					short metaDataNamesArrLength = bufferDecompressed.getShort();
-					String[] metaDataNames = new String[metaDataNamesArrLength];
-					for(int i = 0; i < metaDataNamesArrLength; i++)
+					this.blocks[x][z][i] = bufferMapped.getShort(yOffset + blockIndex * 2);
+					materialIndex = bufferMapped.getShort(materialOffset + blockIndex * 2);
+					if(materialIndex != -1)
 					{
-						metaDataNames[i] = StreamHelper.readStringFromBuffer(bufferDecompressed);
+						this.blocksMaterial[blockIndex] = materials[materialIndex];
 					}
-					
-					short blocksArrArrLength = bufferDecompressed.getShort();
-					LocalMaterialData[] blocksArr = new LocalMaterialData[blocksArrArrLength];
-					for(int i = 0; i < blocksArrArrLength; i++)
+					metaDataNameIndex = bufferMapped.getShort(metaDataNameOffset + blockIndex * 2);
+					if(metaDataNameIndex != -1)
 					{
-						String materialName = StreamHelper.readStringFromBuffer(bufferDecompressed);
-						try {
-							blocksArr[i] = materialReader.readMaterial(materialName);
-						} catch (InvalidConfigException e) {
-							if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
-							{
-								logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not read material \"" + materialName + "\" for BO4 \"" + this.getName() + "\"");
-								e.printStackTrace();
-							}
-						}
+						this.blocksMetaDataName[blockIndex] = metaDataNames[metaDataNameIndex];
+						this.blocksMetaDataTag[blockIndex] = metaDataTags[metaDataNameIndex];
 					}
-									
-					columnSizes = new short[this.xSize][this.zSize];
-							
-					// TODO: This assumes that loading blocks in a different order won't matter, which may not be true?
-					// Anything that spawns on top, entities/spawners etc, should be spawned last tho, so shouldn't be a problem?
-					int nonRandomBlockCount = bufferDecompressed.getInt();
-					int nonRandomBlockIndex = 0;
-					ArrayList<BO4BlockFunction> nonRandomBlocks = new ArrayList<BO4BlockFunction>();
-					if(nonRandomBlockCount > 0)
+
+					randomEntries = bufferMapped.get(randomEntriesOffset + blockIndex);
+					if(randomEntries > 0)
 					{
-						for(int x = this.getminX(); x < this.xSize; x++)
+						if(randomEntryIndex + randomEntries > header.randomEntryCount)
 						{
-							for(int z = this.getminZ(); z < this.zSize; z++)
-							{
-								short blocksInColumnSize = bufferDecompressed.getShort();
-								for(int j = 0; j < blocksInColumnSize; j++)
-								{
-									columnSizes[x][z]++;
-									nonRandomBlocks.add(BO4BlockFunction.fromStream(x, z, metaDataNames, blocksArr, this, bufferDecompressed, logger));
-									nonRandomBlockIndex++;
-									if(nonRandomBlockCount == nonRandomBlockIndex)
-									{
-										break;
-									}
-								}
-								if(nonRandomBlockCount == nonRandomBlockIndex)
-								{
-									break;
-								}
-							}
-							if(nonRandomBlockCount == nonRandomBlockIndex)
-							{
-								break;
-							}
+							throw new InvalidConfigException("Could not read BO4Data file " + this.reader.getName() + ", it may be corrupted. Delete and re-export BO4Data files to fix this, or delete and reinstall your OTG preset.");
 						}
-					}				
-									
-					int randomBlockCount = bufferDecompressed.getInt();
-					int randomBlockIndex = 0;
-					ArrayList<BO4RandomBlockFunction> randomBlocks = new ArrayList<BO4RandomBlockFunction>();
-					if(randomBlockCount > 0)
-					{
-						for(int x = this.getminX(); x < this.xSize; x++)
+						this.randomBlocksBlocks[blockIndex] = new LocalMaterialData[randomEntries];
+						this.randomBlocksBlockChances[blockIndex] = new byte[randomEntries];
+						this.randomBlocksMetaDataNames[blockIndex] = new String[randomEntries];
+						this.randomBlocksMetaDataTags[blockIndex] = new NamedBinaryTag[randomEntries];
+						this.randomBlocksBlockCount[blockIndex] = randomEntries;
+						for(int j = 0; j < randomEntries; j++)
 						{
-							for(int z = this.getminZ(); z < this.zSize; z++)
+							this.randomBlocksBlockChances[blockIndex][j] = bufferMapped.get(randomChanceOffset + randomEntryIndex);
+							materialIndex = bufferMapped.getShort(randomMaterialOffset + randomEntryIndex * 2);
+							if(materialIndex != -1)
 							{
-								short blocksInColumnSize = bufferDecompressed.getShort();
-								for(int j = 0; j < blocksInColumnSize; j++)
-								{
-									columnSizes[x][z]++;
-									randomBlocks.add(BO4RandomBlockFunction.fromStream(x, z, metaDataNames, blocksArr, this, bufferDecompressed, logger));
-									randomBlockIndex++;
-									if(randomBlockCount == randomBlockIndex)
-									{
-										break;
-									}
-								}
-								if(randomBlockCount == randomBlockIndex)
-								{
-									break;
-								}
+								this.randomBlocksBlocks[blockIndex][j] = materials[materialIndex];
 							}
-							if(randomBlockCount == randomBlockIndex)
+							metaDataNameIndex = bufferMapped.getShort(randomMetaDataNameOffset + randomEntryIndex * 2);
+							if(metaDataNameIndex != -1)
 							{
-								break;
+								this.randomBlocksMetaDataNames[blockIndex][j] = metaDataNames[metaDataNameIndex];
+								this.randomBlocksMetaDataTags[blockIndex][j] = metaDataTags[metaDataNameIndex];
 							}
+							randomEntryIndex++;
 						}
 					}
-									
-					newBlocks = new ArrayList<>();
-					newBlocks.addAll(nonRandomBlocks);
-					newBlocks.addAll(randomBlocks);				
+					blockIndex++;
 				}
+			}
+		}
+	}
 
-				this.isBO4Data = isBO4Data;
-				this.inheritedBO3Loaded = inheritedBO3Loaded;
-				this.minimumSizeTop = minimumSizeTop;
-				this.minimumSizeBottom = minimumSizeBottom;
-				this.minimumSizeLeft = minimumSizeLeft;
-				this.minimumSizeRight = minimumSizeRight;
-							
-				this.author = author;
-				this.description = description;
-				this.settingsMode = settingsMode;
-				this.frequency = frequency;
-				this.spawnHeight = spawnHeight;
-				this.minHeight = minHeight;
-				this.maxHeight = maxHeight;
-				this.inheritedBO3s = inheritedBO3s;
-							
-				this.inheritBO3 = inheritBO3;
-				this.inheritBO3Rotation = inheritBO3Rotation;
-				this.overrideChildSettings = overrideChildSettings;
-				this.overrideParentHeight = overrideParentHeight;
-				this.canOverride = canOverride;
-				this.branchFrequency = branchFrequency;
-				this.branchFrequencyGroup = branchFrequencyGroup;
-				this.mustBeBelowOther = mustBeBelowOther;
-				this.mustBeInsideWorldBorders = mustBeInsideWorldBorders;
-				this.mustBeInside = mustBeInside;
-				this.cannotBeInside = cannotBeInside;
-				this.replacesBO3 = replacesBO3;
-				this.canSpawnOnWater = canSpawnOnWater;
-				this.spawnOnWaterOnly = spawnOnWaterOnly;
-				this.spawnUnderWater = spawnUnderWater;
-				this.spawnAtWaterLevel = spawnAtWaterLevel;
-				this.doReplaceBlocks = doReplaceBlocks;
-				this.heightOffset = heightOffset;
-				this.removeAir = removeAir;
-				this.replaceAbove = replaceAbove;
-				this.replaceBelow = replaceBelow;
-				this.replaceWithBiomeBlocks = replaceWithBiomeBlocks;
-				this.replaceWithSurfaceBlock = replaceWithSurfaceBlock;				
-				this.replaceWithGroundBlock = replaceWithGroundBlock;
-				this.replaceWithStoneBlock = replaceWithStoneBlock;
-				this.smoothRadius = smoothRadius;
-				this.smoothHeightOffset = smoothHeightOffset;
-				this.smoothStartTop = smoothStartTop;
-				this.smoothStartWood = smoothStartWood;
-				this.smoothingSurfaceBlock = smoothingSurfaceBlock;
-				this.smoothingGroundBlock = smoothingGroundBlock;
-				this.bo3Group = bo3Group;
-				this.isSpawnPoint = isSpawnPoint;
-				this.isCollidable = isCollidable;
-				this.useCenterForHighestBlock = useCenterForHighestBlock;
-			
-				this.branchFrequencyGroups = branchFrequencyGroups;
-				this.bo4Groups = bo4Groups;							
-				this.mustBeInsideBranches = mustBeInsideBranches;			
-				this.cannotBeInsideBranches = cannotBeInsideBranches;			
-				this.replacesBO3Branches = replacesBO3Branches;
-							
-				this.branchesBO4 = branchesBO4;
-				this.entityDataBO4 = entityDataBO4;
+	// Reads everything but the blocks, shared by all .BO4Data versions.
+	private void readSettingsFromBuffer(ByteBuffer buffer, int bo4DataVersion, ILogger logger, IMaterialReader materialReader) throws IOException, InvalidConfigException
+	{
+		// Version 3 added fixedRotation
+		if(bo4DataVersion > 2)
+		{
+			String rotationString = StreamHelper.readStringFromBuffer(buffer);
+			this.fixedRotation = Rotation.getRotation(rotationString);
+		}
+		
+		int minimumSizeTop = buffer.getInt();
+		int minimumSizeBottom = buffer.getInt();
+		int minimumSizeLeft = buffer.getInt();
+		int minimumSizeRight = buffer.getInt();
+
+		int minX = buffer.getInt();
+		int maxX = buffer.getInt();
+		int minY = buffer.getInt();
+		int maxY = buffer.getInt();
+		int minZ = buffer.getInt();
+		int maxZ = buffer.getInt();
+
+		String author = StreamHelper.readStringFromBuffer(buffer);
+		String description = StreamHelper.readStringFromBuffer(buffer);
+		ConfigMode settingsMode = ConfigMode.valueOf(StreamHelper.readStringFromBuffer(buffer));
+		int frequency = buffer.getInt();
+		SpawnHeightEnum spawnHeight = SpawnHeightEnum.valueOf(StreamHelper.readStringFromBuffer(buffer));
+		int minHeight = buffer.getInt();
+		int maxHeight = buffer.getInt();
+		short inheritedBO3sSize = buffer.getShort();
+		ArrayList<String> inheritedBO3s = new ArrayList<String>();
+		for(int i = 0; i < inheritedBO3sSize; i++)
+		{
+			inheritedBO3s.add(StreamHelper.readStringFromBuffer(buffer));
+		}
 
-				// Reconstruct blocks
-				if(getBlocks)
+		String inheritBO3 = StreamHelper.readStringFromBuffer(buffer);
+		Rotation inheritBO3Rotation = Rotation.valueOf(StreamHelper.readStringFromBuffer(buffer));
+		boolean overrideChildSettings = buffer.get() != 0;
+		boolean overrideParentHeight = buffer.get() != 0;
+		boolean canOverride = buffer.get() != 0;
+		int branchFrequency = buffer.getInt();
+		String branchFrequencyGroup = StreamHelper.readStringFromBuffer(buffer);
+		boolean mustBeBelowOther = buffer.get() != 0;
+		boolean mustBeInsideWorldBorders = buffer.get() != 0;
+		String mustBeInside = StreamHelper.readStringFromBuffer(buffer);
+		String cannotBeInside = StreamHelper.readStringFromBuffer(buffer);
+		String replacesBO3 = StreamHelper.readStringFromBuffer(buffer);
+		boolean canSpawnOnWater = buffer.get() != 0;
+		boolean spawnOnWaterOnly = buffer.get() != 0;
+		boolean spawnUnderWater = buffer.get() != 0;
+		boolean spawnAtWaterLevel = buffer.get() != 0;
+		boolean doReplaceBlocks = buffer.get() != 0;
+		int heightOffset = buffer.getInt();
+		boolean removeAir = buffer.get() != 0;
+		String replaceAbove = StreamHelper.readStringFromBuffer(buffer);
+		String replaceBelow = StreamHelper.readStringFromBuffer(buffer);
+		boolean replaceWithBiomeBlocks = buffer.get() != 0;
+		String replaceWithSurfaceBlock = StreamHelper.readStringFromBuffer(buffer);				
+		String replaceWithGroundBlock = StreamHelper.readStringFromBuffer(buffer);
+		String replaceWithStoneBlock = StreamHelper.readStringFromBuffer(buffer);
+		int smoothRadius = buffer.getInt();
+		int smoothHeightOffset = buffer.getInt();
+		boolean smoothStartTop = buffer.get() != 0;
+		boolean smoothStartWood = buffer.get() != 0;
+		String smoothingSurfaceBlock = StreamHelper.readStringFromBuffer(buffer);
+		String smoothingGroundBlock = StreamHelper.readStringFromBuffer(buffer);
+		String bo3Group = StreamHelper.readStringFromBuffer(buffer);
+		boolean isSpawnPoint = buffer.get() != 0;		
+		boolean isCollidable = buffer.get() != 0;
+		boolean useCenterForHighestBlock = buffer.get() != 0;				
+	
+		HashMap<String, Integer> branchFrequencyGroups = new HashMap<String, Integer>();
+		if(branchFrequencyGroup != null && branchFrequencyGroup.trim().length() > 0)
+		{
+			String[] groupStrings = branchFrequencyGroup.split(",");
+			if(groupStrings != null && groupStrings.length > 0)
+			{
+				for(int i = 0; i < groupStrings.length; i++)
 				{
-					loadBlockArrays(newBlocks, columnSizes);
+					String[] groupString = groupStrings[i].trim().length() > 0 ? groupStrings[i].split(":") : null;
+					if(groupString != null && groupString.length == 2)
+					{
+						branchFrequencyGroups.put(groupString[0].trim(), Integer.parseInt(groupString[1].trim()));
+					}
 				}
 			}
-			catch (Exception | Error e1)
+		}
+		
+		HashMap<String, Integer> bo4Groups = new HashMap<String, Integer>();
+		if(bo3Group != null && bo3Group.trim().length() > 0)
+		{
+			String[] groupStrings = bo3Group.split(",");
+			if(groupStrings != null && groupStrings.length > 0)
 			{
-				// TODO: Should only need to close the reader?
-				if(bufferCompressed != null)
-				{
-					bufferCompressed.clear();
-				}
-				if(bufferDecompressed != null)
-				{
-					bufferDecompressed.clear();
-				}				
-				try {
-					fis.getChannel().close();
-				}
-				catch (IOException e)
-				{
-					e.printStackTrace();
-				}
-				try {
-					fis.close();
-				}
-				catch (IOException e)
+				for(int i = 0; i < groupStrings.length; i++)
 				{
-					e.printStackTrace();
+					String[] groupString = groupStrings[i].trim().length() > 0 ? groupStrings[i].split(":") : null;
+					if(groupString != null && groupString.length == 2)
+					{
+						bo4Groups.put(groupString[0].trim(), Integer.parseInt(groupString[1].trim()));
+					}
 				}
-				
-				e1.printStackTrace();
-				throw new InvalidConfigException("Could not read BO4Data file " + this.reader.getName() + ", it may be outdated or corrupted. Delete and re-export BO4Data files to fix this, or delete and reinstall your OTG preset.");
 			}
-
-			// When finished
-			
-			// TODO: Should only need to close the reader?
-			if(bufferCompressed != null)
+		}			
+					
+		ArrayList<String> mustBeInsideBranches = new ArrayList<String>();
+		if(mustBeInside != null && mustBeInside.trim().length() > 0)
+		{
+			String[] mustBeInsideStrings = mustBeInside.split(",");
+			if(mustBeInsideStrings != null && mustBeInsideStrings.length > 0)
 			{
-				bufferCompressed.clear();
+				for(int i = 0; i < mustBeInsideStrings.length; i++)
+				{
+					String mustBeInsideString = mustBeInsideStrings[i].trim();
+					if(mustBeInsideString.length() > 0)
+					{
+						mustBeInsideBranches.add(mustBeInsideString);
+					}
+				}
 			}
-			if(bufferDecompressed != null)
+		}
+		
+		ArrayList<String> cannotBeInsideBranches = new ArrayList<String>();
+		if(cannotBeInside != null && cannotBeInside.trim().length() > 0)
+		{
+			String[] cannotBeInsideStrings = cannotBeInside.split(",");
+			if(cannotBeInsideStrings != null && cannotBeInsideStrings.length > 0)
 			{
-				bufferDecompressed.clear();
-			}
-			try {
-				fis.getChannel().close();
+				for(int i = 0; i < cannotBeInsideStrings.length; i++)
+				{
+					String cannotBeInsideString = cannotBeInsideStrings[i].trim();
+					if(cannotBeInsideString.length() > 0)
+					{
+						cannotBeInsideBranches.add(cannotBeInsideString);
+					}
+				}
 			}
-			catch (IOException e)
+		}
+		
+		ArrayList<String> replacesBO3Branches = new ArrayList<String>();
+		if(replacesBO3 != null && replacesBO3.trim().length() > 0)
+		{
+			String[] replacesBO3Strings = replacesBO3.split(",");
+			if(replacesBO3Strings != null && replacesBO3Strings.length > 0)
 			{
-				e.printStackTrace();
-			}
-			try {
-				fis.close();
+				for(int i = 0; i < replacesBO3Strings.length; i++)
+				{
+					String replacesBO3String = replacesBO3Strings[i].trim();
+					if(replacesBO3String.length() > 0)
+					{
+						replacesBO3Branches.add(replacesBO3String);
+					}
+				}
 			}
-			catch (IOException e)
+		}
+	
+		int branchesOTGPlusLength = buffer.getInt();
+		boolean branchType;
+		BO4BranchFunction branch;
+		BO4BranchFunction[] branchesBO4 = new BO4BranchFunction[branchesOTGPlusLength];
+		for(int i = 0; i < branchesOTGPlusLength; i++)
+		{
+			branchType = buffer.get() != 0;
+			if(branchType)
 			{
-				e.printStackTrace();
+				branch = BO4WeightedBranchFunction.fromStream(this, buffer, logger, materialReader);
+			} else {
+				branch = BO4BranchFunction.fromStream(this, buffer, logger, materialReader);
 			}
+			branchesBO4[i] = branch;
 		}
-		catch (FileNotFoundException e2)
+		
+		int entityDataOTGPlusLength = buffer.getInt();
+		BO4EntityFunction[] entityDataBO4 = new BO4EntityFunction[entityDataOTGPlusLength];
+		for(int i = 0; i < entityDataOTGPlusLength; i++)
 		{
-			e2.printStackTrace();
-			return null;
+			entityDataBO4[i] = BO4EntityFunction.fromStream(this, buffer, logger);
 		}
 
-		return this;
-	}
+		// Legacy settings, hoping they were always 0 and noone actually used them :/.
+		buffer.getInt(); // Used to be particles
+		buffer.getInt(); // Used to be spawners
+		buffer.getInt(); // Used to be moddata
+		//
 			
+		this.minX = minX;
+		this.maxX = maxX;
+		this.minY = minY;
+		this.maxY = maxY;
+		this.minZ = minZ;
+		this.maxZ = maxZ;
+
+		this.isBO4Data = true;
+		this.inheritedBO3Loaded = true;
+		this.minimumSizeTop = minimumSizeTop;
+		this.minimumSizeBottom = minimumSizeBottom;
+		this.minimumSizeLeft = minimumSizeLeft;
+		this.minimumSizeRight = minimumSizeRight;
+					
+		this.author = author;
+		this.description = description;
+		this.settingsMode = settingsMode;
+		this.frequency = frequency;
+		this.spawnHeight = spawnHeight;
+		this.minHeight = minHeight;
+		this.maxHeight = maxHeight;
+		this.inheritedBO3s = inheritedBO3s;
+					
+		this.inheritBO3 = inheritBO3;
+		this.inheritBO3Rotation = inheritBO3Rotation;
+		this.overrideChildSettings = overrideChildSettings;
+		this.overrideParentHeight = overrideParentHeight;
+		this.canOverride = canOverride;
+		this.branchFrequency = branchFrequency;
+		this.branchFrequencyGroup = branchFrequencyGroup;
+		this.mustBeBelowOther = mustBeBelowOther;
+		this.mustBeInsideWorldBorders = mustBeInsideWorldBorders;
+		this.mustBeInside = mustBeInside;
+		this.cannotBeInside = cannotBeInside;
+		this.replacesBO3 = replacesBO3;
+		this.canSpawnOnWater = canSpawnOnWater;
+		this.spawnOnWaterOnly = spawnOnWaterOnly;
+		this.spawnUnderWater = spawnUnderWater;
+		this.spawnAtWaterLevel = spawnAtWaterLevel;
+		this.doReplaceBlocks = doReplaceBlocks;
+		this.heightOffset = heightOffset;
+		this.removeAir = removeAir;
+		this.replaceAbove = replaceAbove;
+		this.replaceBelow = replaceBelow;
+		this.replaceWithBiomeBlocks = replaceWithBiomeBlocks;
+		this.replaceWithSurfaceBlock = replaceWithSurfaceBlock;				
+		this.replaceWithGroundBlock = replaceWithGroundBlock;
+		this.replaceWithStoneBlock = replaceWithStoneBlock;
+		this.smoothRadius = smoothRadius;
+		this.smoothHeightOffset = smoothHeightOffset;
+		this.smoothStartTop = smoothStartTop;
+		this.smoothStartWood = smoothStartWood;
+		this.smoothingSurfaceBlock = smoothingSurfaceBlock;
+		this.smoothingGroundBlock = smoothingGroundBlock;
+		this.bo3Group = bo3Group;
+		this.isSpawnPoint = isSpawnPoint;
+		this.isCollidable = isCollidable;
+		this.useCenterForHighestBlock = useCenterForHighestBlock;
+	
+		this.branchFrequencyGroups = branchFrequencyGroups;
+		this.bo4Groups = bo4Groups;							
+		this.mustBeInsideBranches = mustBeInsideBranches;			
+		this.cannotBeInsideBranches = cannotBeInsideBranches;			
+		this.replacesBO3Branches = replacesBO3Branches;
+					
+		this.branchesBO4 = branchesBO4;
+		this.entityDataBO4 = entityDataBO4;
+	}
+
 	private void loadBlockArrays(List<BlockFunction<?>> newBlocks, short[][] columnSizes)
 	{
 		// Store blocks in arrays instead of BO4BlockFunctions,
@@ -30,6 +30,15 @@ public class BO4Data
 	}
 	
 	public static void generateBO4Data(BO4Config config, String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		generateBO4Data(config, false, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+	}
+
+	/**
+	 * @param uncompressed Writes the version 4 format, which is uncompressed and is read in place
+	 * when loading blocks. Files are bigger, but faster to load. Older versions of OTG can't read it.
+	 */
+	public static void generateBO4Data(BO4Config config, boolean uncompressed, String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
 		//write to disk
 		String filePath = 
@@ -45,12 +54,19 @@ public class BO4Data
 			try {
 				ByteArrayOutputStream bos = new ByteArrayOutputStream();
 				DataOutputStream dos = new DataOutputStream(bos);
-				config.writeToStream(dos, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-				byte[] compressedBytes = com.pg85.otg.util.CompressionUtils.compress(bos.toByteArray(), logger);
+				byte[] bytes;
+				if(uncompressed)
+				{
+					config.writeToStreamV4(dos, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+					bytes = bos.toByteArray();
+				} else {
+					config.writeToStream(dos, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+					bytes = com.pg85.otg.util.CompressionUtils.compress(bos.toByteArray(), logger);
+				}
 				dos.close();
 				FileOutputStream fos = new FileOutputStream(file);
 				DataOutputStream dos2 = new DataOutputStream(fos);
-				dos2.write(compressedBytes, 0, compressedBytes.length);
+				dos2.write(bytes, 0, bytes.length);
 				dos2.close();
 			}
 			catch (FileNotFoundException e)
@@ -0,0 +1,210 @@
+package com.pg85.otg.customobject.bo4;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.pg85.otg.interfaces.IMaterialReader;
+
+/**
+ * Caches BO4Configs with decoded block data for .BO4Data files, so spawning
+ * or smoothing the same branch doesn't re-read and inflate the file each time.
+ *
+ * Entries are keyed by file and material reader and are reloaded when the
+ * file's last modified time changes. The cache is limited by the estimated
+ * heap size of the cached block data, least recently used entries are
+ * evicted first. Loads are single-flight: when several threads request the
+ * same file at the same time, one thread decodes it and the others wait for
+ * the result.
+ */
+public class BO4DataCache
+{
+	private final long budget;
+	private final LinkedHashMap<Key, Entry> entries;
+	private long weight;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param budget Maximum estimated heap size of cached block data in bytes, 0 disables the cache.
+	 */
+	public BO4DataCache(long budget)
+	{
+		this.budget = budget;
+		// Access order, so iteration starts at the least recently used entry.
+		this.entries = new LinkedHashMap<Key, Entry>(64, 0.75f, true);
+	}
+
+	/**
+	 * Returns the decoded BO4Config for file, calling loader if it isn't cached
+	 * yet or the file has changed. Returns null if the loader returned null.
+	 */
+	BO4Config get(File file, IMaterialReader materialReader, BO4DataLoader loader)
+	{
+		if(this.budget <= 0)
+		{
+			return loader.load();
+		}
+
+		Key key = new Key(file.getAbsolutePath(), materialReader);
+		long lastModified = file.lastModified();
+		Entry entry;
+		boolean loading = false;
+		synchronized(this)
+		{
+			entry = this.entries.get(key);
+			if(entry == null || entry.lastModified != lastModified)
+			{
+				if(entry != null)
+				{
+					removeEntry(key, entry);
+				}
+				entry = new Entry(lastModified);
+				this.entries.put(key, entry);
+				loading = true;
+			}
+		}
+
+		if(!loading)
+		{
+			this.hits.increment();
+			return entry.config.join();
+		}
+
+		this.misses.increment();
+		BO4Config config = null;
+		try
+		{
+			config = loader.load();
+		} finally {
+			// Always complete the future, so threads waiting for this load never get stuck.
+			entry.config.complete(config);
+			synchronized(this)
+			{
+				if(this.entries.get(key) == entry)
+				{
+					if(config == null)
+					{
+						this.entries.remove(key);
+					} else {
+						entry.weight = config.estimateBlockDataSize();
+						this.weight += entry.weight;
+						evict();
+					}
+				}
+			}
+		}
+		return config;
+	}
+
+	public synchronized void clear()
+	{
+		this.entries.clear();
+		this.weight = 0;
+	}
+
+	public long getHits()
+	{
+		return this.hits.sum();
+	}
+
+	public long getMisses()
+	{
+		return this.misses.sum();
+	}
+
+	public long getEvictions()
+	{
+		return this.evictions.sum();
+	}
+
+	/**
+	 * The estimated heap size of all cached block data in bytes.
+	 */
+	public synchronized long getWeight()
+	{
+		return this.weight;
+	}
+
+	// Removes least recently used entries until the cache fits the budget.
+	// Entries that are still loading have no weight yet, removing them is
+	// harmless since waiting threads hold their future.
+	private void evict()
+	{
+		Iterator<Map.Entry<Key, Entry>> it = this.entries.entrySet().iterator();
+		while(this.weight > this.budget && it.hasNext())
+		{
+			Entry entry = it.next().getValue();
+			this.weight -= entry.weight;
+			it.remove();
+			this.evictions.increment();
+		}
+	}
+
+	private void removeEntry(Key key, Entry entry)
+	{
+		this.weight -= entry.weight;
+		this.entries.remove(key);
+	}
+
+	@FunctionalInterface
+	interface BO4DataLoader
+	{
+		/**
+		 * Reads a BO4Config and its blocks from a .BO4Data file, returns null on failure.
+		 */
+		BO4Config load();
+	}
+
+	private static final class Entry
+	{
+		private final long lastModified;
+		private final CompletableFuture<BO4Config> config = new CompletableFuture<BO4Config>();
+		private long weight;
+
+		private Entry(long lastModified)
+		{
+			this.lastModified = lastModified;
+		}
+	}
+
+	// Material readers are per preset and may resolve the same materials
+	// differently, so files are cached separately per reader.
+	private static final class Key
+	{
+		private final String path;
+		private final IMaterialReader materialReader;
+
+		private Key(String path, IMaterialReader materialReader)
+		{
+			this.path = path;
+			this.materialReader = materialReader;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if(this == other)
+			{
+				return true;
+			}
+			if(!(other instanceof Key))
+			{
+				return false;
+			}
+			Key key = (Key)other;
+			return this.materialReader == key.materialReader && this.path.equals(key.path);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * this.path.hashCode() + System.identityHashCode(this.materialReader);
+		}
+	}
+}
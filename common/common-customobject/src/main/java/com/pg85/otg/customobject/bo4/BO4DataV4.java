@@ -0,0 +1,135 @@
+package com.pg85.otg.customobject.bo4;
+
+import java.nio.ByteBuffer;
+
+import com.pg85.otg.exceptions.InvalidConfigException;
+
+/**
+ * Layout of version 4 .BO4Data files. Unlike versions 2 and 3, which are a
+ * single deflated blob, version 4 files are uncompressed so they can be
+ * memory-mapped and read in place. Only the settings are read when loading
+ * a BO4, blocks are read straight from the mapped file when needed.
+ *
+ * All values are big-endian, offsets are in bytes from the start of the file.
+ *
+ * Header (HEADER_SIZE bytes):
+ *   int magic, int version, int settingsOffset, int paletteOffset,
+ *   int blocksOffset, int randomBlocksOffset, int blockCount, int randomEntryCount
+ *
+ * Settings: Same as version 3, without the version.
+ *
+ * Palette:
+ *   short metaDataNameCount, metaDataNameCount strings,
+ *   short materialCount, materialCount strings
+ *
+ * Blocks, ordered per column (x, then z), columnar:
+ *   short[256] columnSizes, short[blockCount] y, short[blockCount] material,
+ *   short[blockCount] metaDataName, byte[blockCount] randomEntries
+ *
+ * Random blocks, entries for all blocks with randomEntries > 0 in block order, columnar:
+ *   byte[randomEntryCount] chance, short[randomEntryCount] material,
+ *   short[randomEntryCount] metaDataName
+ *
+ * Material and metaDataName are palette indices, -1 for none.
+ */
+class BO4DataV4
+{
+	static final int VERSION = 4;
+	// "OTG4", can't be mistaken for the zlib header that starts older files.
+	static final int MAGIC = 0x4F544734;
+	static final int HEADER_SIZE = 8 * 4;
+	static final int COLUMNS = 16 * 16;
+
+	final int settingsOffset;
+	final int paletteOffset;
+	final int blocksOffset;
+	final int randomBlocksOffset;
+	final int blockCount;
+	final int randomEntryCount;
+
+	private BO4DataV4(int settingsOffset, int paletteOffset, int blocksOffset, int randomBlocksOffset, int blockCount, int randomEntryCount)
+	{
+		this.settingsOffset = settingsOffset;
+		this.paletteOffset = paletteOffset;
+		this.blocksOffset = blocksOffset;
+		this.randomBlocksOffset = randomBlocksOffset;
+		this.blockCount = blockCount;
+		this.randomEntryCount = randomEntryCount;
+	}
+
+	static boolean isBO4DataV4(ByteBuffer buffer)
+	{
+		return buffer.limit() >= HEADER_SIZE && buffer.getInt(0) == MAGIC;
+	}
+
+	static BO4DataV4 readHeader(ByteBuffer buffer, String name) throws InvalidConfigException
+	{
+		int version = buffer.getInt(4);
+		if(version != VERSION)
+		{
+			throw new InvalidConfigException("Could not read BO4Data file " + name + ", unknown version " + version + ". Delete and re-export BO4Data files to fix this, or update OTG.");
+		}
+		BO4DataV4 header = new BO4DataV4(buffer.getInt(8), buffer.getInt(12), buffer.getInt(16), buffer.getInt(20), buffer.getInt(24), buffer.getInt(28));
+		if(
+			header.blockCount < 0 || header.randomEntryCount < 0 ||
+			header.randomBlocksOffset != header.blocksOffset + getBlocksSize(header.blockCount) ||
+			header.randomBlocksOffset + getRandomBlocksSize(header.randomEntryCount) > buffer.limit()
+		)
+		{
+			throw new InvalidConfigException("Could not read BO4Data file " + name + ", it may be corrupted. Delete and re-export BO4Data files to fix this, or delete and reinstall your OTG preset.");
+		}
+		return header;
+	}
+
+	static int getBlocksSize(int blockCount)
+	{
+		return COLUMNS * 2 + blockCount * (2 + 2 + 2 + 1);
+	}
+
+	static int getRandomBlocksSize(int randomEntryCount)
+	{
+		return randomEntryCount * (1 + 2 + 2);
+	}
+
+	// Offsets of the columnar arrays
+
+	int getColumnSizesOffset()
+	{
+		return this.blocksOffset;
+	}
+
+	int getYOffset()
+	{
+		return this.blocksOffset + COLUMNS * 2;
+	}
+
+	int getMaterialOffset()
+	{
+		return getYOffset() + this.blockCount * 2;
+	}
+
+	int getMetaDataNameOffset()
+	{
+		return getMaterialOffset() + this.blockCount * 2;
+	}
+
+	int getRandomEntriesOffset()
+	{
+		return getMetaDataNameOffset() + this.blockCount * 2;
+	}
+
+	int getRandomChanceOffset()
+	{
+		return this.randomBlocksOffset;
+	}
+
+	int getRandomMaterialOffset()
+	{
+		return this.randomBlocksOffset + this.randomEntryCount;
+	}
+
+	int getRandomMetaDataNameOffset()
+	{
+		return getRandomMaterialOffset() + this.randomEntryCount * 2;
+	}
+}
@@ -13,7 +13,6 @@ import com.pg85.otg.interfaces.IWorldGenRegion;
 import com.pg85.otg.util.biome.ReplaceBlockMatrix;
 import com.pg85.otg.util.nbt.NamedBinaryTag;
 import com.pg85.otg.util.materials.LocalMaterialData;
-import com.pg85.otg.util.minecraft.BlockNames;
 
 /**
  * Represents a block in a BO3.
@@ -43,25 +42,10 @@ public abstract class BlockFunction<T extends CustomObjectConfigFile> extends Cu
 
 		if (args.size() >= 5)
 		{
-			// Code that converts legacy block ids inside chests - Frank
+			// Legacy block ids inside chests are converted by NBTHelper when the file is loaded.
 			nbt = NBTHelper.loadMetadata(args.get(4), getHolder().getFile(), logger);
 			if (nbt != null)
 			{
-				if (nbt.getTag("Items") != null) {
-					for (NamedBinaryTag item : (NamedBinaryTag[]) nbt.getTag("Items").getValue()) {
-						if (item.getTag("id").getType() == NamedBinaryTag.Type.TAG_Short) {
-							short val = (short)item.getTag("id").getValue();
-							item.removeSubTag(item.getTag("id"));
-							NamedBinaryTag[] newItemValue = new NamedBinaryTag[((NamedBinaryTag[])item.getValue()).length + 1];
-							System.arraycopy(item.getValue(), 0, newItemValue, 0, newItemValue.length - 1);
-							String strVal = "minecraft:" + BlockNames.blockNameFromLegacyBlockId(val);
-							newItemValue[newItemValue.length-2] = new NamedBinaryTag(NamedBinaryTag.Type.TAG_String, "id", strVal);
-							newItemValue[newItemValue.length-1] = new NamedBinaryTag(NamedBinaryTag.Type.TAG_End, "", null);
-							item.setValue(newItemValue);
-						}
-					}
-				}
-
 				if (nbt.getTag("SkullType") != null) {
 					byte val = (byte)nbt.getTag("SkullType").getValue();
 					switch ((int)val) {
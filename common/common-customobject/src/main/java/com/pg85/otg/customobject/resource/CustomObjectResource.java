@@ -52,6 +52,12 @@ public class CustomObjectResource extends BiomeResourceBase implements ICustomOb
 		}
 	}	
 	
+	@Override
+	public void preloadObjects(String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		getObjects(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+	}
+
 	private List<CustomObject> getObjects(String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
 		if(this.objects.isEmpty() && !this.objectNames.isEmpty())
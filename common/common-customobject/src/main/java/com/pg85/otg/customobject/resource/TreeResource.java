@@ -101,6 +101,12 @@ public class TreeResource extends BiomeResourceBase implements ICustomObjectReso
 		}
 	}
 	
+	@Override
+	public void preloadObjects(String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		loadTrees(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+	}
+
 	// TODO: Could this cause problems for developer mode / flushcache, trees not updating during a session?
 	private void loadTrees(String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
@@ -26,7 +26,6 @@ import com.pg85.otg.util.logging.LogLevel;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
@@ -37,6 +36,9 @@ import java.util.Random;
  */
 public class CustomStructureCache
 {
+	// Regions of worldInfoChunks kept in memory, least recently used regions are unloaded when saving.
+	private static final int MAX_LOADED_REGIONS = 64;
+
 	private final Path worldSaveDir;
 	private final boolean isBO4Enabled;
 	private final String presetFolderName;
@@ -55,15 +57,15 @@ public class CustomStructureCache
 	// WorldInfoChunks holds info on all chunks that had structures plotted on them for this world. 
 	// Used for /otg structure and spawners/particles/moddata for BO structures and objects.
 	// For BO4's this is also used used to avoid resources like lakes spawning on structures.
-	// WorldInfoChunks is persisted to disk, the bo4 plotter's structurecache (of plotted but
-	// not yet decorated branches) is assembled from WorldInfoChunks when loaded from disk.
+	// WorldInfoChunks is persisted to disk per region and loaded on demand, the bo4 plotter's
+	// structurecache (of plotted but not yet decorated branches) is assembled from each region
+	// of WorldInfoChunks when it's loaded from disk.
 	// WorldInfoChunks is used as little as possible, due to its size and slowness.
-	private Map<ChunkCoordinate, StructureDataRegion> worldInfoChunks;
+	private RegionDataCache<StructureDataRegion> worldInfoChunks;
 	
 	public CustomStructureCache(String presetFolderName, Path worldSaveDir, long worldSeed, boolean isBO4Enabled, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
-		this.worldInfoChunks = new HashMap<ChunkCoordinate, StructureDataRegion>();
-		this.plotter = new CustomStructurePlotter();
+		this.plotter = new CustomStructurePlotter(regionCoord -> this.worldInfoChunks.get(regionCoord));
 		this.bo3StructureCache = new FifoMap<ChunkCoordinate, BO3CustomStructure>(400);
 		this.worldSaveDir = worldSaveDir;
 		this.isBO4Enabled = isBO4Enabled;
@@ -95,18 +97,14 @@ public class CustomStructureCache
 	private void addToWorldInfoChunks(CustomStructure structure, ChunkCoordinate chunkCoordinate, boolean requiresSave)
 	{
 		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();
-		StructureDataRegion chunkRegion = this.worldInfoChunks.get(regionCoord);
-		if(chunkRegion == null)
-		{
-			chunkRegion = new StructureDataRegion();
-			this.worldInfoChunks.put(regionCoord, chunkRegion);
-		}
+		StructureDataRegion chunkRegion = this.worldInfoChunks.getOrCreate(regionCoord, StructureDataRegion::new);
 		chunkRegion.setStructure(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ(), structure, requiresSave);
 	}
 
 	public void markRegionForSaving(ChunkCoordinate regionCoordinate)
 	{
-		StructureDataRegion region = this.worldInfoChunks.get(regionCoordinate);
+		// Regions that aren't loaded haven't changed.
+		StructureDataRegion region = this.worldInfoChunks.getIfLoaded(regionCoordinate);
 		if(region != null)
 		{
 			region.markSaveRequired();
@@ -234,21 +232,15 @@ public class CustomStructureCache
 	{
 		if(this.isBO4Enabled)
 		{
-			return this.worldInfoChunks.containsKey(chunkCoord);
+			return this.worldInfoChunks.isLoaded(chunkCoord);
 		}
 		return false;
 	}
 	
 	// Only used by ChunkDecorator during decoration
-	public void plotBo4Structures(IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	public void plotAndSpawnBo4Structures(IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
-		plotter.plotStructures(this, worldGenRegion, rand, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-	}
-
-	// Only used by ChunkDecorator during decoration
-	public void spawnBo4Chunk(IWorldGenRegion worldGenRegion, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
-	{
-		this.plotter.spawnBO4Chunk(chunkCoord, this, worldGenRegion, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+		this.plotter.plotAndSpawnStructures(this, worldGenRegion, rand, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
 	}
 	
 	// Only used by /spawn command	
@@ -259,47 +251,69 @@ public class CustomStructureCache
 
 	// Persistence - WorldInfoChunks for BO3+BO4, plotter structurecache for BO4
 
+	/**
+	 * Saves any changed structure and plotting data. Decoration is paused
+	 * only while the data is serialized, the files are queued for writing
+	 * once decoration has resumed and are compressed and written on a
+	 * background thread, see StructureDataWriter. Saved regions that haven't
+	 * been used recently are unloaded afterwards.
+	 */
 	public void saveToDisk(ILogger logger, IChunkDecorator chunkPopulator)
 	{
 		logger.log(LogLevel.INFO, LogCategory.MAIN, "Saving structure and pregenerator data.");
-		boolean firstLog = false;
 		long starTime = System.currentTimeMillis();
-		while(true)
+		int interval = 300;
+		synchronized(chunkPopulator.getLockingObject())
 		{
-			// TODO: Make this prettier
-			synchronized(chunkPopulator.getLockingObject())
+			// Block new decoration and wait for any running decoration to finish.
+			chunkPopulator.beginSave();
+			while(chunkPopulator.isDecorating())
 			{
-				if(!chunkPopulator.isDecorating())
+				long timeLeft = (interval * 1000) - (System.currentTimeMillis() - starTime);
+				if(timeLeft <= 0)
 				{
-					chunkPopulator.beginSave();
-					break;
+					chunkPopulator.endSave();
+					logger.log(LogLevel.FATAL, LogCategory.MAIN, "SaveToDisk waited on decorate longer than " + interval + " seconds, something went wrong!");
+					throw new RuntimeException("SaveToDisk waited on decorate longer than " + interval + " seconds, something went wrong!");
+				}
+				try
+				{
+					chunkPopulator.getLockingObject().wait(timeLeft);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					chunkPopulator.endSave();
+					return;
 				}
-			}
-			if(firstLog)
-			{
-				logger.log(LogLevel.WARN, LogCategory.MAIN, "SaveToDisk waiting on Populate. Although other mods could be causing this and there may not be any problem, this can potentially cause an endless loop!");
-				firstLog = false;
-			}
-			int interval = 300;
-			if(System.currentTimeMillis() - starTime > (interval * 1000))
-			{
-				logger.log(LogLevel.FATAL, LogCategory.MAIN, "SaveToDisk waited on decorate longer than " + interval + " seconds, something went wrong!");
-				throw new RuntimeException("SaveToDisk waited on decorate longer than " + interval + " seconds, something went wrong!");
 			}
 		}
 
-		saveStructureCache(logger);
-
-		synchronized(chunkPopulator.getLockingObject())
+		StructureDataWriter.beginBatch();
+		try
 		{
-			chunkPopulator.endSave();
+			saveStructureCache(logger);
+		} finally {
+			synchronized(chunkPopulator.getLockingObject())
+			{
+				chunkPopulator.endSave();
+			}
+			// Waiting for the writer when its queue is full doesn't hold up decoration.
+			StructureDataWriter.endBatch();
 		}
-		logger.log(LogLevel.INFO, LogCategory.MAIN, "Structure and pregenerator data saved.");
+		logger.log(LogLevel.INFO, LogCategory.MAIN, "Structure and pregenerator data queued for saving.");
 	}
 
 	private void saveStructureCache(ILogger logger)
 	{
-		CustomStructureFileManager.saveStructureData(this.worldInfoChunks, this.presetFolderName, this.worldSaveDir, logger);
+		CustomStructureFileManager.saveStructureData(this.worldInfoChunks.getLoadedRegions(), this.presetFolderName, this.worldSaveDir, logger);
+		this.worldInfoChunks.saveRegionIndex(logger);
+		for(ChunkCoordinate regionCoord : this.worldInfoChunks.evictRegions())
+		{
+			// Unspawned structure parts are added to the plotter again when the region is loaded.
+			if(this.isBO4Enabled)
+			{
+				this.plotter.removeStructureCacheRegion(regionCoord);
+			}
+		}
 		
 		if(this.isBO4Enabled)
 		{
@@ -311,16 +325,30 @@ public class CustomStructureCache
 	{		
 		logger.log(LogLevel.INFO, LogCategory.MAIN, "Loading structure data");
 
-		this.worldInfoChunks = new HashMap<ChunkCoordinate, StructureDataRegion>();
-		
-		Map<CustomStructure, ArrayList<ChunkCoordinate>> loadedStructures = CustomStructureFileManager.loadStructureData(this.presetFolderName, this.worldSaveDir, this.worldSeed, this.isBO4Enabled, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-		if(loadedStructures != null)
+		// Only the region indexes are loaded here, regions are loaded when they're first used.
+		this.worldInfoChunks = new RegionDataCache<StructureDataRegion>(
+			CustomStructureFileManager.getStructureDataFolder(this.worldSaveDir, this.presetFolderName),
+			MAX_LOADED_REGIONS,
+			regionCoord -> loadStructureDataRegion(regionCoord, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker),
+			StructureDataRegion::requiresSave,
+			logger
+		);
+
+		if(this.isBO4Enabled)
 		{
-			if(this.isBO4Enabled)
-			{
-				this.plotter.loadStructureCache(this.worldSaveDir, this.presetFolderName, this.isBO4Enabled, loadedStructures, logger);
-			}
+			this.plotter.loadStructureCache(this.worldSaveDir, this.presetFolderName, this.isBO4Enabled, logger);
+		}
+
+		logger.log(LogLevel.INFO, LogCategory.MAIN, "Loading done");
+	}
 
+	// Called by worldInfoChunks the first time a region is used, may be called from multiple threads.
+	private StructureDataRegion loadStructureDataRegion(ChunkCoordinate regionCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		StructureDataRegion region = new StructureDataRegion();
+		Map<CustomStructure, ArrayList<ChunkCoordinate>> loadedStructures = CustomStructureFileManager.loadStructureRegion(regionCoord, this.presetFolderName, this.worldSaveDir, this.worldSeed, this.isBO4Enabled, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+		if(loadedStructures != null)
+		{
 			for(Entry<CustomStructure, ArrayList<ChunkCoordinate>> loadedStructure : loadedStructures.entrySet())
 			{
 				if(loadedStructure == null)
@@ -330,11 +358,14 @@ public class CustomStructureCache
 
 				for(ChunkCoordinate chunkCoord : loadedStructure.getValue())
 				{
-					addToWorldInfoChunks(loadedStructure.getKey(), chunkCoord, false);
+					region.setStructure(chunkCoord.getRegionInternalX(), chunkCoord.getRegionInternalZ(), loadedStructure.getKey(), false);
+				}
+				if(this.isBO4Enabled)
+				{
+					this.plotter.addLoadedStructure((BO4CustomStructure)loadedStructure.getKey());
 				}
 			}
 		}
-
-		logger.log(LogLevel.INFO, LogCategory.MAIN, "Loading done");
+		return region;
 	}
 }
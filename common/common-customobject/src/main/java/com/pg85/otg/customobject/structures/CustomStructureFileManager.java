@@ -1,22 +1,24 @@
 package com.pg85.otg.customobject.structures;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 import java.util.Map.Entry;
+import java.util.zip.InflaterInputStream;
 
 import com.pg85.otg.constants.Constants;
 import com.pg85.otg.customobject.CustomObjectManager;
@@ -39,6 +41,14 @@ import com.pg85.otg.util.logging.LogLevel;
 
 public class CustomStructureFileManager
 {
+	// Version 2 files pack plotted chunks into bits, and write structure data with a 
+	// string table and region-relative coords. Version 1 files are still read, and
+	// are saved again as version 2 when loaded.
+	private static final int PLOTTED_CHUNKS_FILE_VERSION = 2;
+	private static final int STRUCTURE_DATA_FILE_VERSION = 2;
+	// String table indexes are written as unsigned shorts.
+	private static final int MAX_STRING_INDEX = 0xFFFF;
+
 	// Plotted chunks
 	
 	public static void savePlottedChunksData(Path worldSaveDir, String presetFolderName, Map<ChunkCoordinate, PlottedChunksRegion> decoratedChunks, ILogger logger)
@@ -55,87 +65,7 @@ public class CustomStructureFileManager
 				chunkPerRegionEntry.getValue().markSaved();
 				regionsSaved++;
 				
-				File occupiedChunksFile = new File(
-					worldSaveDir + File.separator + 
-					Constants.MOD_ID + File.separator + 
-					presetFolderName + File.separator +
-					Constants.PlottedChunksDataFolderName + File.separator +
-					chunkPerRegionEntry.getKey().getChunkX() + "_" +
-					chunkPerRegionEntry.getKey().getChunkZ() +
-					Constants.StructureDataFileExtension
-				);
-				File occupiedChunksBackupFile = new File(
-					worldSaveDir + File.separator + 
-					Constants.MOD_ID + File.separator + 
-					presetFolderName + File.separator +
-					Constants.PlottedChunksDataFolderName + File.separator +
-					chunkPerRegionEntry.getKey().getChunkX() + "_" +
-					chunkPerRegionEntry.getKey().getChunkZ() +					
-					Constants.StructureDataBackupFileExtension
-				);
-				
-				ByteArrayOutputStream bos = new ByteArrayOutputStream();
-				DataOutputStream dos = new DataOutputStream(bos);
-				
-				boolean[][] entriesByStructureName = chunkPerRegionEntry.getValue().getArray();
-				try
-				{
-					int version = 1;
-					dos.writeInt(version);
-					dos.writeInt(Constants.REGION_SIZE);
-
-					for(int x = 0; x < Constants.REGION_SIZE; x++)
-					{
-						boolean[] structureArr = entriesByStructureName[x];
-						for(int z = 0; z < Constants.REGION_SIZE; z++)
-						{
-							dos.writeBoolean(structureArr[z]);
-						}
-					}
-				} catch (IOException e1) {
-					e1.printStackTrace();
-					return;
-				}
-
-				DataOutputStream dos2 = null;
-				FileOutputStream fos = null;
-				try {
-					if(!occupiedChunksFile.exists())
-					{
-						occupiedChunksFile.getParentFile().mkdirs();
-					} else {
-						Files.move(occupiedChunksFile.toPath(), occupiedChunksBackupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-					}
-					byte[] compressedBytes = com.pg85.otg.util.CompressionUtils.compress(bos.toByteArray(), logger);
-					dos.close();
-					fos = new FileOutputStream(occupiedChunksFile);
-					dos2 = new DataOutputStream(fos);
-					dos2.write(compressedBytes, 0, compressedBytes.length);
-				}
-				catch (IOException e)
-				{
-					e.printStackTrace();
-					logger.log(LogLevel.ERROR, LogCategory.MAIN, "OTG encountered an error writing " + occupiedChunksFile.getAbsolutePath() + ", skipping.");
-				} finally {
-					try {
-						if(dos != null)
-						{
-							dos.close();
-						}
-					} catch (Exception e) { }
-					try {
-						if(dos2 != null)
-						{
-							dos2.close();
-						}
-					} catch (Exception e) { }
-					try {
-						if(fos != null)
-						{
-							fos.close();
-						}
-					} catch (Exception e) { }
-				}
+				savePlottedChunksRegionFile(worldSaveDir, presetFolderName, chunkPerRegionEntry.getKey(), chunkPerRegionEntry.getValue(), logger);
 			}
 		}
 		
@@ -144,209 +74,146 @@ public class CustomStructureFileManager
 			logger.log(LogLevel.INFO, LogCategory.STRUCTURE_PLOTTING, regionsSaved + " plotted chunk regions saved.");
 		}
 	}
-	
-	public static Map<ChunkCoordinate, PlottedChunksRegion> loadPlottedChunksData(Path worldSaveDir, String presetFolderName, ILogger logger)
+
+	private static void savePlottedChunksRegionFile(Path worldSaveDir, String presetFolderName, ChunkCoordinate regionCoord, PlottedChunksRegion region, ILogger logger)
 	{
-		HashMap<ChunkCoordinate, PlottedChunksRegion> output = new HashMap<ChunkCoordinate, PlottedChunksRegion>();
+		File occupiedChunksFile = new File(
+			getPlottedChunksFolder(worldSaveDir, presetFolderName),
+			regionCoord.getChunkX() + "_" +
+			regionCoord.getChunkZ() +
+			Constants.StructureDataFileExtension
+		);
+		File occupiedChunksBackupFile = new File(
+			getPlottedChunksFolder(worldSaveDir, presetFolderName),
+			regionCoord.getChunkX() + "_" +
+			regionCoord.getChunkZ() +
+			Constants.StructureDataBackupFileExtension
+		);
+		
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(bos);
 		
-		File occupiedChunksFolder = new File(
+		// Plotted chunks are packed into bits, indexed as [x * REGION_SIZE + z].
+		boolean[][] plottedChunks = region.getArray();
+		BitSet plottedChunkBits = new BitSet(Constants.REGION_SIZE * Constants.REGION_SIZE);
+		for(int x = 0; x < Constants.REGION_SIZE; x++)
+		{
+			for(int z = 0; z < Constants.REGION_SIZE; z++)
+			{
+				if(plottedChunks[x][z])
+				{
+					plottedChunkBits.set(x * Constants.REGION_SIZE + z);
+				}
+			}
+		}
+		try
+		{
+			dos.writeInt(PLOTTED_CHUNKS_FILE_VERSION);
+			dos.writeInt(Constants.REGION_SIZE);
+			byte[] bytes = plottedChunkBits.toByteArray();
+			dos.writeInt(bytes.length);
+			dos.write(bytes);
+		} catch (IOException e1) {
+			e1.printStackTrace();
+			return;
+		}
+
+		StructureDataWriter.write(occupiedChunksFile, occupiedChunksBackupFile, bos.toByteArray(), logger);
+	}
+	
+	public static File getPlottedChunksFolder(Path worldSaveDir, String presetFolderName)
+	{
+		return new File(
 			worldSaveDir + File.separator + 
 			Constants.MOD_ID + File.separator + 
 			presetFolderName + File.separator +
 			Constants.PlottedChunksDataFolderName + File.separator
 		);
+	}
+
+	public static PlottedChunksRegion loadPlottedChunksRegion(Path worldSaveDir, String presetFolderName, ChunkCoordinate regionCoord, ILogger logger)
+	{
+		File occupiedChunksFile = new File(
+			getPlottedChunksFolder(worldSaveDir, presetFolderName),
+			regionCoord.getChunkX() + "_" +
+			regionCoord.getChunkZ() +
+			Constants.StructureDataFileExtension
+		);
+		File occupiedChunksBackupFile = new File(
+			getPlottedChunksFolder(worldSaveDir, presetFolderName),
+			regionCoord.getChunkX() + "_" +
+			regionCoord.getChunkZ() +
+			Constants.StructureDataBackupFileExtension
+		);
 
-		HashMap<File, File> saveFiles = new HashMap<File, File>();
-		ArrayList<File> mainFiles = new ArrayList<File>();
-		ArrayList<File> backupFiles = new ArrayList<File>();
-		if(occupiedChunksFolder.exists())
+		if(structureDataFileExists(occupiedChunksFile))
 		{
-			for(File file : occupiedChunksFolder.listFiles())
+			try
 			{
-				if(
-					file.getPath().endsWith(Constants.StructureDataFileExtension) && 
-					file.getName().replace(Constants.StructureDataFileExtension, "").split("_").length == 2 &&
-					MathHelper.tryParseInt(file.getName().replace(Constants.StructureDataFileExtension, "").split("_")[0]) &&
-					MathHelper.tryParseInt(file.getName().replace(Constants.StructureDataFileExtension, "").split("_")[1])
-				) {
-					mainFiles.add(file);
-				}
-				else if(
-					file.getPath().endsWith(Constants.StructureDataBackupFileExtension) &&
-					file.getName().replace(Constants.BackupFileSuffix, "").split("_").length == 2 &&
-					MathHelper.tryParseInt(file.getName().replace(Constants.BackupFileSuffix, "").split("_")[0]) &&
-					MathHelper.tryParseInt(file.getName().replace(Constants.BackupFileSuffix, "").split("_")[1])
-				)
-				{
-					backupFiles.add(file);
-				}
+				return loadPlottedChunksRegionFile(worldSaveDir, presetFolderName, regionCoord, occupiedChunksFile, logger);
 			}
-
-			for(File file : mainFiles)
+			catch (Exception ex)
 			{
-				boolean bFound = false;
-				for(File backupFile : backupFiles)
-				{
-					if(file.getPath().replace(Constants.StructureDataFileExtension, "").equals(backupFile.getPath().replace(Constants.StructureDataBackupFileExtension, "")))
-					{
-						saveFiles.put(file, backupFile);
-						bFound = true;
-						break;
-					}
-				}
-				if(!bFound)
-				{
-					saveFiles.put(file, null);
-				}
+				ex.printStackTrace();
+				logger.log(LogLevel.WARN, LogCategory.MAIN, "Failed to load " + occupiedChunksFile.getAbsolutePath() + ", trying to load backup.");
 			}
 		}
-				
-		for(Entry<File, File> saveFile : saveFiles.entrySet())
+
+		if(occupiedChunksBackupFile.exists())
 		{
-			boolean bSuccess = false;
-			File occupiedChunksFile = saveFile.getKey();
-			File occupiedChunksBackupFile = saveFile.getValue();
-				
-			if(
-				(occupiedChunksFile == null || !occupiedChunksFile.exists()) &&
-				(occupiedChunksBackupFile == null || !occupiedChunksBackupFile.exists())
-			)
+			try
 			{
-				continue;
-			}
-
-			ChunkCoordinate regionCoord = null;
-			
-			if(occupiedChunksFile != null && occupiedChunksFile.exists())
-			{			
-				FileInputStream fis = null;
-				PlottedChunksRegion result = null;
-				try {
-					String[] chunkCoords = occupiedChunksFile.getName().replace(Constants.StructureDataFileExtension, "").split("_");
-					int regionX = Integer.parseInt(chunkCoords[0]);
-					int regionZ = Integer.parseInt(chunkCoords[1]);
-					regionCoord = ChunkCoordinate.fromChunkCoords(regionX, regionZ);
-					
-					fis = new FileInputStream(occupiedChunksFile);			
-					ByteBuffer buffer = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());				
-					
-					byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-					buffer.get(compressedBytes);
-					byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-					buffer = ByteBuffer.wrap(decompressedBytes);
-					result = parsePlottedChunksFileFromStream(buffer, logger);
-				}
-				catch (Exception ex)
-				{
-					ex.printStackTrace();
-					logger.log(LogLevel.WARN, LogCategory.MAIN, "Failed to load " + occupiedChunksFile.getAbsolutePath() + ", trying to load backup.");
-				} finally {
-					if(fis != null)
-					{
-						try {
-							fis.getChannel().close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-						try {
-							fis.close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-					}
-				}
-				if(result != null)
-				{
-					bSuccess = true;
-					output.put(regionCoord, result);
-				}
-			}
-			
-			if(!bSuccess && occupiedChunksBackupFile != null && occupiedChunksBackupFile.exists())
-			{			
-				FileInputStream fis = null;
-				PlottedChunksRegion result = null;
-				try {
-					String[] chunkCoords = occupiedChunksFile.getName().replace(Constants.StructureDataBackupFileExtension, "").split("_");
-					int regionX = Integer.parseInt(chunkCoords[0]);
-					int regionZ = Integer.parseInt(chunkCoords[1]);
-					regionCoord = ChunkCoordinate.fromChunkCoords(regionX, regionZ);
-					
-					fis = new FileInputStream(occupiedChunksBackupFile);			
-					ByteBuffer buffer = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());				
-					
-					byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-					buffer.get(compressedBytes);
-					byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-					buffer = ByteBuffer.wrap(decompressedBytes);
-					result = parsePlottedChunksFileFromStream(buffer, logger);
-				}
-				catch (Exception ex)
-				{
-					ex.printStackTrace();
-				} finally {
-					if(fis != null)
-					{
-						try {
-							fis.getChannel().close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-						try {
-							fis.close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-					}
-				}
-				if(result != null)
-				{
-					bSuccess = true;
-					output.put(regionCoord, result);
-				}				
+				return loadPlottedChunksRegionFile(worldSaveDir, presetFolderName, regionCoord, occupiedChunksBackupFile, logger);
 			}
-			
-			if(!bSuccess)
+			catch (Exception ex)
 			{
-				if(regionCoord != null)
-				{
-					output.put(regionCoord, PlottedChunksRegion.getFilledRegion());
-					logger.log(LogLevel.ERROR, LogCategory.MAIN,
-						"OTG encountered an error loading " + occupiedChunksFile.getAbsolutePath() + " and could not load a backup, substituting a default filled region. "
-						+ "This may result in areas with missing BO4's, smoothing areas, /otg structure info and spawners/particles/moddata."
-					);
-				} else {
-					logger.log(LogLevel.FATAL, LogCategory.MAIN,
-						"OTG encountered a critical error loading " + occupiedChunksFile.getAbsolutePath() + " and could not load a backup, exiting. "
-						+ "OTG automatically backs up files before writing and will try to use the backup when loading. "					
-						+ "If your dimension's structure data files and backups have been corrupted, you can delete them,"
-						+ "at the risk of losing data for unspawned structure parts."
-					);					
-					throw new RuntimeException(
-						"OTG encountered a critical error loading " + occupiedChunksFile.getAbsolutePath() + " and could not load a backup, exiting. "
-						+ "OTG automatically backs up files before writing and will try to use the backup when loading. "					
-						+ "If your dimension's structure data files and backups have been corrupted, you can delete them,"
-						+ "at the risk of losing data for unspawned structure parts."
-					);
-				}
+				ex.printStackTrace();
 			}
 		}
-		
-		return output.size() > 0 ? output : null;
+
+		logger.log(LogLevel.ERROR, LogCategory.MAIN,
+			"OTG encountered an error loading " + occupiedChunksFile.getAbsolutePath() + " and could not load a backup, substituting a default filled region. "
+			+ "This may result in areas with missing BO4's, smoothing areas, /otg structure info and spawners/particles/moddata."
+		);
+		return PlottedChunksRegion.getFilledRegion();
 	}
 	
-	private static PlottedChunksRegion parsePlottedChunksFileFromStream(ByteBuffer buffer, ILogger logger) throws IOException
+	// Files saved in an older format are saved again in the current format.
+	private static PlottedChunksRegion loadPlottedChunksRegionFile(Path worldSaveDir, String presetFolderName, ChunkCoordinate regionCoord, File file, ILogger logger) throws IOException
+	{
+		ByteBuffer buffer = readStructureDataFile(file);
+		int version = buffer.getInt();
+		PlottedChunksRegion result = parsePlottedChunksFileFromStream(buffer, version, logger);
+		if(version < PLOTTED_CHUNKS_FILE_VERSION)
+		{
+			savePlottedChunksRegionFile(worldSaveDir, presetFolderName, regionCoord, result, logger);
+		}
+		return result;
+	}
+
+	private static PlottedChunksRegion parsePlottedChunksFileFromStream(ByteBuffer buffer, int version, ILogger logger) throws IOException
 	{
-		buffer.getInt(); // Version, not used atm.		
 		int regionSize = buffer.getInt();
 		boolean[][] chunksMatrix = new boolean[Constants.REGION_SIZE][Constants.REGION_SIZE];
 		if(regionSize == Constants.REGION_SIZE)
-		{		
-			for(int x = 0; x < regionSize; x++)
+		{
+			if(version == 1)
 			{
-				for(int z = 0; z < regionSize; z++)
+				// One byte per chunk
+				for(int x = 0; x < regionSize; x++)
 				{
-					chunksMatrix[x][z] = buffer.get() != 0;
+					for(int z = 0; z < regionSize; z++)
+					{
+						chunksMatrix[x][z] = buffer.get() != 0;
+					}
+				}
+			} else {
+				byte[] bytes = new byte[buffer.getInt()];
+				buffer.get(bytes);
+				BitSet plottedChunkBits = BitSet.valueOf(bytes);
+				for(int i = plottedChunkBits.nextSetBit(0); i >= 0; i = plottedChunkBits.nextSetBit(i + 1))
+				{
+					chunksMatrix[i / Constants.REGION_SIZE][i % Constants.REGION_SIZE] = true;
 				}
 			}
 		} else {
@@ -358,7 +225,6 @@ public class CustomStructureFileManager
 	
 	// Structure cache
 
-	// TODO: Since we're using regions, use short/byte for (internal) coords?
 	static void saveStructureData(Map<ChunkCoordinate, StructureDataRegion> worldInfoChunks, String presetFolderName, Path worldSaveDir, ILogger logger)
 	{		
 		// Collect all structure start points (and chunks that have bo3's with spawners/moddata/particles in them)
@@ -366,8 +232,8 @@ public class CustomStructureFileManager
 		// Structure starts are saved per region, if a BO4 structure has chunk data in multiple regions, each region gets 
 		// its own BO4CustomStructure containing only the chunk data for that region. When loading, structures that have 
 		// their structure start in a different region are loaded as CustomStructurePlaceHolder instead of BO4CustomStructure.
-		// When loading regions, we'll reconstitute/update worldInfoChunks by replacing any CustomStructurePlaceHolders with 
-		// BO4CustomStructures as soon as they're loaded from disk. Fully spawned chunks that are part of structures are saved 
+		// Regions are loaded on demand and independently of each other, each placeholder only holds the parts of its 
+		// structure in its own region, see RegionDataCache. Fully spawned chunks that are part of structures are saved 
 		// to disk inside their structure start/placeholder, but are only cached/kept in memory in worldInfoChunks.
 		// (BO4CustomStructures only cache data for unspawned structure parts and spawners/moddata/particles, worldInfoChunks 
 		// caches data about fully spawned structure chunks, plottedChunks caches/persists info about plotted chunks etc).
@@ -429,424 +295,292 @@ public class CustomStructureFileManager
 	private static void saveStructuresRegionFile(Path worldSaveDir, String presetFolderName, ChunkCoordinate regionCoord, HashMap<String, HashMap<CustomStructure, ArrayList<ChunkCoordinate>>> structuresPerRegion, ILogger logger)
 	{
 		File structuresRegionFile = new File(
-			worldSaveDir + File.separator + 
-			Constants.MOD_ID + File.separator + 
-			presetFolderName + File.separator +
-			Constants.StructureDataFolderName + File.separator +
+			getStructureDataFolder(worldSaveDir, presetFolderName),
 			regionCoord.getChunkX() + "_" +
 			regionCoord.getChunkZ() +
 			Constants.StructureDataFileExtension
 		);
 		File structuresRegionBackupFile = new File(
-			worldSaveDir + File.separator + 
-			Constants.MOD_ID + File.separator + 
-			presetFolderName + File.separator +
-			Constants.StructureDataFolderName + File.separator +
+			getStructureDataFolder(worldSaveDir, presetFolderName),
 			regionCoord.getChunkX() + "_" +
-			regionCoord.getChunkZ() +					
+			regionCoord.getChunkZ() +
 			Constants.StructureDataBackupFileExtension
 		);
 		
+		// Structure and branch names are written once in a string table at the start 
+		// of the file, and referred to by index. Chunks are written as region-internal 
+		// coords, block coords of branches and smoothing areas relative to their chunk.
+		// The string table is only complete after writing the structures, so write
+		// them to a separate stream first.
+		ArrayList<String> stringTable = new ArrayList<String>();
+		HashMap<String, Integer> stringIndexes = new HashMap<String, Integer>();
+		ByteArrayOutputStream structuresBos = new ByteArrayOutputStream();
+		DataOutputStream structuresDos = new DataOutputStream(structuresBos);
 		ByteArrayOutputStream bos = new ByteArrayOutputStream();
 		DataOutputStream dos = new DataOutputStream(bos);
 		
 		try
 		{
-			int version = 1;
-			dos.writeInt(version);
-			dos.writeInt(structuresPerRegion.entrySet().size());
+			structuresDos.writeInt(structuresPerRegion.entrySet().size());
 			for(Entry<String, HashMap<CustomStructure, ArrayList<ChunkCoordinate>>> entry : structuresPerRegion.entrySet())
 			{
-				StreamHelper.writeStringToStream(dos, entry.getKey());
-				dos.writeInt(entry.getValue().entrySet().size());
+				writeStringIndex(structuresDos, entry.getKey(), stringTable, stringIndexes);
+				structuresDos.writeInt(entry.getValue().entrySet().size());
 				// Structures have been de-duplicated, should be only one entry per structure start
 				for(Entry<CustomStructure, ArrayList<ChunkCoordinate>> entry1 : entry.getValue().entrySet())
 				{
-					CustomStructure structure = entry1.getKey();
-
-					// No need to write to file whether this is a CustomStructurePlaceHolder or not.
-					// If the structure start is outside the current region, it's a placeholder.
-					
-					// Write structure start data (if any)
-					// If name is "NULL", we'll know not to look for these when reading.
-					if(entry1.getKey().start != null)
-					{
-						dos.writeInt(structure.start.rotation.getRotationId());
-						dos.writeInt(structure.start.getX());
-						dos.writeInt(structure.start.getY());
-						dos.writeInt(structure.start.getZ());
-					}
-
-					// Write all chunks used for structure
-					dos.writeInt(entry1.getValue().size());
-					for(ChunkCoordinate chunkCoord : entry1.getValue())
-					{
-						// TODO: Use internal coords so we can use byte/short 
-						dos.writeInt(chunkCoord.getChunkX());
-						dos.writeInt(chunkCoord.getChunkZ());
-					}
-
-					if(
-						structure instanceof BO4CustomStructure &&
-						((BO4CustomStructure)structure).getObjectsToSpawn().entrySet().size() > 0
-					)
-					{
-						dos.writeBoolean(true);
-												
-						Map<ChunkCoordinate, Stack<BO4CustomStructureCoordinate>> objectsInRegion = new HashMap<ChunkCoordinate, Stack<BO4CustomStructureCoordinate>>();
-						int size = 0;
-						for(Entry<ChunkCoordinate, Stack<BO4CustomStructureCoordinate>> objectToSpawn : ((BO4CustomStructure)structure).getObjectsToSpawn().entrySet())
-						{
-							if(objectToSpawn.getKey().toRegionCoord().equals(regionCoord))
-							{
-								objectsInRegion.put(objectToSpawn.getKey(), objectToSpawn.getValue());
-								size++;
-							}
-						}
-						
-						dos.writeInt(size);
-						for(Entry<ChunkCoordinate, Stack<BO4CustomStructureCoordinate>> objectToSpawn : objectsInRegion.entrySet())
-						{
-							ChunkCoordinate key = objectToSpawn.getKey();
-							dos.writeInt(key.getChunkX());
-							dos.writeInt(key.getChunkZ());
-
-							Stack<BO4CustomStructureCoordinate> coords = objectToSpawn.getValue();
-							dos.writeInt(coords.size());
-							for(CustomStructureCoordinate coord : coords)
-							{
-								StreamHelper.writeStringToStream(dos, coord.bo3Name); 
-								dos.writeInt(coord.rotation.getRotationId());
-								dos.writeInt(coord.getX());
-								dos.writeInt(coord.getY());
-								dos.writeInt(coord.getZ());
-							}
-						}
-					} else {
-						dos.writeBoolean(false);
-					}
-	
-					if(
-						structure instanceof BO4CustomStructure && 
-						((BO4CustomStructure)structure).getSmoothingAreaManager().smoothingAreasToSpawn.entrySet().size() > 0 
-					)
-					{
-						ArrayList<SmoothingAreaLine> coords2;
-						dos.writeBoolean(true);
-						
-						Map<ChunkCoordinate, ArrayList<SmoothingAreaLine>> smoothingAreasPerRegion = new HashMap<ChunkCoordinate, ArrayList<SmoothingAreaLine>>();
-						int size = 0;
-						for(Entry<ChunkCoordinate, ArrayList<SmoothingAreaLine>> smoothingAreaToSpawn : ((BO4CustomStructure)structure).getSmoothingAreaManager().smoothingAreasToSpawn.entrySet())
-						{
-							if(smoothingAreaToSpawn.getKey().toRegionCoord().equals(regionCoord))
-							{
-								smoothingAreasPerRegion.put(smoothingAreaToSpawn.getKey(), smoothingAreaToSpawn.getValue());
-								size++;
-							}
-						}
-						
-						dos.writeInt(size);
-						for(Entry<ChunkCoordinate, ArrayList<SmoothingAreaLine>> smoothingAreaToSpawn : smoothingAreasPerRegion.entrySet())
-						{
-							ChunkCoordinate key = smoothingAreaToSpawn.getKey();
-							dos.writeInt(key.getChunkX());
-							dos.writeInt(key.getChunkZ());
-	
-							coords2 = smoothingAreaToSpawn.getValue();
-							dos.writeInt(coords2.size());
-							for(SmoothingAreaLine coord : coords2)
-							{
-								// TODO: Should only need origin and destination?
-								dos.writeInt(coord.beginPointX);
-								dos.writeInt(coord.beginPointY);
-								dos.writeInt(coord.beginPointZ);
-	
-								dos.writeInt(coord.endPointX);
-								dos.writeInt(coord.endPointY);
-								dos.writeInt(coord.endPointZ);
-	
-								dos.writeInt(coord.originPointX);
-								dos.writeInt(coord.originPointY);
-								dos.writeInt(coord.originPointZ);
-	
-								dos.writeInt(coord.finalDestinationPointX);
-								dos.writeInt(coord.finalDestinationPointY);
-								dos.writeInt(coord.finalDestinationPointZ);
-							}
-						}
-					} else {
-						dos.writeBoolean(false);
-					}
+					writeStructure(structuresDos, regionCoord, entry1.getKey(), entry1.getValue(), stringTable, stringIndexes);
 				}
 			}
+
+			dos.writeInt(STRUCTURE_DATA_FILE_VERSION);
+			dos.writeInt(stringTable.size());
+			for(String string : stringTable)
+			{
+				StreamHelper.writeStringToStream(dos, string);
+			}
+			structuresBos.writeTo(dos);
 		} catch (IOException e1) {
 			e1.printStackTrace();
 			return;
 		}
 			
-		DataOutputStream dos2 = null;
-		FileOutputStream fos = null;
-		try {
-			if(!structuresRegionFile.exists())
-			{
-				structuresRegionFile.getParentFile().mkdirs();
-			} else {
-				Files.move(structuresRegionFile.toPath(), structuresRegionBackupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-			}
-			byte[] compressedBytes = com.pg85.otg.util.CompressionUtils.compress(bos.toByteArray(), logger);
-			dos.close();
-			fos = new FileOutputStream(structuresRegionFile);
-			dos2 = new DataOutputStream(fos);
-			dos2.write(compressedBytes, 0, compressedBytes.length);
+		StructureDataWriter.write(structuresRegionFile, structuresRegionBackupFile, bos.toByteArray(), logger);
+	}
+
+	private static void writeStructure(DataOutputStream dos, ChunkCoordinate regionCoord, CustomStructure structure, ArrayList<ChunkCoordinate> structureChunks, ArrayList<String> stringTable, HashMap<String, Integer> stringIndexes) throws IOException
+	{
+		// No need to write to file whether this is a CustomStructurePlaceHolder or not.
+		// If the structure start is outside the current region, it's a placeholder.
+		
+		// Write structure start data (if any)
+		// If name is "NULL", we'll know not to look for these when reading.
+		if(structure.start != null)
+		{
+			dos.writeByte(structure.start.rotation.getRotationId());
+			dos.writeInt(structure.start.getX());
+			dos.writeShort(structure.start.getY());
+			dos.writeInt(structure.start.getZ());
 		}
-		catch (IOException e)
+
+		// Write all chunks used for structure
+		dos.writeShort(structureChunks.size());
+		for(ChunkCoordinate chunkCoord : structureChunks)
 		{
-			logger.log(LogLevel.ERROR, LogCategory.MAIN, "OTG encountered an error writing " + structuresRegionFile.getAbsolutePath() + ", skipping. Exception:");
-			e.printStackTrace();			
-		} finally {
-			try {
-				if(dos != null)
+			dos.writeByte(chunkCoord.getRegionInternalX());
+			dos.writeByte(chunkCoord.getRegionInternalZ());
+		}
+
+		if(
+			structure instanceof BO4CustomStructure &&
+			((BO4CustomStructure)structure).getObjectsToSpawn().entrySet().size() > 0
+		)
+		{
+			dos.writeBoolean(true);
+									
+			Map<ChunkCoordinate, Stack<BO4CustomStructureCoordinate>> objectsInRegion = new HashMap<ChunkCoordinate, Stack<BO4CustomStructureCoordinate>>();
+			for(Entry<ChunkCoordinate, Stack<BO4CustomStructureCoordinate>> objectToSpawn : ((BO4CustomStructure)structure).getObjectsToSpawn().entrySet())
+			{
+				if(objectToSpawn.getKey().toRegionCoord().equals(regionCoord))
 				{
-					dos.close();
+					objectsInRegion.put(objectToSpawn.getKey(), objectToSpawn.getValue());
 				}
-			} catch (Exception e) { }
-			try {
-				if(dos2 != null)
+			}
+			
+			dos.writeShort(objectsInRegion.size());
+			for(Entry<ChunkCoordinate, Stack<BO4CustomStructureCoordinate>> objectToSpawn : objectsInRegion.entrySet())
+			{
+				ChunkCoordinate key = objectToSpawn.getKey();
+				dos.writeByte(key.getRegionInternalX());
+				dos.writeByte(key.getRegionInternalZ());
+
+				Stack<BO4CustomStructureCoordinate> coords = objectToSpawn.getValue();
+				dos.writeShort(coords.size());
+				for(CustomStructureCoordinate coord : coords)
 				{
-					dos2.close();
+					writeStringIndex(dos, coord.bo3Name, stringTable, stringIndexes);
+					dos.writeByte(coord.rotation.getRotationId());
+					writeRelativeCoord(dos, coord.getX(), key.getBlockX());
+					dos.writeShort(coord.getY());
+					writeRelativeCoord(dos, coord.getZ(), key.getBlockZ());
 				}
-			} catch (Exception e) { }
-			try {
-				if(fos != null)
+			}
+		} else {
+			dos.writeBoolean(false);
+		}
+
+		if(
+			structure instanceof BO4CustomStructure && 
+			((BO4CustomStructure)structure).getSmoothingAreaManager().smoothingAreasToSpawn.entrySet().size() > 0 
+		)
+		{
+			dos.writeBoolean(true);
+			
+			Map<ChunkCoordinate, ArrayList<SmoothingAreaLine>> smoothingAreasPerRegion = new HashMap<ChunkCoordinate, ArrayList<SmoothingAreaLine>>();
+			for(Entry<ChunkCoordinate, ArrayList<SmoothingAreaLine>> smoothingAreaToSpawn : ((BO4CustomStructure)structure).getSmoothingAreaManager().smoothingAreasToSpawn.entrySet())
+			{
+				if(smoothingAreaToSpawn.getKey().toRegionCoord().equals(regionCoord))
 				{
-					fos.close();
+					smoothingAreasPerRegion.put(smoothingAreaToSpawn.getKey(), smoothingAreaToSpawn.getValue());
 				}
-			} catch (Exception e) { }
+			}
+			
+			dos.writeShort(smoothingAreasPerRegion.size());
+			for(Entry<ChunkCoordinate, ArrayList<SmoothingAreaLine>> smoothingAreaToSpawn : smoothingAreasPerRegion.entrySet())
+			{
+				ChunkCoordinate key = smoothingAreaToSpawn.getKey();
+				dos.writeByte(key.getRegionInternalX());
+				dos.writeByte(key.getRegionInternalZ());
+
+				ArrayList<SmoothingAreaLine> coords = smoothingAreaToSpawn.getValue();
+				dos.writeShort(coords.size());
+				for(SmoothingAreaLine coord : coords)
+				{
+					// TODO: Should only need origin and destination?
+					writeRelativeCoord(dos, coord.beginPointX, key.getBlockX());
+					dos.writeShort(coord.beginPointY);
+					writeRelativeCoord(dos, coord.beginPointZ, key.getBlockZ());
+
+					writeRelativeCoord(dos, coord.endPointX, key.getBlockX());
+					dos.writeShort(coord.endPointY);
+					writeRelativeCoord(dos, coord.endPointZ, key.getBlockZ());
+
+					writeRelativeCoord(dos, coord.originPointX, key.getBlockX());
+					dos.writeShort(coord.originPointY);
+					writeRelativeCoord(dos, coord.originPointZ, key.getBlockZ());
+
+					writeRelativeCoord(dos, coord.finalDestinationPointX, key.getBlockX());
+					dos.writeShort(coord.finalDestinationPointY);
+					writeRelativeCoord(dos, coord.finalDestinationPointZ, key.getBlockZ());
+				}
+			}
+		} else {
+			dos.writeBoolean(false);
 		}
 	}
-	
-	// TODO: Load one region file at a time, on-demand, rather than loading all region files at once.
-	// Almost everything should be set up for it, auto-replacing CustomStructurePlaceHolders take care of most things?
-	static HashMap<CustomStructure, ArrayList<ChunkCoordinate>> loadStructureData(String presetFolderName, Path worldSaveDir, long worldSeed, boolean isBO4Enabled, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+
+	private static void writeStringIndex(DataOutputStream dos, String string, ArrayList<String> stringTable, HashMap<String, Integer> stringIndexes) throws IOException
 	{
-		HashMap<CustomStructure, ArrayList<ChunkCoordinate>> output = new HashMap<CustomStructure, ArrayList<ChunkCoordinate>>();
-		
-		File structureDataFolder = new File(
+		Integer index = stringIndexes.get(string);
+		if(index == null)
+		{
+			index = stringTable.size();
+			if(index > MAX_STRING_INDEX)
+			{
+				throw new IOException("Too many structure names in region, cannot save more than " + (MAX_STRING_INDEX + 1) + ".");
+			}
+			stringTable.add(string);
+			stringIndexes.put(string, index);
+		}
+		dos.writeShort(index.intValue());
+	}
+
+	private static void writeRelativeCoord(DataOutputStream dos, int coord, int chunkBlockCoord) throws IOException
+	{
+		int relativeCoord = coord - chunkBlockCoord;
+		if(relativeCoord < Short.MIN_VALUE || relativeCoord > Short.MAX_VALUE)
+		{
+			throw new IOException("Coordinate " + coord + " is too far from chunk at " + chunkBlockCoord + " to be saved.");
+		}
+		dos.writeShort(relativeCoord);
+	}
+
+	static File getStructureDataFolder(Path worldSaveDir, String presetFolderName)
+	{
+		return new File(
 			worldSaveDir + File.separator + 
 			Constants.MOD_ID + File.separator + 
 			presetFolderName + File.separator +
 			Constants.StructureDataFolderName + File.separator
 		);
-		
-		HashMap<File, File> saveFiles = new HashMap<File, File>();
-		ArrayList<File> mainFiles = new ArrayList<File>();
-		ArrayList<File> backupFiles = new ArrayList<File>();
-		if(structureDataFolder.exists())
+	}
+
+	// Returns null if the region could not be loaded.
+	static HashMap<CustomStructure, ArrayList<ChunkCoordinate>> loadStructureRegion(ChunkCoordinate regionCoord, String presetFolderName, Path worldSaveDir, long worldSeed, boolean isBO4Enabled, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		File structureDataFile = new File(
+			getStructureDataFolder(worldSaveDir, presetFolderName),
+			regionCoord.getChunkX() + "_" +
+			regionCoord.getChunkZ() +
+			Constants.StructureDataFileExtension
+		);
+		File structureDataBackupFile = new File(
+			getStructureDataFolder(worldSaveDir, presetFolderName),
+			regionCoord.getChunkX() + "_" +
+			regionCoord.getChunkZ() +
+			Constants.StructureDataBackupFileExtension
+		);
+
+		if(structureDataFileExists(structureDataFile))
 		{
-			for(File file : structureDataFolder.listFiles())
+			try
 			{
-				if(
-					file.getPath().endsWith(Constants.StructureDataFileExtension) && 
-					file.getName().replace(Constants.StructureDataFileExtension, "").split("_").length == 2 &&
-					MathHelper.tryParseInt(file.getName().replace(Constants.StructureDataFileExtension, "").split("_")[0]) &&
-					MathHelper.tryParseInt(file.getName().replace(Constants.StructureDataFileExtension, "").split("_")[1])
-				) {
-					mainFiles.add(file);
-				}
-				else if(
-					file.getPath().endsWith(Constants.StructureDataBackupFileExtension) &&
-					file.getName().replace(Constants.BackupFileSuffix, "").split("_").length == 2 &&
-					MathHelper.tryParseInt(file.getName().replace(Constants.BackupFileSuffix, "").split("_")[0]) &&
-					MathHelper.tryParseInt(file.getName().replace(Constants.BackupFileSuffix, "").split("_")[1])
-				)
-				{
-					backupFiles.add(file);
-				}
+				return loadStructureRegionFile(structureDataFile, regionCoord, presetFolderName, worldSaveDir, worldSeed, isBO4Enabled, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
 			}
-			for(File file : mainFiles)
+			catch (Exception ex)
 			{
-				boolean bFound = false;
-				for(File backupFile : backupFiles)
-				{
-					if(file.getPath().replace(Constants.StructureDataFileExtension, "").equals(backupFile.getPath().replace(Constants.StructureDataBackupFileExtension, "")))
-					{
-						saveFiles.put(file, backupFile);
-						bFound = true;
-						break;
-					}
-				}
-				if(!bFound)
-				{
-					saveFiles.put(file, null);
-				}
+				ex.printStackTrace();
+				logger.log(LogLevel.WARN, LogCategory.MAIN, "Failed to load " + structureDataFile.getAbsolutePath() + ", trying to load backup.");
 			}
 		}
-				
-		for(Entry<File, File> saveFile : saveFiles.entrySet())
-		{
-			ChunkCoordinate regionCoord = null;
-			boolean bSuccess = false;
-			File structureDataFile = saveFile.getKey();
-			File structureDataBackupFile = saveFile.getValue();
-				
-			if(
-				(structureDataFile == null || !structureDataFile.exists()) &&
-				(structureDataBackupFile == null || !structureDataBackupFile.exists())
-			)
-			{
-				continue;
-			}
 
-			if(structureDataFile != null && structureDataFile.exists())
-			{			
-				FileInputStream fis = null;
-				HashMap<CustomStructure, ArrayList<ChunkCoordinate>> result = null;
-				try {
-					
-					int regionX = Integer.parseInt(structureDataFile.getName().replace(Constants.StructureDataFileExtension, "").split("_")[0]);
-					int regionZ = Integer.parseInt(structureDataFile.getName().replace(Constants.StructureDataFileExtension, "").split("_")[1]);
-					regionCoord = ChunkCoordinate.fromChunkCoords(regionX, regionZ);
-					
-					fis = new FileInputStream(structureDataFile);			
-					ByteBuffer buffer = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());				
-					
-					byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-					buffer.get(compressedBytes);
-					byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-					buffer = ByteBuffer.wrap(decompressedBytes);
-										
-					result = parseStructuresFileFromStream(buffer, regionCoord, presetFolderName, worldSeed, isBO4Enabled, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-				}
-				catch (Exception ex)
-				{
-					ex.printStackTrace();
-					logger.log(LogLevel.WARN, LogCategory.MAIN, "Failed to load " + structureDataFile.getAbsolutePath() + ", trying to load backup.");
-				} finally {
-					if(fis != null)
-					{
-						try {
-							fis.getChannel().close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-						try {
-							fis.close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-					}
-				}
-				if(result != null)
-				{
-					bSuccess = true;
-					mergeRegionData(result, output);
-				}
-			}
-			
-			if(!bSuccess && structureDataBackupFile != null && structureDataBackupFile.exists())
+		if(structureDataBackupFile.exists())
+		{
+			try
 			{
-				FileInputStream fis = null;
-				HashMap<CustomStructure, ArrayList<ChunkCoordinate>> result = null;
-				try {
-					int regionX = Integer.parseInt(structureDataBackupFile.getName().replace(Constants.BackupFileSuffix, "").split("_")[0]);
-					int regionZ = Integer.parseInt(structureDataBackupFile.getName().replace(Constants.BackupFileSuffix, "").split("_")[1]);				
-					regionCoord = ChunkCoordinate.fromChunkCoords(regionX, regionZ);					
-					
-					fis = new FileInputStream(structureDataBackupFile);			
-					ByteBuffer buffer = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());				
-					
-					byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-					buffer.get(compressedBytes);
-					byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-					buffer = ByteBuffer.wrap(decompressedBytes);
-										
-					result = parseStructuresFileFromStream(buffer, regionCoord, presetFolderName, worldSeed, isBO4Enabled, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-				}
-				catch (Exception ex)
-				{
-					ex.printStackTrace();
-				} finally {
-					if(fis != null)
-					{
-						try {
-							fis.getChannel().close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-						try {
-							fis.close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-					}
-				}
-				if(result != null)
-				{
-					bSuccess = true;
-					mergeRegionData(result, output);
-				}
+				return loadStructureRegionFile(structureDataBackupFile, regionCoord, presetFolderName, worldSaveDir, worldSeed, isBO4Enabled, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
 			}
-			if(!bSuccess)
+			catch (Exception ex)
 			{
-				logger.log(LogLevel.ERROR, LogCategory.MAIN,
-					"OTG encountered an error loading " + structureDataFile.getAbsolutePath() + " and could not load a backup, ignoring. "
-					+ "This may result in areas with missing BO4's, smoothing areas, /otg structure info and spawners/particles/moddata."
-				);
+				ex.printStackTrace();
 			}
 		}
-		
-		return output.size() > 0 ? output : null;
+
+		logger.log(LogLevel.ERROR, LogCategory.MAIN,
+			"OTG encountered an error loading " + structureDataFile.getAbsolutePath() + " and could not load a backup, ignoring. "
+			+ "This may result in areas with missing BO4's, smoothing areas, /otg structure info and spawners/particles/moddata."
+		);
+		return null;
 	}
-	
-	private static void mergeRegionData(HashMap<CustomStructure, ArrayList<ChunkCoordinate>> result, HashMap<CustomStructure, ArrayList<ChunkCoordinate>> output)
+
+	// Files saved in an older format are saved again in the current format.
+	private static HashMap<CustomStructure, ArrayList<ChunkCoordinate>> loadStructureRegionFile(File file, ChunkCoordinate regionCoord, String presetFolderName, Path worldSaveDir, long worldSeed, boolean isBO4Enabled, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker) throws IOException
 	{
-		// When parsing structures per region, merge all placeholder structures 
-		// into their real structure starts as soon as their regions are loaded.
-		// TODO: Load on-demand, not all regions at once.
-		for(Entry<CustomStructure, ArrayList<ChunkCoordinate>> entryResult : result.entrySet())
+		ByteBuffer buffer = readStructureDataFile(file);
+		int version = buffer.getInt();
+		HashMap<CustomStructure, ArrayList<ChunkCoordinate>> result = parseStructuresFileFromStream(buffer, version, regionCoord, presetFolderName, worldSeed, isBO4Enabled, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+		if(version < STRUCTURE_DATA_FILE_VERSION)
 		{
-			if(output.containsKey(entryResult.getKey()))
+			HashMap<String, HashMap<CustomStructure, ArrayList<ChunkCoordinate>>> structuresPerRegion = new HashMap<String, HashMap<CustomStructure, ArrayList<ChunkCoordinate>>>();
+			for(Entry<CustomStructure, ArrayList<ChunkCoordinate>> structure : result.entrySet())
 			{
-				for(Entry<CustomStructure, ArrayList<ChunkCoordinate>> entryOutput : new HashSet<Entry<CustomStructure, ArrayList<ChunkCoordinate>>>(output.entrySet()))
-				{				
-					// Returns true if structure starts are equal
-					if(entryResult.getKey().equals(entryOutput.getKey()))
-					{
-						if(entryResult.getKey() instanceof CustomStructurePlaceHolder)
-						{
-							((CustomStructurePlaceHolder)entryResult.getKey()).mergeWithCustomStructure((BO4CustomStructure)entryOutput.getKey());
-							ArrayList<ChunkCoordinate> coords = entryOutput.getValue();
-							coords.addAll(entryResult.getValue());							
-						}
-						else if(entryOutput.getKey() instanceof CustomStructurePlaceHolder)
-						{
-							((CustomStructurePlaceHolder)entryOutput.getKey()).mergeWithCustomStructure((BO4CustomStructure)entryResult.getKey());
-							ArrayList<ChunkCoordinate> coords = entryResult.getValue();
-							coords.addAll(entryOutput.getValue());
-							
-							// Be sure to remove before putting, or only the value gets replaced.
-							output.remove(entryResult.getKey());
-							output.put(entryResult.getKey(), entryResult.getValue());							
-						}
-						break;
-					}
-				}
-			} else {
-				output.put(entryResult.getKey(), entryResult.getValue());
+				String startBoName = structure.getKey().start != null ? structure.getKey().start.bo3Name : "NULL";
+				structuresPerRegion.computeIfAbsent(startBoName, key -> new HashMap<CustomStructure, ArrayList<ChunkCoordinate>>()).put(structure.getKey(), structure.getValue());
 			}
+			saveStructuresRegionFile(worldSaveDir, presetFolderName, regionCoord, structuresPerRegion, logger);
 		}
+		return result;
 	}
 
-	// TODO: Since we're using regions now, can use byte/short for internal coords instead of int.
+	// Version 1 files use ints for all numbers, full chunk coords and repeat every name.
 	// TODO: Dev versions of v9 used region size 100, not 250, this may cause problems.
-	private static HashMap<CustomStructure, ArrayList<ChunkCoordinate>> parseStructuresFileFromStream(ByteBuffer buffer, ChunkCoordinate regionCoord, String presetFolderName, long worldSeed, boolean isBO4Enabled, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker) throws IOException
+	private static HashMap<CustomStructure, ArrayList<ChunkCoordinate>> parseStructuresFileFromStream(ByteBuffer buffer, int version, ChunkCoordinate regionCoord, String presetFolderName, long worldSeed, boolean isBO4Enabled, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker) throws IOException
 	{
-		buffer.getInt(); // Version, not used atm.
+		String[] stringTable = null;
+		if(version > 1)
+		{
+			stringTable = new String[buffer.getInt()];
+			for(int i = 0; i < stringTable.length; i++)
+			{
+				stringTable[i] = StreamHelper.readStringFromBuffer(buffer);
+			}
+		}
+
 		HashMap<CustomStructure, ArrayList<ChunkCoordinate>> structuresFile = new HashMap<CustomStructure, ArrayList<ChunkCoordinate>>();
 		int structureNamesSize = buffer.getInt();
 		for(int i = 0; i < structureNamesSize; i++)
 		{
-			String structureName = StreamHelper.readStringFromBuffer(buffer);
+			String structureName = readString(buffer, stringTable);
 			Rotation startRotationId;
 			int startX;
 			int startY;
@@ -859,9 +593,9 @@ public class CustomStructureFileManager
 				// Check if this is a structure start
 				if(!structureName.equals("NULL"))
 				{
-					startRotationId = Rotation.getRotation(buffer.getInt());
+					startRotationId = Rotation.getRotation(stringTable == null ? buffer.getInt() : buffer.get());
 					startX = buffer.getInt();
-					startY = buffer.getInt();
+					startY = stringTable == null ? buffer.getInt() : buffer.getShort();
 					startZ = buffer.getInt();
 
 					if(isBO4Enabled)
@@ -873,31 +607,29 @@ public class CustomStructureFileManager
 				}
 
 				// Get all chunks used for structure
-				int chunksSize = buffer.getInt();
+				int chunksSize = readSize(buffer, stringTable);
 				ArrayList<ChunkCoordinate> chunkCoords = new ArrayList<ChunkCoordinate>(); 
 				for(int k = 0; k < chunksSize; k++)
 				{
-					int chunkX = buffer.getInt();
-					int chunkZ = buffer.getInt();
-					chunkCoords.add(ChunkCoordinate.fromChunkCoords(chunkX, chunkZ));
+					chunkCoords.add(readChunkCoord(buffer, stringTable, regionCoord));
 				}
 
 				Map<ChunkCoordinate, Stack<BO4CustomStructureCoordinate>> objectsToSpawn = new HashMap<ChunkCoordinate, Stack<BO4CustomStructureCoordinate>>();	
 				if(buffer.get() != 0)
 				{
-					int objectsToSpawnSize = buffer.getInt();
+					int objectsToSpawnSize = readSize(buffer, stringTable);
 					for(int l = 0; l < objectsToSpawnSize; l++)
 					{
-						ChunkCoordinate chunkCoord = ChunkCoordinate.fromChunkCoords(buffer.getInt(), buffer.getInt());
+						ChunkCoordinate chunkCoord = readChunkCoord(buffer, stringTable, regionCoord);
 						Stack<BO4CustomStructureCoordinate> coords = new Stack<BO4CustomStructureCoordinate>();								
-						int coordsSize = buffer.getInt();
+						int coordsSize = readSize(buffer, stringTable);
 						for(int m = 0; m < coordsSize; m++)
 						{
-							String bo3Name = StreamHelper.readStringFromBuffer(buffer); 
-							Rotation coordRotation = Rotation.getRotation(buffer.getInt());
-							int coordX = buffer.getInt();
-							int coordY = buffer.getInt();
-							int coordZ = buffer.getInt();
+							String bo3Name = readString(buffer, stringTable); 
+							Rotation coordRotation = Rotation.getRotation(stringTable == null ? buffer.getInt() : buffer.get());
+							int coordX = readCoord(buffer, stringTable, chunkCoord.getBlockX());
+							int coordY = readY(buffer, stringTable);
+							int coordZ = readCoord(buffer, stringTable, chunkCoord.getBlockZ());
 							coords.add(new BO4CustomStructureCoordinate(presetFolderName, null, bo3Name, coordRotation, coordX, (short)coordY, coordZ, 0, false, false, null));
 						}
 						objectsToSpawn.put(chunkCoord, coords);
@@ -907,31 +639,31 @@ public class CustomStructureFileManager
 				Map<ChunkCoordinate, ArrayList<SmoothingAreaLine>> smoothingAreasToSpawn = new HashMap<ChunkCoordinate, ArrayList<SmoothingAreaLine>>();
 				if(buffer.get() != 0)
 				{
-					int smoothingAreasToSpawnSize = buffer.getInt();
+					int smoothingAreasToSpawnSize = readSize(buffer, stringTable);
 					for(int l = 0; l < smoothingAreasToSpawnSize; l++)
 					{
-						ChunkCoordinate chunkCoord = ChunkCoordinate.fromChunkCoords(buffer.getInt(), buffer.getInt());
-						int coordsSize = buffer.getInt();
+						ChunkCoordinate chunkCoord = readChunkCoord(buffer, stringTable, regionCoord);
+						int coordsSize = readSize(buffer, stringTable);
 						ArrayList<SmoothingAreaLine> smoothingAreaLines = new ArrayList<SmoothingAreaLine>();
 						for(int m = 0; m < coordsSize; m++)
 						{
 							SmoothingAreaLine smoothingAreaLine;
 							
-							int beginPointX = buffer.getInt();
-							int beginPointY = buffer.getInt();
-							int beginPointZ = buffer.getInt();
+							int beginPointX = readCoord(buffer, stringTable, chunkCoord.getBlockX());
+							int beginPointY = readY(buffer, stringTable);
+							int beginPointZ = readCoord(buffer, stringTable, chunkCoord.getBlockZ());
 
-							int endPointX = buffer.getInt();
-							int endPointY = buffer.getInt();
-							int endPointZ = buffer.getInt();
+							int endPointX = readCoord(buffer, stringTable, chunkCoord.getBlockX());
+							int endPointY = readY(buffer, stringTable);
+							int endPointZ = readCoord(buffer, stringTable, chunkCoord.getBlockZ());
 
-							int originPointX = buffer.getInt();
-							int originPointY = buffer.getInt();
-							int originPointZ = buffer.getInt();
+							int originPointX = readCoord(buffer, stringTable, chunkCoord.getBlockX());
+							int originPointY = readY(buffer, stringTable);
+							int originPointZ = readCoord(buffer, stringTable, chunkCoord.getBlockZ());
 
-							int finalDestinationPointX = buffer.getInt();
-							int finalDestinationPointY = buffer.getInt();
-							int finalDestinationPointZ = buffer.getInt();
+							int finalDestinationPointX = readCoord(buffer, stringTable, chunkCoord.getBlockX());
+							int finalDestinationPointY = readY(buffer, stringTable);
+							int finalDestinationPointZ = readCoord(buffer, stringTable, chunkCoord.getBlockZ());
 							
 							smoothingAreaLine = new SmoothingAreaLine(beginPointX, (short)beginPointY, beginPointZ, endPointX, (short)endPointY, endPointZ, originPointX, (short)originPointY, originPointZ, finalDestinationPointX, (short)finalDestinationPointY, finalDestinationPointZ);
 							smoothingAreaLines.add(smoothingAreaLine);
@@ -944,8 +676,8 @@ public class CustomStructureFileManager
 				if(isBO4Enabled)
 				{
 					// If the structure start is outside the current region, it's a placeholder.
-					// We'll replace the placeholder in worldInfoChunks as soon as the region data
-					// containing the "real" structure start is loaded.
+					// Regions are loaded separately, so the placeholder only holds the parts of
+					// the structure in this region and spawns them by itself.
 					ChunkCoordinate startChunkCoord = ChunkCoordinate.fromChunkCoords(structureStart.getChunkX(), structureStart.getChunkZ());
 					if(!startChunkCoord.toRegionCoord().equals(regionCoord))
 					{
@@ -964,7 +696,179 @@ public class CustomStructureFileManager
 		return structuresFile;
 	}
 
-	public static void saveChunksMapFile(Path worldSaveDir, String presetFolderName, HashMap<String, ArrayList<ChunkCoordinate>> spawnedStructuresByName, HashMap<String, HashMap<ChunkCoordinate, Integer>> spawnedStructuresByGroup, ILogger logger)
+	// Version 1 files have no string table, see parseStructuresFileFromStream.
+
+	private static String readString(ByteBuffer buffer, String[] stringTable) throws IOException
+	{
+		return stringTable == null ? StreamHelper.readStringFromBuffer(buffer) : stringTable[buffer.getShort() & 0xFFFF];
+	}
+
+	private static int readSize(ByteBuffer buffer, String[] stringTable)
+	{
+		return stringTable == null ? buffer.getInt() : buffer.getShort() & 0xFFFF;
+	}
+
+	private static ChunkCoordinate readChunkCoord(ByteBuffer buffer, String[] stringTable, ChunkCoordinate regionCoord)
+	{
+		if(stringTable == null)
+		{
+			return ChunkCoordinate.fromChunkCoords(buffer.getInt(), buffer.getInt());
+		}
+		int internalX = buffer.get();
+		int internalZ = buffer.get();
+		return ChunkCoordinate.fromChunkCoords(regionCoord.getChunkX() * Constants.REGION_SIZE + internalX, regionCoord.getChunkZ() * Constants.REGION_SIZE + internalZ);
+	}
+
+	private static int readCoord(ByteBuffer buffer, String[] stringTable, int chunkBlockCoord)
+	{
+		return stringTable == null ? buffer.getInt() : chunkBlockCoord + buffer.getShort();
+	}
+
+	private static int readY(ByteBuffer buffer, String[] stringTable)
+	{
+		return stringTable == null ? buffer.getInt() : buffer.getShort();
+	}
+
+	// Region index
+
+	/**
+	 * Returns the coordinates of all region files in the folder. Worlds
+	 * saved without an index, or with a corrupted index, have their region
+	 * files listed once and the index is recreated.
+	 */
+	public static Set<ChunkCoordinate> loadRegionIndex(File regionFolder, ILogger logger)
+	{
+		File indexFile = new File(regionFolder, Constants.RegionIndexFileName);
+		File indexBackupFile = new File(regionFolder, Constants.RegionIndexBackupFileName);
+
+		if(structureDataFileExists(indexFile))
+		{
+			try
+			{
+				return parseRegionIndexFileFromStream(readStructureDataFile(indexFile));
+			}
+			catch (Exception ex)
+			{
+				ex.printStackTrace();
+				logger.log(LogLevel.WARN, LogCategory.MAIN, "Failed to load " + indexFile.getAbsolutePath() + ", trying to load backup.");
+			}
+		}
+
+		if(indexBackupFile.exists())
+		{
+			try
+			{
+				return parseRegionIndexFileFromStream(readStructureDataFile(indexBackupFile));
+			}
+			catch (Exception ex)
+			{
+				ex.printStackTrace();
+			}
+		}
+
+		Set<ChunkCoordinate> regions = new HashSet<ChunkCoordinate>();
+		if(regionFolder.exists())
+		{
+			for(File file : regionFolder.listFiles())
+			{
+				String[] regionCoords = null;
+				if(file.getPath().endsWith(Constants.StructureDataBackupFileExtension))
+				{
+					regionCoords = file.getName().replace(Constants.StructureDataBackupFileExtension, "").split("_");
+				}
+				else if(file.getPath().endsWith(Constants.StructureDataFileExtension))
+				{
+					regionCoords = file.getName().replace(Constants.StructureDataFileExtension, "").split("_");
+				}
+				if(
+					regionCoords != null &&
+					regionCoords.length == 2 &&
+					MathHelper.tryParseInt(regionCoords[0]) &&
+					MathHelper.tryParseInt(regionCoords[1])
+				)
+				{
+					regions.add(ChunkCoordinate.fromChunkCoords(Integer.parseInt(regionCoords[0]), Integer.parseInt(regionCoords[1])));
+				}
+			}
+		}
+		if(regions.size() > 0)
+		{
+			saveRegionIndex(regionFolder, regions, logger);
+		}
+		return regions;
+	}
+
+	public static void saveRegionIndex(File regionFolder, Set<ChunkCoordinate> regions, ILogger logger)
+	{
+		File indexFile = new File(regionFolder, Constants.RegionIndexFileName);
+		File indexBackupFile = new File(regionFolder, Constants.RegionIndexBackupFileName);
+
+		// Copy first, regions may be added while writing.
+		ArrayList<ChunkCoordinate> regionCoords = new ArrayList<ChunkCoordinate>(regions);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(bos);
+		try
+		{
+			int version = 1;
+			dos.writeInt(version);
+			dos.writeInt(regionCoords.size());
+			for(ChunkCoordinate regionCoord : regionCoords)
+			{
+				dos.writeInt(regionCoord.getChunkX());
+				dos.writeInt(regionCoord.getChunkZ());
+			}
+		} catch (IOException e1) {
+			e1.printStackTrace();
+			return;
+		}
+
+		StructureDataWriter.write(indexFile, indexBackupFile, bos.toByteArray(), logger);
+	}
+
+	private static Set<ChunkCoordinate> parseRegionIndexFileFromStream(ByteBuffer buffer)
+	{
+		buffer.getInt(); // Version, not used atm.
+		int regionsSize = buffer.getInt();
+		Set<ChunkCoordinate> regions = new HashSet<ChunkCoordinate>();
+		for(int i = 0; i < regionsSize; i++)
+		{
+			int regionX = buffer.getInt();
+			int regionZ = buffer.getInt();
+			regions.add(ChunkCoordinate.fromChunkCoords(regionX, regionZ));
+		}
+		return regions;
+	}
+
+	// Reading files
+
+	// Files that are queued for writing are read from the queued data, see StructureDataWriter.
+	private static boolean structureDataFileExists(File file)
+	{
+		return StructureDataWriter.getPendingData(file) != null || file.exists();
+	}
+
+	// Decompresses while reading, so no compressed copy of the file is kept in memory.
+	private static ByteBuffer readStructureDataFile(File file) throws IOException
+	{
+		byte[] pendingData = StructureDataWriter.getPendingData(file);
+		if(pendingData != null)
+		{
+			return ByteBuffer.wrap(pendingData);
+		}
+		try(InflaterInputStream inflaterStream = new InflaterInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			ByteArrayOutputStream bos = new ByteArrayOutputStream((int)Math.min(file.length() * 4, Integer.MAX_VALUE - 8));
+			byte[] buffer = new byte[8192];
+			int bytesRead;
+			while((bytesRead = inflaterStream.read(buffer)) != -1)
+			{
+				bos.write(buffer, 0, bytesRead);
+			}
+			return ByteBuffer.wrap(bos.toByteArray());
+		}
+	}
+
+	public static void saveChunksMapFile(Path worldSaveDir, String presetFolderName, HashMap<String, SpawnedStructureIndex> spawnedStructuresByName, HashMap<String, SpawnedStructureIndex> spawnedStructuresByGroup, ILogger logger)
 	{
 		File occupiedChunksFile = new File(worldSaveDir + File.separator + Constants.MOD_ID + File.separator + presetFolderName + File.separator + Constants.SpawnedStructuresFileName);
 		File occupiedChunksBackupFile = new File(worldSaveDir + File.separator + Constants.MOD_ID + File.separator + presetFolderName + File.separator + Constants.SpawnedStructuresBackupFileName);
@@ -979,23 +883,23 @@ public class CustomStructureFileManager
 				dos.writeInt(version);
 
 				dos.writeInt(spawnedStructuresByName.entrySet().size());
-				for(Map.Entry<String, ArrayList<ChunkCoordinate>> entry : spawnedStructuresByName.entrySet())
+				for(Map.Entry<String, SpawnedStructureIndex> entry : spawnedStructuresByName.entrySet())
 				{
 					StreamHelper.writeStringToStream(dos,  entry.getKey());
 					dos.writeInt(entry.getValue().size());
-					for(ChunkCoordinate chunkCoord : entry.getValue())
+					for(Entry<ChunkCoordinate, Integer> valueEntry : entry.getValue().entries())
 					{
-						dos.writeInt(chunkCoord.getChunkX());
-						dos.writeInt(chunkCoord.getChunkZ());
+						dos.writeInt(valueEntry.getKey().getChunkX());
+						dos.writeInt(valueEntry.getKey().getChunkZ());
 					}
 				}
 				
 				dos.writeInt(spawnedStructuresByGroup.entrySet().size());
-				for(Entry<String, HashMap<ChunkCoordinate, Integer>> entry : spawnedStructuresByGroup.entrySet())
+				for(Entry<String, SpawnedStructureIndex> entry : spawnedStructuresByGroup.entrySet())
 				{
 					StreamHelper.writeStringToStream(dos,  entry.getKey());
-					dos.writeInt(entry.getValue().entrySet().size());
-					for(Entry<ChunkCoordinate, Integer> valueEntry : entry.getValue().entrySet())
+					dos.writeInt(entry.getValue().size());
+					for(Entry<ChunkCoordinate, Integer> valueEntry : entry.getValue().entries())
 					{					
 						dos.writeInt(valueEntry.getKey().getChunkX());
 						dos.writeInt(valueEntry.getKey().getChunkZ());
@@ -1007,47 +911,11 @@ public class CustomStructureFileManager
 				return;
 			}			
 			
-			DataOutputStream dos2 = null;
-			FileOutputStream fos = null;
-			try
-			{				
-				if(!occupiedChunksFile.exists())
-				{
-					occupiedChunksFile.getParentFile().mkdirs();
-				} else {
-					Files.move(occupiedChunksFile.toPath(), occupiedChunksBackupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-				}
-				byte[] compressedBytes = com.pg85.otg.util.CompressionUtils.compress(bos.toByteArray(), logger);
-				fos = new FileOutputStream(occupiedChunksFile);
-				dos2 = new DataOutputStream(fos);
-				dos2.write(compressedBytes, 0, compressedBytes.length);
-			} catch (IOException e) {
-				logger.log(LogLevel.ERROR, LogCategory.MAIN, "OTG encountered an error writing " + occupiedChunksFile.getAbsolutePath() + ", skipping. Exception: ");
-				e.printStackTrace();				
-			} finally {
-				try {
-					if(dos != null)
-					{
-						dos.close();
-					}
-				} catch (Exception e) { }				
-				try {
-					if(dos2 != null)
-					{
-						dos2.close();
-					}
-				} catch (Exception e) { }
-				try {
-					if(fos != null)
-					{
-						fos.close();
-					}
-				} catch (Exception e) { }
-			}
+			StructureDataWriter.write(occupiedChunksFile, occupiedChunksBackupFile, bos.toByteArray(), logger);
 		}
 	}
 
-	public static void loadChunksMapFile(Path worldSaveDir, String presetFolderName, boolean isBO4Enabled, HashMap<String, ArrayList<ChunkCoordinate>> spawnedStructuresByName, HashMap<String, HashMap<ChunkCoordinate, Integer>> spawnedStructuresByGroup, ILogger logger)
+	public static void loadChunksMapFile(Path worldSaveDir, String presetFolderName, boolean isBO4Enabled, HashMap<String, SpawnedStructureIndex> spawnedStructuresByName, HashMap<String, SpawnedStructureIndex> spawnedStructuresByGroup, ILogger logger)
 	{
 		File occupiedChunksFile = new File(worldSaveDir + File.separator + Constants.MOD_ID + File.separator + presetFolderName + File.separator + Constants.SpawnedStructuresFileName);
 		File occupiedChunksBackupFile = new File(worldSaveDir + File.separator + Constants.MOD_ID + File.separator + presetFolderName + File.separator + Constants.SpawnedStructuresBackupFileName);
@@ -1129,10 +997,10 @@ public class CustomStructureFileManager
 		logger.log(LogLevel.ERROR, LogCategory.MAIN, "OTG encountered an error loading " + occupiedChunksFile.getAbsolutePath() + " and could not load a backup, skipping. ");
 	}
 
-	private static void parseChunksMapFileFromStream(ByteBuffer buffer, HashMap<String, ArrayList<ChunkCoordinate>> spawnedStructuresByName, HashMap<String, HashMap<ChunkCoordinate, Integer>> spawnedStructuresByGroup) throws IOException
+	private static void parseChunksMapFileFromStream(ByteBuffer buffer, HashMap<String, SpawnedStructureIndex> spawnedStructuresByName, HashMap<String, SpawnedStructureIndex> spawnedStructuresByGroup) throws IOException
 	{
-		HashMap<String, ArrayList<ChunkCoordinate>> chunksByName = new HashMap<String, ArrayList<ChunkCoordinate>>();
-		HashMap<String, HashMap<ChunkCoordinate, Integer>> chunksByGroup = new HashMap<String, HashMap<ChunkCoordinate, Integer>>();		
+		HashMap<String, SpawnedStructureIndex> chunksByName = new HashMap<String, SpawnedStructureIndex>();
+		HashMap<String, SpawnedStructureIndex> chunksByGroup = new HashMap<String, SpawnedStructureIndex>();
 
 		buffer.getInt(); // Version, not used atm.
 		
@@ -1141,10 +1009,10 @@ public class CustomStructureFileManager
 		{
 			String name = StreamHelper.readStringFromBuffer(buffer);
 			int coordsSize = buffer.getInt();
-			ArrayList<ChunkCoordinate> coords = new ArrayList<ChunkCoordinate>();
+			SpawnedStructureIndex coords = new SpawnedStructureIndex();
 			for(int j = 0; j < coordsSize; j++)
 			{				
-				coords.add(ChunkCoordinate.fromChunkCoords(buffer.getInt(), buffer.getInt()));
+				coords.add(ChunkCoordinate.fromChunkCoords(buffer.getInt(), buffer.getInt()), 0);
 			}
 			chunksByName.put(name, coords);
 		}
@@ -1153,11 +1021,11 @@ public class CustomStructureFileManager
 		for(int k = 0; k < spawnedStructuresByGroupSize; k++)
 		{
 			String name = StreamHelper.readStringFromBuffer(buffer);
-			HashMap<ChunkCoordinate, Integer> coords = new HashMap<ChunkCoordinate, Integer>();
+			SpawnedStructureIndex coords = new SpawnedStructureIndex();
 			int coordsSize = buffer.getInt();
 			for(int l = 0; l < coordsSize; l++)
 			{
-				coords.put(ChunkCoordinate.fromChunkCoords(buffer.getInt(), buffer.getInt()), Integer.valueOf(buffer.getInt()));
+				coords.add(ChunkCoordinate.fromChunkCoords(buffer.getInt(), buffer.getInt()), buffer.getInt());
 			}
 			chunksByGroup.put(name, coords);
 		}
@@ -16,7 +16,7 @@ public class PlottedChunksRegion
 		this.plottedChunks = plottedChunks;
 	}
 
-	boolean requiresSave()
+	public boolean requiresSave()
 	{
 		return this.requiresSave;
 	}
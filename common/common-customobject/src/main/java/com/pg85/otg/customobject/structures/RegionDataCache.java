@@ -0,0 +1,177 @@
+package com.pg85.otg.customobject.structures;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.pg85.otg.interfaces.ILogger;
+import com.pg85.otg.util.ChunkCoordinate;
+
+/**
+ * Holds per-region structure data or plotted chunks, loading each region
+ * from disk the first time it's used instead of loading all regions when
+ * the world is loaded. The coordinates of all region files are kept in an
+ * index file, so regions that don't exist yet are created without having
+ * to look for their files.
+ *
+ * Once more than maxLoadedRegions are loaded, evictRegions unloads the
+ * least recently used regions that don't require saving. Regions are only
+ * evicted while saving, when decoration is paused and nothing is using them.
+ * Regions are loaded and created from multiple threads at the same time.
+ */
+public class RegionDataCache<T>
+{
+	private final Map<ChunkCoordinate, LoadedRegion<T>> loadedRegions = new ConcurrentHashMap<ChunkCoordinate, LoadedRegion<T>>();
+	private final Set<ChunkCoordinate> regionsOnDisk = ConcurrentHashMap.newKeySet();
+	private final File regionFolder;
+	private final int maxLoadedRegions;
+	private final Function<ChunkCoordinate, T> loader;
+	private final Predicate<T> requiresSave;
+	// Incremented on each eviction, regions used since then aren't evicted first.
+	private volatile long currentPeriod = 0;
+
+	/**
+	 * @param loader Loads a region that has a file in regionFolder, must not return null.
+	 * @param requiresSave Returns true for regions with changes that haven't been saved.
+	 */
+	public RegionDataCache(File regionFolder, int maxLoadedRegions, Function<ChunkCoordinate, T> loader, Predicate<T> requiresSave, ILogger logger)
+	{
+		this.regionFolder = regionFolder;
+		this.maxLoadedRegions = maxLoadedRegions;
+		this.loader = loader;
+		this.requiresSave = requiresSave;
+		this.regionsOnDisk.addAll(CustomStructureFileManager.loadRegionIndex(regionFolder, logger));
+	}
+
+	/**
+	 * Returns the region, loading it from disk if needed,
+	 * or null if the region doesn't exist.
+	 */
+	public T get(ChunkCoordinate regionCoord)
+	{
+		LoadedRegion<T> region = this.loadedRegions.get(regionCoord);
+		if(region == null)
+		{
+			if(!this.regionsOnDisk.contains(regionCoord))
+			{
+				return null;
+			}
+			// Only one thread loads the region, others wait for it.
+			region = this.loadedRegions.computeIfAbsent(regionCoord, key -> new LoadedRegion<T>(this.loader.apply(key)));
+		}
+		region.lastUsedPeriod = this.currentPeriod;
+		return region.data;
+	}
+
+	/**
+	 * Returns the region, loading it from disk if needed,
+	 * or creating it if it doesn't exist.
+	 */
+	public T getOrCreate(ChunkCoordinate regionCoord, Supplier<T> factory)
+	{
+		T data = get(regionCoord);
+		if(data == null)
+		{
+			LoadedRegion<T> region = this.loadedRegions.computeIfAbsent(regionCoord, key -> new LoadedRegion<T>(factory.get()));
+			region.lastUsedPeriod = this.currentPeriod;
+			data = region.data;
+		}
+		return data;
+	}
+
+	/**
+	 * Returns the region if it's loaded, without loading it from disk.
+	 */
+	public T getIfLoaded(ChunkCoordinate regionCoord)
+	{
+		LoadedRegion<T> region = this.loadedRegions.get(regionCoord);
+		return region != null ? region.data : null;
+	}
+
+	public boolean isLoaded(ChunkCoordinate regionCoord)
+	{
+		return this.loadedRegions.containsKey(regionCoord);
+	}
+
+	public Map<ChunkCoordinate, T> getLoadedRegions()
+	{
+		Map<ChunkCoordinate, T> regions = new HashMap<ChunkCoordinate, T>(this.loadedRegions.size());
+		for(Entry<ChunkCoordinate, LoadedRegion<T>> entry : this.loadedRegions.entrySet())
+		{
+			regions.put(entry.getKey(), entry.getValue().data);
+		}
+		return regions;
+	}
+
+	/**
+	 * Adds the saved regions to the region index, call after
+	 * saving all loaded regions that require saving.
+	 */
+	public void saveRegionIndex(ILogger logger)
+	{
+		boolean indexChanged = false;
+		for(Entry<ChunkCoordinate, LoadedRegion<T>> entry : this.loadedRegions.entrySet())
+		{
+			if(!this.requiresSave.test(entry.getValue().data))
+			{
+				indexChanged |= this.regionsOnDisk.add(entry.getKey());
+			}
+		}
+		if(indexChanged)
+		{
+			CustomStructureFileManager.saveRegionIndex(this.regionFolder, this.regionsOnDisk, logger);
+		}
+	}
+
+	/**
+	 * Unloads the least recently used regions that don't require saving
+	 * until at most maxLoadedRegions are loaded. Only call while nothing
+	 * else is using the regions.
+	 *
+	 * @return The coordinates of the evicted regions.
+	 */
+	public List<ChunkCoordinate> evictRegions()
+	{
+		List<ChunkCoordinate> evictedRegions = new ArrayList<ChunkCoordinate>();
+		int regionsToEvict = this.loadedRegions.size() - this.maxLoadedRegions;
+		if(regionsToEvict > 0)
+		{
+			List<Entry<ChunkCoordinate, LoadedRegion<T>>> candidates = new ArrayList<Entry<ChunkCoordinate, LoadedRegion<T>>>();
+			for(Entry<ChunkCoordinate, LoadedRegion<T>> entry : this.loadedRegions.entrySet())
+			{
+				// Regions that aren't indexed yet have no file to be loaded from.
+				if(!this.requiresSave.test(entry.getValue().data) && this.regionsOnDisk.contains(entry.getKey()))
+				{
+					candidates.add(entry);
+				}
+			}
+			candidates.sort((a, b) -> Long.compare(a.getValue().lastUsedPeriod, b.getValue().lastUsedPeriod));
+			for(int i = 0; i < regionsToEvict && i < candidates.size(); i++)
+			{
+				this.loadedRegions.remove(candidates.get(i).getKey());
+				evictedRegions.add(candidates.get(i).getKey());
+			}
+		}
+		this.currentPeriod++;
+		return evictedRegions;
+	}
+
+	private static class LoadedRegion<T>
+	{
+		private final T data;
+		private volatile long lastUsedPeriod;
+
+		private LoadedRegion(T data)
+		{
+			this.data = data;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.pg85.otg.customobject.structures;
+
+import java.util.HashMap;
+import java.util.Map.Entry;
+
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.helpers.MathHelper;
+
+/**
+ * Spatial index for the start chunks of spawned structures of a single
+ * BO4 name or BO4 group, used for Frequency and BO4Group distance checks.
+ *
+ * Chunks are bucketed into a grid of 32x32 chunk cells, so a
+ * radius query only has to look at the cells overlapping the radius instead
+ * of every structure spawned so far. Each chunk has a radius, the largest one
+ * added for it. Queries use the larger of the queried radius and the chunk's
+ * radius, so group members with a higher group frequency keep others away.
+ *
+ * Not thread safe, CustomStructurePlotter synchronizes access.
+ */
+public class SpawnedStructureIndex
+{
+	private static final int CELL_BITS = 5;
+
+	private final HashMap<Long, HashMap<ChunkCoordinate, Integer>> cells = new HashMap<Long, HashMap<ChunkCoordinate, Integer>>();
+	private int size = 0;
+	// Largest radius of any chunk, used to widen queries so no chunk with a larger radius is missed.
+	private int maxRadius = 0;
+
+	/**
+	 * Adds chunkCoord with the given radius, if chunkCoord was already added
+	 * the largest radius is kept.
+	 */
+	public void add(ChunkCoordinate chunkCoord, int radius)
+	{
+		long cellKey = MathHelper.toLong(chunkCoord.getChunkX() >> CELL_BITS, chunkCoord.getChunkZ() >> CELL_BITS);
+		HashMap<ChunkCoordinate, Integer> cell = this.cells.get(cellKey);
+		if(cell == null)
+		{
+			cell = new HashMap<ChunkCoordinate, Integer>();
+			this.cells.put(cellKey, cell);
+		}
+		Integer existingRadius = cell.get(chunkCoord);
+		if(existingRadius == null)
+		{
+			cell.put(chunkCoord, Integer.valueOf(radius));
+			this.size++;
+		}
+		else if(existingRadius.intValue() < radius)
+		{
+			cell.put(chunkCoord, Integer.valueOf(radius));
+		}
+		if(radius > this.maxRadius)
+		{
+			this.maxRadius = radius;
+		}
+	}
+
+	/**
+	 * Returns true if any chunk is within the larger of radius and the
+	 * chunk's own radius of chunkCoord. Distance is floored, so a chunk at
+	 * distance 5.9 is within a radius of 5.
+	 */
+	public boolean isAnyWithinRadius(ChunkCoordinate chunkCoord, int radius)
+	{
+		if(this.size == 0)
+		{
+			return false;
+		}
+
+		int chunkX = chunkCoord.getChunkX();
+		int chunkZ = chunkCoord.getChunkZ();
+		long searchRadius = Math.max(radius, this.maxRadius);
+		long minCellX = (chunkX - searchRadius) >> CELL_BITS;
+		long maxCellX = (chunkX + searchRadius) >> CELL_BITS;
+		long minCellZ = (chunkZ - searchRadius) >> CELL_BITS;
+		long maxCellZ = (chunkZ + searchRadius) >> CELL_BITS;
+
+		// For very large radii it's cheaper to check every occupied cell
+		// than to look up every cell in range.
+		if((maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1) > this.cells.size())
+		{
+			for(HashMap<ChunkCoordinate, Integer> cell : this.cells.values())
+			{
+				if(isAnyWithinRadius(cell, chunkX, chunkZ, radius))
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+
+		for(long cellX = minCellX; cellX <= maxCellX; cellX++)
+		{
+			for(long cellZ = minCellZ; cellZ <= maxCellZ; cellZ++)
+			{
+				HashMap<ChunkCoordinate, Integer> cell = this.cells.get(MathHelper.toLong((int)cellX, (int)cellZ));
+				if(cell != null && isAnyWithinRadius(cell, chunkX, chunkZ, radius))
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isAnyWithinRadius(HashMap<ChunkCoordinate, Integer> cell, int chunkX, int chunkZ, int radius)
+	{
+		for(Entry<ChunkCoordinate, Integer> entry : cell.entrySet())
+		{
+			long distanceX = chunkX - entry.getKey().getChunkX();
+			long distanceZ = chunkZ - entry.getKey().getChunkZ();
+			// floor(sqrt(d)) <= r is the same as d < (r + 1)^2, without the sqrt.
+			long maxDistance = Math.max(radius, entry.getValue().intValue()) + 1L;
+			if(distanceX * distanceX + distanceZ * distanceZ < maxDistance * maxDistance)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * All chunks and their radius, used when saving to disk.
+	 */
+	public Iterable<Entry<ChunkCoordinate, Integer>> entries()
+	{
+		return () -> this.cells.values().stream().flatMap(cell -> cell.entrySet().stream()).iterator();
+	}
+}
@@ -0,0 +1,163 @@
+package com.pg85.otg.customobject.structures;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import com.pg85.otg.interfaces.ILogger;
+import com.pg85.otg.util.logging.LogCategory;
+import com.pg85.otg.util.logging.LogLevel;
+
+/**
+ * Compresses and writes structure data files on a background thread, so
+ * only serializing the data holds up decoration while saving. Each file is
+ * written to a temporary file and synced to disk, then the previous file is
+ * moved to the backup file and the new file is moved into place.
+ *
+ * Writes are done in the order they were queued. When the queue is full the
+ * saving thread waits for the writer to catch up. Writes made while decoration
+ * is paused are collected in a batch and only queued once decoration resumes,
+ * see beginBatch. The writer thread stops when idle and isn't a daemon, so
+ * queued writes are finished on shutdown.
+ * Data that is queued but not written yet can be fetched with getPendingData,
+ * so regions loaded from disk in the meantime aren't read from outdated files.
+ */
+class StructureDataWriter
+{
+	private static final int MAX_QUEUED_WRITES = 64;
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final ThreadPoolExecutor WRITER = createWriter();
+	// Uncompressed data of the latest queued write per file path.
+	private static final Map<String, byte[]> PENDING_WRITES = new ConcurrentHashMap<String, byte[]>();
+	// Writes collected by the current thread between beginBatch and endBatch.
+	private static final ThreadLocal<List<Runnable>> BATCH = new ThreadLocal<List<Runnable>>();
+
+	private static ThreadPoolExecutor createWriter()
+	{
+		ThreadPoolExecutor writer = new ThreadPoolExecutor(
+			1, 1, 10, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<Runnable>(MAX_QUEUED_WRITES),
+			runnable -> new Thread(runnable, "OTG Structure Data Writer"),
+			(runnable, executor) ->
+			{
+				// Queue is full, wait for space.
+				try
+				{
+					executor.getQueue().put(runnable);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					runnable.run();
+				}
+			}
+		);
+		writer.allowCoreThreadTimeOut(true);
+		return writer;
+	}
+
+	/**
+	 * Queues the uncompressed data to be written to file, the data
+	 * array must not be modified afterwards.
+	 */
+	static void write(File file, File backupFile, byte[] data, ILogger logger)
+	{
+		// Pending data is visible right away, also for batched writes.
+		PENDING_WRITES.put(file.getPath(), data);
+		Runnable task = () ->
+		{
+			writeFile(file, backupFile, data, logger);
+			// Only remove our own data, the file may have been queued again.
+			PENDING_WRITES.remove(file.getPath(), data);
+		};
+		List<Runnable> batch = BATCH.get();
+		if(batch != null)
+		{
+			batch.add(task);
+		} else {
+			WRITER.execute(task);
+		}
+	}
+
+	/**
+	 * Collects writes made by the current thread until endBatch is called,
+	 * so waiting for the writer doesn't hold up decoration while saving.
+	 */
+	static void beginBatch()
+	{
+		BATCH.set(new ArrayList<Runnable>());
+	}
+
+	/**
+	 * Queues the writes collected since beginBatch, call after decoration
+	 * has resumed. Waits for space in the queue if it's full.
+	 */
+	static void endBatch()
+	{
+		List<Runnable> batch = BATCH.get();
+		BATCH.remove();
+		if(batch != null)
+		{
+			for(Runnable task : batch)
+			{
+				WRITER.execute(task);
+			}
+		}
+	}
+
+	/**
+	 * Returns the uncompressed data queued for the file, or null if
+	 * the file has no writes pending.
+	 */
+	static byte[] getPendingData(File file)
+	{
+		return PENDING_WRITES.get(file.getPath());
+	}
+
+	private static void writeFile(File file, File backupFile, byte[] data, ILogger logger)
+	{
+		File tempFile = new File(file.getPath() + TEMP_FILE_EXTENSION);
+		try
+		{
+			file.getParentFile().mkdirs();
+			// Compress while writing, so no compressed copy of the data is kept in memory.
+			Deflater deflater = new Deflater();
+			try(FileOutputStream fos = new FileOutputStream(tempFile))
+			{
+				DeflaterOutputStream deflaterStream = new DeflaterOutputStream(fos, deflater, BUFFER_SIZE);
+				deflaterStream.write(data);
+				deflaterStream.finish();
+				fos.getChannel().force(true);
+			} finally {
+				deflater.end();
+			}
+			if(file.exists())
+			{
+				Files.move(file.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			try
+			{
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException e)
+		{
+			logger.log(LogLevel.ERROR, LogCategory.MAIN, "OTG encountered an error writing " + file.getAbsolutePath() + ", skipping. Exception:");
+			e.printStackTrace();
+		}
+	}
+}
@@ -37,6 +37,7 @@ public class BO4CustomStructure extends CustomStructure
 	private int branchesTried = 0;	
 	private Stack<BranchDataItem> AllBranchesBranchData = new Stack<BranchDataItem>();
 	private HashMap<ChunkCoordinate, ArrayList<BranchDataItem>> AllBranchesBranchDataByChunk = new HashMap<ChunkCoordinate, ArrayList<BranchDataItem>>();
+	private BranchCollisionIndex AllBranchesCollisionIndex = new BranchCollisionIndex(); // Collidable branches in AllBranchesBranchDataByChunk, used to find colliding branches
 	private HashMap<String, ArrayList<ChunkCoordinate>> AllBranchesBranchDataByName = new HashMap<String, ArrayList<ChunkCoordinate>>(); // Used to find distance between branches and branch groups
 	private HashMap<String, HashMap<ChunkCoordinate, ArrayList<Integer>>> AllBranchesBranchDataByGroup = new HashMap<String, HashMap<ChunkCoordinate, ArrayList<Integer>>>(); // Used to find distance between branches and branch groups
 	private HashSet<Integer> AllBranchesBranchDataHash = new HashSet<Integer>();
@@ -649,6 +650,7 @@ public class BO4CustomStructure extends CustomStructure
 				
 				AllBranchesBranchData.clear();
 				AllBranchesBranchDataByChunk.clear();
+				AllBranchesCollisionIndex.clear();
 				AllBranchesBranchDataByName.clear();
 				AllBranchesBranchDataByGroup.clear();
 				AllBranchesBranchDataHash.clear();
@@ -671,6 +673,7 @@ public class BO4CustomStructure extends CustomStructure
 		
 		AllBranchesBranchData.clear();
 		AllBranchesBranchDataByChunk.clear();
+		AllBranchesCollisionIndex.clear();
 		AllBranchesBranchDataByName.clear();
 		AllBranchesBranchDataByGroup.clear();
 		AllBranchesBranchDataHash.clear();
@@ -1420,34 +1423,28 @@ public class BO4CustomStructure extends CustomStructure
 	private boolean checkCannotBeInside(BranchDataItem childBranchDataItem, BO4 bo3, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
 		boolean foundSpawnBlocker = false;
-		if(AllBranchesBranchDataByChunk.containsKey(childBranchDataItem.chunkCoordinate))
+		ArrayList<BranchDataItem> branchDataInChunk = getCollidingBranches(childBranchDataItem, bo3);
+		if(branchDataInChunk.size() > 0)
 		{
-			ArrayList<BranchDataItem> branchDataInChunk = AllBranchesBranchDataByChunk.get(childBranchDataItem.chunkCoordinate);
 			for(String cantBeInsideBO3 : bo3.getConfig().cannotBeInsideBranches)
 			{
 				for(BranchDataItem branchDataItem3 : branchDataInChunk)
 				{
-					if(branchDataItem3 != childBranchDataItem && branchDataItem3 != childBranchDataItem.parent)
+					for(String branchName : ((BO4)branchDataItem3.branch.getObject(otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker)).getConfig().getInheritedBO3s()) // getInheritedBO3s also contains this BO3
 					{
-						for(String branchName : ((BO4)branchDataItem3.branch.getObject(otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker)).getConfig().getInheritedBO3s()) // getInheritedBO3s also contains this BO3
+						if(branchName.equalsIgnoreCase(cantBeInsideBO3))
 						{
-							if(branchName.equalsIgnoreCase(cantBeInsideBO3))
+							if(logger.getLogCategoryEnabled(LogCategory.STRUCTURE_PLOTTING))
 							{
-									if(checkCollision(childBranchDataItem.branch, branchDataItem3.branch, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker))
-									{
-			 							if(logger.getLogCategoryEnabled(LogCategory.STRUCTURE_PLOTTING))
-										{
-			 								logger.log(LogLevel.INFO, LogCategory.STRUCTURE_PLOTTING, "CannotBeInside branch " + childBranchDataItem.branch.bo3Name + " was blocked by " + branchDataItem3.branch.bo3Name);
-										}
-			 							foundSpawnBlocker = true;
-										break;
-									}
+								logger.log(LogLevel.INFO, LogCategory.STRUCTURE_PLOTTING, "CannotBeInside branch " + childBranchDataItem.branch.bo3Name + " was blocked by " + branchDataItem3.branch.bo3Name);
 							}
+							foundSpawnBlocker = true;
+							break;
 						}
-							if(foundSpawnBlocker)
-							{
-								break;
-							}
+					}
+					if(foundSpawnBlocker)
+					{
+						break;
 					}
 				}
 				if(foundSpawnBlocker)
@@ -1462,9 +1459,9 @@ public class BO4CustomStructure extends CustomStructure
 	private boolean checkMustBeInside(BranchDataItem childBranchDataItem, BO4 bo3, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
 		// AND/OR is supported, comma is OR, space is and, f.e: branch1, branch2 branch3, branch 4.
-		if(AllBranchesBranchDataByChunk.containsKey(childBranchDataItem.chunkCoordinate))
-		{								
-			ArrayList<BranchDataItem> branchDataInChunk = AllBranchesBranchDataByChunk.get(childBranchDataItem.chunkCoordinate);			
+		ArrayList<BranchDataItem> branchDataInChunk = getCollidingBranches(childBranchDataItem, bo3);
+		if(branchDataInChunk.size() > 0)
+		{
 			for(String mustBeInsideBO3 : bo3.getConfig().mustBeInsideBranches)
 			{
 				boolean foundSpawnRequirement = true;
@@ -1475,24 +1472,18 @@ public class BO4CustomStructure extends CustomStructure
 					bFoundPart = false;
 					for(BranchDataItem branchDataItem3 : branchDataInChunk)
 					{
-						if(branchDataItem3 != childBranchDataItem && branchDataItem3 != childBranchDataItem.parent)
+						for(String branchName : ((BO4)branchDataItem3.branch.getObject(otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker)).getConfig().getInheritedBO3s()) // getInheritedBO3s also contains this BO3
 						{
-							for(String branchName : ((BO4)branchDataItem3.branch.getObject(otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker)).getConfig().getInheritedBO3s()) // getInheritedBO3s also contains this BO3
-							{
-								if(branchName.equalsIgnoreCase(mustBeInsideBO3Name))
-								{
-									if(checkCollision(childBranchDataItem.branch, branchDataItem3.branch, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker))
-									{
-										bFoundPart = true;
-										break;
-									}
-								}
-							}
-							if(bFoundPart)
+							if(branchName.equalsIgnoreCase(mustBeInsideBO3Name))
 							{
+								bFoundPart = true;
 								break;
 							}
 						}
+						if(bFoundPart)
+						{
+							break;
+						}
 					}
 					if(!bFoundPart)
 					{
@@ -1508,6 +1499,19 @@ public class BO4CustomStructure extends CustomStructure
 		return false;
 	}
 
+	// Returns the branches in childBranchDataItem's chunk that collide with it, excluding its parent.
+	private ArrayList<BranchDataItem> getCollidingBranches(BranchDataItem childBranchDataItem, BO4 bo3)
+	{
+		ArrayList<BranchDataItem> collidingBranches = new ArrayList<BranchDataItem>();
+		if(bo3.isCollidable())
+		{
+			AllBranchesCollisionIndex.getColliding(childBranchDataItem.chunkCoordinate, getCollisionBox(childBranchDataItem.branch, bo3), collidingBranches);
+			collidingBranches.remove(childBranchDataItem);
+			collidingBranches.remove(childBranchDataItem.parent);
+		}
+		return collidingBranches;
+	}
+
 	private void rollBackBranch(BO4Config startBO4Config, BranchDataItem branchData, boolean minimumSize, boolean spawningRequiredBranchesOnly, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, ArrayList<String> targetBiomes, ChunkCoordinate chunkBeingDecorated, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
 		// When spawning an optional branch its required branches are spawned immediately as well (if there are no optional branches in the same branchGroup)
@@ -1889,6 +1893,10 @@ public class BO4CustomStructure extends CustomStructure
 			branchDataItemStack.add(branchData);
 			AllBranchesBranchDataByChunk.put(branchData.chunkCoordinate, branchDataItemStack);
 		}
+		if(bo3.isCollidable())
+		{
+			AllBranchesCollisionIndex.add(branchData, getCollisionBox(branchData.branch, bo3));
+		}
 
 		ArrayList<ChunkCoordinate> sameNameBo3s = AllBranchesBranchDataByName.get(branchData.branch.bo3Name);
 		if(sameNameBo3s == null)
@@ -1931,6 +1939,7 @@ public class BO4CustomStructure extends CustomStructure
 			{
 				AllBranchesBranchDataByChunk.remove(branchDataItem.chunkCoordinate);
 			}
+			AllBranchesCollisionIndex.remove(branchDataItem);
 			ArrayList<ChunkCoordinate> allCoordsForBo3 = AllBranchesBranchDataByName.get(branchDataItem.branch.bo3Name);
 			allCoordsForBo3.remove(branchDataItem.chunkCoordinate);
 			if(allCoordsForBo3.size() == 0)
@@ -2088,28 +2097,16 @@ public class BO4CustomStructure extends CustomStructure
 		// collidingObjects are only used for size > 0 check and to see if this branch tried to spawn on top of its parent
 		Stack<BranchDataItem> collidingObjects = new Stack<BranchDataItem>();
 		
-		if(!((BO4) coordObject.getObject(otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker)).getConfig().canOverride)
+		BO4 coordBO4 = (BO4)coordObject.getObject(otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+		if(!coordBO4.getConfig().canOverride && coordBO4.isCollidable())
 		{
-			Stack<BranchDataItem> existingBranches = new Stack<BranchDataItem>();
-			if(AllBranchesBranchDataByChunk.containsKey(branchData.chunkCoordinate))
+			ArrayList<BranchDataItem> existingBranches = new ArrayList<BranchDataItem>();
+			AllBranchesCollisionIndex.getColliding(branchData.chunkCoordinate, getCollisionBox(coordObject, coordBO4), existingBranches);
+			for (BranchDataItem cachedBranch : existingBranches)
 			{
-				for(BranchDataItem existingBranchData : AllBranchesBranchDataByChunk.get(branchData.chunkCoordinate))
+				if(!((BO4)cachedBranch.branch.getObject(otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker)).getConfig().canOverride)
 				{
-					if(branchData.chunkCoordinate.equals(existingBranchData.chunkCoordinate) && !((BO4)existingBranchData.branch.getObject(otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker)).getConfig().canOverride)
-					{
-						existingBranches.add(existingBranchData);
-					}
-				}
-			}
-
-			if (existingBranches.size() > 0)
-			{
-				for (BranchDataItem cachedBranch : existingBranches)
-				{
-					if(checkCollision(coordObject, cachedBranch.branch, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker))
-					{
-						collidingObjects.add(cachedBranch);
-					}
+					collidingObjects.add(cachedBranch);
 				}
 			}
 		}
@@ -2136,42 +2133,23 @@ public class BO4CustomStructure extends CustomStructure
 			return false;
 		}
 
-		// minX/maxX/minZ/maxZ are always positive.
-
-		CustomStructureCoordinate branchData1BranchMinRotated = BO4CustomStructureCoordinate.getRotatedBO3CoordsJustified(branch1Object.getConfig().getminX(), branch1Object.getConfig().getminY(), branch1Object.getConfig().getminZ(), branchData1Branch.getRotation());
-		CustomStructureCoordinate branchData1BranchMaxRotated = BO4CustomStructureCoordinate.getRotatedBO3CoordsJustified(branch1Object.getConfig().getmaxX(), branch1Object.getConfig().getmaxY(), branch1Object.getConfig().getmaxZ(), branchData1Branch.getRotation());
-
-		int startX = branchData1Branch.getX() + Math.min(branchData1BranchMinRotated.getX(),branchData1BranchMaxRotated.getX());
-		int endX = branchData1Branch.getX() + Math.max(branchData1BranchMinRotated.getX(),branchData1BranchMaxRotated.getX());
-		int startY = branchData1Branch.getY() + Math.min(branchData1BranchMinRotated.getY(),branchData1BranchMaxRotated.getY());
-		int endY = branchData1Branch.getY() + Math.max(branchData1BranchMinRotated.getY(),branchData1BranchMaxRotated.getY());
-		int startZ = branchData1Branch.getZ() + Math.min(branchData1BranchMinRotated.getZ(),branchData1BranchMaxRotated.getZ());
-		int endZ = branchData1Branch.getZ() + Math.max(branchData1BranchMinRotated.getZ(),branchData1BranchMaxRotated.getZ());
-
-		CustomStructureCoordinate branchData2BranchMinRotated = BO4CustomStructureCoordinate.getRotatedBO3CoordsJustified(branch2Object.getConfig().getminX(), branch2Object.getConfig().getminY(), branch2Object.getConfig().getminZ(), branchData2Branch.getRotation());
-		CustomStructureCoordinate branchData2BranchMaxRotated = BO4CustomStructureCoordinate.getRotatedBO3CoordsJustified(branch2Object.getConfig().getmaxX(), branch2Object.getConfig().getmaxY(), branch2Object.getConfig().getmaxZ(), branchData2Branch.getRotation());
-
-		int cachedBranchStartX = branchData2Branch.getX() + Math.min(branchData2BranchMinRotated.getX(),branchData2BranchMaxRotated.getX());
-		int cachedBranchEndX = branchData2Branch.getX() + Math.max(branchData2BranchMinRotated.getX(),branchData2BranchMaxRotated.getX());
-		int cachedBranchStartY = branchData2Branch.getY() + Math.min(branchData2BranchMinRotated.getY(),branchData2BranchMaxRotated.getY());
-		int cachedBranchEndY = branchData2Branch.getY() + Math.max(branchData2BranchMinRotated.getY(),branchData2BranchMaxRotated.getY());
-		int cachedBranchStartZ = branchData2Branch.getZ() + Math.min(branchData2BranchMinRotated.getZ(),branchData2BranchMaxRotated.getZ());
-		int cachedBranchEndZ = branchData2Branch.getZ() + Math.max(branchData2BranchMinRotated.getZ(),branchData2BranchMaxRotated.getZ());
-
-		if (
-			cachedBranchEndX >= startX &&
-			cachedBranchStartX <= endX &&
-			cachedBranchEndY >= startY &&
-			cachedBranchStartY <= endY &&
-			cachedBranchEndZ >= startZ &&
-			cachedBranchStartZ <= endZ
-		)
-		{
-			// Structures' bounding boxes are overlapping
-			return true;
-		}
+		// True if the structures' bounding boxes are overlapping
+		return BranchCollisionIndex.isColliding(getCollisionBox(branchData1Branch, branch1Object), getCollisionBox(branchData2Branch, branch2Object));
+	}
 
-		return false;
+	// World coordinates of the branch's bounding box: { minX, maxX, minY, maxY, minZ, maxZ }
+	private static int[] getCollisionBox(CustomStructureCoordinate branch, BO4 branchObject)
+	{
+		// minX/maxX/minZ/maxZ are always positive.
+		int[] bounds = branchObject.getConfig().getCollisionBounds(branch.getRotation());
+		return new int[] {
+			branch.getX() + bounds[0],
+			branch.getX() + bounds[1],
+			branch.getY() + bounds[2],
+			branch.getY() + bounds[3],
+			branch.getZ() + bounds[4],
+			branch.getZ() + bounds[5]
+		};
 	}
 
 	/**
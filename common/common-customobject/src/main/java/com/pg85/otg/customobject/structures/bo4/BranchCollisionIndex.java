@@ -0,0 +1,152 @@
+package com.pg85.otg.customobject.structures.bo4;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import com.pg85.otg.util.ChunkCoordinate;
+
+/**
+ * Index of the collision boxes of the branches plotted so far for a
+ * branching structure, per chunk the branches are in. Used to find branches
+ * colliding with a new branch without checking every branch in the chunk.
+ *
+ * Per chunk, boxes are kept sorted by minX. A query binary searches for the
+ * last box starting at or before the query's maxX and walks back until boxes
+ * start before the query's minX minus the widest box in the chunk, so only
+ * boxes overlapping on the x-axis are compared on y and z.
+ *
+ * Only collidable branches should be added, boxes are world coordinates:
+ * { minX, maxX, minY, maxY, minZ, maxZ }, see BO4Config.getCollisionBounds.
+ */
+class BranchCollisionIndex
+{
+	private final HashMap<ChunkCoordinate, ChunkBoxes> boxesByChunk = new HashMap<ChunkCoordinate, ChunkBoxes>();
+
+	void add(BranchDataItem branchData, int[] box)
+	{
+		ChunkBoxes chunkBoxes = this.boxesByChunk.get(branchData.chunkCoordinate);
+		if(chunkBoxes == null)
+		{
+			chunkBoxes = new ChunkBoxes();
+			this.boxesByChunk.put(branchData.chunkCoordinate, chunkBoxes);
+		}
+		chunkBoxes.add(branchData, box);
+	}
+
+	void remove(BranchDataItem branchData)
+	{
+		ChunkBoxes chunkBoxes = this.boxesByChunk.get(branchData.chunkCoordinate);
+		if(chunkBoxes != null)
+		{
+			chunkBoxes.remove(branchData);
+			if(chunkBoxes.size == 0)
+			{
+				this.boxesByChunk.remove(branchData.chunkCoordinate);
+			}
+		}
+	}
+
+	void clear()
+	{
+		this.boxesByChunk.clear();
+	}
+
+	/**
+	 * Adds all branches in chunkCoordinate whose box overlaps box to colliding.
+	 */
+	void getColliding(ChunkCoordinate chunkCoordinate, int[] box, List<BranchDataItem> colliding)
+	{
+		ChunkBoxes chunkBoxes = this.boxesByChunk.get(chunkCoordinate);
+		if(chunkBoxes != null)
+		{
+			chunkBoxes.getColliding(box, colliding);
+		}
+	}
+
+	static boolean isColliding(int[] box1, int[] box2)
+	{
+		return
+			box2[1] >= box1[0] &&
+			box2[0] <= box1[1] &&
+			box2[3] >= box1[2] &&
+			box2[2] <= box1[3] &&
+			box2[5] >= box1[4] &&
+			box2[4] <= box1[5]
+		;
+	}
+
+	private static class ChunkBoxes
+	{
+		private BranchDataItem[] branches = new BranchDataItem[8];
+		private int[][] boxes = new int[8][];
+		private int size = 0;
+		// Widest box on the x-axis, bounds how far back a query has to look.
+		private int maxWidthX = 0;
+
+		private void add(BranchDataItem branchData, int[] box)
+		{
+			if(this.size == this.branches.length)
+			{
+				this.branches = Arrays.copyOf(this.branches, this.size * 2);
+				this.boxes = Arrays.copyOf(this.boxes, this.size * 2);
+			}
+			int index = upperBound(box[0]);
+			System.arraycopy(this.branches, index, this.branches, index + 1, this.size - index);
+			System.arraycopy(this.boxes, index, this.boxes, index + 1, this.size - index);
+			this.branches[index] = branchData;
+			this.boxes[index] = box;
+			this.size++;
+			if(box[1] - box[0] > this.maxWidthX)
+			{
+				this.maxWidthX = box[1] - box[0];
+			}
+		}
+
+		private void remove(BranchDataItem branchData)
+		{
+			for(int i = 0; i < this.size; i++)
+			{
+				if(this.branches[i] == branchData)
+				{
+					System.arraycopy(this.branches, i + 1, this.branches, i, this.size - i - 1);
+					System.arraycopy(this.boxes, i + 1, this.boxes, i, this.size - i - 1);
+					this.size--;
+					this.branches[this.size] = null;
+					this.boxes[this.size] = null;
+					return;
+				}
+			}
+		}
+
+		private void getColliding(int[] box, List<BranchDataItem> colliding)
+		{
+			long minStartX = (long)box[0] - this.maxWidthX;
+			for(int i = upperBound(box[1]) - 1; i >= 0 && this.boxes[i][0] >= minStartX; i--)
+			{
+				if(isColliding(box, this.boxes[i]))
+				{
+					colliding.add(this.branches[i]);
+				}
+			}
+		}
+
+		// Index of the first box with minX > x.
+		private int upperBound(int x)
+		{
+			int low = 0;
+			int high = this.size;
+			while(low < high)
+			{
+				int mid = (low + high) >>> 1;
+				if(this.boxes[mid][0] <= x)
+				{
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+}
@@ -7,15 +7,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import com.pg85.otg.constants.Constants;
 import com.pg85.otg.customobject.CustomObjectManager;
 import com.pg85.otg.customobject.bo4.BO4;
 import com.pg85.otg.customobject.config.CustomObjectResourcesManager;
-import com.pg85.otg.customobject.structures.CustomStructure;
 import com.pg85.otg.customobject.structures.CustomStructureCache;
 import com.pg85.otg.customobject.structures.CustomStructureFileManager;
 import com.pg85.otg.customobject.structures.PlottedChunksRegion;
+import com.pg85.otg.customobject.structures.RegionDataCache;
+import com.pg85.otg.customobject.structures.SpawnedStructureIndex;
 import com.pg85.otg.exceptions.InvalidConfigException;
 import com.pg85.otg.interfaces.IBiomeConfig;
 import com.pg85.otg.interfaces.ICustomStructureGen;
@@ -33,53 +36,72 @@ import com.pg85.otg.util.logging.LogLevel;
 
 public class CustomStructurePlotter
 {
+	// Regions of plottedChunks kept in memory, least recently used regions are unloaded when saving.
+	private static final int MAX_LOADED_REGIONS = 64;
+
 	// Structurecache holds plotted structures/branches/smoothing areas in undecorated chunks.
+	// Regions are filled in when their structure data is loaded, see CustomStructureCache.
 	private final Map<ChunkCoordinate, BO4CustomStructure[][]> bo4StructureCache; // Per region
+	private final Consumer<ChunkCoordinate> structureDataLoader;
 	
 	// plottedChunks holds a chunkcoord for every chunk outside the 
 	// pregenerated region that has had its decorate method called.
 	// We unfortunately need this because MC can't tell use whether a chunk
 	// has been decorated, only whether is has had terraingen done, or if it
 	// is completely done being decorated and lit (its neighbours have all spawned).
-	private final Map<ChunkCoordinate, PlottedChunksRegion> plottedChunks; // Per region
+	private RegionDataCache<PlottedChunksRegion> plottedChunks; // Per region, loaded on demand
 
 	// Used to find distance between structures and structure groups, only stores 1 chunk per structure in the 
-	// calculated center of the structure. Does not clean itself when used with the pre-generator and will become 
-	// slower as it fills up, use as little as possible! (can't clean itself because max radius for BO4 groups cannot be known)	
-	private final HashMap<String, ArrayList<ChunkCoordinate>> spawnedStructuresByName;  // structure name -> start chunk coords. Saved to disk.
-	private final HashMap<String, HashMap<ChunkCoordinate, Integer>> spawnedStructuresByGroup; // group name -> Map<ChunkCoord, Radius>. Saved to disk.	
-
-	// Locking objects to ensure plotting code can
-	// never run multiple times asynchronously, or recursively.
-	private final Object processingLock = new Object();
-	private boolean processing = false;
-	//
+	// calculated center of the structure. Does not clean itself when used with the pre-generator (can't clean 
+	// itself because max radius for BO4 groups cannot be known), spatially indexed so checks stay fast as it fills up.
+	private final HashMap<String, SpawnedStructureIndex> spawnedStructuresByName;  // structure name -> start chunk coords. Saved to disk.
+	private final HashMap<String, SpawnedStructureIndex> spawnedStructuresByGroup; // group name -> start chunk coords with radius. Saved to disk.
+
+	// Plotting locks the regions around the chunk being plotted, so decoration threads 
+	// working on regions far enough apart can plot in parallel, see RegionLocks.
+	// The per-region arrays in bo4StructureCache and plottedChunks are only accessed
+	// while holding the locks for their region, the maps themselves are concurrent.
+	private final RegionLocks regionLocks = new RegionLocks();
 	
-	private boolean structurePlottedAtSpawn; // Used to make sure the structureatspawn is plotted first.
+	private final Object spawnLock = new Object();
+	private volatile boolean structurePlottedAtSpawn; // Used to make sure the structureatspawn is plotted first.
 	
-	// Non-persistent caches (optimisations)
+	// Non-persistent caches (optimisations), synchronized on the map.
 	private final FifoMap<ChunkCoordinate, ArrayList<String>> structureNamesPerChunk;
 	private final FifoMap<ChunkCoordinate, Object> plottedChunksFastCache; // TODO: Technically we don't need a map, we need a FIFO list with unique entries.
 	
-	public CustomStructurePlotter()
+	/**
+	 * @param structureDataLoader Loads the structure data region with the given
+	 * coordinates if it isn't loaded yet, see CustomStructureCache.
+	 */
+	public CustomStructurePlotter(Consumer<ChunkCoordinate> structureDataLoader)
 	{
+		this.structureDataLoader = structureDataLoader;
+
 		// Non-persistent caches
 		this.structureNamesPerChunk = new FifoMap<ChunkCoordinate, ArrayList<String>>(2048);
 		this.plottedChunksFastCache = new FifoMap<ChunkCoordinate, Object>(2048);
 		
 		// Persistent caches
-		this.spawnedStructuresByName = new HashMap<String, ArrayList<ChunkCoordinate>>();
-		this.spawnedStructuresByGroup = new HashMap<String, HashMap<ChunkCoordinate, Integer>>();
-		this.bo4StructureCache = new HashMap<ChunkCoordinate, BO4CustomStructure[][]>();
-		this.plottedChunks = new HashMap<ChunkCoordinate, PlottedChunksRegion>(); 
+		this.spawnedStructuresByName = new HashMap<String, SpawnedStructureIndex>();
+		this.spawnedStructuresByGroup = new HashMap<String, SpawnedStructureIndex>();
+		this.bo4StructureCache = new ConcurrentHashMap<ChunkCoordinate, BO4CustomStructure[][]>();
 	}
 
 	// Structure cache
+
+	// Loading a structure data region fills in its bo4StructureCache region, so
+	// make sure it's loaded before using the region.
+	private BO4CustomStructure[][] getStructureCacheRegion(ChunkCoordinate regionCoord)
+	{
+		this.structureDataLoader.accept(regionCoord);
+		return this.bo4StructureCache.get(regionCoord);
+	}
 	
 	private boolean structureCacheContainsKey(ChunkCoordinate chunkCoordinate)
 	{
 		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();				
-		BO4CustomStructure[][] chunkRegion = bo4StructureCache.get(regionCoord);
+		BO4CustomStructure[][] chunkRegion = getStructureCacheRegion(regionCoord);
 		return chunkRegion != null && chunkRegion[chunkCoordinate.getRegionInternalX()][chunkCoordinate.getRegionInternalZ()] != null;
 	}
 	
@@ -87,12 +109,8 @@ public class CustomStructurePlotter
 	{
 		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();
 		
-		BO4CustomStructure[][] chunkRegion = this.bo4StructureCache.get(regionCoord);
-		if(chunkRegion == null)
-		{
-			chunkRegion = new BO4CustomStructure[Constants.REGION_SIZE][Constants.REGION_SIZE];
-			this.bo4StructureCache.put(regionCoord, chunkRegion);
-		}
+		this.structureDataLoader.accept(regionCoord);
+		BO4CustomStructure[][] chunkRegion = this.bo4StructureCache.computeIfAbsent(regionCoord, key -> new BO4CustomStructure[Constants.REGION_SIZE][Constants.REGION_SIZE]);
 		chunkRegion[chunkCoordinate.getRegionInternalX()][chunkCoordinate.getRegionInternalZ()] = structure;
 	}
 	
@@ -100,7 +118,7 @@ public class CustomStructurePlotter
 	{
 		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();
 		
-		BO4CustomStructure[][] chunkRegion = this.bo4StructureCache.get(regionCoord);
+		BO4CustomStructure[][] chunkRegion = getStructureCacheRegion(regionCoord);
 		if(chunkRegion != null)
 		{
 			chunkRegion[chunkCoordinate.getRegionInternalX()][chunkCoordinate.getRegionInternalZ()] = null;
@@ -112,7 +130,7 @@ public class CustomStructurePlotter
 	private BO4CustomStructure getFromStructureCache(ChunkCoordinate chunkCoordinate)
 	{
 		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();		
-		BO4CustomStructure[][] chunkRegion = this.bo4StructureCache.get(regionCoord);
+		BO4CustomStructure[][] chunkRegion = getStructureCacheRegion(regionCoord);
 		if(chunkRegion != null)
 		{
 			return chunkRegion[chunkCoordinate.getRegionInternalX()][chunkCoordinate.getRegionInternalZ()];
@@ -120,24 +138,52 @@ public class CustomStructurePlotter
 		return null;
 	}
 
+	// Called by CustomStructureCache for each structure in a structure data region being loaded.
+	public void addLoadedStructure(BO4CustomStructure structure)
+	{
+		// Loaded structures contain chunkcoords for every chunk ever plotted.
+		// We only need chunks plotted but not yet decorated that contain structure parts.
+		// objectsToSpawn and smoothingAreasToSpawn contain all unspawned branches and 
+		// smoothing areas in the region. Any chunks that have had their bo4's spawned while 
+		// decorating a neighbouring chunk, but have not yet been fully decorated themselves 
+		// are kept in plottedChunks, along with all fully decorated chunks.
+		for(ChunkCoordinate chunkCoord : structure.getObjectsToSpawn().keySet())
+		{
+			addLoadedStructureToCache(chunkCoord, structure); // This structure has blocks that need to be spawned
+		}
+		for(ChunkCoordinate chunkCoord : structure.getSmoothingAreaManager().getSmoothingAreaChunkCoords())
+		{
+			addLoadedStructureToCache(chunkCoord, structure); // This structure has smoothing area blocks that need to be spawned
+		}
+	}
+
+	// The structure data region is being loaded, so don't try to load it again.
+	private void addLoadedStructureToCache(ChunkCoordinate chunkCoordinate, BO4CustomStructure structure)
+	{
+		BO4CustomStructure[][] chunkRegion = this.bo4StructureCache.computeIfAbsent(chunkCoordinate.toRegionCoord(), key -> new BO4CustomStructure[Constants.REGION_SIZE][Constants.REGION_SIZE]);
+		chunkRegion[chunkCoordinate.getRegionInternalX()][chunkCoordinate.getRegionInternalZ()] = structure;
+	}
+
+	// Called by CustomStructureCache when a structure data region is unloaded,
+	// its structures are added again when the region is loaded again.
+	public void removeStructureCacheRegion(ChunkCoordinate regionCoord)
+	{
+		this.bo4StructureCache.remove(regionCoord);
+	}
+
 	// Populated chunks cache
 	
 	private boolean plottedChunksContainsKey(ChunkCoordinate chunkCoordinate)
 	{
 		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();
-		PlottedChunksRegion chunkRegion = plottedChunks.get(regionCoord);
+		PlottedChunksRegion chunkRegion = this.plottedChunks.get(regionCoord);
 		return chunkRegion != null && chunkRegion.getChunk(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ());
 	}
 	
 	private void addToPlottedChunks(ChunkCoordinate chunkCoordinate)
 	{
 		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();				
-		PlottedChunksRegion chunkRegion = this.plottedChunks.get(regionCoord);
-		if(chunkRegion == null)
-		{
-			chunkRegion = new PlottedChunksRegion();
-			this.plottedChunks.put(regionCoord, chunkRegion);
-		}
+		PlottedChunksRegion chunkRegion = this.plottedChunks.getOrCreate(regionCoord, PlottedChunksRegion::new);
 		chunkRegion.setChunk(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ());
 	}	
 	
@@ -145,14 +191,20 @@ public class CustomStructurePlotter
 	public boolean isBo4ChunkPlotted(ChunkCoordinate chunkCoordinate)
 	{
 		// Check if any other structures are in this chunk
-		boolean bFound =
-			// TODO: Optimise this using regions, mark regions when completed so we can skip checks.
-			this.plottedChunksFastCache.containsKey(chunkCoordinate) || // Has been plotted recently, still cached (fast cache).
-			plottedChunksContainsKey(chunkCoordinate) // Has been plotted (slow cache).
-		;
+		boolean bFound;
+		synchronized(this.plottedChunksFastCache)
+		{
+			// Has been plotted recently, still cached (fast cache).
+			bFound = this.plottedChunksFastCache.containsKey(chunkCoordinate);
+		}
+		// TODO: Optimise this using regions, mark regions when completed so we can skip checks.
+		bFound = bFound || plottedChunksContainsKey(chunkCoordinate); // Has been plotted (slow cache).
 		if(bFound)
 		{
-			this.plottedChunksFastCache.put(chunkCoordinate, null);
+			synchronized(this.plottedChunksFastCache)
+			{
+				this.plottedChunksFastCache.put(chunkCoordinate, null);
+			}
 		}
 		return bFound;
 	}
@@ -171,8 +223,32 @@ public class CustomStructurePlotter
 		setChunkOccupied(chunkCoordinate);
 	}
 
-	// Only used by ChunkDecorator
-	public void spawnBO4Chunk(ChunkCoordinate chunkCoordinate, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	// Only used by ChunkDecorator during decoration. Plots BO4's for all chunks that may have blocks 
+	// spawned on them while decorating this chunk, then spawns them, so we can be sure those chunks 
+	// have had a chance to plot+spawn bo4's before other resources.
+	public void plotAndSpawnStructures(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		plotStructureAtSpawn(null, null, structureCache, worldGenRegion, rand, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, false);
+
+		// When called during chunkgeneration, the chunk must be filled or invalidated before returning, so block until we can plot.
+		int[] lockedStripes = this.regionLocks.lock(chunkCoord.getChunkX(), chunkCoord.getChunkZ(), chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ() + 1);
+		try
+		{
+			plotStructures(null, null, structureCache, worldGenRegion, rand, chunkCoord, false, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, false);
+			plotStructures(null, null, structureCache, worldGenRegion, rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ()), false, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, false);
+			plotStructures(null, null, structureCache, worldGenRegion, rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX(), chunkCoord.getChunkZ() + 1), false, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, false);
+			plotStructures(null, null, structureCache, worldGenRegion, rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ() + 1), false, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, false);
+
+			spawnBO4Chunk(chunkCoord, structureCache, worldGenRegion, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+			spawnBO4Chunk(ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ()), structureCache, worldGenRegion, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+			spawnBO4Chunk(ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX(), chunkCoord.getChunkZ() + 1), structureCache, worldGenRegion, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+			spawnBO4Chunk(ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ() + 1), structureCache, worldGenRegion, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+		} finally {
+			this.regionLocks.unlock(lockedStripes);
+		}
+	}
+
+	private void spawnBO4Chunk(ChunkCoordinate chunkCoordinate, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
 		BO4CustomStructure structureStart = getFromStructureCache(chunkCoordinate);
 		if (structureStart != null && structureStart.start != null)
@@ -196,72 +272,97 @@ public class CustomStructurePlotter
 		setChunkOccupied(chunkCoordinate);
 	}
 
-	// Only used by ChunkDecorator during decoration
-	public ChunkCoordinate plotStructures(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	// Only used by /otg spawn. targetStructure and targetBiomes only used for /spawn (make that prettier?)
+	public ChunkCoordinate plotStructures(BO4 targetStructure, ArrayList<String> targetBiomes, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker, boolean force)
 	{
-		return plotStructures(null, null, structureCache, worldGenRegion, rand, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, false);
+		plotStructureAtSpawn(targetStructure, targetBiomes, structureCache, worldGenRegion, rand, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, force);
+
+		// When called by /otg spawn, skip this attempt to spawn if chunk generation 
+		// is plotting nearby, and let chunk generation complete first.
+		int[] lockedStripes = this.regionLocks.tryLock(chunkCoord.getChunkX(), chunkCoord.getChunkZ(), chunkCoord.getChunkX(), chunkCoord.getChunkZ());
+		if(lockedStripes == null)
+		{
+			return null;
+		}
+		try
+		{
+			return plotStructures(targetStructure, targetBiomes, structureCache, worldGenRegion, rand, chunkCoord, false, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, force);
+		} finally {
+			this.regionLocks.unlock(lockedStripes);
+		}
 	}
-	
-	// Used by ChunkDecorator during decoration and /otg spawn. targetStructure and targetBiomes only used for /spawn (make that prettier?)
-	public ChunkCoordinate plotStructures(BO4 targetStructure, ArrayList<String> targetBiomes, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker, boolean force)
+
+	// Make sure the BO4 at spawn is plotted before anything else. Must be called 
+	// before taking any region locks, threads plotting elsewhere wait until it's done.
+	private void plotStructureAtSpawn(BO4 targetStructure, ArrayList<String> targetBiomes, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker, boolean force)
+	{
+		if(!this.structurePlottedAtSpawn)
+		{
+			synchronized(this.spawnLock)
+			{
+				if(!this.structurePlottedAtSpawn)
+				{
+					ChunkCoordinate spawnChunk = worldGenRegion.getSpawnChunk();
+					int[] lockedStripes = this.regionLocks.lock(spawnChunk.getChunkX(), spawnChunk.getChunkZ(), spawnChunk.getChunkX(), spawnChunk.getChunkZ());
+					try
+					{
+						plotStructures(targetStructure, targetBiomes, structureCache, worldGenRegion, rand, spawnChunk, true, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, force);
+					} finally {
+						this.regionLocks.unlock(lockedStripes);
+					}
+					this.structurePlottedAtSpawn = true;
+				}
+			}
+		}
+	}
+
+	// Chunks plotted during decoration lie within the decoration area, which has 
+	// its biomes prefetched in one go, so use those when possible. Other chunks 
+	// (scanning for free space, /otg spawn) need a separate lookup per column.
+	private IBiomeConfig getBiomeConfig(IWorldGenRegion worldGenRegion, int blockX, int blockZ)
 	{
-		return plotStructures(targetStructure, targetBiomes, structureCache, worldGenRegion, rand, chunkCoord, false, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, force);
+		if(worldGenRegion.getDecorationArea() != null && worldGenRegion.getDecorationArea().isInAreaBeingDecorated(blockX, blockZ))
+		{
+			return worldGenRegion.getBiomeConfigForDecoration(blockX, blockZ);
+		}
+		return worldGenRegion.getCachedBiomeProvider().getBiomeConfig(blockX, blockZ);
 	}
 
 	private void setChunkOccupied(ChunkCoordinate chunkCoord)
 	{
 		// Add empty list as an optimisation, so null means not handled, emtpy means done
-		this.structureNamesPerChunk.put(chunkCoord, new ArrayList<String>());
+		setStructureNamesForChunk(chunkCoord, new ArrayList<String>());
 		// Use separate cache for faster isChunkPopulated lookups, 
 		// no need to do containsKey + get == null, can just do containsKey
-		this.plottedChunksFastCache.put(chunkCoord, null);
+		synchronized(this.plottedChunksFastCache)
+		{
+			this.plottedChunksFastCache.put(chunkCoord, null);
+		}
 	}
-	
-	private ChunkCoordinate plotStructures(BO4 targetStructure, ArrayList<String> targetBiomes, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, boolean spawningStructureAtSpawn, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker, boolean force)
+
+	private ArrayList<String> getStructureNamesForChunk(ChunkCoordinate chunkCoord)
 	{
-		// Make sure the BO4 at spawn is plotted before anything else
-		// This isn't thread-safe so there's a race condition, shouldn't 
-		// cause problems though due to the lock later on.
-		if(!this.structurePlottedAtSpawn) 
+		synchronized(this.structureNamesPerChunk)
 		{
-			this.structurePlottedAtSpawn = true;
-			plotStructures(targetStructure, targetBiomes, structureCache, worldGenRegion, rand, worldGenRegion.getSpawnChunk(), true, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, force);
+			return this.structureNamesPerChunk.get(chunkCoord);
 		}
-		
-		// This method can be called by /otg spawn and during chunkgeneration.
-		// When called during chunkgeneration, the chunk must be filled or invalidated before returning, so never cancel.
-		// When called by /otg spawn, skip this attempt to spawn and let chunk generation complete first.
-		// This method should never be called recursively.
-		// TODO: Make sure this never gets stuck, or abort and log a warning.
-		// TODO: Can this thread be paused without issues, for how long?
-		while(true)
+	}
+
+	private void setStructureNamesForChunk(ChunkCoordinate chunkCoord, ArrayList<String> structureNames)
+	{
+		synchronized(this.structureNamesPerChunk)
 		{
-			synchronized(this.processingLock)
-			{
-				if(!this.processing)
-				{				
-					this.processing = true;
-					break;
-				}				
-				else if(targetStructure != null)
-				{
-					return null;
-				}
-			}  		
-			try {
-				Thread.sleep(20);
-			}
-			catch (InterruptedException e)
-			{
-				e.printStackTrace();
-				throw new RuntimeException("This shouldn't happen, please ask for help on the OTG Discord or file an issue on the OTG github.");
-			}
+			this.structureNamesPerChunk.put(chunkCoord, structureNames);
 		}
+	}
 
+	// Caller must hold the region locks for chunkCoord.
+	private ChunkCoordinate plotStructures(BO4 targetStructure, ArrayList<String> targetBiomes, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, boolean spawningStructureAtSpawn, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker, boolean force)
+	{
 		long startTime = System.currentTimeMillis();
 		if (!isBo4ChunkPlotted(chunkCoord))
 		{
-			IBiomeConfig biomeConfig = worldGenRegion.getCachedBiomeProvider().getBiomeConfig(chunkCoord.getBlockX() + DecorationArea.BO_CHUNK_CENTER_X, chunkCoord.getBlockZ() + DecorationArea.BO_CHUNK_CENTER_Z);		  
+			IBiomeConfig biomeConfig = getBiomeConfig(worldGenRegion, chunkCoord.getBlockX() + DecorationArea.BO_CHUNK_CENTER_X, chunkCoord.getBlockZ() + DecorationArea.BO_CHUNK_CENTER_Z);		  
 			List<ICustomStructureGen> customStructureGens = new ArrayList<>();
 			if(targetStructure == null && !worldGenRegion.chunkHasDefaultStructure(rand, chunkCoord))
 			{
@@ -496,7 +597,7 @@ public class CustomStructurePlotter
 															{
 																canSpawnHere = true;
 															} else {
-																biomeConfig3 = worldGenRegion.getCachedBiomeProvider().getBiomeConfig((chunkCoord.getChunkX() + scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
+																biomeConfig3 = getBiomeConfig(worldGenRegion, (chunkCoord.getChunkX() + scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
 																if(targetBiomes.contains(biomeConfig3.getName()))
 																{
 																	canSpawnHere = true;
@@ -505,12 +606,12 @@ public class CustomStructurePlotter
 														}
 													} else {
 														// When we get biomestructures here, size() == 0 means the chunk has been handled, null means it hasnt yet been cached at all
-														biomeStructures = this.structureNamesPerChunk.get(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + scanDistance), (chunkCoord.getChunkZ() + i)));															
+														biomeStructures = getStructureNamesForChunk(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + scanDistance), (chunkCoord.getChunkZ() + i)));															
 														if(biomeStructures == null)
 														{
 															if(!isBo4ChunkPlotted(chunkCoord) && !worldGenRegion.chunkHasDefaultStructure(rand, chunkCoord))
 															{
-																biomeConfig3 = worldGenRegion.getCachedBiomeProvider().getBiomeConfig((chunkCoord.getChunkX() + scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
+																biomeConfig3 = getBiomeConfig(worldGenRegion, (chunkCoord.getChunkX() + scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
 																// Get cached data if available
 																if(!biomeConfig3.getName().equals(biomeConfig.getName()))
 																{
@@ -532,7 +633,7 @@ public class CustomStructurePlotter
 															} else {
 																biomeStructures = new ArrayList<String>(); // Don't spawn anything here, there is a default structure.
 															}
-															this.structureNamesPerChunk.put(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + scanDistance), (chunkCoord.getChunkZ() + i)),biomeStructures);
+															setStructureNamesForChunk(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + scanDistance), (chunkCoord.getChunkZ() + i)), biomeStructures);
 														}
 														if(biomeStructures != null)
 														{
@@ -587,7 +688,7 @@ public class CustomStructurePlotter
 															{
 																canSpawnHere = true;
 															} else {
-																biomeConfig3 = worldGenRegion.getCachedBiomeProvider().getBiomeConfig((chunkCoord.getChunkX() - scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
+																biomeConfig3 = getBiomeConfig(worldGenRegion, (chunkCoord.getChunkX() - scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
 																if(targetBiomes.contains(biomeConfig3.getName()))
 																{
 																	canSpawnHere = true;
@@ -596,12 +697,12 @@ public class CustomStructurePlotter
 														}
 													} else {
 														// When we get biomestructures here, size() == 0 means the chunk has been handled, null means it hasnt yet been cached at all
-														biomeStructures = this.structureNamesPerChunk.get(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() - scanDistance), (chunkCoord.getChunkZ() + i)));
+														biomeStructures = getStructureNamesForChunk(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() - scanDistance), (chunkCoord.getChunkZ() + i)));
 														if(biomeStructures == null)
 														{
 															if(!isBo4ChunkPlotted(chunkCoord) && !worldGenRegion.chunkHasDefaultStructure(rand, chunkCoord))
 															{
-																biomeConfig3 = worldGenRegion.getCachedBiomeProvider().getBiomeConfig((chunkCoord.getChunkX() - scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
+																biomeConfig3 = getBiomeConfig(worldGenRegion, (chunkCoord.getChunkX() - scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
 																if(!biomeConfig3.getName().equals(biomeConfig.getName()))
 																{
 																	structuresToSpawn = new ArrayList<String>();
@@ -622,7 +723,7 @@ public class CustomStructurePlotter
 															} else {
 																biomeStructures = new ArrayList<String>();
 															}
-															this.structureNamesPerChunk.put(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() - scanDistance), (chunkCoord.getChunkZ() + i)),biomeStructures);
+															setStructureNamesForChunk(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() - scanDistance), (chunkCoord.getChunkZ() + i)), biomeStructures);
 														}
 														if(biomeStructures != null)
 														{
@@ -677,7 +778,7 @@ public class CustomStructurePlotter
 															{
 																canSpawnHere = true;
 															} else {
-																biomeConfig3 = worldGenRegion.getCachedBiomeProvider().getBiomeConfig((chunkCoord.getChunkX() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
+																biomeConfig3 = getBiomeConfig(worldGenRegion, (chunkCoord.getChunkX() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
 																if(targetBiomes.contains(biomeConfig3.getName()))
 																{
 																	canSpawnHere = true;
@@ -686,12 +787,12 @@ public class CustomStructurePlotter
 														}
 													} else {
 														// When we get biomestructures here, size() == 0 means the chunk has been handled, null means it hasnt yet been cached at all
-														biomeStructures = this.structureNamesPerChunk.get(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() + scanDistance)));
+														biomeStructures = getStructureNamesForChunk(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() + scanDistance)));
 														if(biomeStructures == null)
 														{
 															if(!isBo4ChunkPlotted(chunkCoord) && !worldGenRegion.chunkHasDefaultStructure(rand, chunkCoord))
 															{
-																biomeConfig3 = worldGenRegion.getCachedBiomeProvider().getBiomeConfig((chunkCoord.getChunkX() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
+																biomeConfig3 = getBiomeConfig(worldGenRegion, (chunkCoord.getChunkX() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() + scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
 																if(!biomeConfig3.getName().equals(biomeConfig.getName()))
 																{
 																	structuresToSpawn = new ArrayList<String>();
@@ -713,7 +814,7 @@ public class CustomStructurePlotter
 															} else {
 																biomeStructures = new ArrayList<String>();
 															}
-															this.structureNamesPerChunk.put(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() + scanDistance)),biomeStructures);
+															setStructureNamesForChunk(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() + scanDistance)), biomeStructures);
 														}
 														if(biomeStructures != null)
 														{
@@ -767,7 +868,7 @@ public class CustomStructurePlotter
 															{
 																canSpawnHere = true;
 															} else {
-																biomeConfig3 = worldGenRegion.getCachedBiomeProvider().getBiomeConfig((chunkCoord.getChunkX() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() - scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
+																biomeConfig3 = getBiomeConfig(worldGenRegion, (chunkCoord.getChunkX() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() - scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
 																if(targetBiomes.contains(biomeConfig3.getName()))
 																{
 																	canSpawnHere = true;
@@ -776,12 +877,12 @@ public class CustomStructurePlotter
 														}
 													} else {
 														// When we get biomestructures here, size() == 0 means the chunk has been handled, null means it hasnt yet been cached at all
-														biomeStructures = this.structureNamesPerChunk.get(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() - scanDistance)));
+														biomeStructures = getStructureNamesForChunk(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() - scanDistance)));
 														if(biomeStructures == null)
 														{
 															if(!isBo4ChunkPlotted(chunkCoord) && !worldGenRegion.chunkHasDefaultStructure(rand, chunkCoord))
 															{
-																biomeConfig3 = worldGenRegion.getCachedBiomeProvider().getBiomeConfig((chunkCoord.getChunkX() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() - scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
+																biomeConfig3 = getBiomeConfig(worldGenRegion, (chunkCoord.getChunkX() + i) * 16 + DecorationArea.BO_CHUNK_CENTER_X, (chunkCoord.getChunkZ() - scanDistance) * 16 + DecorationArea.BO_CHUNK_CENTER_Z);
 																if(!biomeConfig3.getName().equals(biomeConfig.getName()))
 																{
 																	structuresToSpawn = new ArrayList<String>();
@@ -802,7 +903,7 @@ public class CustomStructurePlotter
 															} else {
 																biomeStructures = new ArrayList<String>();
 															}
-															this.structureNamesPerChunk.put(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() - scanDistance)),biomeStructures);
+															setStructureNamesForChunk(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() - scanDistance)), biomeStructures);
 														}
 														if(biomeStructures != null)
 														{
@@ -943,13 +1044,7 @@ public class CustomStructurePlotter
 													String bO3Name = ((BO4)currentStructureSpawning[0]).getName();
 													ChunkCoordinate bo4SpawnCoord = ChunkCoordinate.fromChunkCoords(spawnCoordX, spawnCoordZ);
 
-													ArrayList<ChunkCoordinate> chunkCoords = this.spawnedStructuresByName.get(bO3Name);
-													if(chunkCoords == null)
-													{
-														chunkCoords = new ArrayList<ChunkCoordinate>();
-														this.spawnedStructuresByName.put(bO3Name, chunkCoords);
-													}
-													chunkCoords.add(bo4SpawnCoord);
+													addToSpawnedStructuresByName(bO3Name, bo4SpawnCoord);
 
 													if(((BO4)currentStructureSpawning[0]).getConfig().bo4Groups.size() > 0)
 													{
@@ -957,32 +1052,7 @@ public class CustomStructurePlotter
 														int structureCenterZ = structureBBInsideAreaZ + (int)Math.floor(((rotation == Rotation.NORTH || rotation == Rotation.SOUTH ? structureTop + structureBottom + 1 : structureLeft + structureRight + 1) / 2d));
 														ChunkCoordinate bo4CenterSpawnCoord = ChunkCoordinate.fromChunkCoords(structureCenterX, structureCenterZ);
 														
-														for(Entry<String, Integer> entry : ((BO4)currentStructureSpawning[0]).getConfig().bo4Groups.entrySet())
-														{
-															String bo4GroupName = entry.getKey();
-															int bo4GroupFrequency = entry.getValue().intValue();
-															if(bo4GroupFrequency > 0)
-															{
-																HashMap<ChunkCoordinate, Integer> spawnedStructures = this.spawnedStructuresByGroup.get(bo4GroupName);
-																if(spawnedStructures == null)
-																{
-																	spawnedStructures = new HashMap<ChunkCoordinate, Integer>();
-																	spawnedStructures.put(bo4CenterSpawnCoord, entry.getValue());
-																	this.spawnedStructuresByGroup.put(bo4GroupName, spawnedStructures);
-																} else {
-																	Integer frequency = spawnedStructures.get(bo4CenterSpawnCoord);
-																	if(frequency != null)
-																	{
-																		if(frequency.intValue() < bo4GroupFrequency)
-																		{
-																			spawnedStructures.put(bo4CenterSpawnCoord, entry.getValue().intValue());
-																		}
-																	} else {
-																		spawnedStructures.put(bo4CenterSpawnCoord, entry.getValue().intValue());
-																	}
-																}
-															}
-														}
+														addToSpawnedStructuresByGroup((BO4)currentStructureSpawning[0], bo4CenterSpawnCoord);
 													}
 												}
 
@@ -994,14 +1064,13 @@ public class CustomStructurePlotter
 												
 												if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTime) > 50)
 												{
-													IBiomeConfig biomeConfig4 = worldGenRegion.getCachedBiomeProvider().getBiomeConfig(chunkCoord.getBlockX() + DecorationArea.BO_CHUNK_CENTER_X, chunkCoord.getBlockZ() + DecorationArea.BO_CHUNK_CENTER_Z);
+													IBiomeConfig biomeConfig4 = getBiomeConfig(worldGenRegion, chunkCoord.getBlockX() + DecorationArea.BO_CHUNK_CENTER_X, chunkCoord.getBlockZ() + DecorationArea.BO_CHUNK_CENTER_Z);
 													logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Plotting BO4's for biome " +  biomeConfig4.getName() + " at " + (chunkCoord.getBlockX() + DecorationArea.BO_CHUNK_CENTER_X) + " ~ " + (chunkCoord.getBlockZ() + DecorationArea.BO_CHUNK_CENTER_Z)  + " took " + (System.currentTimeMillis() - startTime) + " Ms.");
 													startTime = System.currentTimeMillis(); 
 												}
 												
 												if(structureCacheContainsKey(chunkCoord) || targetStructure != null)
 												{
-													this.processing = false;
 													return spawnChunk;
 												}
 												break;
@@ -1024,67 +1093,89 @@ public class CustomStructurePlotter
 		// Let plotter know the chunk is taken (fast cache, optimisation)
 		setChunkOccupied(chunkCoord);
 		
-		this.processing = false;
-		
 		if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTime) > 50)
 		{
-			IBiomeConfig biomeConfig4 = worldGenRegion.getCachedBiomeProvider().getBiomeConfig(chunkCoord.getBlockX() + DecorationArea.BO_CHUNK_CENTER_X, chunkCoord.getBlockZ() + DecorationArea.BO_CHUNK_CENTER_Z);
+			IBiomeConfig biomeConfig4 = getBiomeConfig(worldGenRegion, chunkCoord.getBlockX() + DecorationArea.BO_CHUNK_CENTER_X, chunkCoord.getBlockZ() + DecorationArea.BO_CHUNK_CENTER_Z);
 			logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Plotting BO4's for biome " +  biomeConfig4.getName() + " at " + (chunkCoord.getBlockX() + DecorationArea.BO_CHUNK_CENTER_X) + " ~ " + (chunkCoord.getBlockZ() + DecorationArea.BO_CHUNK_CENTER_Z)  + " took " + (System.currentTimeMillis() - startTime) + " Ms.");
 		}
 
 		return null;
 	}
 
+	// spawnedStructuresByName and spawnedStructuresByGroup are shared by all plotting
+	// threads, so they're only accessed while synchronized on spawnedStructuresByName.
+
+	private void addToSpawnedStructuresByName(String bO3Name, ChunkCoordinate bo4SpawnCoord)
+	{
+		synchronized(this.spawnedStructuresByName)
+		{
+			SpawnedStructureIndex chunkCoords = this.spawnedStructuresByName.get(bO3Name);
+			if(chunkCoords == null)
+			{
+				chunkCoords = new SpawnedStructureIndex();
+				this.spawnedStructuresByName.put(bO3Name, chunkCoords);
+			}
+			chunkCoords.add(bo4SpawnCoord, 0);
+		}
+	}
+
+	private void addToSpawnedStructuresByGroup(BO4 bo4, ChunkCoordinate bo4CenterSpawnCoord)
+	{
+		synchronized(this.spawnedStructuresByName)
+		{
+			for(Entry<String, Integer> entry : bo4.getConfig().bo4Groups.entrySet())
+			{
+				String bo4GroupName = entry.getKey();
+				int bo4GroupFrequency = entry.getValue().intValue();
+				if(bo4GroupFrequency > 0)
+				{
+					SpawnedStructureIndex spawnedStructures = this.spawnedStructuresByGroup.get(bo4GroupName);
+					if(spawnedStructures == null)
+					{
+						spawnedStructures = new SpawnedStructureIndex();
+						this.spawnedStructuresByGroup.put(bo4GroupName, spawnedStructures);
+					}
+					// Keeps the largest frequency if the coord was already added.
+					spawnedStructures.add(bo4CenterSpawnCoord, bo4GroupFrequency);
+				}
+			}
+		}
+	}
+
 	private boolean isBO4AllowedToSpawnAtByFrequency(ChunkCoordinate chunkCoord, BO4 BO3ToSpawn)
+	{
+		synchronized(this.spawnedStructuresByName)
+		{
+			return isBO4AllowedToSpawnAtByFrequencyUnsynchronized(chunkCoord, BO3ToSpawn);
+		}
+	}
+
+	private boolean isBO4AllowedToSpawnAtByFrequencyUnsynchronized(ChunkCoordinate chunkCoord, BO4 BO3ToSpawn)
 	{
 		// Check if no other structure of the same type (filename) is within the minimum radius (BO3 frequency)
 		int radius = BO3ToSpawn.getConfig().frequency;
 		String bO3Name = BO3ToSpawn.getName();
 		if(radius > 0)
 		{
-			float distanceBetweenStructures = 0;
-			
-			ArrayList<ChunkCoordinate> chunkCoords = spawnedStructuresByName.get(bO3Name);
-			if(chunkCoords != null)
+			SpawnedStructureIndex chunkCoords = this.spawnedStructuresByName.get(bO3Name);
+			if(chunkCoords != null && chunkCoords.isAnyWithinRadius(chunkCoord, radius))
 			{
-				// Check BO3 frequency
-					for(ChunkCoordinate cachedChunk : chunkCoords)
-				{
-					// Find distance between two points
-					distanceBetweenStructures = (int)Math.floor(Math.sqrt(Math.pow(chunkCoord.getChunkX() - cachedChunk.getChunkX(), 2) + Math.pow(chunkCoord.getChunkZ() - cachedChunk.getChunkZ(), 2)));
-					if (distanceBetweenStructures <= radius)
-					{
-						// Other BO3 of the same type is too nearby, cannot spawn here!
-						return false;
-					}
-				}				
+				// Other BO3 of the same type is too nearby, cannot spawn here!
+				return false;
 			}
 		}
 		
 		// Check if no other structures that are a member of the same group as this BO3 are within the minimum radius (BO3Group frequency)
+		// The spawned structure's group frequency is used if it is larger than this BO3's.
 		if(BO3ToSpawn.getConfig().bo4Groups.size() > 0)
 		{
-			float distanceBetweenStructures = 0;
-			int cachedChunkRadius = 0;
-			ChunkCoordinate cachedChunk = null;
 			for(Entry<String, Integer> entry : BO3ToSpawn.getConfig().bo4Groups.entrySet())
 			{
-				HashMap<ChunkCoordinate, Integer> spawnedStructure = spawnedStructuresByGroup.get(entry.getKey());
-				if(spawnedStructure != null)
+				SpawnedStructureIndex spawnedStructure = this.spawnedStructuresByGroup.get(entry.getKey());
+				if(spawnedStructure != null && spawnedStructure.isAnyWithinRadius(chunkCoord, entry.getValue().intValue()))
 				{
-					for(Entry<ChunkCoordinate, Integer> cachedChunkEntry : spawnedStructure.entrySet())
-					{
-						cachedChunk = cachedChunkEntry.getKey();
-						cachedChunkRadius = cachedChunkEntry.getValue().intValue();
-						radius = entry.getValue().intValue() >= cachedChunkRadius ? entry.getValue().intValue() : cachedChunkRadius;
-						// Find distance between two points
-						distanceBetweenStructures = (int)Math.floor(Math.sqrt(Math.pow(chunkCoord.getChunkX() - cachedChunk.getChunkX(), 2) + Math.pow(chunkCoord.getChunkZ() - cachedChunk.getChunkZ(), 2)));
-						if (distanceBetweenStructures <= radius)
-						{
-							// Other BO3 using a shared BO3Group is too nearby, cannot spawn here!
-							return false;
-						}
-					}
+					// Other BO3 using a shared BO3Group is too nearby, cannot spawn here!
+					return false;
 				}
 			}
 		}
@@ -1094,25 +1185,28 @@ public class CustomStructurePlotter
 	
 	// Persistence
 
+	// Decoration is paused while saving, so saved regions can be unloaded.
 	private void savePlottedChunks(Path worldSaveDir, String presetFolderName, ILogger logger)
 	{
-		CustomStructureFileManager.savePlottedChunksData(worldSaveDir, presetFolderName, this.plottedChunks, logger);
-	}
-
-	private void loadPlottedChunks(Path worldSaveDir, String presetFolderName, ILogger logger)
-	{
-		this.plottedChunks.clear();
-		this.plottedChunks.putAll(CustomStructureFileManager.loadPlottedChunksData(worldSaveDir, presetFolderName, logger));
+		CustomStructureFileManager.savePlottedChunksData(worldSaveDir, presetFolderName, this.plottedChunks.getLoadedRegions(), logger);
+		this.plottedChunks.saveRegionIndex(logger);
+		this.plottedChunks.evictRegions();
 	}
 	
 	private void saveSpawnedStructures(Path worldSaveDir, String presetFolderName, ILogger logger)
 	{
-		CustomStructureFileManager.saveChunksMapFile(worldSaveDir, presetFolderName, this.spawnedStructuresByName, this.spawnedStructuresByGroup, logger);
+		synchronized(this.spawnedStructuresByName)
+		{
+			CustomStructureFileManager.saveChunksMapFile(worldSaveDir, presetFolderName, this.spawnedStructuresByName, this.spawnedStructuresByGroup, logger);
+		}
 	}
 	
 	private void loadSpawnedStructures(Path worldSaveDir, String presetFolderName, boolean isBO4Enabled, ILogger logger)
 	{
-		CustomStructureFileManager.loadChunksMapFile(worldSaveDir, presetFolderName, isBO4Enabled, this.spawnedStructuresByName, this.spawnedStructuresByGroup, logger);		
+		synchronized(this.spawnedStructuresByName)
+		{
+			CustomStructureFileManager.loadChunksMapFile(worldSaveDir, presetFolderName, isBO4Enabled, this.spawnedStructuresByName, this.spawnedStructuresByGroup, logger);
+		}
 	}
 	
 	public void saveStructureCache(Path worldSaveDir, String presetFolderName, boolean isBO4Enabled, ILogger logger)
@@ -1124,47 +1218,20 @@ public class CustomStructurePlotter
 		}
 	}
 
-	public void loadStructureCache(Path worldSaveDir, String presetFolderName, boolean isBO4Enabled, Map<CustomStructure, ArrayList<ChunkCoordinate>> loadedStructures, ILogger logger)
+	public void loadStructureCache(Path worldSaveDir, String presetFolderName, boolean isBO4Enabled, ILogger logger)
 	{
 		this.bo4StructureCache.clear();
 		
 		if(isBO4Enabled)
 		{
-			if(loadedStructures != null)
-			{
-				for(Entry<CustomStructure, ArrayList<ChunkCoordinate>> loadedStructure : loadedStructures.entrySet())
-				{
-					if(loadedStructure == null)
-					{
-						throw new RuntimeException("This shouldn't happen, please ask for help on the OTG Discord and/or file an issue on the OTG github.");
-					}
-				
-					// loadedStructures contains chunkcoords for every chunk ever plotted.
-					// We only need chunks plotted but not yet decorated that contain structure parts.
-					// objectsToSpawn and smoothingAreasToSpawn contain all unspawned branches and 
-					// smoothing areas. Any chunks that have had their bo4's spawned while decorating a neighbouring 
-					// chunk, but have not yet been fully decorated themselves are kept in decoratedChunks, along with all
-					// fully decorated chunks (they are considered fully decorated for the purposes of bo4 plotting).
-					for(ChunkCoordinate chunkCoord : ((BO4CustomStructure)loadedStructure.getKey()).getObjectsToSpawn().keySet())
-					{
-						this.addToStructureCache(chunkCoord, (BO4CustomStructure)loadedStructure.getKey()); // This structure has blocks that need to be spawned
-					}
-					for(ChunkCoordinate chunkCoord : ((BO4CustomStructure)loadedStructure.getKey()).getSmoothingAreaManager().getSmoothingAreaChunkCoords())
-					{
-						this.addToStructureCache(chunkCoord, (BO4CustomStructure)loadedStructure.getKey()); // This structure has smoothing area blocks that need to be spawned
-					}
-				}
-			}
-
-			loadPlottedChunks(worldSaveDir, presetFolderName, logger);
+			this.plottedChunks = new RegionDataCache<PlottedChunksRegion>(
+				CustomStructureFileManager.getPlottedChunksFolder(worldSaveDir, presetFolderName),
+				MAX_LOADED_REGIONS,
+				regionCoord -> CustomStructureFileManager.loadPlottedChunksRegion(worldSaveDir, presetFolderName, regionCoord, logger),
+				PlottedChunksRegion::requiresSave,
+				logger
+			);
 			loadSpawnedStructures(worldSaveDir, presetFolderName, isBO4Enabled, logger);
-
-			for(ChunkCoordinate chunkCoord : this.bo4StructureCache.keySet())
-			{
-				// This is an optimisation so that PlotStructures knows not to plot anything in this chunk
-				// TODO: This could easily exceed the capacity of the StructuresPerChunkCache, mostly defeating the point?
-				setChunkOccupied(chunkCoord);
-			}
 		}
 	}	
 }
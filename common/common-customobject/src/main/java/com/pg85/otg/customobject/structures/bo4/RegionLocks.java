@@ -0,0 +1,126 @@
+package com.pg85.otg.customobject.structures.bo4;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.pg85.otg.constants.Constants;
+import com.pg85.otg.util.helpers.MathHelper;
+
+/**
+ * Striped locks used by CustomStructurePlotter, keyed by region coordinate
+ * (see ChunkCoordinate.toRegionCoord). Locking an area of chunks locks the
+ * regions containing those chunks and the regions around them, since
+ * structures and the scan for free space around a plotted chunk can reach
+ * across region borders. Threads plotting in regions that are far enough
+ * apart don't block each other.
+ *
+ * Stripes are always locked in ascending order, so threads can't deadlock
+ * each other. Locks are reentrant, so a thread that holds the locks for an
+ * area can plot any chunk inside that area without blocking.
+ */
+final class RegionLocks
+{
+	// Amount of regions around the requested area that are locked as well.
+	private static final int REGION_RADIUS = 1;
+	private static final int STRIPES = 64;
+
+	private final ReentrantLock[] locks;
+
+	RegionLocks()
+	{
+		this.locks = new ReentrantLock[STRIPES];
+		for(int i = 0; i < STRIPES; i++)
+		{
+			this.locks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Locks all regions around the given area of chunks, blocks until all locks are held.
+	 * @return The locked stripes, to be passed to unlock.
+	 */
+	int[] lock(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ)
+	{
+		int[] stripes = getStripes(minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+		for(int stripe : stripes)
+		{
+			this.locks[stripe].lock();
+		}
+		return stripes;
+	}
+
+	/**
+	 * Locks all regions around the given area of chunks, if none are held by another thread.
+	 * @return The locked stripes, to be passed to unlock, or null if nothing was locked.
+	 */
+	int[] tryLock(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ)
+	{
+		int[] stripes = getStripes(minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+		for(int i = 0; i < stripes.length; i++)
+		{
+			if(!this.locks[stripes[i]].tryLock())
+			{
+				for(int j = i - 1; j >= 0; j--)
+				{
+					this.locks[stripes[j]].unlock();
+				}
+				return null;
+			}
+		}
+		return stripes;
+	}
+
+	void unlock(int[] stripes)
+	{
+		for(int i = stripes.length - 1; i >= 0; i--)
+		{
+			this.locks[stripes[i]].unlock();
+		}
+	}
+
+	// Unique stripes for all regions around the area, in ascending order.
+	private int[] getStripes(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ)
+	{
+		int minRegionX = MathHelper.floor((double)minChunkX / (double)Constants.REGION_SIZE) - REGION_RADIUS;
+		int minRegionZ = MathHelper.floor((double)minChunkZ / (double)Constants.REGION_SIZE) - REGION_RADIUS;
+		int maxRegionX = MathHelper.floor((double)maxChunkX / (double)Constants.REGION_SIZE) + REGION_RADIUS;
+		int maxRegionZ = MathHelper.floor((double)maxChunkZ / (double)Constants.REGION_SIZE) + REGION_RADIUS;
+
+		boolean[] used = new boolean[STRIPES];
+		int count = 0;
+		int stripe;
+		for(int regionX = minRegionX; regionX <= maxRegionX; regionX++)
+		{
+			for(int regionZ = minRegionZ; regionZ <= maxRegionZ; regionZ++)
+			{
+				stripe = getStripe(regionX, regionZ);
+				if(!used[stripe])
+				{
+					used[stripe] = true;
+					count++;
+				}
+			}
+		}
+		int[] stripes = new int[count];
+		int i = 0;
+		for(stripe = 0; stripe < STRIPES; stripe++)
+		{
+			if(used[stripe])
+			{
+				stripes[i++] = stripe;
+			}
+		}
+		return stripes;
+	}
+
+	private static int getStripe(int regionX, int regionZ)
+	{
+		// Murmur3 64-bit finalizer, spreads neighbouring regions over stripes.
+		long h = MathHelper.toLong(regionX, regionZ);
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int)h & (STRIPES - 1);
+	}
+}
@@ -1,10 +1,5 @@
 package com.pg85.otg.gen.biome;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 import com.pg85.otg.constants.Constants;
 import com.pg85.otg.interfaces.IBiomeConfig;
 import com.pg85.otg.interfaces.IBiome;
@@ -12,7 +7,7 @@ import com.pg85.otg.interfaces.ICachedBiomeProvider;
 import com.pg85.otg.interfaces.ILayerSource;
 import com.pg85.otg.interfaces.ILogger;
 import com.pg85.otg.util.ChunkCoordinate;
-import com.pg85.otg.util.FifoMap;
+import com.pg85.otg.util.StripedLongCache;
 import com.pg85.otg.util.helpers.MathHelper;
 
 /**
@@ -22,23 +17,22 @@ import com.pg85.otg.util.helpers.MathHelper;
  */
 public class CachedBiomeProvider implements ICachedBiomeProvider
 {
-	static int cacheHits = 0;
-	static int smallCacheHits = 0;
+	// Noise biome ids are cached per 32x32 noise cells (8x8 chunks), regions are 
+	// sampled as a whole area from the biome layers, see ILayerSampler.sampleArea.
+	private static final int NOISE_REGION_SHIFT = 5;
+	private static final int NOISE_REGION_SIZE = 1 << NOISE_REGION_SHIFT;
+
 	@SuppressWarnings("unused")
 	private final ILogger logger;
 	
 	private final long seed;
 	private final ILayerSource biomeProvider;
 	private final IBiome[] biomesById;
-	
-	private final Object lock = new Object();
-	private boolean locked = false;
-	private boolean locked2 = false;
-	private final FifoMap<ChunkCoordinate, IBiome[]> biomesCache = new FifoMap<>(256);
-	private final FifoMap<ChunkCoordinate, IBiomeConfig[]> biomeConfigsCache = new FifoMap<>(256);
-	
-	private final Object noiseLock = new Object();
-	private final FifoMap<ChunkCoordinate, IBiomeConfig[]> noiseBiomeConfigsCache = new FifoMap<>(1024);	
+
+	// Keyed by MathHelper.toLong(chunkX, chunkZ). Both caches are lock-free, 
+	// so async chunk generation threads don't serialize on biome lookups.
+	private final StripedLongCache<ChunkBiomes> chunkBiomesCache = new StripedLongCache<>(256);
+	private final StripedLongCache<int[]> noiseBiomeIdsCache = new StripedLongCache<>(256);
 
 	public CachedBiomeProvider(long seed, ILayerSource biomeProvider, IBiome[] biomesById, ILogger logger)
 	{
@@ -50,41 +44,10 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 
 	// Used by any method that can preemptively request a chunk of biomeconfigs,
 	// rather than making separate requests for each column. 
-	// TODO: Allow regions rather than chunks.
 	@Override
 	public IBiomeConfig[] getBiomeConfigsForChunk(ChunkCoordinate chunkCoord)
 	{
-		IBiomeConfig[] biomeConfigs;
-		synchronized(this.lock)
-		{
-			this.locked = true;
-			biomeConfigs = this.biomeConfigsCache.get(chunkCoord);
-			if(biomeConfigs == null)
-			{
-				IBiome[] biomes = new IBiome[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
-				biomeConfigs = new IBiomeConfig[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
-				int biomeId;
-				IBiome biome;
-				for (int x = 0; x < Constants.CHUNK_SIZE; x++)
-				{
-					for (int z = 0; z < Constants.CHUNK_SIZE; z++)
-					{
-						// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
-						biomeId = BiomeInterpolator.getId(this.seed, x + chunkCoord.getBlockX(), 0, z + chunkCoord.getBlockZ(), this.biomeProvider);
-						biome = this.biomesById[biomeId];
-						biomes[x * Constants.CHUNK_SIZE + z] = biome;
-						biomeConfigs[x * Constants.CHUNK_SIZE + z] = biome.getBiomeConfig();
-					}
-				}
-				this.biomesCache.put(chunkCoord, biomes);
-				this.biomeConfigsCache.put(chunkCoord, biomeConfigs);
-			} else {
-				cacheHits++;
-				//logger.log(LogLevel.INFO, LogCategory.MAIN, "Cache hit " + cacheHits);
-			}
-		}
-		this.locked = false;
-		return biomeConfigs;		
+		return getChunkBiomes(chunkCoord).biomeConfigs;
 	}
 	
 	// Used by any method that can preemptively request a chunk of biomeconfigs,
@@ -92,65 +55,52 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 	@Override
 	public IBiome[] getBiomesForChunk(ChunkCoordinate chunkCoord)
 	{
-		IBiome[] biomes;
-		synchronized(this.lock)
+		return getChunkBiomes(chunkCoord).biomes;
+	}
+
+	private ChunkBiomes getChunkBiomes(ChunkCoordinate chunkCoord)
+	{
+		long key = MathHelper.toLong(chunkCoord.getChunkX(), chunkCoord.getChunkZ());
+		ChunkBiomes chunkBiomes = this.chunkBiomesCache.get(key);
+		if(chunkBiomes == null)
 		{
-			this.locked = true;
-			biomes = this.biomesCache.get(chunkCoord);
-			if(biomes == null)
+			// Another thread may be generating the same chunk, in which case
+			// we'll both cache the same result, which is harmless.
+			int[] biomeIds = new int[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+			getBiomeIdsForRegion(biomeIds, chunkCoord.getBlockX(), chunkCoord.getBlockZ(), Constants.CHUNK_SIZE, Constants.CHUNK_SIZE);
+			IBiome[] biomes = new IBiome[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+			IBiomeConfig[] biomeConfigs = new IBiomeConfig[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+			IBiome biome;
+			for (int i = 0; i < biomeIds.length; i++)
 			{
-				biomes = new IBiome[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
-				IBiomeConfig[]  biomeConfigs = new IBiomeConfig[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
-				int biomeId;
-				IBiome biome;
-				for (int x = 0; x < Constants.CHUNK_SIZE; x++)
-				{
-					for (int z = 0; z < Constants.CHUNK_SIZE; z++)
-					{
-						// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
-						biomeId = BiomeInterpolator.getId(this.seed,  x + chunkCoord.getBlockX(), 0, z + chunkCoord.getBlockZ(), this.biomeProvider);
-						biome = this.biomesById[biomeId];
-						biomes[x * Constants.CHUNK_SIZE + z] = biome;
-						biomeConfigs[x * Constants.CHUNK_SIZE + z] = biome.getBiomeConfig();
-					}
-				}
-				this.biomesCache.put(chunkCoord, biomes);
-				this.biomeConfigsCache.put(chunkCoord, biomeConfigs);
-			} else {
-				cacheHits++;
-				//logger.log(LogLevel.INFO, LogCategory.MAIN, "Cache hit " + cacheHits);
+				biome = this.biomesById[biomeIds[i]];
+				biomes[i] = biome;
+				biomeConfigs[i] = biome.getBiomeConfig();
 			}
+			chunkBiomes = new ChunkBiomes(biomes, biomeConfigs);
+			this.chunkBiomesCache.put(key, chunkBiomes);
 		}
-		this.locked = false;
-		return biomes;
+		return chunkBiomes;
 	}
-	
+
+	// Used by any method that can preemptively request an area of biomes, 
+	// rather than making separate requests for each column. Samples each
+	// noise cell in the area only once, instead of once per column.
 	@Override
-	public IBiome[] getBiomesForChunks(ChunkCoordinate chunkCoord, int widthHeightInBlocks)
+	public void getBiomeIdsForRegion(int[] biomeIds, int blockStartX, int blockStartZ, int widthX, int widthZ)
 	{
-		IBiome[] biomes = new IBiome[widthHeightInBlocks * widthHeightInBlocks];
-		IBiome[] chunkBiomes;
-		int widthHeightInChunks = (int)Math.ceil(widthHeightInBlocks / 16f);
-		synchronized(this.lock)
+		if(biomeIds.length < widthX * widthZ)
 		{
-			this.locked2 = true;
-			for(int chunkX = 0; chunkX < widthHeightInChunks; chunkX++)
-			{
-				for(int chunkZ = 0; chunkZ < widthHeightInChunks; chunkZ++)
-				{
-					chunkBiomes = getBiomesForChunk(ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + chunkX, chunkCoord.getChunkZ() + chunkZ));
-					for(int x = 0; x < Constants.CHUNK_SIZE; x++)
-					{
-						for(int z = 0; z < Constants.CHUNK_SIZE; z++)
-						{
-							biomes[(chunkX * Constants.CHUNK_SIZE + x) * widthHeightInBlocks + (chunkZ * Constants.CHUNK_SIZE + z)] = chunkBiomes[x * Constants.CHUNK_SIZE + z];
-						}
-					}
-				}
-			}
+			throw new IllegalArgumentException("Biome id array of length " + biomeIds.length + " is too small for a " + widthX + "x" + widthZ + " area.");
 		}
-		this.locked2 = false;
-		return biomes;
+		// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
+		BiomeInterpolator.getIds(this.seed, blockStartX, blockStartZ, widthX, widthZ, this, biomeIds);
+	}
+
+	@Override
+	public IBiome getBiomeById(int biomeId)
+	{
+		return this.biomesById[biomeId];
 	}
 	
 	// Used by any method that will request a region of biomeconfigs,
@@ -161,33 +111,25 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 	@Override
 	public IBiomeConfig getBiomeConfig(int x, int z, boolean cacheChunk)
 	{
-		ChunkCoordinate chunkCoord = ChunkCoordinate.fromBlockCoords(x, z);
-		// TODO: Do we want/need a lock here? Overhead of the lock would be big.
-		IBiomeConfig[] biomeConfigs = null;
-		if(!this.locked && !this.locked2)
+		int chunkX = x >> 4;
+		int chunkZ = z >> 4;
+		ChunkBiomes chunkBiomes = this.chunkBiomesCache.get(MathHelper.toLong(chunkX, chunkZ));
+		if(chunkBiomes == null)
 		{
-			biomeConfigs = this.biomeConfigsCache.get(chunkCoord);
-		}
-		int internalX = x - chunkCoord.getBlockX();
-		int internalZ = z - chunkCoord.getBlockZ();
-		if(biomeConfigs == null)
-		{
-			if(cacheChunk && !this.locked && !this.locked2)
+			if(cacheChunk)
 			{
-				return getBiomeConfigsForChunk(chunkCoord)[internalX * Constants.CHUNK_SIZE + internalZ];
+				chunkBiomes = getChunkBiomes(ChunkCoordinate.fromChunkCoords(chunkX, chunkZ));
+			} else {
+				// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
+				int biomeId = BiomeInterpolator.getId(this.seed,  x, 0, z, this.biomeProvider);
+				return this.biomesById[biomeId].getBiomeConfig();
 			}
-			// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
-			int biomeId = BiomeInterpolator.getId(this.seed,  x, 0, z, this.biomeProvider);
-			return this.biomesById[biomeId].getBiomeConfig();
-		} else {
-			smallCacheHits++;
-			//logger.log(LogLevel.INFO, LogCategory.MAIN, "Small cache hit " + cacheHits);
 		}
-		return biomeConfigs[internalX * Constants.CHUNK_SIZE + internalZ];
+		return chunkBiomes.biomeConfigs[(x & 15) * Constants.CHUNK_SIZE + (z & 15)];
 	}
 
-	// These methods don't use the cache because the overhead
-	// of locking likely wouldn't be worth the cache hits.
+	// These methods don't use the cache, callers only need a
+	// single column so sampling a whole chunk wouldn't be worth it.
 	
 	@Override
 	public IBiomeConfig getBiomeConfig(int x, int z)
@@ -205,96 +147,75 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 	// Noise biome/biomeconfig, for unzoomed (1/4, low resolution) lookups.
 
 	// Used by any method that can preemptively request a region of biomeconfigs, rather than 
-	// making separate requests for each column. Regions are requested and cached per 8x8, 
+	// making separate requests for each column. Regions are requested and cached per 32x32, 
 	// each cell equal to 4x4 blocks in the world.
 	@Override
 	public IBiomeConfig[] getNoiseBiomeConfigsForRegion(int noiseStartX, int noiseStartZ, int widthHeight)
 	{
-		int regionSize = 8;
-		int regionStartX = noiseStartX >> 3;
-		int regionStartZ = noiseStartZ >> 3;
-		int cacheOffsetX = noiseStartX - (regionStartX << 3);
-		int cacheOffsetZ = noiseStartZ - (regionStartZ << 3);
-		int regionWidth = (int)Math.ceil((((regionStartX >> 3) + widthHeight) - (regionStartX >> 3)) / 8f);
-		int regionHeight = (int)Math.ceil((((regionStartZ >> 3) + widthHeight) - (regionStartZ >> 3)) / 8f);
+		int[] biomeIds = new int[widthHeight * widthHeight];
+		getNoiseBiomeIdsForRegion(biomeIds, noiseStartX, noiseStartZ, widthHeight);
 		IBiomeConfig[] biomeConfigs = new IBiomeConfig[widthHeight * widthHeight];
-
-		IBiome biome;
-		IBiomeConfig[] region;
-		ChunkCoordinate regionCoord;
-		List<ChunkCoordinate> regionsToHandle = new ArrayList<ChunkCoordinate>();
-		int cacheX;
-		int cacheZ;
-		synchronized(this.noiseLock)
+		for(int i = 0; i < biomeConfigs.length; i++)
 		{
-			for(int regionX = regionStartX; regionX <= regionStartX + regionWidth; regionX++)
-			{
-				for(int regionZ = regionStartZ; regionZ <= regionStartZ + regionHeight; regionZ++)
-				{
-					regionCoord = ChunkCoordinate.fromChunkCoords(regionX, regionZ);
-					region = this.noiseBiomeConfigsCache.get(regionCoord);
-					if(region != null)
-					{
-						for(int x = 0; x < regionSize; x++)
-						{
-							for(int z = 0; z < regionSize; z++)
-							{
-								cacheX = ((regionX - regionStartX) << 3) + x - cacheOffsetX;								
-								cacheZ = ((regionZ - regionStartZ) << 3) + z - cacheOffsetZ;
-								if(
-									cacheX < widthHeight && cacheX >= 0 &&
-									cacheZ < widthHeight && cacheZ >= 0
-								)
-								{
-									biomeConfigs[cacheX * widthHeight + cacheZ] = region[(x << 3) + z];
-									if(
-										cacheX == widthHeight - 1 &&
-										cacheZ == widthHeight - 1 &&
-										regionsToHandle.size() == 0 
-									)
-									{
-										return biomeConfigs;
-									}
-								}
-							}
-						}
-					} else {
-						regionsToHandle.add(regionCoord);
-					}
-				}
-			}
+			biomeConfigs[i] = this.biomesById[biomeIds[i]].getBiomeConfig();
 		}
-		Map<ChunkCoordinate, IBiomeConfig[]> regionsHandled = new HashMap<ChunkCoordinate, IBiomeConfig[]>();
-		for(ChunkCoordinate regionTohandle : regionsToHandle)
+		return biomeConfigs;
+	}
+
+	/**
+	 * Fills biomeIds[x * widthHeight + z] with noise biome ids for the given area.
+	 * Regions are requested and cached per 32x32, each cell equal to 4x4 blocks in the world.
+	 */
+	public void getNoiseBiomeIdsForRegion(int[] biomeIds, int noiseStartX, int noiseStartZ, int widthHeight)
+	{
+		getNoiseBiomeIdsForRegion(biomeIds, noiseStartX, noiseStartZ, widthHeight, widthHeight);
+	}
+
+	private void getNoiseBiomeIdsForRegion(int[] biomeIds, int noiseStartX, int noiseStartZ, int width, int depth)
+	{
+		int regionStartX = noiseStartX >> NOISE_REGION_SHIFT;
+		int regionStartZ = noiseStartZ >> NOISE_REGION_SHIFT;
+		int regionEndX = (noiseStartX + width - 1) >> NOISE_REGION_SHIFT;
+		int regionEndZ = (noiseStartZ + depth - 1) >> NOISE_REGION_SHIFT;
+
+		int[] region;
+		long regionKey;
+		int minX;
+		int maxX;
+		int minZ;
+		int maxZ;
+		for(int regionX = regionStartX; regionX <= regionEndX; regionX++)
 		{
-			region = new IBiomeConfig[regionSize * regionSize];
-			for(int x = 0; x < regionSize; x++)
+			// Part of this region that overlaps the requested area, in noise coords
+			minX = Math.max(noiseStartX, regionX << NOISE_REGION_SHIFT);
+			maxX = Math.min(noiseStartX + width, (regionX << NOISE_REGION_SHIFT) + NOISE_REGION_SIZE);
+			for(int regionZ = regionStartZ; regionZ <= regionEndZ; regionZ++)
 			{
-				for(int z = 0; z < regionSize; z++)
+				regionKey = MathHelper.toLong(regionX, regionZ);
+				region = this.noiseBiomeIdsCache.get(regionKey);
+				if(region == null)
 				{
+					region = new int[NOISE_REGION_SIZE * NOISE_REGION_SIZE];
 					// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
-					biome = this.biomesById[this.biomeProvider.getSampler().sample((regionTohandle.getChunkX() << 3) + x, (regionTohandle.getChunkZ() << 3) + z)];
-					region[(x << 3) + z] = biome.getBiomeConfig();
-					
-					// TODO: Abort and don't cache region if requested area is smaller than 8x8?
-					cacheX = ((regionTohandle.getChunkX() - regionStartX) << 3) + x - cacheOffsetX;
-					cacheZ = ((regionTohandle.getChunkZ() - regionStartZ) << 3) + z - cacheOffsetZ;
-					if(
-						cacheX < widthHeight && cacheX >= 0 &&
-						cacheZ < widthHeight && cacheZ >= 0
-					)
+					this.biomeProvider.getSampler().sampleArea(region, regionX << NOISE_REGION_SHIFT, regionZ << NOISE_REGION_SHIFT, NOISE_REGION_SIZE, NOISE_REGION_SIZE);
+					this.noiseBiomeIdsCache.put(regionKey, region);
+				}
+				minZ = Math.max(noiseStartZ, regionZ << NOISE_REGION_SHIFT);
+				maxZ = Math.min(noiseStartZ + depth, (regionZ << NOISE_REGION_SHIFT) + NOISE_REGION_SIZE);
+				for(int x = minX; x < maxX; x++)
+				{
+					for(int z = minZ; z < maxZ; z++)
 					{
-						biomeConfigs[cacheX * widthHeight + cacheZ] = biome.getBiomeConfig();
+						biomeIds[(x - noiseStartX) * depth + (z - noiseStartZ)] = region[((x - (regionX << NOISE_REGION_SHIFT)) << NOISE_REGION_SHIFT) + (z - (regionZ << NOISE_REGION_SHIFT))];
 					}
 				}
 			}
-			regionsHandled.put(regionTohandle, region);
-		}
-		synchronized(this.noiseLock)
-		{
-			this.noiseBiomeConfigsCache.putAll(regionsHandled);
 		}
-		return biomeConfigs;
+	}
+
+	public int getNoiseBiomeId(int noiseX, int noiseZ)
+	{
+		return this.biomeProvider.getSampler().sample(noiseX, noiseZ);
 	}
 
 	@Override
@@ -314,6 +235,22 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 		return this.biomesById[this.biomeProvider.getSampler().sample(noiseX, noiseZ)];
 	}
 
+	/**
+	 * Biomes and biome configs for a chunk, cached together so
+	 * both are always published at the same time.
+	 */
+	private static final class ChunkBiomes
+	{
+		private final IBiome[] biomes;
+		private final IBiomeConfig[] biomeConfigs;
+
+		private ChunkBiomes(IBiome[] biomes, IBiomeConfig[] biomeConfigs)
+		{
+			this.biomes = biomes;
+			this.biomeConfigs = biomeConfigs;
+		}
+	}
+
 	/**
 	 * Interpolates the given biome from biome coords (pos >> 2) to real coords.
 	 * This is required as a vanilla change in 1.15 changed biomes from being stored in real resolution, changing them to be
@@ -329,6 +266,99 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 			return biomeId;
 		}
 		
+		/**
+		 * Fills biomeIds[x * widthZ + z] for the given block area, gives the same results as
+		 * calling getId(seed, x, 0, z) for each column. Each noise cell in the area is only 
+		 * sampled once, and the jitter offsets for each lattice point are only calculated once.
+		 */
+		public static void getIds(long seed, int blockStartX, int blockStartZ, int widthX, int widthZ, CachedBiomeProvider biomeProvider, int[] biomeIds)
+		{
+			// Lattice points any column in the area can snap to.
+			int cellStartX = (blockStartX - 2) >> 2;
+			int cellStartZ = (blockStartZ - 2) >> 2;
+			int cellsX = ((blockStartX + widthX - 3) >> 2) + 2 - cellStartX;
+			int cellsZ = ((blockStartZ + widthZ - 3) >> 2) + 2 - cellStartZ;
+
+			// y is always 0, so startY is -2, which puts every column halfway
+			// between the lattice points at y -1 and 0.
+			int chunkY = (0 - 2) >> 2;
+			double localY = (double) ((0 - 2) & 3) / 4.0D;
+
+			// Jitter offsets per lattice point, for both y layers, indexed as
+			// ((cellX * cellsZ + cellZ) << 1) + yLayer.
+			int latticeSize = cellsX * cellsZ * 2;
+			double[] xOffsets = new double[latticeSize];
+			double[] yOffsets = new double[latticeSize];
+			double[] zOffsets = new double[latticeSize];
+			int[] cellBiomeIds = new int[cellsX * cellsZ];
+			biomeProvider.getNoiseBiomeIdsForRegion(cellBiomeIds, cellStartX, cellStartZ, cellsX, cellsZ);
+			long mixedSeed;
+			int latticeIndex;
+			for(int cellX = 0; cellX < cellsX; cellX++)
+			{
+				for(int cellZ = 0; cellZ < cellsZ; cellZ++)
+				{
+					for(int yLayer = 0; yLayer < 2; yLayer++)
+					{
+						mixedSeed = mixLatticeSeed(seed, cellStartX + cellX, chunkY + yLayer, cellStartZ + cellZ);
+						latticeIndex = ((cellX * cellsZ + cellZ) << 1) + yLayer;
+						xOffsets[latticeIndex] = distribute(mixedSeed);
+						mixedSeed = MathHelper.mixSeed(mixedSeed, seed);
+						yOffsets[latticeIndex] = distribute(mixedSeed);
+						mixedSeed = MathHelper.mixSeed(mixedSeed, seed);
+						zOffsets[latticeIndex] = distribute(mixedSeed);
+					}
+				}
+			}
+
+			int startX;
+			int startZ;
+			int chunkX;
+			int chunkZ;
+			double localX;
+			double localZ;
+			double maxDistance;
+			int idx;
+			double distance;
+			boolean isX;
+			boolean isY;
+			boolean isZ;
+			for(int x = 0; x < widthX; x++)
+			{
+				startX = blockStartX + x - 2;
+				chunkX = (startX >> 2) - cellStartX;
+				localX = (double) (startX & 3) / 4.0D;
+				for(int z = 0; z < widthZ; z++)
+				{
+					startZ = blockStartZ + z - 2;
+					chunkZ = (startZ >> 2) - cellStartZ;
+					localZ = (double) (startZ & 3) / 4.0D;
+
+					// Same corner order and comparison as sample(), so ties resolve identically.
+					maxDistance = Double.MAX_VALUE;
+					idx = Integer.MIN_VALUE;
+					for (int i = 0; i < 8; ++i)
+					{
+						isX = (i & 4) == 0;
+						isY = (i & 2) == 0;
+						isZ = (i & 1) == 0;
+						latticeIndex = (((isX ? chunkX : chunkX + 1) * cellsZ + (isZ ? chunkZ : chunkZ + 1)) << 1) + (isY ? 0 : 1);
+						distance = 
+							square((isZ ? localZ : localZ - 1.0D) + zOffsets[latticeIndex]) + 
+							square((isY ? localY : localY - 1.0D) + yOffsets[latticeIndex]) + 
+							square((isX ? localX : localX - 1.0D) + xOffsets[latticeIndex])
+						;
+						if (maxDistance > distance)
+						{
+							maxDistance = distance;
+							idx = i;
+						}
+					}
+					biomeIds[x * widthZ + z] = cellBiomeIds[((idx & 4) == 0 ? chunkX : chunkX + 1) * cellsZ + ((idx & 1) == 0 ? chunkZ : chunkZ + 1)];
+				}
+			}
+		}
+
 		private static long sample(long seed, int x, int y, int z)
 		{
 			int startX = x - 2;
@@ -378,12 +408,7 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 	
 		private static double calcSquaredDistance(long seed, int x, int y, int z, double xFraction, double yFraction, double zFraction)
 		{
-			long mixedSeed = MathHelper.mixSeed(seed, x);
-			mixedSeed = MathHelper.mixSeed(mixedSeed, y);
-			mixedSeed = MathHelper.mixSeed(mixedSeed, z);
-			mixedSeed = MathHelper.mixSeed(mixedSeed, x);
-			mixedSeed = MathHelper.mixSeed(mixedSeed, y);
-			mixedSeed = MathHelper.mixSeed(mixedSeed, z);
+			long mixedSeed = mixLatticeSeed(seed, x, y, z);
 			double xOffset = distribute(mixedSeed);
 			mixedSeed = MathHelper.mixSeed(mixedSeed, seed);
 			double yOffset = distribute(mixedSeed);
@@ -392,6 +417,16 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 			return square(zFraction + zOffset) + square(yFraction + yOffset) + square(xFraction + xOffset);
 		}
 	
+		private static long mixLatticeSeed(long seed, int x, int y, int z)
+		{
+			long mixedSeed = MathHelper.mixSeed(seed, x);
+			mixedSeed = MathHelper.mixSeed(mixedSeed, y);
+			mixedSeed = MathHelper.mixSeed(mixedSeed, z);
+			mixedSeed = MathHelper.mixSeed(mixedSeed, x);
+			mixedSeed = MathHelper.mixSeed(mixedSeed, y);
+			return MathHelper.mixSeed(mixedSeed, z);
+		}
+
 		private static double distribute(long seed)
 		{
 			double d = (double) ((int) (seed >> 24) & 1023) / 1024.0D;
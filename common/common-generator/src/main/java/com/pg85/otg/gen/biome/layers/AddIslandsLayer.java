@@ -19,14 +19,14 @@ class AddIslandsLayer implements DiagonalCrossSamplingLayer
 		// If the center is not land and one of the corners is, set it to ocean 2/3 of the time.
 		if (!BiomeLayers.isLand(center) && (BiomeLayers.isLand(nw) || BiomeLayers.isLand(ne) || BiomeLayers.isLand(sw) || BiomeLayers.isLand(se)))
 		{
-			if (context.nextInt(3) != 0)
+			if (context.nextInt(context.initSeed(x, z), 3) != 0)
 			{
 				sample ^= LAND_BIT;
 			}
 		// If the center is land and one of the corners isn't, there's a 1/5 chance to set it to ocean.
 		} else if (BiomeLayers.isLand(center) && (!BiomeLayers.isLand(nw) || !BiomeLayers.isLand(ne) || !BiomeLayers.isLand(sw) || !BiomeLayers.isLand(se)))
 		{
-			if (context.nextInt(5) == 0)
+			if (context.nextInt(context.initSeed(x, z), 5) == 0)
 			{
 				sample ^= LAND_BIT;
 			}
@@ -79,11 +79,11 @@ class BeforeGroupsLayer extends BiomeLayerBase
 			BiomeData biomeData = null;
 			if (this.normalGroup.biomes.size() > 0 && (sample & BiomeLayers.ICE_BIT) == 0)
 			{
-				biomeData = this.normalGroup.biomes.get(context.nextInt(this.normalGroup.biomes.size()));
+				biomeData = this.normalGroup.biomes.get(context.nextInt(context.initSeed(x, z), this.normalGroup.biomes.size()));
 			}
 			if (this.iceGroup.biomes.size() > 0 && (sample & BiomeLayers.ICE_BIT) != 0)
 			{
-				biomeData = this.iceGroup.biomes.get(context.nextInt(this.iceGroup.biomes.size()));
+				biomeData = this.iceGroup.biomes.get(context.nextInt(context.initSeed(x, z), this.iceGroup.biomes.size()));
 			}
 			if (biomeData != null)
 			{
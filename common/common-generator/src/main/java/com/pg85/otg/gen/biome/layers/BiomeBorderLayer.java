@@ -72,6 +72,19 @@ public class BiomeBorderLayer implements ParentedLayer
 		}
 	}
 
+	// Samples neighbours one position away on either side.
+	@Override
+	public int getParentStart(int start)
+	{
+		return start - 1;
+	}
+
+	@Override
+	public int getParentSize(int start, int size)
+	{
+		return size + 2;
+	}
+
 	@Override
 	public int sample(LayerSampleContext<?> context, ILayerSampler parent, int x, int z)
 	{
@@ -53,7 +53,7 @@ class BiomeGroupLayer implements ParentedLayer
 			(sample & BiomeLayers.GROUP_BITS) == 0
 		)
 		{
-			NewBiomeGroup biomeGroup = getGroup(context);
+			NewBiomeGroup biomeGroup = getGroup(context, context.initSeed(x, z));
 			if(biomeGroup != null)
 			{
 				// Encode the biome group id into the sample for later use
@@ -64,10 +64,10 @@ class BiomeGroupLayer implements ParentedLayer
 		return sample;
 	}
 
-	private NewBiomeGroup getGroup(LayerRandomnessSource random)
+	private NewBiomeGroup getGroup(LayerRandomnessSource random, long seed)
 	{
 		// Get a random rarity number from our max rarity
-		int chosenRarity = random.nextInt(maxRarity);
+		int chosenRarity = random.nextInt(seed, maxRarity);
 
 		// Iterate through the rarity map and see if the chosen rarity is less than the rarity for each group, if it is then return.
 		for (Map.Entry<Integer, NewBiomeGroup> entry : rarityMap.entrySet())
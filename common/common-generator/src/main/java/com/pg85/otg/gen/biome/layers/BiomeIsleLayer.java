@@ -59,6 +59,9 @@ public class BiomeIsleLayer implements DiagonalCrossSamplingLayer
 		int seCheck;
 		int sample = center;
 		int centerCheck;
+		int chance;
+		// Each isle that gets a chance to spawn draws the next random number for this sample.
+		long seed = context.initSeed(x, z);
 		
 		// Start by just copying the biome from the child layer
 
@@ -84,18 +87,22 @@ public class BiomeIsleLayer implements DiagonalCrossSamplingLayer
 					(nwCheck == 0) &&
 					(neCheck == 0) &&
 					(swCheck == 0) &&
-					(seCheck == 0) &&
-					context.nextInt(isle.chance) == 0
+					(seCheck == 0)
 				)
 				{
-					sample = 
-						(sample & BiomeLayers.ICE_BIT) | 
-						(sample & BiomeLayers.RIVER_BITS) | 
-						BiomeLayers.LAND_BIT | 
-						isle.biomeId | 
-						BiomeLayers.ISLAND_BIT
-					;
-					alreadySpawned = true;
+					chance = context.nextInt(seed, isle.chance);
+					seed = context.nextSeed(seed);
+					if (chance == 0)
+					{
+						sample = 
+							(sample & BiomeLayers.ICE_BIT) | 
+							(sample & BiomeLayers.RIVER_BITS) | 
+							BiomeLayers.LAND_BIT | 
+							isle.biomeId | 
+							BiomeLayers.ISLAND_BIT
+						;
+						alreadySpawned = true;
+					}
 				}
 			}
 
@@ -112,17 +119,21 @@ public class BiomeIsleLayer implements DiagonalCrossSamplingLayer
 					isle.canSpawnIn[nwCheck] &&
 					isle.canSpawnIn[neCheck] &&
 					isle.canSpawnIn[swCheck] &&
-					isle.canSpawnIn[seCheck] &&
-					context.nextInt(isle.chance) == 0
+					isle.canSpawnIn[seCheck]
 				)
 				{
-					sample = 
-						(sample & BiomeLayers.LAND_BIT) | 
-						(sample & BiomeLayers.ICE_BIT) | 
-						(sample & BiomeLayers.RIVER_BITS) | 
-						isle.biomeId |
-						BiomeLayers.ISLAND_BIT
-					;
+					chance = context.nextInt(seed, isle.chance);
+					seed = context.nextSeed(seed);
+					if (chance == 0)
+					{
+						sample = 
+							(sample & BiomeLayers.LAND_BIT) | 
+							(sample & BiomeLayers.ICE_BIT) | 
+							(sample & BiomeLayers.RIVER_BITS) | 
+							isle.biomeId |
+							BiomeLayers.ISLAND_BIT
+						;
+					}
 				}
 			}
 		}
@@ -64,7 +64,7 @@ class BiomeLayer extends BiomeLayerBase
 				NewBiomeGroup group = this.data.groupRegistry.get(biomeGroupId);
 				if (group.maxRarityPerDepth[depth] != 0 && this.groupBiomes.containsKey(group))
 				{
-					BiomeData biomeData = getBiomeFromGroup(context, group.maxRarityPerDepth[depth], this.groupBiomes.get(group));
+					BiomeData biomeData = getBiomeFromGroup(context, context.initSeed(x, z), group.maxRarityPerDepth[depth], this.groupBiomes.get(group));
 					return sample | biomeData.id |
 						// Set IceBit based on Biome Temperature
 						(biomeData.biomeTemperature <= this.data.frozenOceanTemperature ? BiomeLayers.ICE_BIT : 0)
@@ -76,10 +76,10 @@ class BiomeLayer extends BiomeLayerBase
 		return sample;
 	}
 
-	private BiomeData getBiomeFromGroup(LayerRandomnessSource random, int maxRarity, Map<Integer, BiomeData> rarityMap)
+	private BiomeData getBiomeFromGroup(LayerRandomnessSource random, long seed, int maxRarity, Map<Integer, BiomeData> rarityMap)
 	{
 		// Get a random rarity number from our max rarity
-		int chosenRarity = random.nextInt(maxRarity);
+		int chosenRarity = random.nextInt(seed, maxRarity);
 
 		// Iterate through the rarity map and see if the chosen rarity is less than the rarity for each group, if it is then return.
 		for (Map.Entry<Integer, BiomeData> entry : rarityMap.entrySet())
@@ -16,6 +16,8 @@ import com.pg85.otg.util.logging.LogLevel;
 public class FromImageLayer implements ParentedLayer
 {
 	private final BiomeLayerData data;
+	// Either tiledImage or biomeMap is used, biomeMap only if the tile file can't be used.
+	private TiledBiomeImage tiledImage;
 	private int[] biomeMap;
 	private int mapHeight;
 	private int mapWidth;
@@ -24,6 +26,19 @@ public class FromImageLayer implements ParentedLayer
 	{
 		this.data = data;
 
+		// Read from tile file, converting the image first if needed
+		try
+		{
+			this.tiledImage = TiledBiomeImage.open(data, logger);
+			this.mapWidth = this.tiledImage.getWidth();
+			this.mapHeight = this.tiledImage.getHeight();
+			return;
+		}
+		catch (IOException ioexception)
+		{
+			logger.log(LogLevel.WARN, LogCategory.CONFIGS, "Could not use biome tile file for " + data.imageFile + ", reading the whole image instead: " + ioexception.getMessage());
+		}
+
 		// Read from file
 		try
 		{
@@ -133,7 +148,7 @@ public class FromImageLayer implements ParentedLayer
 				{
 					Buffer_z += this.mapHeight;
 				}
-				return this.biomeMap[Buffer_x + Buffer_z * this.mapWidth];
+				return getBiome(Buffer_x, Buffer_z);
 			case Mirror:
 				// Improved repeat mode
 				Buffer_xq = (x - this.data.imageXOffset) % (2 * this.mapWidth);
@@ -156,7 +171,7 @@ public class FromImageLayer implements ParentedLayer
 				{
 					Buffer_z = this.mapHeight - 1 - Buffer_z;
 				}
-				return this.biomeMap[Buffer_x + Buffer_z * this.mapWidth];
+				return getBiome(Buffer_x, Buffer_z);
 			case ContinueNormal:
 				int childBiome = 0;
 				Buffer_x = x - this.data.imageXOffset;
@@ -172,7 +187,7 @@ public class FromImageLayer implements ParentedLayer
 						return this.data.imageFillBiome;
 					}
 				} else {
-					int biome_id_buffer = this.biomeMap[Buffer_x + Buffer_z * this.mapWidth];
+					int biome_id_buffer = getBiome(Buffer_x, Buffer_z);
 					// If set to -1 in the constructor above, uses the childlayer instead of the fillbiome if it exists.
 					if (biome_id_buffer == -1)
 					{
@@ -194,10 +209,15 @@ public class FromImageLayer implements ParentedLayer
 				{
 					return this.data.imageFillBiome;
 				} else {
-					return this.biomeMap[Buffer_x + Buffer_z * this.mapWidth];
+					return getBiome(Buffer_x, Buffer_z);
 				}
 		}
 		
 		return parent.sample(x, z);
 	}
+
+	private int getBiome(int x, int z)
+	{
+		return this.tiledImage != null ? this.tiledImage.getBiome(x, z) : this.biomeMap[x + z * this.mapWidth];
+	}
 }
@@ -5,8 +5,8 @@ import com.pg85.otg.gen.biome.layers.util.LayerSampleContext;
 class FuzzyScaleLayer extends ScaleLayer
 {
 	@Override
-	protected int sample(LayerSampleContext<?> context, int i, int j, int k, int l)
+	protected int sample(LayerSampleContext<?> context, long seed, int i, int j, int k, int l)
 	{
-		return context.choose(i, j, k, l);
+		return context.choose(seed, i, j, k, l);
 	}
 }
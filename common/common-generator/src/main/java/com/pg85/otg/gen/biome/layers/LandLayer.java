@@ -38,10 +38,10 @@ class LandLayer implements ParentedLayer
 		boolean result;
 		if (oldLandRarity) {
 			// Old land rarity - 100 is all land, 99 is 50% land, etc.
-			result = context.nextInt(rarity) == 0;
+			result = context.nextInt(context.initSeed(x, z), rarity) == 0;
 		} else {
 			// New land rarity, where n = % chance for land
-			result = context.nextInt(101) <= this.rarity;
+			result = context.nextInt(context.initSeed(x, z), 101) <= this.rarity;
 		}
 
 		if (result && spawnLand)
@@ -12,7 +12,7 @@ public class RiverInitLayer implements ParentedLayer
 		int currentPiece = parent.sample(x,  z);
 		// TODO: For 1.12, we initliased the chunkseed here with inverted coordinates,
 		// so initChunkSeed(zi + z, xi + x);, do we need to do the same here?		
-		if (context.nextInt(2) == 0)
+		if (context.nextInt(context.initSeed(x, z), 2) == 0)
 		{
 			currentPiece |= BiomeLayers.RIVER_BIT_ONE;
 		} else {
@@ -18,6 +18,19 @@ class ScaleLayer implements ParentedLayer
 	  return y >> 1;
 	}
 
+	@Override
+	public int getParentStart(int start)
+	{
+	  return start >> 1;
+	}
+
+	// Samples at x >> 1 and (x + 1) >> 1.
+	@Override
+	public int getParentSize(int start, int size)
+	{
+	  return ((start + size) >> 1) - (start >> 1) + 1;
+	}
+
 	public int sample(LayerSampleContext<?> context, ILayerSampler parent, int x, int z)
 	{
 	  // Optimized ScaleLayer implementation from zoom-layer
@@ -31,18 +44,18 @@ class ScaleLayer implements ParentedLayer
 
 	  if (ix == 0 && iz == 0) return tl;
 
-	  context.initSeed(x & ~1, z & ~1);
+	  long seed = context.initSeed(x & ~1, z & ~1);
 
 	  // Only sample bottom left
 	  if (ix == 0) {
 		 int bl = parent.sample(this.transformX(x), this.transformZ(z + 1));
-		 return context.choose(tl, bl);
+		 return context.choose(seed, tl, bl);
 	  }
 
 	  // Only sample top right
 	  if (iz == 0) {
 		 int tr = parent.sample(this.transformX(x + 1), this.transformZ(z));
-		 return context.choose(tl, tr);
+		 return context.choose(seed, tl, tr);
 	  }
 
 	  // Perform regular sampling
@@ -50,10 +63,10 @@ class ScaleLayer implements ParentedLayer
 	  int tr = parent.sample(this.transformX(x + 1), this.transformZ(z));
 	  int br = parent.sample(this.transformX(x + 1), this.transformZ(z + 1));
 
-	  return this.sample(context, tl, tr, bl, br);
+	  return this.sample(context, seed, tl, tr, bl, br);
 	}
 
-	protected int sample(LayerSampleContext<?> context, int i, int j, int k, int l)
+	protected int sample(LayerSampleContext<?> context, long seed, int i, int j, int k, int l)
 	{
 	  if (j == k && k == l)
 	  {
@@ -91,7 +104,7 @@ class ScaleLayer implements ParentedLayer
 	  {
 		 return j;
 	  } else {
-		 return k == l && i != j ? k : context.choose(i, j, k, l);
+		 return k == l && i != j ? k : context.choose(seed, i, j, k, l);
 	  }
 	}
 }
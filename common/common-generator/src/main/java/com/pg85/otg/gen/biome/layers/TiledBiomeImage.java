@@ -0,0 +1,394 @@
+package com.pg85.otg.gen.biome.layers;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import javax.imageio.ImageIO;
+
+import com.pg85.otg.constants.SettingsEnums.ImageMode;
+import com.pg85.otg.constants.SettingsEnums.ImageOrientation;
+import com.pg85.otg.interfaces.ILogger;
+import com.pg85.otg.util.logging.LogCategory;
+import com.pg85.otg.util.logging.LogLevel;
+
+/**
+ * Biome map for FromImageLayer, read lazily from a tile file next to the
+ * image instead of decoding the whole image into memory.
+ *
+ * The tile file is created from the image the first time it's used, and
+ * again when the image or any of the settings used to convert it change.
+ * It holds the biome ids of the image after rotating it for ImageOrientation,
+ * with colours that aren't in the biome color map already replaced by
+ * ImageFillBiome or -1 for ContinueNormal, so sampling is a single lookup.
+ *
+ * File layout, big-endian:
+ *   int magic, int version, long imageLength, long imageLastModified,
+ *   int settingsLength, int width, int height, int paletteSize,
+ *   int[settingsLength] settings, see getSettings,
+ *   int[paletteSize] biome ids,
+ *   tiles of TILE_SIZE x TILE_SIZE unsigned short palette indices, row
+ *   by row. Edge tiles are padded to full size.
+ *
+ * The tile data is memory-mapped, a small cache keeps recently used tiles
+ * decoded. Safe to use from multiple threads.
+ */
+class TiledBiomeImage
+{
+	static final String FILE_EXTENSION = ".biometiles";
+
+	private static final int MAGIC = 0x4F544754; // "OTGT"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4 + 4;
+	private static final int TILE_BITS = 6;
+	private static final int TILE_SIZE = 1 << TILE_BITS;
+	private static final int TILE_MASK = TILE_SIZE - 1;
+	private static final int TILE_BYTES = TILE_SIZE * TILE_SIZE * 2;
+	// A single mapping can't exceed 2GB, larger files are mapped in segments.
+	private static final int TILES_PER_SEGMENT = (1 << 30) / TILE_BYTES;
+	// The cache holds an 8x8 window of tiles, each tile has a fixed slot.
+	private static final int CACHE_BITS = 3;
+	private static final int CACHE_MASK = (1 << CACHE_BITS) - 1;
+
+	// Worlds using the same preset shouldn't convert the same image at the same time.
+	private static final Object CONVERT_LOCK = new Object();
+
+	private final int width;
+	private final int height;
+	private final int tilesX;
+	private final int[] palette;
+	private final ByteBuffer[] segments;
+	private final Tile[] cache = new Tile[1 << (CACHE_BITS * 2)];
+
+	private TiledBiomeImage(int width, int height, int[] palette, ByteBuffer[] segments)
+	{
+		this.width = width;
+		this.height = height;
+		this.tilesX = (width + TILE_MASK) >> TILE_BITS;
+		this.palette = palette;
+		this.segments = segments;
+	}
+
+	/**
+	 * Opens the tile file for the image in data, creating or updating it first if needed.
+	 */
+	static TiledBiomeImage open(BiomeLayerData data, ILogger logger) throws IOException
+	{
+		File image = new File(data.presetDir.toFile(), data.imageFile);
+		File tileFile = new File(data.presetDir.toFile(), data.imageFile + FILE_EXTENSION);
+		int[] settings = getSettings(data);
+		synchronized(CONVERT_LOCK)
+		{
+			TiledBiomeImage tiledImage = tileFile.exists() ? read(tileFile, image, settings) : null;
+			if(tiledImage == null)
+			{
+				long startTime = System.currentTimeMillis();
+				convert(data, image, tileFile, settings);
+				tiledImage = read(tileFile, image, settings);
+				if(tiledImage == null)
+				{
+					throw new IOException("Could not read biome tile file " + tileFile);
+				}
+				if(logger.getLogCategoryEnabled(LogCategory.CONFIGS))
+				{
+					logger.log(LogLevel.INFO, LogCategory.CONFIGS, "Converted " + data.imageFile + " to biome tile file in " + (System.currentTimeMillis() - startTime) + "ms");
+				}
+			}
+			return tiledImage;
+		}
+	}
+
+	int getWidth()
+	{
+		return this.width;
+	}
+
+	int getHeight()
+	{
+		return this.height;
+	}
+
+	/**
+	 * Returns the biome id at x, z, which must be within the rotated image.
+	 */
+	int getBiome(int x, int z)
+	{
+		int tileX = x >> TILE_BITS;
+		int tileZ = z >> TILE_BITS;
+		int slot = (tileX & CACHE_MASK) | ((tileZ & CACHE_MASK) << CACHE_BITS);
+		// Tiles are immutable, a thread may see an older tile in the slot or
+		// load the same tile twice, but never sees a partially loaded tile.
+		Tile tile = this.cache[slot];
+		if(tile == null || tile.tileX != tileX || tile.tileZ != tileZ)
+		{
+			tile = loadTile(tileX, tileZ);
+			this.cache[slot] = tile;
+		}
+		return tile.biomes[((z & TILE_MASK) << TILE_BITS) | (x & TILE_MASK)];
+	}
+
+	private Tile loadTile(int tileX, int tileZ)
+	{
+		long tileIndex = (long)tileZ * this.tilesX + tileX;
+		ByteBuffer segment = this.segments[(int)(tileIndex / TILES_PER_SEGMENT)];
+		int offset = (int)(tileIndex % TILES_PER_SEGMENT) * TILE_BYTES;
+		int[] biomes = new int[TILE_SIZE * TILE_SIZE];
+		for(int i = 0; i < biomes.length; i++)
+		{
+			biomes[i] = this.palette[segment.getShort(offset + i * 2) & 0xFFFF];
+		}
+		return new Tile(tileX, tileZ, biomes);
+	}
+
+	// Returns null if the file is outdated or isn't a tile file.
+	private static TiledBiomeImage read(File tileFile, File image, int[] settings) throws IOException
+	{
+		try(RandomAccessFile file = new RandomAccessFile(tileFile, "r"); FileChannel channel = file.getChannel())
+		{
+			if(channel.size() < HEADER_SIZE)
+			{
+				return null;
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if(
+				header.getInt() != MAGIC ||
+				header.getInt() != VERSION ||
+				header.getLong() != image.length() ||
+				header.getLong() != image.lastModified() ||
+				header.getInt() != settings.length
+			)
+			{
+				return null;
+			}
+			int width = header.getInt();
+			int height = header.getInt();
+			int paletteSize = header.getInt();
+			if(width < 0 || height < 0 || paletteSize < 1 || paletteSize > 0xFFFF)
+			{
+				return null;
+			}
+			long paletteOffset = HEADER_SIZE + settings.length * 4L;
+			long dataOffset = paletteOffset + paletteSize * 4L;
+			long dataSize = getDataSize(width, height);
+			if(channel.size() != dataOffset + dataSize)
+			{
+				return null;
+			}
+
+			// Compare the whole colour to biome table, biome ids change when biomes are added to a preset.
+			int[] fileSettings = new int[settings.length];
+			channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, settings.length * 4L).asIntBuffer().get(fileSettings);
+			if(!Arrays.equals(fileSettings, settings))
+			{
+				return null;
+			}
+
+			int[] palette = new int[paletteSize];
+			channel.map(FileChannel.MapMode.READ_ONLY, paletteOffset, paletteSize * 4L).asIntBuffer().get(palette);
+
+			// Mappings stay valid after the channel is closed.
+			ByteBuffer[] segments = new ByteBuffer[getSegmentCount(dataSize)];
+			long segmentSize = (long)TILES_PER_SEGMENT * TILE_BYTES;
+			for(int i = 0; i < segments.length; i++)
+			{
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + i * segmentSize, Math.min(segmentSize, dataSize - i * segmentSize));
+			}
+			return new TiledBiomeImage(width, height, palette, segments);
+		}
+	}
+
+	// Writes the tile file to a temporary file first, so a failed conversion
+	// never leaves a tile file behind that looks valid.
+	private static void convert(BiomeLayerData data, File image, File tileFile, int[] settings) throws IOException
+	{
+		// Only decoded once per image and settings, after that the tile file is used.
+		BufferedImage map = ImageIO.read(image);
+		if(map == null)
+		{
+			throw new IOException("Could not read image " + image + ", unsupported image format.");
+		}
+		int imageWidth = map.getWidth(null);
+		int imageHeight = map.getHeight(null);
+		boolean swapAxes = data.imageOrientation == ImageOrientation.West || data.imageOrientation == ImageOrientation.East;
+		int width = swapAxes ? imageHeight : imageWidth;
+		int height = swapAxes ? imageWidth : imageHeight;
+
+		// All biome ids a pixel can have, index 0 is used for unknown colours.
+		int unknownBiome = data.imageMode == ImageMode.ContinueNormal ? -1 : data.imageFillBiome;
+		List<Integer> palette = new ArrayList<Integer>();
+		HashMap<Integer, Integer> paletteIndexByBiome = new HashMap<Integer, Integer>();
+		palette.add(unknownBiome);
+		paletteIndexByBiome.put(unknownBiome, 0);
+		HashMap<Integer, Integer> paletteIndexByColor = new HashMap<Integer, Integer>();
+		for(Entry<Integer, Integer> entry : data.biomeColorMap.entrySet())
+		{
+			Integer paletteIndex = paletteIndexByBiome.get(entry.getValue());
+			if(paletteIndex == null)
+			{
+				paletteIndex = palette.size();
+				palette.add(entry.getValue());
+				paletteIndexByBiome.put(entry.getValue(), paletteIndex);
+			}
+			paletteIndexByColor.put(entry.getKey(), paletteIndex);
+		}
+		if(palette.size() > 0xFFFF)
+		{
+			throw new IOException("Too many biomes in biome color map to convert " + image);
+		}
+
+		long dataOffset = HEADER_SIZE + settings.length * 4L + palette.size() * 4L;
+		long dataSize = getDataSize(width, height);
+		int tilesX = (width + TILE_MASK) >> TILE_BITS;
+		File tempFile = File.createTempFile(tileFile.getName(), ".tmp", tileFile.getAbsoluteFile().getParentFile());
+		try
+		{
+			try(RandomAccessFile file = new RandomAccessFile(tempFile, "rw"); FileChannel channel = file.getChannel())
+			{
+				file.setLength(dataOffset + dataSize);
+
+				MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, dataOffset);
+				header.putInt(MAGIC);
+				header.putInt(VERSION);
+				header.putLong(image.length());
+				header.putLong(image.lastModified());
+				header.putInt(settings.length);
+				header.putInt(width);
+				header.putInt(height);
+				header.putInt(palette.size());
+				for(int setting : settings)
+				{
+					header.putInt(setting);
+				}
+				for(Integer biome : palette)
+				{
+					header.putInt(biome.intValue());
+				}
+				header.force();
+
+				MappedByteBuffer[] segments = new MappedByteBuffer[getSegmentCount(dataSize)];
+				long segmentSize = (long)TILES_PER_SEGMENT * TILE_BYTES;
+				for(int i = 0; i < segments.length; i++)
+				{
+					segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, dataOffset + i * segmentSize, Math.min(segmentSize, dataSize - i * segmentSize));
+				}
+
+				// Read the image a row at a time, so there's no second copy of the whole image.
+				int[] row = new int[imageWidth];
+				int lastColor = 0;
+				int lastPaletteIndex = -1;
+				for(int imageZ = 0; imageZ < imageHeight; imageZ++)
+				{
+					map.getRGB(0, imageZ, imageWidth, 1, row, 0, imageWidth);
+					for(int imageX = 0; imageX < imageWidth; imageX++)
+					{
+						int color = row[imageX] & 0x00FFFFFF;
+						if(lastPaletteIndex == -1 || color != lastColor)
+						{
+							Integer paletteIndex = paletteIndexByColor.get(color);
+							lastPaletteIndex = paletteIndex == null ? 0 : paletteIndex.intValue();
+							lastColor = color;
+						}
+
+						// Same rotations as FromImageLayer used to do on the whole image.
+						int x;
+						int z;
+						switch (data.imageOrientation)
+						{
+							case South:
+								// Rotate picture 180 degrees
+								x = imageWidth - 1 - imageX;
+								z = imageHeight - 1 - imageZ;
+								break;
+							case West:
+								// Rotate picture CW
+								x = imageHeight - 1 - imageZ;
+								z = imageX;
+								break;
+							case East:
+								// Rotate picture CCW
+								x = imageZ;
+								z = imageWidth - 1 - imageX;
+								break;
+							default:
+								x = imageX;
+								z = imageZ;
+								break;
+						}
+
+						long tileIndex = (long)(z >> TILE_BITS) * tilesX + (x >> TILE_BITS);
+						int offset = (int)(tileIndex % TILES_PER_SEGMENT) * TILE_BYTES + ((((z & TILE_MASK) << TILE_BITS) | (x & TILE_MASK)) * 2);
+						segments[(int)(tileIndex / TILES_PER_SEGMENT)].putShort(offset, (short)lastPaletteIndex);
+					}
+				}
+				for(MappedByteBuffer segment : segments)
+				{
+					segment.force();
+				}
+			}
+			Files.move(tempFile.toPath(), tileFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			tempFile.delete();
+		}
+	}
+
+	// Any setting that changes the biome ids written to the tile file: the
+	// orientation, the biome for unknown colours and the colour to biome id
+	// pairs sorted by colour, stored in the tile file and compared exactly.
+	private static int[] getSettings(BiomeLayerData data)
+	{
+		int[] colors = new int[data.biomeColorMap.size()];
+		int i = 0;
+		for(Integer color : data.biomeColorMap.keySet())
+		{
+			colors[i++] = color.intValue();
+		}
+		Arrays.sort(colors);
+
+		int[] settings = new int[2 + colors.length * 2];
+		settings[0] = data.imageOrientation.ordinal();
+		settings[1] = data.imageMode == ImageMode.ContinueNormal ? -1 : data.imageFillBiome;
+		for(i = 0; i < colors.length; i++)
+		{
+			settings[2 + i * 2] = colors[i];
+			settings[3 + i * 2] = data.biomeColorMap.get(colors[i]).intValue();
+		}
+		return settings;
+	}
+
+	private static long getDataSize(int width, int height)
+	{
+		long tilesX = (width + TILE_MASK) >> TILE_BITS;
+		long tilesZ = (height + TILE_MASK) >> TILE_BITS;
+		return tilesX * tilesZ * TILE_BYTES;
+	}
+
+	private static int getSegmentCount(long dataSize)
+	{
+		long segmentSize = (long)TILES_PER_SEGMENT * TILE_BYTES;
+		return (int)((dataSize + segmentSize - 1) / segmentSize);
+	}
+
+	private static final class Tile
+	{
+		private final int tileX;
+		private final int tileZ;
+		private final int[] biomes;
+
+		private Tile(int tileX, int tileZ, int[] biomes)
+		{
+			this.tileX = tileX;
+			this.tileZ = tileZ;
+			this.biomes = biomes;
+		}
+	}
+}
@@ -19,4 +19,15 @@ public interface CrossSamplingLayer extends ParentedLayer {
 			  parent.sample(x - 1, z), // West
 			  parent.sample(x, z));	// Center
 	}
+
+	// Samples neighbours one position away on either side.
+	@Override
+	default int getParentStart(int start) {
+	  return start - 1;
+	}
+
+	@Override
+	default int getParentSize(int start, int size) {
+	  return size + 2;
+	}
 }
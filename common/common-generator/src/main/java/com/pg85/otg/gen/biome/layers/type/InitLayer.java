@@ -11,10 +11,7 @@ public interface InitLayer
 {
 	default <R extends ILayerSampler> LayerFactory<R> create(LayerSampleContext<R> context)
 	{
-	  return () -> context.createSampler((x, z) -> {
-		 context.initSeed(x, z);
-		 return this.sample(context, x, z);
-	  });
+	  return () -> context.createSampler((x, z) -> this.sample(context, x, z));
 	}
 
 	int sample(LayerSampleContext<?> context, int x, int z);
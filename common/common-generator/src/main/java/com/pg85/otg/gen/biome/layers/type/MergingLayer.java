@@ -1,20 +1,41 @@
 package com.pg85.otg.gen.biome.layers.type;
 
 import com.pg85.otg.gen.biome.layers.util.LayerFactory;
+import com.pg85.otg.gen.biome.layers.util.LayerOperator;
 import com.pg85.otg.gen.biome.layers.util.LayerRandomnessSource;
 import com.pg85.otg.gen.biome.layers.util.LayerSampleContext;
+import com.pg85.otg.gen.biome.layers.util.LayerTile;
 import com.pg85.otg.interfaces.ILayerSampler;
 
 public interface MergingLayer
 {
 	default <R extends ILayerSampler> LayerFactory<R> create(LayerSampleContext<R> context, LayerFactory<R> layer1, LayerFactory<R> layer2)
 	{
+	  MergingLayer layer = this;
 	  return () -> {
 		 R layerSampler = layer1.make();
 		 R layerSampler2 = layer2.make();
-		 return context.createSampler((x, z) -> {
-			context.initSeed(x, z);
-			return this.sample(context, layerSampler, layerSampler2, x, z);
+		 return context.createSampler(new LayerOperator()
+		 {
+			@Override
+			public int apply(int x, int z)
+			{
+				return layer.sample(context, layerSampler, layerSampler2, x, z);
+			}
+
+			@Override
+			public void apply(int[] area, int startX, int startZ, int width, int depth)
+			{
+				LayerTile tile1 = new LayerTile(layerSampler, startX, startZ, width, depth);
+				LayerTile tile2 = new LayerTile(layerSampler2, startX, startZ, width, depth);
+				for (int x = 0; x < width; x++)
+				{
+					for (int z = 0; z < depth; z++)
+					{
+						area[x * depth + z] = layer.sample(context, tile1, tile2, startX + x, startZ + z);
+					}
+				}
+			}
 		 }, layerSampler, layerSampler2);
 	  };
 	}
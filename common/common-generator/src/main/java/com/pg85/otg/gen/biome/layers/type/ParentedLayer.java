@@ -1,7 +1,9 @@
 package com.pg85.otg.gen.biome.layers.type;
 
 import com.pg85.otg.gen.biome.layers.util.LayerFactory;
+import com.pg85.otg.gen.biome.layers.util.LayerOperator;
 import com.pg85.otg.gen.biome.layers.util.LayerSampleContext;
+import com.pg85.otg.gen.biome.layers.util.LayerTile;
 import com.pg85.otg.interfaces.ILayerSampler;
 
 /**
@@ -11,14 +13,59 @@ public interface ParentedLayer
 {
 	default <R extends ILayerSampler> LayerFactory<R> create(LayerSampleContext<R> context, LayerFactory<R> parent)
 	{
+	  ParentedLayer layer = this;
 	  return () -> {
 		 R layerSampler = parent.make();
-		 return context.createSampler((x, z) -> {
-			context.initSeed(x, z);
-			return this.sample(context, layerSampler, x, z);
+		 return context.createSampler(new LayerOperator()
+		 {
+			@Override
+			public int apply(int x, int z)
+			{
+				return layer.sample(context, layerSampler, x, z);
+			}
+
+			@Override
+			public void apply(int[] area, int startX, int startZ, int width, int depth)
+			{
+				// Sample the parent once for the whole area, then sample this layer from the parent's tile.
+				LayerTile parentTile = new LayerTile(
+					layerSampler,
+					layer.getParentStart(startX),
+					layer.getParentStart(startZ),
+					layer.getParentSize(startX, width),
+					layer.getParentSize(startZ, depth)
+				);
+				for (int x = 0; x < width; x++)
+				{
+					for (int z = 0; z < depth; z++)
+					{
+						area[x * depth + z] = layer.sample(context, parentTile, startX + x, startZ + z);
+					}
+				}
+			}
 		 }, layerSampler);
 	  };
 	}
 
 	int sample(LayerSampleContext<?> context, ILayerSampler parent, int x, int z);
+
+	/**
+	 * Returns the first parent coordinate (on either axis) this layer 
+	 * samples for an area starting at start. Layers that sample their
+	 * parent at other coordinates than their own override this and
+	 * getParentSize, so whole areas can be sampled from a parent tile.
+	 */
+	default int getParentStart(int start)
+	{
+		return start;
+	}
+
+	/**
+	 * Returns the amount of parent coordinates (on either axis) this layer
+	 * samples for an area of the given size, see getParentStart.
+	 */
+	default int getParentSize(int start, int size)
+	{
+		return size;
+	}
 }
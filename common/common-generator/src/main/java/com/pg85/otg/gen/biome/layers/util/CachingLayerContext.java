@@ -5,12 +5,16 @@ import java.util.Random;
 import com.pg85.otg.gen.noise.PerlinNoiseSampler;
 import com.pg85.otg.util.helpers.MathHelper;
 
+/**
+ * Creates caching samplers for a layer and provides the layer's random
+ * numbers. Immutable, so a single context (and the layer stack using it) 
+ * can be shared by all worldgen threads.
+ */
 public class CachingLayerContext implements LayerSampleContext<CachingLayerSampler>
 {
 	private final int cacheCapacity;
 	private final PerlinNoiseSampler noiseSampler;
 	private final long worldSeed;
-	private long localSeed;
 
 	public CachingLayerContext(int cacheCapacity, long seed, long salt)
 	{
@@ -34,21 +38,24 @@ public class CachingLayerContext implements LayerSampleContext<CachingLayerSampl
 	  return new CachingLayerSampler(Math.min(1024, Math.max(cachingLayerSampler.getCapacity(), cachingLayerSampler2.getCapacity()) * 4), layerOperator);
 	}
 
-	public void initSeed(long x, long y)
+	public long initSeed(long x, long y)
 	{
 	  long l = this.worldSeed;
 	  l = MathHelper.mixSeed(l, x);
 	  l = MathHelper.mixSeed(l, y);
 	  l = MathHelper.mixSeed(l, x);
 	  l = MathHelper.mixSeed(l, y);
-	  this.localSeed = l;
+	  return l;
 	}
 
-	public int nextInt(int bound)
+	public int nextInt(long seed, int bound)
 	{
-	  int i = (int)Math.floorMod(this.localSeed >> 24, (long)bound);
-	  this.localSeed = MathHelper.mixSeed(this.localSeed, this.worldSeed);
-	  return i;
+	  return (int)Math.floorMod(seed >> 24, (long)bound);
+	}
+
+	public long nextSeed(long seed)
+	{
+	  return MathHelper.mixSeed(seed, this.worldSeed);
 	}
 
 	public PerlinNoiseSampler getNoiseSampler()
@@ -7,15 +7,23 @@ import com.pg85.otg.util.helpers.MathHelper;
 
 import it.unimi.dsi.fastutil.HashCommon;
 
+/**
+ * Samples a layer through a small per-thread cache. Layer operators and 
+ * their contexts are stateless, so a single sampler (and the layers below
+ * it) can be shared by all threads. Use sampleArea when sampling many
+ * neighbouring positions at once.
+ */
 public final class CachingLayerSampler implements ILayerSampler
 {
 	private final ThreadLocal<SamplerBiomeCache> cache;
 	private final int cacheCapacity;
+	private final LayerOperator operator;
 
 	CachingLayerSampler(int cacheCapacity, LayerOperator operator)
 	{
 		this.cache = ThreadLocal.withInitial(() -> new SamplerBiomeCache(operator, cacheCapacity));
 		this.cacheCapacity = cacheCapacity;
+		this.operator = operator;
 	}
 
 	public int sample(int x, int z)
@@ -23,6 +31,13 @@ public final class CachingLayerSampler implements ILayerSampler
 		return this.cache.get().get(x, z);
 	}
 
+	// Areas are evaluated layer by layer from parent tiles, bypassing the cache.
+	@Override
+	public void sampleArea(int[] area, int startX, int startZ, int width, int depth)
+	{
+		this.operator.apply(area, startX, startZ, width, depth);
+	}
+
 	public int getCapacity()
 	{
 		return this.cacheCapacity;
@@ -3,4 +3,19 @@ package com.pg85.otg.gen.biome.layers.util;
 public interface LayerOperator
 {
 	int apply(int x, int z);
+
+	/**
+	 * Fills area[x * depth + z] for the given area, see ILayerSampler.sampleArea.
+	 * Layers override this to sample their parents once for the whole area.
+	 */
+	default void apply(int[] area, int startX, int startZ, int width, int depth)
+	{
+		for(int x = 0; x < width; x++)
+		{
+			for(int z = 0; z < depth; z++)
+			{
+				area[x * depth + z] = apply(startX + x, startZ + z);
+			}
+		}
+	}
 }
@@ -2,9 +2,24 @@ package com.pg85.otg.gen.biome.layers.util;
 
 import com.pg85.otg.gen.noise.PerlinNoiseSampler;
 
+/**
+ * Random numbers for biome layers. Implementations hold no mutable state,
+ * layers get a seed for the position they're sampling via 
+ * LayerSampleContext.initSeed and pass it to nextInt. When a layer needs 
+ * more than one random number for a sample, it advances the seed using 
+ * nextSeed. This keeps layers safe to use from any number of threads.
+ */
 public interface LayerRandomnessSource
 {
-	int nextInt(int bound);
+	/**
+	 * Returns a random int between 0 (inclusive) and bound (exclusive) for the given seed.
+	 */
+	int nextInt(long seed, int bound);
+
+	/**
+	 * Returns the seed to use for the random number after the one for the given seed.
+	 */
+	long nextSeed(long seed);
 
 	PerlinNoiseSampler getNoiseSampler();
 }
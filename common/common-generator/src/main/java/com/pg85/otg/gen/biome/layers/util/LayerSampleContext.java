@@ -4,7 +4,11 @@ import com.pg85.otg.interfaces.ILayerSampler;
 
 public interface LayerSampleContext<R extends ILayerSampler> extends LayerRandomnessSource
 {
-	void initSeed(long x, long y);
+	/**
+	 * Returns the seed for the first random number at the given position, 
+	 * derived from the world seed, the layer's salt and x/y only.
+	 */
+	long initSeed(long x, long y);
 
 	R createSampler(LayerOperator operator);
 
@@ -18,14 +22,14 @@ public interface LayerSampleContext<R extends ILayerSampler> extends LayerRandom
 	  return this.createSampler(operator);
 	}
 
-	default int choose(int a, int b)
+	default int choose(long seed, int a, int b)
 	{
-	  return this.nextInt(2) == 0 ? a : b;
+	  return this.nextInt(seed, 2) == 0 ? a : b;
 	}
 
-	default int choose(int a, int b, int c, int d)
+	default int choose(long seed, int a, int b, int c, int d)
 	{
-	  int i = this.nextInt(4);
+	  int i = this.nextInt(seed, 4);
 	  if (i == 0)
 	  {
 		 return a;
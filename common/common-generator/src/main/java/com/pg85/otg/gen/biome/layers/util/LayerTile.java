@@ -0,0 +1,42 @@
+package com.pg85.otg.gen.biome.layers.util;
+
+import com.pg85.otg.interfaces.ILayerSampler;
+
+/**
+ * An area of samples from a layer, used when evaluating a whole area of
+ * the layer below it at once (see ILayerSampler.sampleArea). Layers sample
+ * their parent through a tile the same way they'd sample the parent itself,
+ * positions outside of the tile are sampled from the parent layer.
+ */
+public final class LayerTile implements ILayerSampler
+{
+	private final ILayerSampler layer;
+	private final int[] samples;
+	private final int startX;
+	private final int startZ;
+	private final int width;
+	private final int depth;
+
+	public LayerTile(ILayerSampler layer, int startX, int startZ, int width, int depth)
+	{
+		this.layer = layer;
+		this.startX = startX;
+		this.startZ = startZ;
+		this.width = width;
+		this.depth = depth;
+		this.samples = new int[width * depth];
+		layer.sampleArea(this.samples, startX, startZ, width, depth);
+	}
+
+	@Override
+	public int sample(int x, int z)
+	{
+		int localX = x - this.startX;
+		int localZ = z - this.startZ;
+		if(localX < 0 || localX >= this.width || localZ < 0 || localZ >= this.depth)
+		{
+			return this.layer.sample(x, z);
+		}
+		return this.samples[localX * this.depth + localZ];
+	}
+}
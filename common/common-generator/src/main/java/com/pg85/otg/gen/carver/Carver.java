@@ -1,11 +1,14 @@
 package com.pg85.otg.gen.carver;
 
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import com.pg85.otg.constants.Constants;
 import com.pg85.otg.interfaces.IBiomeConfig;
-import com.pg85.otg.interfaces.ICachedBiomeProvider;
 import com.pg85.otg.interfaces.ISurfaceGeneratorNoiseProvider;
 import com.pg85.otg.interfaces.IWorldConfig;
 import com.pg85.otg.util.MutableBoolean;
@@ -17,9 +20,26 @@ import com.pg85.otg.util.materials.LocalMaterials;
 
 public abstract class Carver
 {
+	// Each chunk is carved by the 17x17 start chunks around it, so
+	// this covers several threads generating chunks in different places.
+	private static final int GRAPH_CACHE_SIZE = 2048;
+
 	protected final int heightLimit;
 	protected final IWorldConfig worldConfig;
 
+	// Least recently used graphs are evicted first.
+	private final Map<Long, CarverGraph> graphCache = new LinkedHashMap<Long, CarverGraph>(GRAPH_CACHE_SIZE, 0.75F, true)
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, CarverGraph> eldest)
+		{
+			return size() > GRAPH_CACHE_SIZE;
+		}
+	};
+	private long graphCacheSeed;
+
 	public Carver(int heightLimit, IWorldConfig worldConfig)
 	{
 		this.heightLimit = heightLimit;
@@ -31,13 +51,11 @@ public abstract class Carver
 		return 4;
 	}
 
-	protected boolean carveRegion(ISurfaceGeneratorNoiseProvider noiseProvider, float[] cache, ChunkBuffer chunkBuffer, long seed, int chunkX, int chunkZ, double x, double y, double z, double yaw, double pitch, BitSet carvingMask, ICachedBiomeProvider cachedBiomeProvider)
+	protected boolean carveRegion(ISurfaceGeneratorNoiseProvider noiseProvider, float[] cache, ChunkBuffer chunkBuffer, long seed, int chunkX, int chunkZ, double x, double y, double z, double yaw, double pitch, BitSet carvingMask, IBiomeConfig[] biomeConfigs)
 	{
-		Random random = new Random(seed + (long) chunkX + (long) chunkZ);
 		double d = chunkX * Constants.CHUNK_SIZE + DecorationArea.CARVER_OFFSET;
 		double e = chunkZ * Constants.CHUNK_SIZE + DecorationArea.CARVER_OFFSET;
 		boolean bl;
-		IBiomeConfig[] biomeConfigs = cachedBiomeProvider.getBiomeConfigsForChunk(chunkBuffer.getChunkCoordinate());
 		if (
 			!(x < d - 16.0D - yaw * 2.0D) && 
 			!(z < e - 16.0D - yaw * 2.0D) && 
@@ -62,6 +80,7 @@ public abstract class Carver
 			{
 				return false;
 			} else {
+				Random random = new Random(seed + (long) chunkX + (long) chunkZ);
 				bl = false;
 				for (int o = i; o < j; ++o)
 				{
@@ -184,7 +203,98 @@ public abstract class Carver
 		return f * f + g * g - h * h <= i * i;
 	}
 
-	public abstract boolean carve(ISurfaceGeneratorNoiseProvider noiseProvider, ChunkBuffer chunk, Random random, int chunkX, int chunkZ, int mainChunkX, int mainChunkZ, BitSet carvingMask, ICachedBiomeProvider cachedBiomeProvider);
+	/**
+	 * Carves the part of the rooms and tunnels started in chunkX/chunkZ that
+	 * reaches mainChunkX/mainChunkZ. The walk for each start chunk is done
+	 * once and cached, so every chunk it reaches only carves its spheres.
+	 */
+	public void carve(ISurfaceGeneratorNoiseProvider noiseProvider, ChunkBuffer chunk, long seed, int chunkX, int chunkZ, int mainChunkX, int mainChunkZ, BitSet carvingMask, IBiomeConfig[] biomeConfigs)
+	{
+		CarverGraph graph = getGraph(seed, chunkX, chunkZ);
+		if(graph.canReach(mainChunkX, mainChunkZ))
+		{
+			for(CarverGraph.Tunnel tunnel : graph.tunnels)
+			{
+				carveTunnel(noiseProvider, chunk, tunnel, mainChunkX, mainChunkZ, carvingMask, biomeConfigs);
+			}
+		}
+	}
+
+	private void carveTunnel(ISurfaceGeneratorNoiseProvider noiseProvider, ChunkBuffer chunk, CarverGraph.Tunnel tunnel, int mainChunkX, int mainChunkZ, BitSet carvingMask, IBiomeConfig[] biomeConfigs)
+	{
+		double[] spheres = tunnel.spheres;
+		for (int i = 0; i < spheres.length; i += CarverGraph.SPHERE_SIZE)
+		{
+			if (!tunnel.isRoom && !this.canCarveBranch(mainChunkX, mainChunkZ, spheres[i], spheres[i + 2], (int) spheres[i + 5], tunnel.branchCount, tunnel.width))
+			{
+				return;
+			}
+			this.carveRegion(noiseProvider, tunnel.stretchFactors, chunk, tunnel.seed, mainChunkX, mainChunkZ, spheres[i], spheres[i + 1], spheres[i + 2], spheres[i + 3], spheres[i + 4], carvingMask, biomeConfigs);
+		}
+		if (tunnel.branches != null)
+		{
+			for (CarverGraph.Tunnel branch : tunnel.branches)
+			{
+				carveTunnel(noiseProvider, chunk, branch, mainChunkX, mainChunkZ, carvingMask, biomeConfigs);
+			}
+		}
+	}
+
+	private CarverGraph getGraph(long seed, int chunkX, int chunkZ)
+	{
+		Long key = MathHelper.toLong(chunkX, chunkZ);
+		CarverGraph graph;
+		synchronized(this.graphCache)
+		{
+			if(this.graphCacheSeed != seed)
+			{
+				this.graphCache.clear();
+				this.graphCacheSeed = seed;
+			}
+			graph = this.graphCache.get(key);
+		}
+		if(graph != null)
+		{
+			return graph;
+		}
+
+		// Walked outside of the lock, if two threads miss on the same
+		// start chunk at the same time both walk it, the result is the same.
+		Random random = new Random();
+		setCarverSeed(random, seed, chunkX, chunkZ);
+		if(this.isStartChunk(random, chunkX, chunkZ))
+		{
+			List<CarverGraph.Tunnel> tunnels = new ArrayList<>();
+			this.walk(random, chunkX, chunkZ, tunnels);
+			graph = new CarverGraph(tunnels);
+		} else {
+			graph = CarverGraph.EMPTY;
+		}
+
+		synchronized(this.graphCache)
+		{
+			if(this.graphCacheSeed == seed)
+			{
+				this.graphCache.put(key, graph);
+			}
+		}
+		return graph;
+	}
+
+	private static void setCarverSeed(Random random, long seed, int x, int z)
+	{
+		random.setSeed(seed);
+		long i = random.nextLong();
+		long j = random.nextLong();
+		long k = (long) x * i ^ (long) z * j ^ seed;
+		random.setSeed(k);
+	}
+
+	/**
+	 * Walks the rooms and tunnels started in chunkX/chunkZ and adds them to
+	 * tunnels in the order they are carved.
+	 */
+	protected abstract void walk(Random random, int chunkX, int chunkZ, List<CarverGraph.Tunnel> tunnels);
 
 	public abstract boolean isStartChunk(Random random, int chunkX, int chunkZ);
 
@@ -0,0 +1,100 @@
+package com.pg85.otg.gen.carver;
+
+import java.util.List;
+
+import com.pg85.otg.constants.Constants;
+import com.pg85.otg.util.gen.DecorationArea;
+
+/**
+ * The rooms and tunnels started by a carver in one chunk, walked once and
+ * then carved into every chunk they reach. Immutable, shared between threads.
+ */
+class CarverGraph
+{
+	// x, y, z, horizontal radius, vertical radius, branch index
+	static final int SPHERE_SIZE = 6;
+
+	static final CarverGraph EMPTY = new CarverGraph(new Tunnel[0]);
+
+	final Tunnel[] tunnels;
+	// Range of chunk centers that can be reached by any sphere, see Carver.carveRegion.
+	private final double minCenterX;
+	private final double maxCenterX;
+	private final double minCenterZ;
+	private final double maxCenterZ;
+
+	CarverGraph(List<Tunnel> tunnels)
+	{
+		this(tunnels.toArray(new Tunnel[0]));
+	}
+
+	private CarverGraph(Tunnel[] tunnels)
+	{
+		this.tunnels = tunnels;
+		double[] bounds = { Double.MAX_VALUE, -Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE };
+		for(Tunnel tunnel : tunnels)
+		{
+			tunnel.addBounds(bounds);
+		}
+		this.minCenterX = bounds[0];
+		this.maxCenterX = bounds[1];
+		this.minCenterZ = bounds[2];
+		this.maxCenterZ = bounds[3];
+	}
+
+	boolean canReach(int chunkX, int chunkZ)
+	{
+		double centerX = chunkX * Constants.CHUNK_SIZE + DecorationArea.CARVER_OFFSET;
+		double centerZ = chunkZ * Constants.CHUNK_SIZE + DecorationArea.CARVER_OFFSET;
+		return centerX >= this.minCenterX && centerX <= this.maxCenterX && centerZ >= this.minCenterZ && centerZ <= this.maxCenterZ;
+	}
+
+	/**
+	 * A room or a tunnel, spheres are carved in order. For tunnels, carving
+	 * stops at the first sphere that is too far from the chunk being carved,
+	 * which also skips its branches.
+	 */
+	static class Tunnel
+	{
+		final long seed;
+		final boolean isRoom;
+		final float width;
+		final int branchCount;
+		// Ravine stretch factors by height, null for caves.
+		final float[] stretchFactors;
+		final double[] spheres;
+		// Null if the tunnel doesn't split.
+		final Tunnel[] branches;
+
+		Tunnel(long seed, boolean isRoom, float width, int branchCount, float[] stretchFactors, double[] spheres, Tunnel[] branches)
+		{
+			this.seed = seed;
+			this.isRoom = isRoom;
+			this.width = width;
+			this.branchCount = branchCount;
+			this.stretchFactors = stretchFactors;
+			this.spheres = spheres;
+			this.branches = branches;
+		}
+
+		private void addBounds(double[] bounds)
+		{
+			double reach;
+			for(int i = 0; i < this.spheres.length; i += SPHERE_SIZE)
+			{
+				reach = 16.0D + this.spheres[i + 3] * 2.0D;
+				bounds[0] = Math.min(bounds[0], this.spheres[i] - reach);
+				bounds[1] = Math.max(bounds[1], this.spheres[i] + reach);
+				bounds[2] = Math.min(bounds[2], this.spheres[i + 2] - reach);
+				bounds[3] = Math.max(bounds[3], this.spheres[i + 2] + reach);
+			}
+			if(this.branches != null)
+			{
+				for(Tunnel branch : this.branches)
+				{
+					branch.addBounds(bounds);
+				}
+			}
+		}
+	}
+}
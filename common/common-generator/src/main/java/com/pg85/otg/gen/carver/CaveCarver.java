@@ -1,16 +1,15 @@
 package com.pg85.otg.gen.carver;
 
-import java.util.BitSet;
+import java.util.List;
 import java.util.Random;
 
 import com.pg85.otg.constants.Constants;
-import com.pg85.otg.interfaces.ICachedBiomeProvider;
-import com.pg85.otg.interfaces.ISurfaceGeneratorNoiseProvider;
 import com.pg85.otg.interfaces.IWorldConfig;
-import com.pg85.otg.util.gen.ChunkBuffer;
 import com.pg85.otg.util.helpers.MathHelper;
 import com.pg85.otg.util.helpers.RandomHelper;
 
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+
 public class CaveCarver extends Carver
 {
 	public CaveCarver(int heightLimit, IWorldConfig worldConfig)
@@ -19,7 +18,7 @@ public class CaveCarver extends Carver
 	}
 
 	@Override
-	public boolean carve(ISurfaceGeneratorNoiseProvider noiseProvider, ChunkBuffer chunk, Random random, int chunkX, int chunkZ, int mainChunkX, int mainChunkZ, BitSet carvingMask, ICachedBiomeProvider cachedBiomeProvider)
+	protected void walk(Random random, int chunkX, int chunkZ, List<CarverGraph.Tunnel> tunnels)
 	{
 		int branchFactor = (this.getBranchFactor() * 2 - 1) * Constants.CHUNK_SIZE;
 		int caveCount = random.nextInt(random.nextInt(random.nextInt(this.getMaxCaveCount()) + 1) + 1);
@@ -40,7 +39,7 @@ public class CaveCarver extends Carver
 			if (random.nextInt(100) < this.worldConfig.getIndividualCaveRarity())
 			{
 				float size = 1.0F + random.nextFloat() * 6.0F;
-				this.carveCave(noiseProvider, chunk, random.nextLong(), mainChunkX, mainChunkZ, x, y, z, size, 0.5D, carvingMask, cachedBiomeProvider);
+				tunnels.add(this.walkCave(random.nextLong(), x, y, z, size, 0.5D));
 				// Vanilla Behavior: Add 0 to 3 more caves when generating a spherical cave.
 				// tunnelCount += random.nextInt(4);
 				tunnelCount += RandomHelper.numberInRange(random, this.worldConfig.getCaveSystemPocketMinSize(), this.worldConfig.getCaveSystemPocketMaxSize());
@@ -56,11 +55,9 @@ public class CaveCarver extends Carver
 				float size = (random.nextFloat() - 0.5F) / 4.0F;
 				float width = this.getTunnelSystemWidth(random);
 				int branchCount = branchFactor - random.nextInt(branchFactor / 4);
-				this.carveTunnels(noiseProvider, chunk, random.nextLong(), mainChunkX, mainChunkZ, x, y, z, width, yaw, size, 0, branchCount, this.getTunnelSystemHeightWidthRatio(), carvingMask, cachedBiomeProvider);
+				tunnels.add(this.walkTunnels(random.nextLong(), x, y, z, width, yaw, size, 0, branchCount, this.getTunnelSystemHeightWidthRatio()));
 			}
 		}
-
-		return true;
 	}
 
 	@Override
@@ -109,15 +106,15 @@ public class CaveCarver extends Carver
 		}
 	}
 
-	protected void carveCave(ISurfaceGeneratorNoiseProvider noiseProvider, ChunkBuffer chunk, long seed, int mainChunkX, int mainChunkZ, double x, double y, double z, float yaw, double yawPitchRatio, BitSet carvingMask, ICachedBiomeProvider cachedBiomeProvider)
+	protected CarverGraph.Tunnel walkCave(long seed, double x, double y, double z, float yaw, double yawPitchRatio)
 	{
 		//double scaledYaw = 1.5D + (double)(MathHelper.sin(((float)Math.PI / 2F)) * yaw);
 		double scaledYaw = 1.5D + (double) (MathHelper.sin(1.5707964F) * yaw);
 		double scaledPitch = scaledYaw * yawPitchRatio;
-		this.carveRegion(noiseProvider, null, chunk, seed, mainChunkX, mainChunkZ, x + 1.0D, y, z, scaledYaw, scaledPitch, carvingMask, cachedBiomeProvider);
+		return new CarverGraph.Tunnel(seed, true, yaw, 0, null, new double[] { x + 1.0D, y, z, scaledYaw, scaledPitch, 0 }, null);
 	}
 
-	protected void carveTunnels(ISurfaceGeneratorNoiseProvider noiseProvider, ChunkBuffer chunk, long seed, int mainChunkX, int mainChunkZ, double x, double y, double z, float width, float yaw, float pitch, int branchStartIndex, int branchCount, double yawPitchRatio, BitSet carvingMask, ICachedBiomeProvider cachedBiomeProvider)
+	protected CarverGraph.Tunnel walkTunnels(long seed, double x, double y, double z, float width, float yaw, float pitch, int branchStartIndex, int branchCount, double yawPitchRatio)
 	{
 		Random random = new Random(seed);
 		int nextBranchIndex = random.nextInt(branchCount / 2) + branchCount / 4;
@@ -127,7 +124,9 @@ public class CaveCarver extends Carver
 		double currentYaw;
 		double currentPitch;
 		float delta;
-		
+		DoubleArrayList spheres = new DoubleArrayList();
+		CarverGraph.Tunnel[] branches = null;
+
 		for (int branchIndex = branchStartIndex; branchIndex < branchCount; ++branchIndex)
 		{
 			currentYaw = 1.5D + (double) (MathHelper.sin(3.1415927F * (float) branchIndex / (float) branchCount) * width);
@@ -146,21 +145,27 @@ public class CaveCarver extends Carver
 			yawChange += (random.nextFloat() - random.nextFloat()) * random.nextFloat() * 4.0F;
 			if (branchIndex == nextBranchIndex && width > 1.0F)
 			{
-				this.carveTunnels(noiseProvider, chunk, random.nextLong(), mainChunkX, mainChunkZ, x, y, z, random.nextFloat() * 0.5F + 0.5F, yaw - 1.5707964F, pitch / 3.0F, branchIndex, branchCount, 1.0D, carvingMask, cachedBiomeProvider);
-				this.carveTunnels(noiseProvider, chunk, random.nextLong(), mainChunkX, mainChunkZ, x, y, z, random.nextFloat() * 0.5F + 0.5F, yaw + 1.5707964F, pitch / 3.0F, branchIndex, branchCount, 1.0D, carvingMask, cachedBiomeProvider);
-				return;
+				branches = new CarverGraph.Tunnel[]
+				{
+					this.walkTunnels(random.nextLong(), x, y, z, random.nextFloat() * 0.5F + 0.5F, yaw - 1.5707964F, pitch / 3.0F, branchIndex, branchCount, 1.0D),
+					this.walkTunnels(random.nextLong(), x, y, z, random.nextFloat() * 0.5F + 0.5F, yaw + 1.5707964F, pitch / 3.0F, branchIndex, branchCount, 1.0D)
+				};
+				break;
 			}
 
+			// Whether the sphere is too far away to be carved depends on the
+			// chunk being carved, so that's checked when carving.
 			if (random.nextInt(4) != 0)
 			{
-				if (!this.canCarveBranch(mainChunkX, mainChunkZ, x, z, branchIndex, branchCount, width))
-				{
-					return;
-				}
-
-				this.carveRegion(noiseProvider, null, chunk, seed, mainChunkX, mainChunkZ, x, y, z, currentYaw, currentPitch, carvingMask, cachedBiomeProvider);
+				spheres.add(x);
+				spheres.add(y);
+				spheres.add(z);
+				spheres.add(currentYaw);
+				spheres.add(currentPitch);
+				spheres.add(branchIndex);
 			}
 		}
+		return new CarverGraph.Tunnel(seed, false, width, branchCount, null, spheres.toDoubleArray(), branches);
 	}
 
 	@Override
@@ -1,16 +1,15 @@
 package com.pg85.otg.gen.carver;
 
-import java.util.BitSet;
+import java.util.List;
 import java.util.Random;
 
 import com.pg85.otg.constants.Constants;
-import com.pg85.otg.interfaces.ICachedBiomeProvider;
-import com.pg85.otg.interfaces.ISurfaceGeneratorNoiseProvider;
 import com.pg85.otg.interfaces.IWorldConfig;
-import com.pg85.otg.util.gen.ChunkBuffer;
 import com.pg85.otg.util.helpers.MathHelper;
 import com.pg85.otg.util.helpers.RandomHelper;
 
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+
 public class RavineCarver extends Carver
 {
 	public RavineCarver(int heightLimit, IWorldConfig worldConfig)
@@ -27,7 +26,7 @@ public class RavineCarver extends Carver
 	}
 
 	@Override
-	public boolean carve(ISurfaceGeneratorNoiseProvider noiseProvider, ChunkBuffer chunk, Random random, int chunkX, int chunkZ, int mainChunkX, int mainChunkZ, BitSet bitSet, ICachedBiomeProvider cachedBiomeProvider)
+	protected void walk(Random random, int chunkX, int chunkZ, List<CarverGraph.Tunnel> tunnels)
 	{
 		double x = chunkX * Constants.CHUNK_SIZE + random.nextInt(Constants.CHUNK_SIZE);
 		double z = chunkZ * Constants.CHUNK_SIZE + random.nextInt(Constants.CHUNK_SIZE);			
@@ -48,11 +47,10 @@ public class RavineCarver extends Carver
 		branchCount = branchCount - random.nextInt(branchCount / 4);		
 		double yawPitchRatio = worldConfig.getRavineDepth();
 
-		this.carveRavine(noiseProvider, chunk, random.nextLong(), mainChunkX, mainChunkZ, x, y, z, width, yaw, pitch, 0, branchCount, yawPitchRatio, bitSet, cachedBiomeProvider);
-		return true;
+		tunnels.add(this.walkRavine(random.nextLong(), x, y, z, width, yaw, pitch, 0, branchCount, yawPitchRatio));
 	}
 
-	private void carveRavine(ISurfaceGeneratorNoiseProvider noiseProvider, ChunkBuffer chunk, long seed, int mainChunkX, int mainChunkZ, double x, double y, double z, float width, float yaw, float pitch, int branchStartIndex, int branchCount, double yawPitchRatio, BitSet carvingMask, ICachedBiomeProvider cachedBiomeProvider)
+	private CarverGraph.Tunnel walkRavine(long seed, double x, double y, double z, float width, float yaw, float pitch, int branchStartIndex, int branchCount, double yawPitchRatio)
 	{
 		Random random = new Random(seed);
 		float stretchFactor = 1.0F;
@@ -73,6 +71,7 @@ public class RavineCarver extends Carver
 		double currentPitch;
 		float deltaXZ;
 		float deltaY;
+		DoubleArrayList spheres = new DoubleArrayList();
 		for (int branchIndex = branchStartIndex; branchIndex < branchCount; ++branchIndex)
 		{		
 			//currentYaw = 1.5D + (double)(MathHelper.sin((float)branchIndex * (float)Math.PI / (float)branchCount) * width);
@@ -92,15 +91,19 @@ public class RavineCarver extends Carver
 			yawChange *= 0.5F;
 			pitchChange += (random.nextFloat() - random.nextFloat()) * random.nextFloat() * 2.0F;
 			yawChange += (random.nextFloat() - random.nextFloat()) * random.nextFloat() * 4.0F;
+			// Whether the sphere is too far away to be carved depends on the
+			// chunk being carved, so that's checked when carving.
 			if (random.nextInt(4) != 0)
 			{
-				if (!this.canCarveBranch(mainChunkX, mainChunkZ, x, z, branchIndex, branchCount, width))
-				{
-					return;
-				}
-				this.carveRegion(noiseProvider, heightToHorizontalStretchFactor, chunk, seed, mainChunkX, mainChunkZ, x, y, z, currentYaw, currentPitch, carvingMask, cachedBiomeProvider);
+				spheres.add(x);
+				spheres.add(y);
+				spheres.add(z);
+				spheres.add(currentYaw);
+				spheres.add(currentPitch);
+				spheres.add(branchIndex);
 			}
 		}
+		return new CarverGraph.Tunnel(seed, false, width, branchCount, heightToHorizontalStretchFactor, spheres.toDoubleArray(), null);
 	}
 
 	@Override
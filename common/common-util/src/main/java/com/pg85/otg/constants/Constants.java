@@ -69,6 +69,9 @@ public class Constants
 	// Data about structure start points and bo4 groups, used for distance.
 	public static final String SpawnedStructuresFileName = StructureDataFolderName + File.separator + "SpawnedStructures" + StructureDataFileExtension;
 	public static final String SpawnedStructuresBackupFileName = StructureDataFolderName + File.separator + "SpawnedStructures" + StructureDataBackupFileExtension;
+	// Coordinates of all region files in a structure data folder, so regions can be loaded on demand.
+	public static final String RegionIndexFileName = "RegionIndex" + StructureDataFileExtension;
+	public static final String RegionIndexBackupFileName = "RegionIndex" + StructureDataBackupFileExtension;
 	
 	/**
 	 * Temperatures below this temperature will cause the biome to be covered
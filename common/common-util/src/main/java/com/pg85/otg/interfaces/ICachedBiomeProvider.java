@@ -6,7 +6,14 @@ public interface ICachedBiomeProvider
 {
 	public IBiomeConfig[] getBiomeConfigsForChunk(ChunkCoordinate chunkCoordinate);
 	public IBiome[] getBiomesForChunk(ChunkCoordinate chunkCoordinate);
-	public IBiome[] getBiomesForChunks(ChunkCoordinate chunkCoord, int widthHeightInChunks);	
+	/**
+	 * Fills biomeIds with the biome ids for a widthX * widthZ block area starting 
+	 * at blockStartX/blockStartZ, indexed as [x * widthZ + z]. The area is sampled
+	 * in a single pass, so callers needing biomes for many columns should prefer 
+	 * this over per-column lookups. Use getBiomeById to resolve the ids.
+	 */
+	public void getBiomeIdsForRegion(int[] biomeIds, int blockStartX, int blockStartZ, int widthX, int widthZ);
+	public IBiome getBiomeById(int biomeId);
 	public IBiomeConfig getBiomeConfig(int x, int z, boolean cacheChunk);
 	public IBiomeConfig getBiomeConfig(int x, int z);
 	public IBiome getBiome(int x, int z);
@@ -3,4 +3,20 @@ package com.pg85.otg.interfaces;
 public interface ILayerSampler
 {
 	int sample(int x, int z);
+
+	/**
+	 * Fills area[x * depth + z] with samples for the given area, starting
+	 * at startX/startZ. Gives the same results as calling sample for each
+	 * position, implementations may evaluate the whole area at once.
+	 */
+	default void sampleArea(int[] area, int startX, int startZ, int width, int depth)
+	{
+		for(int x = 0; x < width; x++)
+		{
+			for(int z = 0; z < depth; z++)
+			{
+				area[x * depth + z] = sample(startX + x, startZ + z);
+			}
+		}
+	}
 }
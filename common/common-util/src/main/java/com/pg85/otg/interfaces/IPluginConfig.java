@@ -17,6 +17,9 @@ public interface IPluginConfig
 {
 	public LogLevels getLogLevel();
 	public int getMaxWorkerThreads();
+	public int getNoiseColumnCacheSize();
+	public int getBO4DataCacheSize();
+	public int getStartupWarmUpThreads();
 	public boolean getDeveloperModeEnabled();
 	public boolean logCustomObjects();
 	public boolean logStructurePlotting();
@@ -0,0 +1,129 @@
+package com.pg85.otg.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.pg85.otg.util.helpers.MathHelper;
+
+/**
+ * A lock-free, fixed-size cache keyed by primitive longs (f.e. packed
+ * chunk coordinates, see MathHelper.toLong), safe to use from any number
+ * of threads.
+ *
+ * Keys are hashed to a stripe, each stripe holds a small number of entries
+ * and evicts its own oldest entry (FIFO) when a new entry is added to it.
+ * Reads never block, entries are immutable and published via volatile
+ * array writes, so any thread that sees an entry also sees its value.
+ *
+ * Two threads missing on the same key at the same time will both compute
+ * and put a value, so values should be cheap to recompute and equal for
+ * the same key. The cache doesn't guarantee that a value stays cached
+ * until capacity is reached, eviction is per stripe.
+ */
+public class StripedLongCache<T>
+{
+	// Entries per stripe, stripes are scanned linearly on get.
+	private static final int STRIPE_SIZE = 8;
+
+	private final AtomicReferenceArray<Entry<T>> entries;
+	// Per stripe, the index of the next slot to overwrite (FIFO).
+	private final AtomicIntegerArray nextSlot;
+	private final int stripeMask;
+
+	public StripedLongCache(int capacity)
+	{
+		int stripes = MathHelper.smallestEncompassingPowerOfTwo(Math.max(1, (capacity + STRIPE_SIZE - 1) / STRIPE_SIZE));
+		this.stripeMask = stripes - 1;
+		this.entries = new AtomicReferenceArray<>(stripes * STRIPE_SIZE);
+		this.nextSlot = new AtomicIntegerArray(stripes);
+	}
+
+	public T get(long key)
+	{
+		int start = stripe(key) * STRIPE_SIZE;
+		Entry<T> entry;
+		for(int i = start; i < start + STRIPE_SIZE; i++)
+		{
+			entry = this.entries.get(i);
+			if(entry != null && entry.key == key)
+			{
+				return entry.value;
+			}
+		}
+		return null;
+	}
+
+	public void put(long key, T value)
+	{
+		int stripe = stripe(key);
+		int start = stripe * STRIPE_SIZE;
+		Entry<T> newEntry = new Entry<T>(key, value);
+		Entry<T> entry;
+
+		// Replace an existing entry for this key if there is one, so
+		// racing puts for the same key don't fill up the stripe.
+		for(int i = start; i < start + STRIPE_SIZE; i++)
+		{
+			entry = this.entries.get(i);
+			if(entry != null && entry.key == key)
+			{
+				this.entries.set(i, newEntry);
+				return;
+			}
+		}
+		int slot = this.nextSlot.getAndIncrement(stripe) & (STRIPE_SIZE - 1);
+		this.entries.set(start + slot, newEntry);
+	}
+
+	public void remove(long key)
+	{
+		int start = stripe(key) * STRIPE_SIZE;
+		Entry<T> entry;
+		for(int i = start; i < start + STRIPE_SIZE; i++)
+		{
+			entry = this.entries.get(i);
+			if(entry != null && entry.key == key)
+			{
+				// Don't clear the slot if another entry was put in it meanwhile.
+				this.entries.compareAndSet(i, entry, null);
+			}
+		}
+	}
+
+	public void clear()
+	{
+		for(int i = 0; i < this.entries.length(); i++)
+		{
+			this.entries.set(i, null);
+		}
+	}
+
+	public int getCapacity()
+	{
+		return this.entries.length();
+	}
+
+	private int stripe(long key)
+	{
+		// Murmur3 64-bit finalizer, spreads neighbouring coordinates over stripes.
+		long h = key;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int)h & this.stripeMask;
+	}
+
+	private static final class Entry<T>
+	{
+		private final long key;
+		private final T value;
+
+		private Entry(long key, T value)
+		{
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.pg85.otg.util.gen;
+
+import java.util.Arrays;
+
+import com.pg85.otg.constants.Constants;
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.materials.LocalMaterialData;
+
+/**
+ * A plain array-backed ChunkBuffer that isn't tied to any platform chunk,
+ * for generating chunks outside of a world (tests, benchmarks, tools).
+ * Blocks are stored per section in (y << 8) | (z << 4) | x order, same
+ * as setSection, so bulk writes are array fills/copies.
+ */
+public class ArrayChunkBuffer extends ChunkBuffer
+{
+	private final ChunkCoordinate chunkCoord;
+	private final LocalMaterialData emptyBlock;
+	private final LocalMaterialData[] blocks = new LocalMaterialData[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE * Constants.WORLD_HEIGHT];
+
+	/**
+	 * @param emptyBlock Returned by getBlock for any block that hasn't been set, usually air.
+	 */
+	public ArrayChunkBuffer(ChunkCoordinate chunkCoord, LocalMaterialData emptyBlock)
+	{
+		this.chunkCoord = chunkCoord;
+		this.emptyBlock = emptyBlock;
+	}
+
+	@Override
+	public ChunkCoordinate getChunkCoordinate()
+	{
+		return this.chunkCoord;
+	}
+
+	@Override
+	public void setBlock(int blockX, int blockY, int blockZ, LocalMaterialData material)
+	{
+		if(blockY >= 0 && blockY < Constants.WORLD_HEIGHT)
+		{
+			this.blocks[index(blockX, blockY, blockZ)] = material;
+		}
+	}
+
+	@Override
+	public LocalMaterialData getBlock(int blockX, int blockY, int blockZ)
+	{
+		if(blockY < 0 || blockY >= Constants.WORLD_HEIGHT)
+		{
+			return null;
+		}
+		LocalMaterialData material = this.blocks[index(blockX, blockY, blockZ)];
+		return material == null ? this.emptyBlock : material;
+	}
+
+	@Override
+	public void fillColumn(int blockX, int blockZ, int minY, int maxY, LocalMaterialData material)
+	{
+		minY = Math.max(minY, 0);
+		maxY = Math.min(maxY, Constants.WORLD_HEIGHT);
+		int columnIndex = index(blockX, 0, blockZ);
+		for(int y = minY; y < maxY; y++)
+		{
+			this.blocks[(y << 8) | columnIndex] = material;
+		}
+	}
+
+	@Override
+	public void setSection(int sectionY, LocalMaterialData[] palette, short[] paletteIndices)
+	{
+		if(sectionY < 0 || sectionY >= Constants.WORLD_HEIGHT / Constants.CHUNK_SIZE)
+		{
+			return;
+		}
+		int start = sectionY * SECTION_VOLUME;
+		LocalMaterialData material;
+		for(int index = 0; index < SECTION_VOLUME; index++)
+		{
+			material = palette[paletteIndices[index]];
+			if(material != null)
+			{
+				this.blocks[start + index] = material;
+			}
+		}
+	}
+
+	public void clear()
+	{
+		Arrays.fill(this.blocks, null);
+	}
+
+	private static int index(int blockX, int blockY, int blockZ)
+	{
+		return (blockY << 8) | ((blockZ & 15) << 4) | (blockX & 15);
+	}
+}
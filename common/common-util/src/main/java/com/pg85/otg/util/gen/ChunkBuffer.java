@@ -10,6 +10,8 @@ import com.pg85.otg.util.materials.LocalMaterialData;
  */
 public abstract class ChunkBuffer
 {
+	protected static final int SECTION_VOLUME = Constants.CHUNK_SIZE * Constants.CHUNK_SIZE * Constants.CHUNK_SIZE;
+
 	public abstract ChunkCoordinate getChunkCoordinate();
 
 	// TODO: Chunkbuffer uses internal coordinates that do not go from 0 to 16,
@@ -19,6 +21,39 @@ public abstract class ChunkBuffer
 
 	public abstract LocalMaterialData getBlock(int blockX, int blockY, int blockZ);
 
+	// Bulk writes, platforms should override these to write directly
+	// into their chunk sections instead of doing a call per block.
+
+	/**
+	 * Sets all blocks in a column from minY (inclusive) to maxY (exclusive) to the given material.
+	 */
+	public void fillColumn(int blockX, int blockZ, int minY, int maxY, LocalMaterialData material)
+	{
+		for(int y = minY; y < maxY; y++)
+		{
+			setBlock(blockX, y, blockZ, material);
+		}
+	}
+
+	/**
+	 * Writes a 16x16x16 section of blocks, starting at sectionY * 16. Each block is
+	 * palette[paletteIndices[index]], with index = (y << 8) | (z << 4) | x. Blocks
+	 * with a null palette entry are left untouched.
+	 */
+	public void setSection(int sectionY, LocalMaterialData[] palette, short[] paletteIndices)
+	{
+		int minY = sectionY * Constants.CHUNK_SIZE;
+		LocalMaterialData material;
+		for(int index = 0; index < SECTION_VOLUME; index++)
+		{
+			material = palette[paletteIndices[index]];
+			if(material != null)
+			{
+				setBlock(index & 15, minY + (index >> 8), (index >> 4) & 15, material);
+			}
+		}
+	}
+
 	// TODO: Are these really necessary, can use heightmaps?
 	
 	private final short[] highestBlockHeight = new short[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
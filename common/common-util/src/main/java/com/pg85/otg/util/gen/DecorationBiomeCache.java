@@ -4,19 +4,23 @@ import com.pg85.otg.constants.Constants;
 import com.pg85.otg.interfaces.IBiome;
 import com.pg85.otg.interfaces.ICachedBiomeProvider;
 import com.pg85.otg.interfaces.IBiomeConfig;
-import com.pg85.otg.util.ChunkCoordinate;
 
 public class DecorationBiomeCache
 {
 	private final int startX;
 	private final int startZ;
-	private final IBiome[] biomes;
+	private final int[] biomeIds;
+	private final ICachedBiomeProvider cachedBiomeProvider;
 
 	public DecorationBiomeCache(int startChunkX, int startChunkZ, ICachedBiomeProvider cachedBiomeProvider)
 	{
 		this.startX = startChunkX * Constants.CHUNK_SIZE;
 		this.startZ = startChunkZ * Constants.CHUNK_SIZE;
-		this.biomes = cachedBiomeProvider.getBiomesForChunks(ChunkCoordinate.fromBlockCoords(this.startX, this.startZ), DecorationArea.WIDTH);
+		this.cachedBiomeProvider = cachedBiomeProvider;
+		// Prefetch the whole decoration area in one go, resources and
+		// BO's query biomes per column while decorating.
+		this.biomeIds = new int[DecorationArea.WIDTH * DecorationArea.HEIGHT];
+		cachedBiomeProvider.getBiomeIdsForRegion(this.biomeIds, this.startX, this.startZ, DecorationArea.WIDTH, DecorationArea.HEIGHT);
 	}
 
 	public IBiome getBiome(int x, int z)
@@ -25,7 +29,7 @@ public class DecorationBiomeCache
 		// Any code requesting biomes during decoration should not be doing so outside of bounds.
 		int internalX = x - this.startX;
 		int internalZ = z - this.startZ;
-		return this.biomes[internalX * DecorationArea.HEIGHT + internalZ];
+		return this.cachedBiomeProvider.getBiomeById(this.biomeIds[internalX * DecorationArea.HEIGHT + internalZ]);
 	}
 
 	public IBiomeConfig getBiomeConfig(int x, int z)
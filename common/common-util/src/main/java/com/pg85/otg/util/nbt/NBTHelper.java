@@ -1,53 +1,73 @@
 package com.pg85.otg.util.nbt;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.text.MessageFormat;
-import java.util.HashMap;
-import java.util.Map;
 
 import com.pg85.otg.interfaces.ILogger;
 import com.pg85.otg.util.logging.LogCategory;
 import com.pg85.otg.util.logging.LogLevel;
+import com.pg85.otg.util.minecraft.BlockNames;
 
 public class NBTHelper
 {
-	// A list of already loaded meta Tags. The path is the key, a NBT Tag is the value.
-	private static Map<String, NamedBinaryTag> LoadedTags = new HashMap<String, NamedBinaryTag>();
+	// Estimated size in bytes of the loaded meta Tags that are kept cached.
+	private static final long MAX_CACHE_WEIGHT = 16 * 1024 * 1024;
+	// Already loaded meta Tags, by path. Files with the same contents share a Tag.
+	private static final NBTMetadataCache LoadedTags = new NBTMetadataCache(MAX_CACHE_WEIGHT);
 
-	private static NamedBinaryTag loadTileEntityFromNBT(String path, ILogger logger)
+	/**
+	 * Parses a metadata file and converts any legacy item ids. Parsed tags
+	 * are shared between objects and threads, so this is the only place
+	 * they're modified.
+	 */
+	static NamedBinaryTag parseMetadata(String path, byte[] data, ILogger logger)
 	{
-		// Load from file
-		NamedBinaryTag metadata;
-		FileInputStream stream = null;
-		try
+		NamedBinaryTag metadata = readMetadata(path, data, logger);
+		if(metadata != null)
 		{
-			// Read it from a file next to the BO3
-			stream = new FileInputStream(path);
-			// Get the tag
-			metadata = NamedBinaryTag.readFrom(stream, true);
-		} catch (FileNotFoundException e) {
-			// File not found
-			if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+			convertLegacyItemIds(metadata);
+		}
+		return metadata;
+	}
+
+	// Code that converts legacy block ids inside chests - Frank
+	private static void convertLegacyItemIds(NamedBinaryTag metadata)
+	{
+		NamedBinaryTag items = metadata.getTag("Items");
+		if (items != null && items.getValue() instanceof NamedBinaryTag[])
+		{
+			for (NamedBinaryTag item : (NamedBinaryTag[]) items.getValue())
 			{
-				logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, MessageFormat.format("NBT file {0} not found", path));
+				NamedBinaryTag idTag = item.getTag("id");
+				if (idTag != null && idTag.getType() == NamedBinaryTag.Type.TAG_Short)
+				{
+					short val = (short)idTag.getValue();
+					item.removeSubTag(idTag);
+					NamedBinaryTag[] newItemValue = new NamedBinaryTag[((NamedBinaryTag[])item.getValue()).length + 1];
+					System.arraycopy(item.getValue(), 0, newItemValue, 0, newItemValue.length - 1);
+					String strVal = "minecraft:" + BlockNames.blockNameFromLegacyBlockId(val);
+					newItemValue[newItemValue.length-2] = new NamedBinaryTag(NamedBinaryTag.Type.TAG_String, "id", strVal);
+					newItemValue[newItemValue.length-1] = new NamedBinaryTag(NamedBinaryTag.Type.TAG_End, "", null);
+					item.setValue(newItemValue);
+				}
 			}
-			return null;
-		} catch (IOException e)
-		{
-			tryToClose(stream);
+		}
+	}
 
+	private static NamedBinaryTag readMetadata(String path, byte[] data, ILogger logger)
+	{
+		NamedBinaryTag metadata;
+		try
+		{
+			// Get the tag
+			metadata = NamedBinaryTag.readFrom(new ByteArrayInputStream(data), true);
+		} catch (IOException e) {
 			// Not a compressed NBT file, try uncompressed
-			FileInputStream streamForUncompressed = null;
 			try
 			{
-				// Read it from a file next to the BO3
-				streamForUncompressed = new FileInputStream(path);
 				// Get the tag
-				metadata = NamedBinaryTag.readFrom(streamForUncompressed, false);
+				metadata = NamedBinaryTag.readFrom(new ByteArrayInputStream(data), false);
 			}			 
 			catch (java.lang.ArrayIndexOutOfBoundsException corruptFile)
 			{
@@ -66,12 +86,7 @@ public class NBTHelper
 					logger.printStackTrace(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, corruptFile);
 				}
 				return null;
-			} finally
-			{
-				tryToClose(streamForUncompressed);
 			}
-		} finally {
-			tryToClose(stream);
 		}
 
 		if(metadata != null)
@@ -106,47 +121,10 @@ public class NBTHelper
 		return null;
 	}	
 	
-	private static void tryToClose(InputStream stream)
-	{
-		if (stream != null)
-		{
-			try
-			{
-				stream.close();
-			} catch (IOException ignored)
-			{
-				// Ignore
-			}
-		}
-	}
-
 	public static NamedBinaryTag loadMetadata(String name, File bo3Folder, ILogger logger)
 	{
 		String path = bo3Folder.getParent() + File.separator + name;
-
-		if (LoadedTags.containsKey(path))
-		{
-			// Found a cached one
-			return LoadedTags.get(path);
-		}
-
-		NamedBinaryTag tag = loadTileEntityFromNBT(path, logger);
-		registerMetadata(path, tag);
-		return tag;
-	}
-
-	/**
-	 * Caches and returns the provided Meta data
-	 * @param pathOnDisk The path of the meta data
-	 * @param metadata	The Tag object to be cached
-	 * @return the meta data that was cached
-	 */
-	private static NamedBinaryTag registerMetadata(String pathOnDisk, NamedBinaryTag metadata)
-	{
-		// Add it to the cache
-		LoadedTags.put(pathOnDisk, metadata);
-		// Return it
-		return metadata;
+		return LoadedTags.get(path, logger);
 	}
 
 	public static void clearCache()
@@ -0,0 +1,231 @@
+package com.pg85.otg.util.nbt;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.MessageFormat;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.pg85.otg.interfaces.ILogger;
+import com.pg85.otg.util.logging.LogCategory;
+import com.pg85.otg.util.logging.LogLevel;
+
+/**
+ * Caches NBT metadata files used by BO3's/BO4's by path, see NBTHelper.
+ *
+ * Each file is read once, threads asking for a file that is being loaded
+ * wait for it. Files are hashed, and files with the same contents share
+ * one tag instance, so chest/spawner files copied between many objects are
+ * only held once. Tags are kept by content for as long as any object uses
+ * them, even after they've been evicted from the cache.
+ *
+ * Once the estimated size of the cached tags exceeds maxWeight, the tags
+ * that were loaded first are evicted. Cached tags are shared between
+ * objects and threads, so they must not be modified once returned. Any
+ * conversions are done by NBTHelper.parseMetadata, before a tag is shared.
+ */
+class NBTMetadataCache
+{
+	// Estimated bytes per tag object and per array/string element.
+	private static final int TAG_WEIGHT = 48;
+	private static final int REFERENCE_WEIGHT = 8;
+
+	private final Map<String, CachedTag> tagsByPath = new ConcurrentHashMap<String, CachedTag>();
+	private final Queue<String> loadOrder = new ConcurrentLinkedQueue<String>();
+	private final AtomicLong totalWeight = new AtomicLong();
+	private final Map<ByteBuffer, TagReference> tagsByContent = new ConcurrentHashMap<ByteBuffer, TagReference>();
+	private final ReferenceQueue<NamedBinaryTag> collectedTags = new ReferenceQueue<NamedBinaryTag>();
+	private final long maxWeight;
+
+	NBTMetadataCache(long maxWeight)
+	{
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * Returns the tag for the file, loading it if it isn't cached.
+	 * Returns null if the file couldn't be read, which is also cached.
+	 */
+	NamedBinaryTag get(String path, ILogger logger)
+	{
+		CachedTag cachedTag = this.tagsByPath.get(path);
+		if(cachedTag == null)
+		{
+			// Only one thread loads the file, others wait for it.
+			cachedTag = this.tagsByPath.computeIfAbsent(path, key ->
+			{
+				CachedTag newTag = load(key, logger);
+				this.loadOrder.add(key);
+				this.totalWeight.addAndGet(newTag.weight);
+				return newTag;
+			});
+			evict();
+		}
+		return cachedTag.tag;
+	}
+
+	void clear()
+	{
+		this.tagsByPath.clear();
+		this.loadOrder.clear();
+		this.totalWeight.set(0);
+		this.tagsByContent.clear();
+	}
+
+	private CachedTag load(String path, ILogger logger)
+	{
+		File file = new File(path);
+		if(!file.isFile())
+		{
+			if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+			{
+				logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, MessageFormat.format("NBT file {0} not found", path));
+			}
+			return new CachedTag(null, path.length());
+		}
+
+		byte[] data;
+		try
+		{
+			data = Files.readAllBytes(file.toPath());
+		}
+		catch (IOException e)
+		{
+			if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+			{
+				logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Failed to read NBT meta file: " + e.getMessage());
+				logger.printStackTrace(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, e);
+			}
+			return new CachedTag(null, path.length());
+		}
+
+		purgeCollectedTags();
+		ByteBuffer contentHash = hash(data);
+		TagReference reference = this.tagsByContent.get(contentHash);
+		NamedBinaryTag tag = reference != null ? reference.get() : null;
+		if(tag == null)
+		{
+			tag = NBTHelper.parseMetadata(path, data, logger);
+			if(tag != null)
+			{
+				tag = intern(contentHash, tag);
+			}
+		}
+		return new CachedTag(tag, tag != null ? estimateWeight(tag) : path.length());
+	}
+
+	private NamedBinaryTag intern(ByteBuffer contentHash, NamedBinaryTag tag)
+	{
+		// Another thread may have loaded the same contents from another file meanwhile.
+		NamedBinaryTag[] internedTag = new NamedBinaryTag[1];
+		this.tagsByContent.compute(contentHash, (key, reference) ->
+		{
+			internedTag[0] = reference != null ? reference.get() : null;
+			if(internedTag[0] == null)
+			{
+				internedTag[0] = tag;
+				return new TagReference(key, tag, this.collectedTags);
+			}
+			return reference;
+		});
+		return internedTag[0];
+	}
+
+	private void purgeCollectedTags()
+	{
+		TagReference reference;
+		while((reference = (TagReference)this.collectedTags.poll()) != null)
+		{
+			this.tagsByContent.remove(reference.contentHash, reference);
+		}
+	}
+
+	private void evict()
+	{
+		String path;
+		CachedTag cachedTag;
+		while(this.totalWeight.get() > this.maxWeight && (path = this.loadOrder.poll()) != null)
+		{
+			cachedTag = this.tagsByPath.remove(path);
+			if(cachedTag != null)
+			{
+				this.totalWeight.addAndGet(-cachedTag.weight);
+			}
+		}
+	}
+
+	private static ByteBuffer hash(byte[] data)
+	{
+		try
+		{
+			return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(data));
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// Every Java platform is required to support SHA-256.
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static long estimateWeight(NamedBinaryTag tag)
+	{
+		long weight = TAG_WEIGHT;
+		if(tag.getName() != null)
+		{
+			weight += tag.getName().length() * 2;
+		}
+		Object value = tag.getValue();
+		if(value instanceof NamedBinaryTag[])
+		{
+			for(NamedBinaryTag subTag : (NamedBinaryTag[])value)
+			{
+				weight += REFERENCE_WEIGHT + estimateWeight(subTag);
+			}
+		}
+		else if(value instanceof byte[])
+		{
+			weight += ((byte[])value).length;
+		}
+		else if(value instanceof int[])
+		{
+			weight += ((int[])value).length * 4;
+		}
+		else if(value instanceof String)
+		{
+			weight += ((String)value).length() * 2;
+		}
+		return weight;
+	}
+
+	private static class CachedTag
+	{
+		private final NamedBinaryTag tag;
+		private final long weight;
+
+		private CachedTag(NamedBinaryTag tag, long weight)
+		{
+			this.tag = tag;
+			this.weight = weight;
+		}
+	}
+
+	private static class TagReference extends WeakReference<NamedBinaryTag>
+	{
+		private final ByteBuffer contentHash;
+
+		private TagReference(ByteBuffer contentHash, NamedBinaryTag tag, ReferenceQueue<NamedBinaryTag> queue)
+		{
+			super(tag, queue);
+			this.contentHash = contentHash;
+		}
+	}
+}
@@ -49,7 +49,7 @@ public class OTGBiomeProvider extends BiomeProvider implements ILayerSource
 	private final boolean legacyBiomeInitLayer;
 	private final boolean largeBiomes;
 	private final Registry<Biome> registry;
-	private final ThreadLocal<CachingLayerSampler> layer;
+	private final CachingLayerSampler layer;
 	private final Int2ObjectMap<RegistryKey<Biome>> keyLookup;
 	private final String presetFolderName;
 	
@@ -61,7 +61,6 @@ public class OTGBiomeProvider extends BiomeProvider implements ILayerSource
 		this.legacyBiomeInitLayer = legacyBiomeInitLayer;
 		this.largeBiomes = largeBiomes;
 		this.registry = registry;
-		this.layer = ThreadLocal.withInitial(() -> BiomeLayers.create(seed, ((ForgePresetLoader)OTG.getEngine().getPresetLoader()).getPresetGenerationData().get(presetFolderName), OTG.getEngine().getLogger()));
 		this.keyLookup = new Int2ObjectOpenHashMap<>();
 
 		// Default to let us know if we did anything wrong
@@ -72,6 +71,9 @@ public class OTGBiomeProvider extends BiomeProvider implements ILayerSource
 		{
 			throw new RuntimeException("No OTG preset found with name \"" + presetFolderName + "\". Install the correct preset or update your server.properties.");
 		}
+
+		// Biome layers are thread-safe, only their caches are per-thread.
+		this.layer = BiomeLayers.create(seed, ((ForgePresetLoader)OTG.getEngine().getPresetLoader()).getPresetGenerationData().get(presetFolderName), OTG.getEngine().getLogger());
 				
 		IBiome biome;
 		RegistryKey<Biome> key;
@@ -130,13 +132,13 @@ public class OTGBiomeProvider extends BiomeProvider implements ILayerSource
 	@Override
 	public Biome getNoiseBiome(int biomeX, int biomeY, int biomeZ)
 	{
-		return this.registry.get(this.keyLookup.get(this.layer.get().sample(biomeX, biomeZ)));
+		return this.registry.get(this.keyLookup.get(this.layer.sample(biomeX, biomeZ)));
 	}
 
 	@Override
 	public CachingLayerSampler getSampler()
 	{
-		return this.layer.get();
+		return this.layer;
 	}
 	
 	// TODO: May have to override this for spawn?
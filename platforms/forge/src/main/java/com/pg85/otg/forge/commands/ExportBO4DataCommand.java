@@ -41,19 +41,22 @@ public class ExportBO4DataCommand extends BaseCommand
 	public ExportBO4DataCommand()
 	{
 		super("preset");
-		this.helpMessage = "Exports all BO4 files and BO3 files that have isOTGPlus:true as BO4Data files (if none exist already). BO4Data files can significantly reduce filesize and loading times, and should be used by OTG content creators when packaging presets for players.";
-		this.usage = "/otg exportbo4data";
+		this.helpMessage = "Exports all BO4 files and BO3 files that have isOTGPlus:true as BO4Data files (if none exist already). BO4Data files can significantly reduce filesize and loading times, and should be used by OTG content creators when packaging presets for players. Use v4 to export uncompressed BO4Data files, which are bigger but load faster, and can't be read by older versions of OTG.";
+		this.usage = "/otg exportbo4data [v4]";
 	}
 	
 	@Override
 	public void build(LiteralArgumentBuilder<CommandSource> builder)
 	{
 		builder.then(Commands.literal("exportbo4data")
-			.executes(context -> exportBO4Data(context.getSource()))
+			.executes(context -> exportBO4Data(context.getSource(), false))
+			.then(Commands.literal("v4")
+				.executes(context -> exportBO4Data(context.getSource(), true))
+			)
 		);
 	}
 	
-	private int exportBO4Data(CommandSource source)
+	private int exportBO4Data(CommandSource source, boolean uncompressed)
 	{		
 		if (!(source.getLevel().getChunkSource().generator instanceof OTGNoiseChunkGenerator))
 		{
@@ -106,7 +109,7 @@ public class ExportBO4DataCommand extends BaseCommand
 				        	                	
 				        	                	OTG.getEngine().getLogger().log(LogLevel.INFO, LogCategory.MAIN, "Exporting .BO4Data for structure start " + ((BO4)structure).getName());
 				        	                	boName = ((BO4)structure).getName();
-				        	                	BO4Data.generateBO4Data(((BO4)structure).getConfig(), preset.getFolderName(), OTG.getEngine().getOTGRootFolder(), OTG.getEngine().getLogger(), OTG.getEngine().getCustomObjectManager(), OTG.getEngine().getPresetLoader().getMaterialReader(preset.getFolderName()), OTG.getEngine().getCustomObjectResourcesManager(), OTG.getEngine().getModLoadedChecker());
+				        	                	BO4Data.generateBO4Data(((BO4)structure).getConfig(), uncompressed, preset.getFolderName(), OTG.getEngine().getOTGRootFolder(), OTG.getEngine().getLogger(), OTG.getEngine().getCustomObjectManager(), OTG.getEngine().getPresetLoader().getMaterialReader(preset.getFolderName()), OTG.getEngine().getCustomObjectResourcesManager(), OTG.getEngine().getModLoadedChecker());
 				        	    	            OTG.getEngine().getCustomObjectManager().getGlobalObjects().unloadCustomObjectFiles();
 			        						}
 			        					}
@@ -127,7 +130,7 @@ public class ExportBO4DataCommand extends BaseCommand
 			        	if(bo != null && bo instanceof BO4 && !BO4Data.bo4DataExists(((BO4)bo).getConfig()))
 			        	{
 			        		OTG.getEngine().getLogger().log(LogLevel.INFO, LogCategory.MAIN, "Exporting .BO4Data " + current + "/" + total + " " + boName);
-			        		BO4Data.generateBO4Data(((BO4)bo).getConfig(), preset.getFolderName(), OTG.getEngine().getOTGRootFolder(), OTG.getEngine().getLogger(), OTG.getEngine().getCustomObjectManager(), OTG.getEngine().getPresetLoader().getMaterialReader(preset.getFolderName()), OTG.getEngine().getCustomObjectResourcesManager(), OTG.getEngine().getModLoadedChecker());
+			        		BO4Data.generateBO4Data(((BO4)bo).getConfig(), uncompressed, preset.getFolderName(), OTG.getEngine().getOTGRootFolder(), OTG.getEngine().getLogger(), OTG.getEngine().getCustomObjectManager(), OTG.getEngine().getPresetLoader().getMaterialReader(preset.getFolderName()), OTG.getEngine().getCustomObjectResourcesManager(), OTG.getEngine().getModLoadedChecker());
 				            OTG.getEngine().getCustomObjectManager().getGlobalObjects().unloadCustomObjectFiles();
 			        	}
 			        }
@@ -1,5 +1,6 @@
 package com.pg85.otg.forge.gen;
 
+import com.pg85.otg.constants.Constants;
 import com.pg85.otg.forge.materials.ForgeMaterialData;
 import com.pg85.otg.util.ChunkCoordinate;
 import com.pg85.otg.util.gen.ChunkBuffer;
@@ -9,7 +10,10 @@ import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.chunk.ChunkPrimer;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.ChunkStatus;
 import net.minecraft.world.chunk.IChunk;
+import net.minecraft.world.gen.Heightmap;
 
 public class ForgeChunkBuffer extends ChunkBuffer
 {
@@ -40,6 +44,102 @@ public class ForgeChunkBuffer extends ChunkBuffer
 		BlockState blockState = this.chunk.getBlockState(this.mutable.set(internalX, blockY, internalZ));
 		return blockState == null ? null : ForgeMaterialData.ofBlockState(blockState);
 	}
+
+	@Override
+	public void fillColumn(int internalX, int internalZ, int minY, int maxY, LocalMaterialData material)
+	{
+		BlockState blockState = ((ForgeMaterialData) material).internalBlock();
+		if(!canWriteSections(blockState))
+		{
+			super.fillColumn(internalX, internalZ, minY, maxY, material);
+			return;
+		}
+
+		minY = Math.max(minY, 0);
+		maxY = Math.min(maxY, Constants.WORLD_HEIGHT);
+		int x = internalX & 15;
+		int z = internalZ & 15;
+		Heightmap oceanFloor = this.chunk.getOrCreateHeightmapUnprimed(Heightmap.Type.OCEAN_FLOOR_WG);
+		Heightmap worldSurface = this.chunk.getOrCreateHeightmapUnprimed(Heightmap.Type.WORLD_SURFACE_WG);
+		boolean emitsLight = blockState.getLightEmission() > 0;
+		ChunkPos pos = this.chunk.getPos();
+		ChunkSection section = null;
+		for(int y = minY; y < maxY; y++)
+		{
+			if(section == null || (y & 15) == 0)
+			{
+				section = this.chunk.getOrCreateSection(y >> 4);
+			}
+			section.setBlockState(x, y & 15, z, blockState, false);
+			oceanFloor.update(x, y, z, blockState);
+			worldSurface.update(x, y, z, blockState);
+			if(emitsLight)
+			{
+				this.chunk.addLight(new BlockPos(pos.getMinBlockX() + x, y, pos.getMinBlockZ() + z));
+			}
+		}
+	}
+
+	@Override
+	public void setSection(int sectionY, LocalMaterialData[] palette, short[] paletteIndices)
+	{
+		if(sectionY < 0 || sectionY >= Constants.WORLD_HEIGHT / Constants.CHUNK_SIZE)
+		{
+			return;
+		}
+
+		// Resolve the palette once, fall back to per-block writes 
+		// if any of its blocks can't be written directly.
+		BlockState[] blockStates = new BlockState[palette.length];
+		for(int i = 0; i < palette.length; i++)
+		{
+			if(palette[i] != null)
+			{
+				blockStates[i] = ((ForgeMaterialData) palette[i]).internalBlock();
+				if(!canWriteSections(blockStates[i]))
+				{
+					super.setSection(sectionY, palette, paletteIndices);
+					return;
+				}
+			}
+		}
+
+		Heightmap oceanFloor = this.chunk.getOrCreateHeightmapUnprimed(Heightmap.Type.OCEAN_FLOOR_WG);
+		Heightmap worldSurface = this.chunk.getOrCreateHeightmapUnprimed(Heightmap.Type.WORLD_SURFACE_WG);
+		ChunkPos pos = this.chunk.getPos();
+		ChunkSection section = this.chunk.getOrCreateSection(sectionY);
+		int minY = sectionY * Constants.CHUNK_SIZE;
+		BlockState blockState;
+		int x;
+		int y;
+		int z;
+		for(int index = 0; index < SECTION_VOLUME; index++)
+		{
+			blockState = blockStates[paletteIndices[index]];
+			if(blockState != null)
+			{
+				x = index & 15;
+				y = index >> 8;
+				z = (index >> 4) & 15;
+				section.setBlockState(x, y, z, blockState, false);
+				oceanFloor.update(x, minY + y, z, blockState);
+				worldSurface.update(x, minY + y, z, blockState);
+				if(blockState.getLightEmission() > 0)
+				{
+					this.chunk.addLight(new BlockPos(pos.getMinBlockX() + x, minY + y, pos.getMinBlockZ() + z));
+				}
+			}
+		}
+	}
+
+	// Writing directly into sections skips the light updates and heightmap 
+	// priming ChunkPrimer.setBlockState does for chunks that are past 
+	// feature generation, and air would create empty sections. Only the 
+	// worldgen heightmaps are updated, the same as vanilla noise generation.
+	private boolean canWriteSections(BlockState blockState)
+	{
+		return !blockState.isAir() && !this.chunk.getStatus().isOrAfter(ChunkStatus.FEATURES);
+	}
 	
 	public IChunk getChunk()
 	{
@@ -773,6 +773,12 @@ public final class OTGNoiseChunkGenerator extends NoiseChunkGenerator
 	{
 		return this.shadowChunkGenerator.getChunkWithoutLoadingOrCaching(this.internalGenerator, this.preset.getWorldConfig().getWorldHeightCap(), random, chunkCoord);
 	}
+
+	// Only evaluates the base terrain density, used for terrain previews.
+	public void getHeightmapWithoutGenerating(ChunkCoordinate chunkCoord, int[] heights, int[] waterLevels)
+	{
+		this.internalGenerator.getHeightmap(chunkCoord, heights, waterLevels);
+	}
 	
 	// Modpack config
 	// TODO: Move this?
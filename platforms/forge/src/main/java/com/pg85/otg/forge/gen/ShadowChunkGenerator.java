@@ -3,22 +3,24 @@ package com.pg85.otg.forge.gen;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import com.pg85.otg.forge.biome.ForgeBiome;
 import com.pg85.otg.forge.biome.OTGBiomeProvider;
 import com.pg85.otg.forge.materials.ForgeMaterialData;
 import com.pg85.otg.gen.OTGChunkGenerator;
+import com.pg85.otg.gen.ShadowChunkService;
 import com.pg85.otg.interfaces.IBiome;
 import com.pg85.otg.interfaces.ICachedBiomeProvider;
-import com.pg85.otg.util.BlockPos2D;
 import com.pg85.otg.util.ChunkCoordinate;
 import com.pg85.otg.util.FifoMap;
+import com.pg85.otg.util.StripedLongCache;
 import com.pg85.otg.util.gen.JigsawStructureData;
+import com.pg85.otg.util.helpers.MathHelper;
 import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.materials.LocalMaterials;
 
@@ -47,9 +49,9 @@ import net.minecraftforge.registries.ForgeRegistries;
  * Shadow chunk generation means generating base terrain for chunks
  * without using mc's world generation flow. OTG's chunkgenerator is
  * called internally to generate base terrain for dummy chunks in a
- * thread-safe/non-blocking way. Shadowgenned chunks are stored in a
- * fixed size FIFO cache, data is reused when base terraingen is requested
- * for those chunks via normal worldgen. Shadowgen is used for BO4's,
+ * thread-safe/non-blocking way. Shadowgenned chunks are generated and
+ * cached by a ShadowChunkService, data is reused when base terraingen is
+ * requested for those chunks via normal worldgen. Shadowgen is used for BO4's,
  * worker threads to speed up world generation and /otg mapterrain.
  *
  * Shadowgen can only be done for chunks that don't contain vanilla structures,
@@ -60,102 +62,61 @@ import net.minecraftforge.registries.ForgeRegistries;
 public class ShadowChunkGenerator
 {
 	// TODO: Add a setting to the worldconfig for the size of these caches?
-	private final FifoMap<BlockPos2D, LocalMaterialData[]> unloadedBlockColumnsCache = new FifoMap<BlockPos2D, LocalMaterialData[]>(1024);
-	private final FifoMap<ChunkCoordinate, IChunk> unloadedChunksCache = new FifoMap<ChunkCoordinate, IChunk>(512);
+	private static final int MAX_QUEUED_CHUNKS = 512;
+	private static final int MAX_CACHED_CHUNKS = 512;
+	private final StripedLongCache<LocalMaterialData[]> unloadedBlockColumnsCache = new StripedLongCache<LocalMaterialData[]>(1024);
 	private final FifoMap<ChunkCoordinate, Integer> hasVanillaStructureChunkCache = new FifoMap<ChunkCoordinate, Integer>(2048);
 	private final FifoMap<ChunkCoordinate, Integer> hasVanillaNoiseStructureChunkCache = new FifoMap<ChunkCoordinate, Integer>(2048);
 
-	private final Object workerLock = new Object();
-	private final int maxConcurrent;
-	private final Worker[] threads;
-	private boolean threadsInitialized = false;
-	private final LinkedList<ChunkCoordinate> chunksToLoad = new LinkedList<ChunkCoordinate>();
-	private final int maxQueueSize = 512;
-	private final ChunkCoordinate[] chunksBeingLoaded;
-	private final int waitTimeInMS = 25;
-	private final int idleTimeInMS = 50;
-	@SuppressWarnings("unused")
-	private int cacheHits = 0;
-	@SuppressWarnings("unused")
-	private int cacheMisses = 0;
+	private final ShadowChunkService<ForgeChunkBuffer> shadowChunkService;
 
 	public ShadowChunkGenerator(int maxConcurrentThreads)
 	{
-		this.maxConcurrent = maxConcurrentThreads;
-		this.threads = new Worker[this.maxConcurrent];
-		// chunksBeingLoaded[maxConcurrent] means worldgen thread, not a worker thread.
-		this.chunksBeingLoaded = new ChunkCoordinate[this.maxConcurrent + 1];
+		this.shadowChunkService = new ShadowChunkService<ForgeChunkBuffer>(maxConcurrentThreads, MAX_QUEUED_CHUNKS, MAX_CACHED_CHUNKS);
 	}
 
 	// Called on world unload to stop threads and release resources.
 	public void stopWorkerThreads()
 	{
-		if(this.maxConcurrent > 0)
-		{
-			for(int i = 0; i < this.maxConcurrent; i++)
-			{
-				if(this.threads[i] != null)
-				{
-					this.threads[i].stop();
-				}
-			}
-		}
+		this.shadowChunkService.shutdown();
 	}
 
 	// Whenever MC requests noisegen/base terrain gen for a chunk, it also exposes a cache of chunks currently loaded/queued.
 	// These chunks are highly likely to be requested next, so we can filter out any that need noisegen/base terrain gen and
 	// pre-emptively generate and cache them asynchronously. When MC requests those chunks a moment later as part of worldgen,
 	// we return the async generated chunk data.
+	@SuppressWarnings("deprecation")
 	public void queueChunksForWorkerThreads(WorldGenRegion worldGenRegion, StructureManager manager, IChunk chunk, ChunkGenerator chunkGenerator, OTGBiomeProvider biomeProvider, OTGChunkGenerator otgChunkGenerator, DimensionStructuresSettings dimensionStructuresSettings, int worldHeightCap)
 	{
-		if(this.maxConcurrent > 0)
+		if(!this.shadowChunkService.canQueueChunks())
 		{
-			if(!this.threadsInitialized)
+			return;
+		}
+
+		ServerWorld serverWorld = worldGenRegion.getLevel();
+		Random worldRandom = worldGenRegion.getRandom();
+		// Async Worker for generating chunks up to ChunkStatus.NOISE.
+		// Chunks that require density based smoothing for vanilla structures
+		// are left to the worldgen thread, since that cannot be done in a
+		// thread-safe/non-blocking manner.
+		Function<ChunkCoordinate, ForgeChunkBuffer> generator = chunkCoord ->
+		{
+			if(checkHasVanillaStructureWithoutLoading(serverWorld, chunkGenerator, biomeProvider, dimensionStructuresSettings, chunkCoord, otgChunkGenerator.getCachedBiomeProvider(), true))
 			{
-				for(int i = 0; i < this.maxConcurrent; i++)
-				{
-					@SuppressWarnings("deprecation")
-					Worker thread = this.new Worker(i, this.unloadedChunksCache, this.chunksToLoad, this.chunksBeingLoaded, worldGenRegion.getLevel(), chunkGenerator, biomeProvider, otgChunkGenerator, dimensionStructuresSettings, worldHeightCap);
-					this.threads[i] = thread;
-					thread.start(worldGenRegion.getRandom());
-				}
-				this.threadsInitialized = true;
+				return null;
 			}
-			synchronized(this.workerLock)
+			// Generate a chunk without loading/decorating it.
+			return getUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord);
+		};
+		for(IChunk wgrChunk : worldGenRegion.cache)
+		{
+			if(wgrChunk != chunk && !wgrChunk.getStatus().isOrAfter(ChunkStatus.NOISE))
 			{
-				if(this.chunksToLoad.size() == 0)
+				// Chunks that are already cached or queued aren't queued again.
+				this.shadowChunkService.queueChunk(ChunkCoordinate.fromChunkCoords(wgrChunk.getPos().x, wgrChunk.getPos().z), generator);
+				if(!this.shadowChunkService.canQueueChunks())
 				{
-					//OTG.log(LogMarker.INFO, "Fetching chunks for async chunkgen");
-					for(IChunk wgrChunk : worldGenRegion.cache)
-					{
-						ChunkCoordinate wgrChunkCoord = ChunkCoordinate.fromChunkCoords(wgrChunk.getPos().x, wgrChunk.getPos().z);
-						if(wgrChunk != chunk && !wgrChunk.getStatus().isOrAfter(ChunkStatus.NOISE))
-						{
-							if (!this.unloadedChunksCache.containsKey(wgrChunkCoord))
-							{
-								boolean bFound = false;
-								for(int i = 0; i < this.chunksBeingLoaded.length; i++)
-								{
-									if(this.chunksBeingLoaded[i] == wgrChunkCoord)
-									{
-										bFound = true;
-										break;
-									}
-								}
-								if(!bFound)
-								{
-									// TODO: Queue order shouldn't really matter bc
-									// of the way maxQueueSize is enforced here.
-									// Might affect cache hits/misses and waits tho, test?
-									this.chunksToLoad.addFirst(wgrChunkCoord);
-									if(this.chunksToLoad.size() == this.maxQueueSize)
-									{
-										break;
-									}
-								}
-							}
-						}
-					};
+					break;
 				}
 			}
 		}
@@ -179,106 +140,25 @@ public class ShadowChunkGenerator
 		return buffer;
 	}
 
+	// Returns the shadowgenned chunk, waiting for a worker thread if one is generating it.
+	// If null is returned, the worldgen thread generates the chunk and calls setChunkGenerated.
 	public IChunk getChunkWithWait(ChunkCoordinate chunkCoord)
 	{
-		// Fetch the chunk if it is cached, otherwise check if no other thread
-		// is generating the chunk. If not, claim the chunk and generate it.
-		// If so, wait for the other thread to finish.
-		synchronized(this.workerLock)
-		{
-			IChunk cachedChunk = this.unloadedChunksCache.get(chunkCoord);
-			if(cachedChunk != null)
-			{
-				return cachedChunk;
-			} else {
-				// If a chunk is in unloadedChunksCache but is null, it's in a chunk that
-				// shouldn't be generated async due to a vanilla structure start nearby.
-				if(this.unloadedChunksCache.containsKey(chunkCoord))
-				{
-					this.unloadedChunksCache.remove(chunkCoord);
-					this.chunksToLoad.remove(chunkCoord);
-					// MaxConcurrent means worldgen thread, not a worker thread.
-					this.chunksBeingLoaded[this.maxConcurrent] = chunkCoord;
-					return null;
-				} else {
-					boolean bFound = false;
-					for(int i = 0; i < this.chunksBeingLoaded.length; i++)
-					{
-						if(this.chunksBeingLoaded[i] == chunkCoord)
-						{
-							bFound = true;
-							break;
-						}
-					}
-					if(!bFound)
-					{
-						this.chunksToLoad.remove(chunkCoord);
-						// MaxConcurrent means worldgen thread, not a worker thread.
-						this.chunksBeingLoaded[this.maxConcurrent] = chunkCoord;
-						return null;
-					}
-				}
-			}
-		}
-
-		// A worker thread is generating the chunk, wait.
-
-		while(true)
-		{
-			try {
-				//OTG.log(LogMarker.INFO, "Waiting for chunk");
-				// TODO: If a worker thread is stuck or crashed, this may wait indefinitely.
-				Thread.sleep(this.waitTimeInMS);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-			synchronized(this.workerLock)
-			{
-				IChunk cachedChunk = this.unloadedChunksCache.get(chunkCoord);
-				if(cachedChunk != null)
-				{
-					return cachedChunk;
-				} else {
-					// If a chunk is in unloadedChunksCache but is null, it's in a chunk that
-					// shouldn't be generated async due to a vanilla structure start nearby.
-					if(this.unloadedChunksCache.containsKey(chunkCoord))
-					{
-						this.unloadedChunksCache.remove(chunkCoord);
-						this.chunksToLoad.remove(chunkCoord);
-						// MaxConcurrent means worldgen thread, not a worker thread.
-						this.chunksBeingLoaded[this.maxConcurrent] = chunkCoord;
-						return null;
-					}
-				}
-			}
-		}
+		ForgeChunkBuffer cachedChunk = this.shadowChunkService.takeChunk(chunkCoord);
+		return cachedChunk != null ? cachedChunk.getChunk() : null;
 	}
 
 	public void fillWorldGenChunkFromShadowChunk(IChunk chunk, IChunk cachedChunk)
 	{
-		ChunkCoordinate chunkCoord = ChunkCoordinate.fromChunkCoords(chunk.getPos().x, chunk.getPos().z);
 		// Re-use base terrain generated via shadowgen for worldgen.
 		((ChunkPrimer)chunk).sections = ((ChunkPrimer)cachedChunk).sections;
 		((ChunkPrimer)chunk).heightmaps = ((ChunkPrimer)cachedChunk).heightmaps;
 		((ChunkPrimer)chunk).lights = ((ChunkPrimer)cachedChunk).lights;
-		this.cacheHits++;
-		//OTG.log(LogMarker.INFO, "Cache hit " + this.cacheHits);
-		synchronized(this.workerLock)
-		{
-			this.unloadedChunksCache.remove(chunkCoord);
-		}
 	}
 
 	public void setChunkGenerated(ChunkCoordinate chunkCoord)
 	{
-		this.cacheMisses++;
-		//OTG.log(LogMarker.INFO, "Cache miss " + + this.cacheMisses);
-		synchronized(workerLock)
-		{
-			// Zero index, so MaxConcurrent means worldgen thread, not a worker thread.
-			this.chunksBeingLoaded[this.maxConcurrent] = null;
-			this.chunksToLoad.remove(chunkCoord);
-		}
+		this.shadowChunkService.setChunkGenerated(chunkCoord);
 	}
 
 	// Vanilla structure detection (avoidance)
@@ -510,7 +390,7 @@ public class ShadowChunkGenerator
 
 	private LocalMaterialData[] getBlockColumnInUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random worldRandom, int x, int z)
 	{
-		BlockPos2D blockPos = new BlockPos2D(x, z);
+		long blockPos = MathHelper.toLong(x, z);
 		ChunkCoordinate chunkCoord = ChunkCoordinate.fromBlockCoords(x, z);
 
 		// Get internal coordinates for block in chunk
@@ -524,20 +404,8 @@ public class ShadowChunkGenerator
 			return cachedColumn;
 		}
 
-		IChunk chunk = this.getChunkWithWait(chunkCoord);
-		if (chunk == null)
-		{
-			// Generate a chunk without loading/decorating it
-			chunk = getUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord).getChunk();
-			synchronized(this.workerLock)
-			{
-				this.unloadedChunksCache.put(chunkCoord, chunk);
-				// Zero index, so MaxConcurrent means worldgen thread, not a worker thread.
-				this.chunksBeingLoaded[this.maxConcurrent] = null;
-			}
-		}
-
-		cachedColumn = new LocalMaterialData[256];
+		// Generate a chunk without loading/decorating it, or wait for a worker thread generating it.
+		IChunk chunk = this.shadowChunkService.getChunk(chunkCoord, coord -> getUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, coord)).getChunk();
 
 		LocalMaterialData[] blocksInColumn = new LocalMaterialData[256];
 		BlockState blockInChunk;
@@ -551,7 +419,7 @@ public class ShadowChunkGenerator
 				break;
 			}
 		}
-		this.unloadedBlockColumnsCache.put(blockPos, cachedColumn);
+		this.unloadedBlockColumnsCache.put(blockPos, blocksInColumn);
 
 		return blocksInColumn;
 	}
@@ -590,110 +458,4 @@ public class ShadowChunkGenerator
 		}
 		return height;
 	}
-
-	// Async Worker for generating chunks up to ChunkStatus.NOISE.
-	// This is only used for chunks that don't require density based
-	// smoothing for vanilla structures, since that cannot be done
-	// in a thread-safe/non-blocking manner.
-
-	private class Worker implements Runnable
-	{
-		private Thread runner;
-		private boolean stop = false;
-		private Random worldRandom;
-
-		private final int index;
-		private final FifoMap<ChunkCoordinate, IChunk> unloadedChunksCache;
-		private final List<ChunkCoordinate> chunksToLoad;
-		private final ChunkCoordinate[] chunksBeingLoaded;
-		private final ServerWorld serverWorld;
-		private final ChunkGenerator chunkGenerator;
-		private final OTGBiomeProvider biomeProvider;
-		private final OTGChunkGenerator otgChunkGenerator;
-		private final DimensionStructuresSettings dimensionStructuresSettings;
-		private final int worldHeightCap;
-
-		Worker(int index, FifoMap<ChunkCoordinate, IChunk> unloadedChunksCache, List<ChunkCoordinate> chunksToLoad, ChunkCoordinate[] chunksBeingLoaded, ServerWorld serverWorld, ChunkGenerator chunkGenerator, OTGBiomeProvider biomeProvider, OTGChunkGenerator otgChunkGenerator, DimensionStructuresSettings dimensionStructuresSettings, int worldHeightCap)
-		{
-			this.index = index;
-			this.unloadedChunksCache = unloadedChunksCache;
-			this.chunksToLoad = chunksToLoad;
-			this.chunksBeingLoaded = chunksBeingLoaded;
-			this.serverWorld = serverWorld;
-			this.chunkGenerator = chunkGenerator;
-			this.biomeProvider  = biomeProvider;
-			this.otgChunkGenerator = otgChunkGenerator;
-			this.dimensionStructuresSettings = dimensionStructuresSettings;
-			this.worldHeightCap = worldHeightCap;
-		}
-
-		public void start(Random worldRandom)
-		{
-			this.runner = new Thread(this);
-			this.runner.start();
-			this.worldRandom = worldRandom;
-		}
-
-		public void stop()
-		{
-			this.stop = true;
-		}
-
-		@Override
-		public void run()
-		{
-			// Process chunks if any are in the queue,
-			// otherwise wait for the queue to be filled.
-			while(true)
-			{
-				if(this.stop)
-				{
-					this.stop = false;
-					return;
-				}
-
-				ChunkCoordinate coords = null;
-				int sizeLeft;
-				synchronized(workerLock)
-				{
-					sizeLeft = this.chunksToLoad.size();
-					if(sizeLeft > 0)
-					{
-						coords = this.chunksToLoad.remove(sizeLeft - 1);
-						this.chunksBeingLoaded[this.index] = coords;
-					}
-				}
-				if(coords != null)
-				{
-					if(!checkHasVanillaStructureWithoutLoading(this.serverWorld, this.chunkGenerator, this.biomeProvider, this.dimensionStructuresSettings, coords, this.otgChunkGenerator.getCachedBiomeProvider(), true))
-					{
-						// Generate a chunk without loading/decorating it.
-						IChunk cachedChunk = getUnloadedChunk(this.otgChunkGenerator, this.worldHeightCap, this.worldRandom, coords).getChunk();
-						synchronized(workerLock)
-						{
-							this.unloadedChunksCache.put(coords, cachedChunk);
-							this.chunksBeingLoaded[this.index] = null;
-						}
-					} else {
-						synchronized(workerLock)
-						{
-							// This chunk should not be shadowgenned, add it
-							// to the unloadedChunksCache as null so workers
-							// avoid it and the worldgen thread takes care
-							// of it in getChunkWithWait().
-							this.unloadedChunksCache.put(coords, null);
-							this.chunksBeingLoaded[this.index] = null;
-						}
-					}
-				} else {
-					try {
-						//OTG.log(LogMarker.INFO, "Worker " + this.index + " idle");
-						Thread.sleep(idleTimeInMS);
-					} catch (InterruptedException e) {
-						e.printStackTrace();
-					}
-				}
-			}
-		}
-	}
 }
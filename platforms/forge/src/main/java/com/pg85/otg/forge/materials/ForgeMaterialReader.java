@@ -34,14 +34,19 @@ public class ForgeMaterialReader implements IMaterialReader
 			return null;
 		}
 		
-		LocalMaterialData localMaterial = this.cachedMaterials.get(material);
-		if(localMaterial != null)
+		// Material readers are shared by all threads loading configs and objects for a preset.
+		LocalMaterialData localMaterial;
+		synchronized(this.cachedMaterials)
 		{
-			return localMaterial;
-		}
-		else if(this.cachedMaterials.containsKey(material))
-		{
-			throw new InvalidConfigException("Cannot read block: " + material);
+			localMaterial = this.cachedMaterials.get(material);
+			if(localMaterial != null)
+			{
+				return localMaterial;
+			}
+			else if(this.cachedMaterials.containsKey(material))
+			{
+				throw new InvalidConfigException("Cannot read block: " + material);
+			}
 		}
 
 		try
@@ -57,7 +62,10 @@ public class ForgeMaterialReader implements IMaterialReader
 			}
 		}
 
-		this.cachedMaterials.put(material, localMaterial);
+		synchronized(this.cachedMaterials)
+		{
+			this.cachedMaterials.put(material, localMaterial);
+		}
 		
 		return localMaterial;
 	}
@@ -70,14 +78,21 @@ public class ForgeMaterialReader implements IMaterialReader
 			return null;
 		}
 		
-		LocalMaterialTag localTag = this.cachedTags.get(tag);
+		LocalMaterialTag localTag;
+		synchronized(this.cachedTags)
+		{
+			localTag = this.cachedTags.get(tag);
+		}
 		if(localTag != null)
 		{
 			return localTag;
 		}
 
 		localTag = ForgeMaterialTag.ofString(tag);
-		this.cachedTags.put(tag, localTag);
+		synchronized(this.cachedTags)
+		{
+			this.cachedTags.put(tag, localTag);
+		}
 		return localTag;
 	}
 
@@ -38,7 +38,7 @@ public class OTGBiomeProvider extends WorldChunkManager implements ILayerSource
 	private final boolean legacyBiomeInitLayer;
 	private final boolean largeBiomes;
 	private final IRegistry<BiomeBase> registry;
-	private final ThreadLocal<CachingLayerSampler> layer;
+	private final CachingLayerSampler layer;
 	private final Int2ObjectMap<ResourceKey<BiomeBase>> keyLookup;
 	private final String presetFolderName;
 
@@ -50,7 +50,6 @@ public class OTGBiomeProvider extends WorldChunkManager implements ILayerSource
 		this.legacyBiomeInitLayer = legacyBiomeInitLayer;
 		this.largeBiomes = largeBiomes;
 		this.registry = registry;
-		this.layer = ThreadLocal.withInitial(() -> BiomeLayers.create(seed, ((SpigotPresetLoader)OTG.getEngine().getPresetLoader()).getPresetGenerationData().get(presetFolderName), OTG.getEngine().getLogger()));
 		this.keyLookup = new Int2ObjectOpenHashMap<>();
 
 		// Default to let us know if we did anything wrong
@@ -62,6 +61,9 @@ public class OTGBiomeProvider extends WorldChunkManager implements ILayerSource
 			throw new RuntimeException("No OTG preset found with name \"" + presetFolderName + "\". Install the correct preset or update your server.properties.");
 		}
 
+		// Biome layers are thread-safe, only their caches are per-thread.
+		this.layer = BiomeLayers.create(seed, ((SpigotPresetLoader)OTG.getEngine().getPresetLoader()).getPresetGenerationData().get(presetFolderName), OTG.getEngine().getLogger());
+
 		for (int biomeId = 0; biomeId < biomeLookup.length; biomeId++)
 		{
 			IBiomeConfig config = biomeLookup[biomeId].getBiomeConfig();
@@ -105,12 +107,12 @@ public class OTGBiomeProvider extends WorldChunkManager implements ILayerSource
 	{
 		// Forge name: getValueForKey
 		// Spigot name: a
-		return registry.a(keyLookup.get(this.layer.get().sample(biomeX, biomeZ)));
+		return registry.a(keyLookup.get(this.layer.sample(biomeX, biomeZ)));
 	}
 
 	@Override
 	public CachingLayerSampler getSampler ()
 	{
-		return this.layer.get();
+		return this.layer;
 	}
 }
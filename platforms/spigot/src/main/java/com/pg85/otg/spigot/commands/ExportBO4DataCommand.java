@@ -8,6 +8,7 @@ import java.util.List;
 import org.bukkit.command.CommandSender;
 import org.bukkit.craftbukkit.v1_16_R3.CraftWorld;
 import org.bukkit.entity.Player;
+import org.bukkit.util.StringUtil;
 
 import com.pg85.otg.OTG;
 import com.pg85.otg.config.ConfigFunction;
@@ -43,8 +44,8 @@ public class ExportBO4DataCommand extends BaseCommand
 	public ExportBO4DataCommand()
 	{
 		super("exportbo4data");
-		this.helpMessage = "Exports all BO4 files and BO3 files that have isOTGPlus:true as BO4Data files (if none exist already). BO4Data files can significantly reduce filesize and loading times, and should be used by OTG content creators when packaging presets for players.";
-		this.usage = "/otg exportbo4data";
+		this.helpMessage = "Exports all BO4 files and BO3 files that have isOTGPlus:true as BO4Data files (if none exist already). BO4Data files can significantly reduce filesize and loading times, and should be used by OTG content creators when packaging presets for players. Use v4 to export uncompressed BO4Data files, which are bigger but load faster, and can't be read by older versions of OTG.";
+		this.usage = "/otg exportbo4data [v4]";
 	}
 
 	public boolean execute(CommandSender sender, String[] args)
@@ -63,6 +64,7 @@ public class ExportBO4DataCommand extends BaseCommand
 			return true;
 		}
 
+		boolean uncompressed = args.length > 0 && args[0].equalsIgnoreCase("v4");
 		Preset preset = ((OTGNoiseChunkGenerator) world.getChunkProvider().getChunkGenerator()).getPreset();
         if(preset.getWorldConfig().getCustomStructureType() == CustomStructureType.BO4)
         {
@@ -108,7 +110,7 @@ public class ExportBO4DataCommand extends BaseCommand
 				        	                	
 				        	                	OTG.getEngine().getLogger().log(LogLevel.INFO, LogCategory.MAIN, "Exporting .BO4Data for structure start " + ((BO4)structure).getName());
 				        	                	boName = ((BO4)structure).getName();
-				        	                	BO4Data.generateBO4Data(((BO4)structure).getConfig(), preset.getFolderName(), OTG.getEngine().getOTGRootFolder(), OTG.getEngine().getLogger(), OTG.getEngine().getCustomObjectManager(), OTG.getEngine().getPresetLoader().getMaterialReader(preset.getFolderName()), OTG.getEngine().getCustomObjectResourcesManager(), OTG.getEngine().getModLoadedChecker());
+				        	                	BO4Data.generateBO4Data(((BO4)structure).getConfig(), uncompressed, preset.getFolderName(), OTG.getEngine().getOTGRootFolder(), OTG.getEngine().getLogger(), OTG.getEngine().getCustomObjectManager(), OTG.getEngine().getPresetLoader().getMaterialReader(preset.getFolderName()), OTG.getEngine().getCustomObjectResourcesManager(), OTG.getEngine().getModLoadedChecker());
 				        	    	            OTG.getEngine().getCustomObjectManager().getGlobalObjects().unloadCustomObjectFiles();
 			        						}
 			        					}
@@ -129,7 +131,7 @@ public class ExportBO4DataCommand extends BaseCommand
 			        	if(bo != null && bo instanceof BO4 && !BO4Data.bo4DataExists(((BO4)bo).getConfig()))
 			        	{
 			        		OTG.getEngine().getLogger().log(LogLevel.INFO, LogCategory.MAIN, "Exporting .BO4Data " + current + "/" + total + " " + boName);
-			        		BO4Data.generateBO4Data(((BO4)bo).getConfig(), preset.getFolderName(), OTG.getEngine().getOTGRootFolder(), OTG.getEngine().getLogger(), OTG.getEngine().getCustomObjectManager(), OTG.getEngine().getPresetLoader().getMaterialReader(preset.getFolderName()), OTG.getEngine().getCustomObjectResourcesManager(), OTG.getEngine().getModLoadedChecker());
+			        		BO4Data.generateBO4Data(((BO4)bo).getConfig(), uncompressed, preset.getFolderName(), OTG.getEngine().getOTGRootFolder(), OTG.getEngine().getLogger(), OTG.getEngine().getCustomObjectManager(), OTG.getEngine().getPresetLoader().getMaterialReader(preset.getFolderName()), OTG.getEngine().getCustomObjectResourcesManager(), OTG.getEngine().getModLoadedChecker());
 				            OTG.getEngine().getCustomObjectManager().getGlobalObjects().unloadCustomObjectFiles();
 			        	}
 			        }
@@ -155,6 +157,10 @@ public class ExportBO4DataCommand extends BaseCommand
 	@Override
 	public List<String> onTabComplete(CommandSender sender, String[] args)
 	{
+		if (args.length == 2)
+		{
+			return StringUtil.copyPartialMatches(args[1], Collections.singletonList("v4"), new ArrayList<>());
+		}
 		return Collections.emptyList();
 	}
 }
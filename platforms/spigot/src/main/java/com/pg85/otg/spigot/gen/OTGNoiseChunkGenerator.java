@@ -788,5 +788,11 @@ public class OTGNoiseChunkGenerator extends ChunkGenerator
 	public SpigotChunkBuffer getChunkWithoutLoadingOrCaching(Random random, ChunkCoordinate chunkCoord)
 	{
 		return this.shadowChunkGenerator.getChunkWithoutLoadingOrCaching(this.internalGenerator, this.preset.getWorldConfig().getWorldHeightCap(), random, chunkCoord);
+	}
+
+	// Only evaluates the base terrain density, used for terrain previews.
+	public void getHeightmapWithoutGenerating(ChunkCoordinate chunkCoord, int[] heights, int[] waterLevels)
+	{
+		this.internalGenerator.getHeightmap(chunkCoord, heights, waterLevels);
 	}	
 }
@@ -67,6 +67,48 @@ public class SpigotChunkBuffer extends ChunkBuffer
 		return blockData == null ? null : SpigotMaterialData.ofBlockData(blockData);
 	}
 
+	@Override
+	public void fillColumn (int blockX, int blockZ, int minY, int maxY, LocalMaterialData material)
+	{
+		if (chunkData != null)
+		{
+			// ChunkData handles region fills per section.
+			this.chunkData.setRegion(blockX, minY, blockZ, blockX + 1, maxY, blockZ + 1, ((SpigotMaterialData) material).toSpigotBlockData());
+		} else {
+			IBlockData blockData = ((SpigotMaterialData) material).internalBlock();
+			for (int y = minY; y < maxY; y++)
+			{
+				this.chunk.setType(this.mutable.d(blockX, y, blockZ), blockData, false);
+			}
+		}
+	}
+
+	@Override
+	public void setSection (int sectionY, LocalMaterialData[] palette, short[] paletteIndices)
+	{
+		if (chunkData != null)
+		{
+			super.setSection(sectionY, palette, paletteIndices);
+			return;
+		}
+		// Resolve the palette once instead of per block
+		IBlockData[] blockDatas = new IBlockData[palette.length];
+		for (int i = 0; i < palette.length; i++)
+		{
+			blockDatas[i] = palette[i] == null ? null : ((SpigotMaterialData) palette[i]).internalBlock();
+		}
+		int minY = sectionY * 16;
+		IBlockData blockData;
+		for (int index = 0; index < SECTION_VOLUME; index++)
+		{
+			blockData = blockDatas[paletteIndices[index]];
+			if (blockData != null)
+			{
+				this.chunk.setType(this.mutable.d(index & 15, minY + (index >> 8), (index >> 4) & 15), blockData, false);
+			}
+		}
+	}
+
 	public IChunkAccess getChunk()
 	{
 		return this.chunk;
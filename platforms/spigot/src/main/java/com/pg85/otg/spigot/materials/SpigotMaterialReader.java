@@ -35,14 +35,19 @@ public class SpigotMaterialReader implements IMaterialReader
 			return null;
 		}
 
-		LocalMaterialData localMaterial = this.cachedMaterials.get(material);
-		if (localMaterial != null)
+		// Material readers are shared by all threads loading configs and objects for a preset.
+		LocalMaterialData localMaterial;
+		synchronized(this.cachedMaterials)
 		{
-			return localMaterial;
-		}
-		else if (this.cachedMaterials.containsKey(material))
-		{
-			throw new InvalidConfigException("Cannot read block: " + material);
+			localMaterial = this.cachedMaterials.get(material);
+			if (localMaterial != null)
+			{
+				return localMaterial;
+			}
+			else if (this.cachedMaterials.containsKey(material))
+			{
+				throw new InvalidConfigException("Cannot read block: " + material);
+			}
 		}
 
 		try
@@ -58,7 +63,10 @@ public class SpigotMaterialReader implements IMaterialReader
 			}
 		}
 
-		this.cachedMaterials.put(material, localMaterial);
+		synchronized(this.cachedMaterials)
+		{
+			this.cachedMaterials.put(material, localMaterial);
+		}
 
 		return localMaterial;
 	}
@@ -71,14 +79,21 @@ public class SpigotMaterialReader implements IMaterialReader
 			return null;
 		}
 		
-		LocalMaterialTag localTag = this.cachedTags.get(tag);
+		LocalMaterialTag localTag;
+		synchronized(this.cachedTags)
+		{
+			localTag = this.cachedTags.get(tag);
+		}
 		if(localTag != null)
 		{
 			return localTag;
 		}
 
 		localTag = SpigotMaterialTag.ofString(tag);
-		this.cachedTags.put(tag, localTag);	
+		synchronized(this.cachedTags)
+		{
+			this.cachedTags.put(tag, localTag);
+		}	
 		return localTag;
 	}
 